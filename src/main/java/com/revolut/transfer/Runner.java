@@ -1,5 +1,7 @@
 package com.revolut.transfer;
 
+import com.revolut.transfer.controller.FastPathHandler;
+import com.revolut.transfer.protocol.BinaryTransferServer;
 import io.undertow.Undertow;
 import org.jboss.resteasy.plugins.server.undertow.UndertowJaxrsServer;
 
@@ -7,9 +9,50 @@ public class Runner {
 
 
     public static void main(final String[] args) {
-        var server = new UndertowJaxrsServer();
-        server.start(Undertow.builder().addHttpListener(8080, "localhost"));
-        server.deploy(TransferApplication.class);
+        start(RunnerOptions.parse(args));
+    }
+
+    public static TransferServer start(RunnerOptions options) {
+        return start(options, new TransferApplication(options));
+    }
+
+    public static TransferServer start(RunnerOptions options, TransferApplication application) {
+        var server = options.isFastPath() ? new FastPathJaxrsServer(application) : new UndertowJaxrsServer();
+        server.start(Undertow.builder().addHttpListener(options.getPort(), options.getHost()));
+        server.deploy(application);
+
+        BinaryTransferServer binaryServer = null;
+        if (options.getBinaryPort() != null) {
+            binaryServer = BinaryTransferServer.start(options.getHost(),
+                    options.getBinaryPort(),
+                    application.getApplicationContext().getTransferOperationService(),
+                    options.getBinaryWorkers(),
+                    options.getBinaryQueue());
+        }
+        return new TransferServer(application, server, binaryServer);
+    }
+
+    /**
+     * Puts {@link FastPathHandler} in front of the JAX-RS deployment
+     */
+    private static class FastPathJaxrsServer extends UndertowJaxrsServer {
+        private final TransferApplication application;
+
+        private FastPathJaxrsServer(TransferApplication application) {
+            this.application = application;
+        }
+
+        @Override
+        public UndertowJaxrsServer start(Undertow.Builder builder) {
+            var context = application.getApplicationContext();
+            server = builder.setHandler(new FastPathHandler(root,
+                    TransferApplication.PATH,
+                    context.getTransferOperationService(),
+                    context.getAccountRepository(),
+                    context.getAccountResponseCache())).build();
+            server.start();
+            return this;
+        }
     }
 
 
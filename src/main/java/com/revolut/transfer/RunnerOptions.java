@@ -0,0 +1,96 @@
+package com.revolut.transfer;
+
+import com.revolut.transfer.protocol.BinaryTransferServer;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Command line options of {@link Runner}. Every option is passed as {@code --name=value}.
+ */
+@Builder(toBuilder = true)
+@Getter
+public class RunnerOptions {
+
+    @Builder.Default
+    private final String host = "localhost";
+    @Builder.Default
+    private final int port = 8080;
+    /**
+     * Serve transfers and account reads with {@link com.revolut.transfer.controller.FastPathHandler}
+     */
+    private final boolean fastPath;
+    /**
+     * Port of the {@link com.revolut.transfer.protocol.BinaryTransferServer}, the listener is not started when null
+     */
+    private final Integer binaryPort;
+    @Builder.Default
+    private final int binaryWorkers = Runtime.getRuntime().availableProcessors();
+    /**
+     * Binary requests waiting for a worker, further ones are answered as overloaded
+     */
+    @Builder.Default
+    private final int binaryQueue = BinaryTransferServer.DEFAULT_WORKER_QUEUE_CAPACITY;
+    /**
+     * Directory of {@link com.revolut.transfer.repository.ledger.SegmentFileStore} files, sealed transactions stay
+     * in memory when null
+     */
+    private final Path ledgerDirectory;
+    /**
+     * File of the {@link com.revolut.transfer.service.journal.TransferJournal}, replayed on start. Nothing survives
+     * a restart when null
+     */
+    private final Path journal;
+    /**
+     * File of the {@link com.revolut.transfer.shm.BalanceTableWriter}, balances are not published when null
+     */
+    private final Path balanceTable;
+    @Builder.Default
+    private final int balanceTableCapacity = 1 << 20;
+
+    public static RunnerOptions parse(String... args) {
+        var builder = RunnerOptions.builder();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Unexpected argument " + arg + ", expected --name=value");
+            var name = arg.substring(2, arg.indexOf('='));
+            var value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "host":
+                    builder.host(value);
+                    break;
+                case "port":
+                    builder.port(Integer.parseInt(value));
+                    break;
+                case "fast-path":
+                    builder.fastPath(Boolean.parseBoolean(value));
+                    break;
+                case "binary-port":
+                    builder.binaryPort(Integer.parseInt(value));
+                    break;
+                case "binary-workers":
+                    builder.binaryWorkers(Integer.parseInt(value));
+                    break;
+                case "binary-queue":
+                    builder.binaryQueue(Integer.parseInt(value));
+                    break;
+                case "ledger-dir":
+                    builder.ledgerDirectory(Path.of(value));
+                    break;
+                case "journal":
+                    builder.journal(Path.of(value));
+                    break;
+                case "balance-table":
+                    builder.balanceTable(Path.of(value));
+                    break;
+                case "balance-table-capacity":
+                    builder.balanceTableCapacity(Integer.parseInt(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -6,14 +6,20 @@ import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 import java.util.Set;
 
-@ApplicationPath("/api/v1")
+@ApplicationPath(TransferApplication.PATH)
 @Getter
 public class TransferApplication extends Application {
 
+    public static final String PATH = "/api/v1";
+
     private final TransferApplicationContext applicationContext;
 
     public TransferApplication() {
-        this.applicationContext = TransferApplicationContext.init();
+        this(RunnerOptions.builder().build());
+    }
+
+    public TransferApplication(RunnerOptions options) {
+        this.applicationContext = TransferApplicationContext.init(options);
     }
 
 
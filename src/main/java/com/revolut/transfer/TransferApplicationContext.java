@@ -1,58 +1,230 @@
 package com.revolut.transfer;
 
 import com.revolut.transfer.controller.AccountController;
+import com.revolut.transfer.controller.AccountResponseCache;
+import com.revolut.transfer.controller.AccrualController;
+import com.revolut.transfer.controller.HoldController;
+import com.revolut.transfer.controller.ObjectMapperProvider;
+import com.revolut.transfer.controller.StatisticsController;
 import com.revolut.transfer.controller.TransferController;
+import com.revolut.transfer.controller.exception.CapacityExceededExceptionMapper;
 import com.revolut.transfer.controller.exception.EntityNotExistsExceptionMapper;
 import com.revolut.transfer.controller.exception.IllegalArgumentExceptionMapper;
 import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.model.ScheduledTransfer;
 import com.revolut.transfer.model.TransferTransaction;
 import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.ledger.SegmentFileStore;
+import com.revolut.transfer.repository.ledger.TransactionSegment;
 import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.HoldListener;
+import com.revolut.transfer.service.HoldService;
+import com.revolut.transfer.service.HoldServiceImpl;
+import com.revolut.transfer.service.ScheduledTransferService;
+import com.revolut.transfer.service.ScheduledTransferServiceImpl;
+import com.revolut.transfer.service.TransferListener;
 import com.revolut.transfer.service.TransferOperationService;
 import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.accrual.AccrualService;
+import com.revolut.transfer.service.accrual.AccrualServiceImpl;
+import com.revolut.transfer.service.history.BalanceHistoryService;
+import com.revolut.transfer.service.history.BalanceHistoryServiceImpl;
+import com.revolut.transfer.service.journal.JournalReplay;
+import com.revolut.transfer.service.journal.JournalReplayResult;
+import com.revolut.transfer.service.journal.JournaledAccountRepository;
+import com.revolut.transfer.service.journal.TransferJournal;
+import com.revolut.transfer.service.limit.OutgoingLimitService;
+import com.revolut.transfer.service.limit.OutgoingLimitServiceImpl;
+import com.revolut.transfer.service.rank.ActivitySketch;
+import com.revolut.transfer.service.rank.BalanceIndex;
+import com.revolut.transfer.service.reconcile.ReconciliationService;
+import com.revolut.transfer.service.reconcile.ReconciliationServiceImpl;
+import com.revolut.transfer.service.search.AccountNameIndex;
+import com.revolut.transfer.service.search.IndexedAccountRepository;
+import com.revolut.transfer.service.stats.StatisticsAccountRepository;
+import com.revolut.transfer.service.stats.TransferStatistics;
+import com.revolut.transfer.service.stream.TransferEventRing;
+import com.revolut.transfer.service.stream.TransferStreamService;
+import com.revolut.transfer.service.stream.TransferStreamServiceImpl;
+import com.revolut.transfer.shm.BalanceTableWriter;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 @Builder
 @Getter
-public class TransferApplicationContext {
+public class TransferApplicationContext implements AutoCloseable {
 
     private final Repository<Account> accountRepository;
     private final Repository<TransferTransaction> transferTransactionRepository;
+    private final Repository<ScheduledTransfer> scheduledTransferRepository;
+    private final Repository<Hold> holdRepository;
+    /**
+     * null when sealed transactions stay in memory
+     */
+    private final SegmentFileStore segmentFileStore;
+    /**
+     * null when journaling is disabled
+     */
+    private final TransferJournal transferJournal;
+    /**
+     * null when balances are not published to shared memory
+     */
+    private final BalanceTableWriter balanceTableWriter;
 
     private final TransferOperationService transferOperationService;
+    private final ScheduledTransferService scheduledTransferService;
+    private final HoldService holdService;
+    private final AccrualService accrualService;
+    private final OutgoingLimitService outgoingLimitService;
+    private final TransferStatistics transferStatistics;
+    private final ReconciliationService reconciliationService;
+    private final TransferStreamService transferStreamService;
+    private final BalanceHistoryService balanceHistoryService;
+    private final AccountNameIndex accountNameIndex;
+    private final BalanceIndex balanceIndex;
+    private final ActivitySketch activitySketch;
 
+    private final AccountResponseCache accountResponseCache;
     private final AccountController accountController;
     private final TransferController transferController;
+    private final HoldController holdController;
+    private final AccrualController accrualController;
+    private final StatisticsController statisticsController;
 
     private final EntityNotExistsExceptionMapper entityNotExistsExceptionMapper;
+    private final CapacityExceededExceptionMapper capacityExceededExceptionMapper;
     private final IllegalArgumentExceptionMapper illegalArgumentExceptionMapper;
+    private final ObjectMapperProvider objectMapperProvider;
 
-    static TransferApplicationContext init() {
-        var accountRepository = RepositoryStubFactory.<Account>initialize();
-        var transferTransactionRepository = RepositoryStubFactory.<TransferTransaction>initialize();
+    static TransferApplicationContext init(RunnerOptions options) {
+        var transferStatistics = new TransferStatistics();
+        var accountNameIndex = new AccountNameIndex();
+        var statisticsAccountRepository = new StatisticsAccountRepository(RepositoryStubFactory.initialize(),
+                transferStatistics);
+        var balanceIndex = new BalanceIndex(statisticsAccountRepository);
+        var activitySketch = new ActivitySketch();
+        var balanceTableWriter = options.getBalanceTable() == null
+                ? null
+                : new BalanceTableWriter(options.getBalanceTable(), options.getBalanceTableCapacity(),
+                statisticsAccountRepository);
+        Repository<Account> accountRepository = balanceTableWriter == null
+                ? new IndexedAccountRepository(statisticsAccountRepository, accountNameIndex, balanceIndex, activitySketch)
+                : new IndexedAccountRepository(statisticsAccountRepository, accountNameIndex, balanceIndex,
+                activitySketch, balanceTableWriter);
+        var replayResult = options.getJournal() == null
+                ? new JournalReplayResult(List.of(), List.of(), 0L, 0, 0L)
+                : new JournalReplay(options.getJournal()).replay(accountRepository);
+        var transferJournal = options.getJournal() == null ? null : openJournal(options);
+        if (transferJournal != null) accountRepository = new JournaledAccountRepository(accountRepository, transferJournal);
+        var segmentFileStore = options.getLedgerDirectory() == null
+                ? null
+                : new SegmentFileStore(options.getLedgerDirectory());
+        var transferTransactionRepository = segmentFileStore == null
+                ? RepositoryStubFactory.initialize(TransactionSegment::encode)
+                : RepositoryStubFactory.initialize(segmentFileStore);
+        var scheduledTransferRepository = RepositoryStubFactory.<ScheduledTransfer>initialize();
+        var holdRepository = RepositoryStubFactory.<Hold>initialize();
 
-        var transferOperationService = new TransferOperationServiceImpl(accountRepository, transferTransactionRepository);
+        var transferEventRing = new TransferEventRing();
+        var balanceHistoryService = new BalanceHistoryServiceImpl(accountRepository);
+        var replayedAt = OffsetDateTime.now(ZoneOffset.UTC);
+        for (Account account : replayResult.getAccounts()) {
+            balanceHistoryService.restore(account, replayedAt);
+        }
+        var listeners = new ArrayList<TransferListener>();
+        if (transferJournal != null) listeners.add(transferJournal);
+        listeners.addAll(List.of(transferStatistics, balanceHistoryService, balanceIndex, activitySketch));
+        if (balanceTableWriter != null) listeners.add(balanceTableWriter);
+        listeners.add(transferEventRing);
+        var transferListener = TransferListener.of(listeners.toArray(new TransferListener[0]));
+        var transferOperationService = new TransferOperationServiceImpl(accountRepository,
+                transferTransactionRepository,
+                transferListener);
+        var scheduledTransferService = new ScheduledTransferServiceImpl(transferOperationService,
+                accountRepository,
+                scheduledTransferRepository);
+        var holdService = new HoldServiceImpl(accountRepository,
+                transferTransactionRepository,
+                holdRepository,
+                transferListener,
+                transferJournal == null ? HoldListener.NONE : transferJournal);
+        for (Hold hold : replayResult.getHolds()) {
+            holdService.restore(hold);
+        }
+        var accrualService = new AccrualServiceImpl(accountRepository,
+                transferTransactionRepository,
+                transferListener,
+                transferOperationService::nextGroupId);
+        var reconciliationService = new ReconciliationServiceImpl(accountRepository,
+                transferTransactionRepository,
+                replayResult.getNetFlows());
+        var transferStreamService = new TransferStreamServiceImpl(transferEventRing);
 
-        var accountController = new AccountController(accountRepository);
-        var transferController = new TransferController(transferOperationService);
+        var accountResponseCache = new AccountResponseCache();
+        var outgoingLimitService = new OutgoingLimitServiceImpl(accountRepository);
+        var accountController = new AccountController(accountRepository,
+                accountResponseCache,
+                balanceHistoryService,
+                accountNameIndex,
+                outgoingLimitService);
+        var transferController = new TransferController(transferOperationService,
+                scheduledTransferService,
+                transferStreamService);
+        var holdController = new HoldController(holdService);
+        var accrualController = new AccrualController(accrualService);
+        var statisticsController = new StatisticsController(transferStatistics,
+                accountRepository,
+                reconciliationService,
+                balanceIndex,
+                activitySketch);
 
         var entityNotExistsExceptionMapper = new EntityNotExistsExceptionMapper();
+        var capacityExceededExceptionMapper = new CapacityExceededExceptionMapper();
         var illegalArgumentExceptionMapper = new IllegalArgumentExceptionMapper();
+        var objectMapperProvider = new ObjectMapperProvider();
 
         return TransferApplicationContext.builder()
                 .accountRepository(accountRepository)
                 .transferTransactionRepository(transferTransactionRepository)
+                .scheduledTransferRepository(scheduledTransferRepository)
+                .holdRepository(holdRepository)
+                .segmentFileStore(segmentFileStore)
+                .transferJournal(transferJournal)
+                .balanceTableWriter(balanceTableWriter)
                 .transferOperationService(transferOperationService)
+                .scheduledTransferService(scheduledTransferService)
+                .holdService(holdService)
+                .accrualService(accrualService)
+                .outgoingLimitService(outgoingLimitService)
+                .transferStatistics(transferStatistics)
+                .reconciliationService(reconciliationService)
+                .transferStreamService(transferStreamService)
+                .balanceHistoryService(balanceHistoryService)
+                .accountNameIndex(accountNameIndex)
+                .balanceIndex(balanceIndex)
+                .activitySketch(activitySketch)
+                .accountResponseCache(accountResponseCache)
                 .accountController(accountController)
                 .transferController(transferController)
+                .holdController(holdController)
+                .accrualController(accrualController)
+                .statisticsController(statisticsController)
                 .entityNotExistsExceptionMapper(entityNotExistsExceptionMapper)
+                .capacityExceededExceptionMapper(capacityExceededExceptionMapper)
                 .illegalArgumentExceptionMapper(illegalArgumentExceptionMapper)
+                .objectMapperProvider(objectMapperProvider)
                 .build();
     }
 
@@ -60,8 +232,33 @@ public class TransferApplicationContext {
         return Set.of(
                 transferController,
                 accountController,
+                holdController,
+                accrualController,
+                statisticsController,
                 illegalArgumentExceptionMapper,
-                entityNotExistsExceptionMapper
+                entityNotExistsExceptionMapper,
+                capacityExceededExceptionMapper,
+                objectMapperProvider
         );
     }
+
+    @Override
+    public void close() {
+        scheduledTransferService.close();
+        holdService.close();
+        accrualService.close();
+        reconciliationService.close();
+        transferStreamService.close();
+        if (segmentFileStore != null) segmentFileStore.close();
+        if (transferJournal != null) transferJournal.close();
+        if (balanceTableWriter != null) balanceTableWriter.close();
+    }
+
+    private static TransferJournal openJournal(RunnerOptions options) {
+        try {
+            return new TransferJournal(options.getJournal());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.revolut.transfer;
+
+import com.revolut.transfer.protocol.BinaryTransferServer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jboss.resteasy.plugins.server.undertow.UndertowJaxrsServer;
+
+/**
+ * Listeners started by {@link Runner} for one {@link TransferApplication}
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@Getter
+public class TransferServer implements AutoCloseable {
+    private final TransferApplication application;
+    private final UndertowJaxrsServer httpServer;
+    /**
+     * null when the binary listener is disabled
+     */
+    private final BinaryTransferServer binaryServer;
+
+    public void stop() {
+        if (binaryServer != null) binaryServer.close();
+        httpServer.stop();
+        application.getApplicationContext().close();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+}
@@ -1,35 +1,124 @@
 package com.revolut.transfer.controller;
 
 import com.revolut.transfer.controller.request.CreateAccountRequest;
+import com.revolut.transfer.controller.request.LookupAccountsRequest;
+import com.revolut.transfer.controller.request.SetLimitsRequest;
 import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountBalance;
+import com.revolut.transfer.model.AccountLimits;
+import com.revolut.transfer.model.AccountLookup;
+import com.revolut.transfer.model.AccountPage;
 import com.revolut.transfer.repository.Repository;
 import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.history.BalanceHistoryService;
+import com.revolut.transfer.service.limit.OutgoingLimitService;
+import com.revolut.transfer.service.search.AccountNameIndex;
 import lombok.RequiredArgsConstructor;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import java.math.BigDecimal;
-import java.util.List;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 
 @Path("/account")
 @RequiredArgsConstructor
 public class AccountController {
 
+    public static final int MAX_LOOKUP_IDS = 1000;
+
     private final Repository<Account> accountRepository;
+    private final AccountResponseCache responseCache;
+    private final BalanceHistoryService balanceHistoryService;
+    private final AccountNameIndex nameIndex;
+    private final OutgoingLimitService outgoingLimitService;
 
+    /**
+     * Responds with 304 when {@code If-None-Match} matches the current version, otherwise with the cached body
+     */
     @GET
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Account getAccount(@PathParam("id") Long accountId) {
-        return accountRepository.get(accountId)
+    public Response getAccount(@PathParam("id") Long accountId,
+                               @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        var account = accountRepository.get(accountId)
                 .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(accountId));
+        var etag = AccountResponseCache.etag(account);
+        if (AccountResponseCache.matches(ifNoneMatch, etag)) {
+            return Response.notModified()
+                    .header(HttpHeaders.ETAG, etag)
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .build();
+        }
+        var entry = responseCache.get(account);
+        return Response.ok(entry.getBody(), MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.ETAG, entry.getEtag())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .build();
+    }
+
+    /**
+     * @param at ISO-8601 date-time, e.g. {@code 2030-01-01T10:00:00Z}
+     */
+    @GET
+    @Path("/{id}/balance")
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccountBalance getBalanceAt(@PathParam("id") Long accountId, @QueryParam("at") String at) {
+        if (at == null || at.isEmpty()) throw new IllegalArgumentException("Point in time cannot be null or empty");
+        OffsetDateTime dateTime;
+        try {
+            dateTime = OffsetDateTime.parse(at);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Point in time must be ISO-8601 date-time with offset");
+        }
+        return balanceHistoryService.getBalanceAt(accountId, dateTime);
+    }
+
+    @GET
+    @Path("/{id}/limits")
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccountLimits getLimits(@PathParam("id") Long accountId) {
+        return outgoingLimitService.getLimits(accountId);
+    }
 
+    /**
+     * Replaces both limits, an omitted limit is removed
+     */
+    @PUT
+    @Path("/{id}/limits")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccountLimits setLimits(@PathParam("id") Long accountId, SetLimitsRequest request) {
+        if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
+        return outgoingLimitService.setLimits(accountId, request.getHourlyLimit(), request.getDailyLimit());
     }
 
+    /**
+     * Without {@code namePrefix} responds with snapshots of all accounts, with it - with one {@link AccountPage} of
+     * accounts whose names start with the prefix
+     */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Account> getAll() {
-        return accountRepository.getAll();
+    public Response getAll(@QueryParam("namePrefix") String namePrefix,
+                           @QueryParam("afterId") Long afterId,
+                           @QueryParam("limit") Integer limit) {
+        if (namePrefix == null) {
+            var accounts = accountRepository.getAll();
+            var snapshots = new ArrayList<Account>(accounts.size());
+            for (Account account : accounts) {
+                if (!account.isInternal()) snapshots.add(account.snapshot());
+            }
+            return Response.ok(snapshots).build();
+        }
+        Account after = null;
+        if (afterId != null) {
+            after = accountRepository.get(afterId)
+                    .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(afterId));
+        }
+        return Response.ok(nameIndex.find(namePrefix, after, limit)).build();
     }
 
     @POST
@@ -40,7 +129,37 @@ public class AccountController {
         var account = new Account();
         account.setName(request.getName());
         account.setBalance(request.getBalance());
-        return accountRepository.create(account);
+        return accountRepository.create(account).snapshot();
+    }
+
+    /**
+     * Finds all requested accounts by one repository call instead of one request per account
+     */
+    @POST
+    @Path("/lookup")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccountLookup lookup(LookupAccountsRequest request) {
+        if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
+        var ids = request.getIds();
+        if (ids == null) throw new IllegalArgumentException("Account ids cannot be null");
+        if (ids.size() > MAX_LOOKUP_IDS)
+            throw new IllegalArgumentException("At most " + MAX_LOOKUP_IDS + " accounts can be looked up at once");
+        if (ids.contains(null)) throw new IllegalArgumentException("Account id cannot be null");
+
+        var found = accountRepository.getAll(ids);
+        // found accounts keep the order of the ids, so every id either is the next found account or is missing
+        var accounts = new ArrayList<Account>(found.size());
+        var missingIds = new ArrayList<Long>();
+        var next = 0;
+        for (Long id : ids) {
+            if (next < found.size() && found.get(next).getId().equals(id)) {
+                accounts.add(found.get(next++).snapshot());
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new AccountLookup(accounts, missingIds);
     }
 
     private void validateRequest(CreateAccountRequest request) {
@@ -0,0 +1,99 @@
+package com.revolut.transfer.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.transfer.model.Account;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Direct mapped cache of serialized account representations keyed by account id and {@link Account#getVersion()}.
+ * An entry is valid as long as the account has not been updated, so it never has to be invalidated explicitly;
+ * colliding accounts simply overwrite each other's slot.
+ */
+public class AccountResponseCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final ObjectMapper objectMapper;
+
+    public AccountResponseCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AccountResponseCache(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a positive power of two");
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.objectMapper = ObjectMapperProvider.createObjectMapper();
+    }
+
+    /**
+     * @return serialized representation of the current account state
+     */
+    public Entry get(Account account) {
+        var id = account.getId();
+        var slot = slot(id);
+        var entry = entries.get(slot);
+        if (entry != null && entry.id == id && entry.version == account.stableVersion()) return entry;
+
+        var snapshot = account.snapshot();
+        try {
+            entry = new Entry(id, snapshot.getVersion(), objectMapper.writeValueAsBytes(snapshot));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        entries.set(slot, entry);
+        return entry;
+    }
+
+    /**
+     * @return entity tag of the current account state, does not serialize anything
+     */
+    public static String etag(Account account) {
+        return etag(account.getId(), account.stableVersion());
+    }
+
+    /**
+     * @param ifNoneMatch value of the {@code If-None-Match} header, may be null
+     * @return true if the header lists the given tag, weak comparison is used as for conditional GET
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private int slot(long id) {
+        var hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static String etag(long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Entry {
+        private final long id;
+        private final long version;
+        private final byte[] body;
+
+        public String getEtag() {
+            return etag(id, version);
+        }
+    }
+}
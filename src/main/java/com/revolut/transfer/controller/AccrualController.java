@@ -0,0 +1,55 @@
+package com.revolut.transfer.controller;
+
+import com.revolut.transfer.controller.request.StartAccrualRequest;
+import com.revolut.transfer.model.AccrualProgress;
+import com.revolut.transfer.service.accrual.AccrualRate;
+import com.revolut.transfer.service.accrual.AccrualService;
+import lombok.RequiredArgsConstructor;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+
+@Path("/accrual")
+@RequiredArgsConstructor
+public class AccrualController {
+
+    public static final int DEFAULT_PARALLELISM = 2;
+
+    private final AccrualService accrualService;
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccrualProgress start(StartAccrualRequest request) {
+        validateRequest(request);
+        var rate = request.getInterestRate() != null
+                ? AccrualRate.interest(request.getInterestRate())
+                : AccrualRate.fee(request.getFee());
+        return accrualService.start(request.getSettlementAccountId(),
+                rate,
+                request.getParallelism() == null ? DEFAULT_PARALLELISM : request.getParallelism(),
+                request.getAccountsPerSecond() == null ? 0 : request.getAccountsPerSecond());
+    }
+
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccrualProgress get(@PathParam("id") Long id) {
+        return accrualService.get(id);
+    }
+
+    @POST
+    @Path("/{id}/cancel")
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccrualProgress cancel(@PathParam("id") Long id) {
+        return accrualService.cancel(id);
+    }
+
+    private void validateRequest(StartAccrualRequest request) {
+        if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
+        if (request.getSettlementAccountId() == null)
+            throw new IllegalArgumentException("Settlement account id cannot be null");
+        if ((request.getInterestRate() == null) == (request.getFee() == null))
+            throw new IllegalArgumentException("Exactly one of interest rate and fee must be given");
+    }
+}
@@ -0,0 +1,169 @@
+package com.revolut.transfer.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.transfer.controller.exception.MessageContainer;
+import com.revolut.transfer.controller.request.TransferRequest;
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Raw Undertow handler serving {@code POST /transfer} and {@code GET /account/{id}} without the JAX-RS dispatch.
+ * Everything it does not recognize, including requests with a non-JSON content type, is passed to the next
+ * handler, so responses for the fast paths are the same as the ones produced by {@link TransferController},
+ * {@link AccountController} and the registered exception mappers. Both paths run on a worker thread, the io thread
+ * only parses the request line and collects the body, and unexpected exceptions end up as a 500 just like in an
+ * unmapped JAX-RS resource.
+ */
+public class FastPathHandler implements HttpHandler {
+
+    private static final String APPLICATION_JSON = "application/json";
+    private static final Logger LOGGER = Logger.getLogger(FastPathHandler.class.getName());
+
+    private final HttpHandler next;
+    private final String transferPath;
+    private final String accountPathPrefix;
+    private final TransferOperationService transferService;
+    private final Repository<Account> accountRepository;
+    private final AccountResponseCache accountResponseCache;
+    private final ObjectMapper objectMapper;
+
+    public FastPathHandler(HttpHandler next,
+                           String applicationPath,
+                           TransferOperationService transferService,
+                           Repository<Account> accountRepository,
+                           AccountResponseCache accountResponseCache) {
+        this.next = next;
+        this.transferPath = applicationPath + "/transfer";
+        this.accountPathPrefix = applicationPath + "/account/";
+        this.transferService = transferService;
+        this.accountRepository = accountRepository;
+        this.accountResponseCache = accountResponseCache;
+        this.objectMapper = ObjectMapperProvider.createObjectMapper();
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        var path = exchange.getRequestPath();
+        var method = exchange.getRequestMethod();
+        if (Methods.POST.equals(method) && path.equals(transferPath) && isJson(exchange)) {
+            // the body is collected from pooled buffers by the io thread, locking happens on a worker
+            exchange.getRequestReceiver().receiveFullBytes(
+                    (ex, body) -> ex.dispatch(() -> handleTransfer(ex, body)));
+            return;
+        }
+        if (Methods.GET.equals(method) && path.startsWith(accountPathPrefix)) {
+            var accountId = parseId(path.substring(accountPathPrefix.length()));
+            if (accountId != null) {
+                // the repository lookup and serialization of a cache miss are kept off the io thread
+                exchange.dispatch(() -> handleGetAccount(exchange, accountId));
+                return;
+            }
+        }
+        next.handleRequest(exchange);
+    }
+
+    private void handleTransfer(HttpServerExchange exchange, byte[] body) {
+        try {
+            var request = body.length == 0 ? null : objectMapper.readValue(body, TransferRequest.class);
+            TransferController.validateRequest(request);
+            var transaction = transferService.transfer(request.getFromId(), request.getToId(), request.getAmount());
+            send(exchange, StatusCodes.OK, transaction);
+        } catch (JsonProcessingException e) {
+            send(exchange, StatusCodes.BAD_REQUEST, MessageContainer.from(new IllegalArgumentException(e.getOriginalMessage())));
+        } catch (IllegalArgumentException e) {
+            send(exchange, StatusCodes.BAD_REQUEST, MessageContainer.from(e));
+        } catch (EntityNotExistsException e) {
+            send(exchange, StatusCodes.NOT_FOUND, MessageContainer.from(e));
+        } catch (IOException e) {
+            send(exchange, StatusCodes.INTERNAL_SERVER_ERROR, MessageContainer.from(new IllegalStateException(e)));
+        } catch (RuntimeException e) {
+            fail(exchange, e);
+        }
+    }
+
+    private void handleGetAccount(HttpServerExchange exchange, long accountId) {
+        try {
+            getAccount(exchange, accountId);
+        } catch (RuntimeException e) {
+            fail(exchange, e);
+        }
+    }
+
+    private void getAccount(HttpServerExchange exchange, long accountId) {
+        var account = accountRepository.get(accountId);
+        if (account.isEmpty()) {
+            send(exchange, StatusCodes.NOT_FOUND, MessageContainer.from(EntityNotExistsException.accountNotFoundById(accountId)));
+            return;
+        }
+        var headers = exchange.getResponseHeaders();
+        headers.put(Headers.CACHE_CONTROL, "no-cache");
+        var etag = AccountResponseCache.etag(account.get());
+        if (AccountResponseCache.matches(exchange.getRequestHeaders().getFirst(Headers.IF_NONE_MATCH), etag)) {
+            headers.put(Headers.ETAG, etag);
+            exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            exchange.endExchange();
+            return;
+        }
+        var entry = accountResponseCache.get(account.get());
+        headers.put(Headers.ETAG, entry.getEtag());
+        headers.put(Headers.CONTENT_TYPE, APPLICATION_JSON);
+        exchange.setStatusCode(StatusCodes.OK);
+        exchange.getResponseSender().send(ByteBuffer.wrap(entry.getBody()));
+    }
+
+    private static void fail(HttpServerExchange exchange, RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Unexpected failure of " + exchange.getRequestPath(), e);
+        if (exchange.isResponseStarted()) {
+            exchange.endExchange();
+            return;
+        }
+        exchange.getResponseHeaders().clear();
+        exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+        exchange.endExchange();
+    }
+
+    private void send(HttpServerExchange exchange, int status, Object entity) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+            exchange.endExchange();
+            return;
+        }
+        exchange.setStatusCode(status);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, APPLICATION_JSON);
+        exchange.getResponseSender().send(ByteBuffer.wrap(body));
+    }
+
+    private static boolean isJson(HttpServerExchange exchange) {
+        var contentType = exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
+        return contentType != null && contentType.startsWith(APPLICATION_JSON);
+    }
+
+    private static Long parseId(String value) {
+        if (value.isEmpty() || value.length() > 19) return null;
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if ((c < '0' || c > '9') && !(i == 0 && c == '-' && value.length() > 1)) return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.revolut.transfer.controller;
+
+import com.revolut.transfer.controller.request.CaptureHoldRequest;
+import com.revolut.transfer.controller.request.PlaceHoldRequest;
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.HoldService;
+import lombok.RequiredArgsConstructor;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import java.time.Duration;
+
+@Path("/hold")
+@RequiredArgsConstructor
+public class HoldController {
+
+    private final HoldService holdService;
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Hold place(PlaceHoldRequest request) {
+        validateRequest(request);
+        return holdService.place(request.getAccountId(), request.getAmount(), Duration.ofSeconds(request.getTtlSeconds()));
+    }
+
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Hold get(@PathParam("id") Long id) {
+        return holdService.get(id);
+    }
+
+    @POST
+    @Path("/{id}/capture")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public TransferTransaction capture(@PathParam("id") Long id, CaptureHoldRequest request) {
+        if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
+        if (request.getToId() == null) throw new IllegalArgumentException("To id cannot be null");
+        return holdService.capture(id, request.getToId(), request.getAmount());
+    }
+
+    @POST
+    @Path("/{id}/release")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Hold release(@PathParam("id") Long id) {
+        return holdService.release(id);
+    }
+
+    private void validateRequest(PlaceHoldRequest request) {
+        if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
+        if (request.getAccountId() == null) throw new IllegalArgumentException("Account id cannot be null");
+        if (request.getAmount() == null) throw new IllegalArgumentException("Amount of hold cannot be null");
+        if (request.getTtlSeconds() == null) throw new IllegalArgumentException("Hold time to live cannot be null");
+    }
+}
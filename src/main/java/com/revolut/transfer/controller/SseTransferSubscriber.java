@@ -0,0 +1,62 @@
+package com.revolut.transfer.controller;
+
+import com.revolut.transfer.model.TransferStreamGap;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.stream.TransferSubscriber;
+import lombok.RequiredArgsConstructor;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+/**
+ * Writes transfers as {@code transfer} events and gaps as {@code gap} events. Event ids are stream sequences,
+ * the id of a gap is the last dropped one, so a client reconnecting with {@code Last-Event-ID} resumes right
+ * where it stopped.
+ */
+@RequiredArgsConstructor
+class SseTransferSubscriber implements TransferSubscriber {
+
+    static final String TRANSFER_EVENT = "transfer";
+    static final String GAP_EVENT = "gap";
+
+    private final SseEventSink sink;
+    private final Sse sse;
+
+    @Override
+    public boolean onTransfer(long sequence, TransferTransaction transaction) {
+        return send(sse.newEventBuilder()
+                .id(Long.toString(sequence))
+                .name(TRANSFER_EVENT)
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(TransferTransaction.class, transaction)
+                .build());
+    }
+
+    @Override
+    public boolean onGap(long missedFrom, long resumeFrom) {
+        return send(sse.newEventBuilder()
+                .id(Long.toString(resumeFrom - 1))
+                .name(GAP_EVENT)
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(TransferStreamGap.class, new TransferStreamGap(missedFrom, resumeFrom))
+                .build());
+    }
+
+    @Override
+    public boolean isClosed() {
+        return sink.isClosed();
+    }
+
+    private boolean send(OutboundSseEvent event) {
+        try {
+            // waiting for the write keeps a slow client from piling up events, it falls behind instead
+            sink.send(event).toCompletableFuture().join();
+            return true;
+        } catch (RuntimeException e) {
+            sink.close();
+            return false;
+        }
+    }
+}
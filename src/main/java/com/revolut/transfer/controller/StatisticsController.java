@@ -0,0 +1,73 @@
+package com.revolut.transfer.controller;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountActivity;
+import com.revolut.transfer.model.AccountTurnover;
+import com.revolut.transfer.model.RankedBalance;
+import com.revolut.transfer.model.ReconciliationReport;
+import com.revolut.transfer.model.TransferStatisticsSummary;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.rank.ActivitySketch;
+import com.revolut.transfer.service.rank.BalanceIndex;
+import com.revolut.transfer.service.reconcile.ReconciliationService;
+import com.revolut.transfer.service.stats.TransferStatistics;
+import lombok.RequiredArgsConstructor;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Path("/stats")
+@RequiredArgsConstructor
+public class StatisticsController {
+
+    private final TransferStatistics statistics;
+    private final Repository<Account> accountRepository;
+    private final ReconciliationService reconciliationService;
+    private final BalanceIndex balanceIndex;
+    private final ActivitySketch activitySketch;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public TransferStatisticsSummary getSummary() {
+        return statistics.getSummary();
+    }
+
+    @GET
+    @Path("/account/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public AccountTurnover getTurnover(@PathParam("id") Long accountId) {
+        accountRepository.get(accountId).orElseThrow(() -> EntityNotExistsException.accountNotFoundById(accountId));
+        return statistics.getTurnover(accountId);
+    }
+
+    @GET
+    @Path("/reconciliation")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ReconciliationReport getReconciliationReport() {
+        return reconciliationService.getReport();
+    }
+
+    @GET
+    @Path("/top-balances")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<RankedBalance> getTopBalances(@QueryParam("limit") @DefaultValue("10") int limit,
+                                              @QueryParam("above") BigDecimal above,
+                                              @QueryParam("below") BigDecimal below) {
+        return balanceIndex.find(above, below, limit);
+    }
+
+    @GET
+    @Path("/most-active")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<AccountActivity> getMostActive(@QueryParam("limit") @DefaultValue("10") int limit) {
+        return activitySketch.top(limit);
+    }
+}
@@ -1,34 +1,108 @@
 package com.revolut.transfer.controller;
 
+import com.revolut.transfer.controller.request.MultiLegTransferRequest;
+import com.revolut.transfer.controller.request.ScheduledTransferRequest;
 import com.revolut.transfer.controller.request.TransferRequest;
+import com.revolut.transfer.model.ScheduledTransfer;
+import com.revolut.transfer.model.TransferGroup;
 import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.ScheduledTransferService;
 import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.stream.TransferStreamService;
 import lombok.RequiredArgsConstructor;
 
-import javax.ws.rs.Consumes;
-import javax.ws.rs.POST;
-import javax.ws.rs.Path;
-import javax.ws.rs.Produces;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.concurrent.CompletionStage;
 
 @Path("/transfer")
 @RequiredArgsConstructor
 public class TransferController {
 
     private final TransferOperationService transferService;
+    private final ScheduledTransferService scheduledTransferService;
+    private final TransferStreamService transferStreamService;
 
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public TransferTransaction transfer(TransferRequest request) {
+    public CompletionStage<TransferTransaction> transfer(TransferRequest request) {
         validateRequest(request);
-        return transferService.transfer(request.getFromId(), request.getToId(), request.getAmount());
+        return transferService.transferAsync(request.getFromId(), request.getToId(), request.getAmount());
     }
 
-    private void validateRequest(TransferRequest request) {
+    @POST
+    @Path("/multi-leg")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public TransferGroup transfer(MultiLegTransferRequest request) {
+        if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
+        return transferService.transfer(request.getDebits(), request.getCredits());
+    }
+
+    @POST
+    @Path("/scheduled")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public ScheduledTransfer schedule(ScheduledTransferRequest request) {
+        validateRequest(request);
+        return scheduledTransferService.schedule(request.getFromId(),
+                request.getToId(),
+                request.getAmount(),
+                request.getExecuteAt());
+    }
+
+    @GET
+    @Path("/scheduled/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ScheduledTransfer getScheduled(@PathParam("id") Long id) {
+        return scheduledTransferService.get(id);
+    }
+
+    @DELETE
+    @Path("/scheduled/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ScheduledTransfer cancelScheduled(@PathParam("id") Long id) {
+        return scheduledTransferService.cancel(id);
+    }
+
+    /**
+     * Server-sent events of committed transfers, resumed after {@code Last-Event-ID} while it is still buffered
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void stream(@QueryParam("accountId") Long accountId,
+                       @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+                       @Context SseEventSink sink,
+                       @Context Sse sse) {
+        Long lastSequence = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                lastSequence = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Last event id must be a number");
+            }
+        }
+        transferStreamService.subscribe(accountId, lastSequence, new SseTransferSubscriber(sink, sse));
+    }
+
+    static void validateRequest(TransferRequest request) {
+        if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
+        if (request.getFromId() == null) throw new IllegalArgumentException("From id cannot be null");
+        if (request.getToId() == null) throw new IllegalArgumentException("To id cannot be null");
+        if (request.getAmount() == null) throw new IllegalArgumentException("Amount of transfer cannot be null");
+    }
+
+    private void validateRequest(ScheduledTransferRequest request) {
         if (request == null) throw new IllegalArgumentException("Incoming request cannot be null");
         if (request.getFromId() == null) throw new IllegalArgumentException("From id cannot be null");
         if (request.getToId() == null) throw new IllegalArgumentException("To id cannot be null");
         if (request.getAmount() == null) throw new IllegalArgumentException("Amount of transfer cannot be null");
+        if (request.getExecuteAt() == null) throw new IllegalArgumentException("Execution time cannot be null");
     }
 }
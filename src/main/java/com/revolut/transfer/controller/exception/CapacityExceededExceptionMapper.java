@@ -0,0 +1,20 @@
+package com.revolut.transfer.controller.exception;
+
+import com.revolut.transfer.service.exception.CapacityExceededException;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+@Provider
+public class CapacityExceededExceptionMapper implements ExceptionMapper<CapacityExceededException> {
+    @Override
+    public Response toResponse(CapacityExceededException exception) {
+        return Response
+                .status(Response.Status.SERVICE_UNAVAILABLE)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(MessageContainer.from(exception))
+                .build();
+    }
+}
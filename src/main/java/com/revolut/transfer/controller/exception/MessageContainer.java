@@ -11,7 +11,7 @@ import lombok.Setter;
 public class MessageContainer {
     private final String message;
 
-    static MessageContainer from(RuntimeException ex) {
+    public static MessageContainer from(RuntimeException ex) {
         return new MessageContainer(ex.getLocalizedMessage());
     }
 }
@@ -0,0 +1,23 @@
+package com.revolut.transfer.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class CaptureHoldRequest {
+    private final Long toId;
+    /**
+     * Amount to capture, whole hold when absent
+     */
+    private final BigDecimal amount;
+
+    @JsonCreator
+    public CaptureHoldRequest(@JsonProperty("toId") Long toId,
+                              @JsonProperty("amount") BigDecimal amount) {
+        this.toId = toId;
+        this.amount = amount;
+    }
+}
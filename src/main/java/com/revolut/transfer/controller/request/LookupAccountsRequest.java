@@ -0,0 +1,23 @@
+package com.revolut.transfer.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+public class LookupAccountsRequest {
+
+    @JsonProperty("ids")
+    private final List<Long> ids;
+
+    @JsonCreator
+    public LookupAccountsRequest(@JsonProperty("ids") List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,21 @@
+package com.revolut.transfer.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.revolut.transfer.model.TransferLeg;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MultiLegTransferRequest {
+    private final List<TransferLeg> debits;
+    private final List<TransferLeg> credits;
+
+    @JsonCreator
+    public MultiLegTransferRequest(@JsonProperty("debits") List<TransferLeg> debits,
+                                   @JsonProperty("credits") List<TransferLeg> credits) {
+        this.debits = debits;
+        this.credits = credits;
+    }
+}
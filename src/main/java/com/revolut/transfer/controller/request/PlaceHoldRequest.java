@@ -0,0 +1,23 @@
+package com.revolut.transfer.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class PlaceHoldRequest {
+    private final Long accountId;
+    private final BigDecimal amount;
+    private final Long ttlSeconds;
+
+    @JsonCreator
+    public PlaceHoldRequest(@JsonProperty("accountId") Long accountId,
+                            @JsonProperty("amount") BigDecimal amount,
+                            @JsonProperty("ttlSeconds") Long ttlSeconds) {
+        this.accountId = accountId;
+        this.amount = amount;
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -0,0 +1,27 @@
+package com.revolut.transfer.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+@Getter
+public class ScheduledTransferRequest {
+    private final Long fromId;
+    private final Long toId;
+    private final BigDecimal amount;
+    private final OffsetDateTime executeAt;
+
+    @JsonCreator
+    public ScheduledTransferRequest(@JsonProperty("fromId") Long fromId,
+                                    @JsonProperty("toId") Long toId,
+                                    @JsonProperty("amount") BigDecimal amount,
+                                    @JsonProperty("executeAt") OffsetDateTime executeAt) {
+        this.fromId = fromId;
+        this.toId = toId;
+        this.amount = amount;
+        this.executeAt = executeAt;
+    }
+}
@@ -0,0 +1,20 @@
+package com.revolut.transfer.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class SetLimitsRequest {
+    private final BigDecimal hourlyLimit;
+    private final BigDecimal dailyLimit;
+
+    @JsonCreator
+    public SetLimitsRequest(@JsonProperty("hourlyLimit") BigDecimal hourlyLimit,
+                            @JsonProperty("dailyLimit") BigDecimal dailyLimit) {
+        this.hourlyLimit = hourlyLimit;
+        this.dailyLimit = dailyLimit;
+    }
+}
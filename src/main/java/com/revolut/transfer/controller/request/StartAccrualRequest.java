@@ -0,0 +1,29 @@
+package com.revolut.transfer.controller.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class StartAccrualRequest {
+    private final Long settlementAccountId;
+    private final BigDecimal interestRate;
+    private final BigDecimal fee;
+    private final Integer parallelism;
+    private final Integer accountsPerSecond;
+
+    @JsonCreator
+    public StartAccrualRequest(@JsonProperty("settlementAccountId") Long settlementAccountId,
+                               @JsonProperty("interestRate") BigDecimal interestRate,
+                               @JsonProperty("fee") BigDecimal fee,
+                               @JsonProperty("parallelism") Integer parallelism,
+                               @JsonProperty("accountsPerSecond") Integer accountsPerSecond) {
+        this.settlementAccountId = settlementAccountId;
+        this.interestRate = interestRate;
+        this.fee = fee;
+        this.parallelism = parallelism;
+        this.accountsPerSecond = accountsPerSecond;
+    }
+}
@@ -1,15 +1,119 @@
 package com.revolut.transfer.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Getter
 @Setter
 @NoArgsConstructor
+@JsonIgnoreProperties(value = "availableBalance", allowGetters = true)
 public class Account extends AbstractEntity {
     private String name;
-    private BigDecimal balance;
+    private volatile BigDecimal balance;
+    /**
+     * Balance the account was created with, the current balance is the opening one plus credits minus debits
+     */
+    private BigDecimal openingBalance;
+    /**
+     * Balance history starts at this instant, earlier point-in-time balances do not exist
+     */
+    private OffsetDateTime createdAt;
+    /**
+     * Part of the balance reserved by active {@link Hold}s
+     */
+    private volatile BigDecimal heldBalance = BigDecimal.ZERO;
+    /**
+     * Incremented before and after every change of the balances, so it is odd while a change is in progress.
+     * Readers use it as a sequence lock to take consistent snapshots without the account lock.
+     */
+    private volatile long version;
+    /**
+     * Guards every change of the balances. Transfers spin on lock of the payer plus try-lock of the receiver,
+     * everything locking more accounts at once takes them in ascending id order.
+     */
+    @JsonIgnore
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * null while the account has no limits, read and changed under the account lock
+     */
+    @JsonIgnore
+    private OutgoingLimits outgoingLimits;
+    /**
+     * Account a service keeps for itself, such as an accrual clearing account. Cannot be set through the api, internal
+     * accounts are left out of listings, name search, rankings and the amount of accounts.
+     */
+    @JsonIgnore
+    private boolean internal;
+
+    /**
+     * @return balance that can be transferred or held, must be read under the account lock to be consistent
+     */
+    public BigDecimal getAvailableBalance() {
+        return balance.subtract(heldBalance);
+    }
+
+    /**
+     * Same as comparing {@link #getAvailableBalance()}, without computing it when nothing is held
+     */
+    public boolean hasAvailable(BigDecimal amount) {
+        var held = heldBalance;
+        var available = held.signum() == 0 ? balance : balance.subtract(held);
+        return available.compareTo(amount) >= 0;
+    }
+
+    /**
+     * Must be called under the account lock before the balances are changed
+     */
+    public void beginUpdate() {
+        version++;
+    }
+
+    /**
+     * Must be called under the account lock after the balances are changed
+     */
+    public void endUpdate() {
+        version++;
+    }
+
+    /**
+     * @return copy of the account state between two updates
+     */
+    public Account snapshot() {
+        while (true) {
+            var before = version;
+            if ((before & 1L) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            var copy = new Account();
+            copy.setId(getId());
+            copy.name = name;
+            copy.balance = balance;
+            copy.openingBalance = openingBalance;
+            copy.createdAt = createdAt;
+            copy.heldBalance = heldBalance;
+            copy.internal = internal;
+            copy.version = before;
+            if (version == before) return copy;
+        }
+    }
+
+    /**
+     * @return version of the last completed update
+     */
+    public long stableVersion() {
+        var current = version;
+        while ((current & 1L) != 0) {
+            Thread.onSpinWait();
+            current = version;
+        }
+        return current;
+    }
 }
@@ -0,0 +1,16 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Estimated amount of transfers an account took part in. The estimate never undercounts, the true amount is at least
+ * {@code transfers - maxOverestimate}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccountActivity {
+    private final long accountId;
+    private final long transfers;
+    private final long maxOverestimate;
+}
@@ -0,0 +1,18 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Balance of the account after every transaction committed not later than {@code at}
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccountBalance {
+    private final long accountId;
+    private final OffsetDateTime at;
+    private final BigDecimal balance;
+}
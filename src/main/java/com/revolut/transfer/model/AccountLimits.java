@@ -0,0 +1,19 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Outgoing limits of an account with the amounts sent within them, limits are null when not set
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccountLimits {
+    private final long accountId;
+    private final BigDecimal hourlyLimit;
+    private final BigDecimal dailyLimit;
+    private final BigDecimal hourlySpent;
+    private final BigDecimal dailySpent;
+}
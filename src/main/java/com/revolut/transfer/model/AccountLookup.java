@@ -0,0 +1,16 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of a lookup of several accounts, both lists keep the order of the requested ids
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccountLookup {
+    private final List<Account> accounts;
+    private final List<Long> missingIds;
+}
@@ -0,0 +1,19 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Accounts of one page of a search, the next page is requested with {@code afterId} set to {@link #nextAfterId}
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccountPage {
+    private final List<Account> accounts;
+    /**
+     * null on the last page
+     */
+    private final Long nextAfterId;
+}
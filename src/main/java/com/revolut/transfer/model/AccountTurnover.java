@@ -0,0 +1,28 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Cumulative amounts and counts of transfers from and to an account
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccountTurnover {
+    public static final AccountTurnover EMPTY = new AccountTurnover(BigDecimal.ZERO, BigDecimal.ZERO, 0L, 0L);
+
+    private final BigDecimal debitTurnover;
+    private final BigDecimal creditTurnover;
+    private final long debitCount;
+    private final long creditCount;
+
+    public AccountTurnover debit(BigDecimal amount) {
+        return new AccountTurnover(debitTurnover.add(amount), creditTurnover, debitCount + 1, creditCount);
+    }
+
+    public AccountTurnover credit(BigDecimal amount) {
+        return new AccountTurnover(debitTurnover, creditTurnover.add(amount), debitCount, creditCount + 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * State of one run of an accrual job over all accounts
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccrualProgress {
+
+    public enum Status {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final long id;
+    /**
+     * Group id of all transactions recorded by the run
+     */
+    private final long groupId;
+    private final long settlementAccountId;
+    private final Status status;
+    /**
+     * Accounts existing when the run started, later accounts are not accrued
+     */
+    private final long totalAccounts;
+    private final long processedAccounts;
+    private final long appliedAccounts;
+    /**
+     * Accounts whose payer lacked available balance
+     */
+    private final long rejectedAccounts;
+    /**
+     * Sum of amounts credited to accounts minus amounts debited from them
+     */
+    private final BigDecimal netAmount;
+    private final OffsetDateTime startedAt;
+    /**
+     * null while running
+     */
+    private final OffsetDateTime finishedAt;
+}
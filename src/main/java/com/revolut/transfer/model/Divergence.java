@@ -0,0 +1,19 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Account whose balance does not match its opening balance plus credits minus debits from the transaction log
+ */
+@Getter
+@RequiredArgsConstructor
+public class Divergence {
+    private final Long accountId;
+    private final BigDecimal expectedBalance;
+    private final BigDecimal actualBalance;
+    private final OffsetDateTime detectedAt;
+}
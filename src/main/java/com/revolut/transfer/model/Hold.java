@@ -0,0 +1,30 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Reservation of part of an account balance, settled later by capture or given back by release or expiry
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class Hold extends AbstractEntity {
+
+    public enum Status {
+        HELD, CAPTURED, RELEASED, EXPIRED
+    }
+
+    private Long accountId;
+    private BigDecimal amount;
+    private OffsetDateTime expiresAt;
+    private volatile Status status;
+    /**
+     * Id of the {@link TransferTransaction} created by capture
+     */
+    private Long transactionId;
+}
@@ -0,0 +1,137 @@
+package com.revolut.transfer.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Hourly and daily limits of the amount an account may send, with the amounts sent over the last hour and day.
+ * Each window is a ring of primitive buckets (minutes of the hour, hours of the day) with a running total: a check
+ * only clears the buckets expired since the previous transfer, so it costs a few array writes at most and allocates
+ * nothing. The window includes the current bucket, so the last hour is counted in whole minutes and the last day in
+ * whole hours. Amounts are counted in units of 10<sup>-4</sup>, rounded up.
+ * <p>
+ * Transfers, multi-leg debits and hold captures are counted, placing a hold is not. Limits and counters are not
+ * journaled, so after a restart sending is counted from scratch.
+ * <p>
+ * Not thread-safe, guarded by the lock of the account.
+ */
+public class OutgoingLimits {
+
+    public static final int SCALE = 4;
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+
+    private final Window hourly = new Window(60, MINUTE_MILLIS);
+    private final Window daily = new Window(24, HOUR_MILLIS);
+    private long hourlyLimit = NO_LIMIT;
+    private long dailyLimit = NO_LIMIT;
+
+    /**
+     * @return amount in units of the limits, amounts too large to count exceed every limit
+     */
+    public static long units(BigDecimal amount) {
+        var scaled = amount.setScale(SCALE, RoundingMode.CEILING).unscaledValue();
+        return scaled.bitLength() < Long.SIZE ? scaled.longValue() : NO_LIMIT;
+    }
+
+    /**
+     * @return true if sending the amount now keeps both windows within their limits
+     */
+    public boolean allows(long units, long nowMillis) {
+        return fits(hourly.total(nowMillis), units, hourlyLimit) && fits(daily.total(nowMillis), units, dailyLimit);
+    }
+
+    public void record(long units, long nowMillis) {
+        hourly.add(units, nowMillis);
+        daily.add(units, nowMillis);
+    }
+
+    /**
+     * @param hourlyLimit null when not limited
+     * @param dailyLimit  null when not limited
+     */
+    public void setLimits(BigDecimal hourlyLimit, BigDecimal dailyLimit) {
+        this.hourlyLimit = hourlyLimit == null ? NO_LIMIT : units(hourlyLimit);
+        this.dailyLimit = dailyLimit == null ? NO_LIMIT : units(dailyLimit);
+    }
+
+    public BigDecimal getHourlyLimit() {
+        return toAmount(hourlyLimit);
+    }
+
+    public BigDecimal getDailyLimit() {
+        return toAmount(dailyLimit);
+    }
+
+    public BigDecimal getHourlySpent(long nowMillis) {
+        return BigDecimal.valueOf(hourly.total(nowMillis), SCALE);
+    }
+
+    public BigDecimal getDailySpent(long nowMillis) {
+        return BigDecimal.valueOf(daily.total(nowMillis), SCALE);
+    }
+
+    private static boolean fits(long spent, long units, long limit) {
+        return limit == NO_LIMIT || units <= limit && spent <= limit - units;
+    }
+
+    private static BigDecimal toAmount(long units) {
+        return units == NO_LIMIT ? null : BigDecimal.valueOf(units, SCALE);
+    }
+
+    private static class Window {
+        private final long[] buckets;
+        private final long bucketMillis;
+        // number of the latest bucket, counted from the epoch
+        private long head = Long.MIN_VALUE;
+        private long total;
+
+        private Window(int buckets, long bucketMillis) {
+            this.buckets = new long[buckets];
+            this.bucketMillis = bucketMillis;
+        }
+
+        private long total(long nowMillis) {
+            advance(nowMillis);
+            return total;
+        }
+
+        private void add(long units, long nowMillis) {
+            advance(nowMillis);
+            var slot = slot(head);
+            buckets[slot] = saturatedAdd(buckets[slot], units);
+            total = saturatedAdd(total, units);
+        }
+
+        /**
+         * Clears buckets which left the window, a clock going back keeps the latest bucket
+         */
+        private void advance(long nowMillis) {
+            var bucket = Math.floorDiv(nowMillis, bucketMillis);
+            if (bucket <= head) return;
+            if (head == Long.MIN_VALUE || bucket - head >= buckets.length) {
+                Arrays.fill(buckets, 0L);
+                total = 0L;
+            } else {
+                for (long expired = head + 1; expired <= bucket; expired++) {
+                    var slot = slot(expired);
+                    total -= buckets[slot];
+                    buckets[slot] = 0L;
+                }
+            }
+            head = bucket;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) buckets.length);
+        }
+
+        private static long saturatedAdd(long sum, long units) {
+            var result = sum + units;
+            return result < 0L ? Long.MAX_VALUE : result;
+        }
+    }
+}
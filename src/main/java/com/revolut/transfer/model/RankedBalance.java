@@ -0,0 +1,13 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Getter
+@RequiredArgsConstructor
+public class RankedBalance {
+    private final long accountId;
+    private final BigDecimal balance;
+}
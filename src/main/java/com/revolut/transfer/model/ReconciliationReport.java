@@ -0,0 +1,31 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class ReconciliationReport {
+    /**
+     * Amount of completed walks over all accounts
+     */
+    private final long passes;
+    private final long checkedAccounts;
+    /**
+     * Checks given up because the transaction log could not be caught up with quickly, the account is checked on
+     * the next pass
+     */
+    private final long skippedAccounts;
+    private final long scannedTransactions;
+    /**
+     * Transaction ids which were allocated but never stored
+     */
+    private final long holes;
+    /**
+     * Steps which failed with an exception and were retried, the first failure of a series is logged
+     */
+    private final long failedSteps;
+    private final List<Divergence> divergences;
+}
@@ -0,0 +1,29 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ScheduledTransfer extends AbstractEntity {
+
+    public enum Status {
+        PENDING, EXECUTING, EXECUTED, FAILED, CANCELLED
+    }
+
+    private Long fromId;
+    private Long toId;
+    private BigDecimal amount;
+    private OffsetDateTime executeAt;
+    private volatile Status status;
+    /**
+     * Id of the {@link TransferTransaction} created when the transfer was executed
+     */
+    private Long transactionId;
+    private String failureReason;
+}
@@ -0,0 +1,17 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of a multi-leg transfer: every debit is matched against credits and recorded as
+ * {@link TransferTransaction}s sharing the same group id
+ */
+@Getter
+@RequiredArgsConstructor
+public class TransferGroup {
+    private final Long groupId;
+    private final List<TransferTransaction> transactions;
+}
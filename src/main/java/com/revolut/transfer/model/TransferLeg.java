@@ -0,0 +1,20 @@
+package com.revolut.transfer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * One debit or credit of a multi-leg transfer
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferLeg {
+    private Long accountId;
+    private BigDecimal amount;
+}
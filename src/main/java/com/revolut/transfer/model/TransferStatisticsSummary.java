@@ -0,0 +1,18 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * System-wide aggregates, {@code totalBalance} is the money supply and only changes when accounts are created
+ */
+@Getter
+@RequiredArgsConstructor
+public class TransferStatisticsSummary {
+    private final long accounts;
+    private final BigDecimal totalBalance;
+    private final long transfers;
+    private final BigDecimal transferredAmount;
+}
@@ -0,0 +1,15 @@
+package com.revolut.transfer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Marker sent to a stream subscriber that fell behind: transfers with sequences from {@code missedFrom} up to
+ * {@code resumeFrom} exclusive were dropped
+ */
+@Getter
+@RequiredArgsConstructor
+public class TransferStreamGap {
+    private final long missedFrom;
+    private final long resumeFrom;
+}
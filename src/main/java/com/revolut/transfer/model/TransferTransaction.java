@@ -1,6 +1,5 @@
 package com.revolut.transfer.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -15,6 +14,12 @@ public class TransferTransaction extends AbstractEntity {
     private Long from;
     private Long to;
     private BigDecimal amount;
-    @JsonIgnore
+    /**
+     * Id of the multi-leg transfer this transaction is part of, null for plain transfers
+     */
+    private Long groupId;
+    /**
+     * Commit time, point-in-time balances are resolved by it with millisecond precision
+     */
     private OffsetDateTime dateTime;
 }
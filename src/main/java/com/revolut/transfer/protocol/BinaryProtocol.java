@@ -0,0 +1,48 @@
+package com.revolut.transfer.protocol;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Frame layout of the binary transfer protocol. Every frame is prefixed by its payload length (int, big endian)
+ * and all frames of one kind have the same size.
+ * <pre>
+ * request:  length | type (byte) | correlation id (long) | from id (long) | to id (long)
+ *                  | amount unscaled value (long) | amount scale (byte)
+ * response: length | status (byte) | correlation id (long) | transaction id (long)
+ * </pre>
+ * Responses may come back in any order, clients match them to requests by correlation id.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BinaryProtocol {
+
+    public static final byte TRANSFER = 1;
+
+    public static final int REQUEST_PAYLOAD_LENGTH = 1 + Long.BYTES * 4 + 1;
+    public static final int REQUEST_FRAME_LENGTH = Integer.BYTES + REQUEST_PAYLOAD_LENGTH;
+    public static final int RESPONSE_PAYLOAD_LENGTH = 1 + Long.BYTES * 2;
+    public static final int RESPONSE_FRAME_LENGTH = Integer.BYTES + RESPONSE_PAYLOAD_LENGTH;
+
+    static void writeTransferRequest(ByteBuffer buffer, long correlationId, long fromId, long toId, BigDecimal amount) {
+        if (amount == null) throw new IllegalArgumentException("Amount cannot be null");
+        if (amount.scale() < Byte.MIN_VALUE || amount.scale() > Byte.MAX_VALUE || amount.unscaledValue().bitLength() > 63)
+            throw new IllegalArgumentException("Amount " + amount + " cannot be represented in binary protocol");
+        buffer.putInt(REQUEST_PAYLOAD_LENGTH)
+                .put(TRANSFER)
+                .putLong(correlationId)
+                .putLong(fromId)
+                .putLong(toId)
+                .putLong(amount.unscaledValue().longValueExact())
+                .put((byte) amount.scale());
+    }
+
+    static void writeResponse(ByteBuffer buffer, long correlationId, BinaryStatus status, long transactionId) {
+        buffer.putInt(RESPONSE_PAYLOAD_LENGTH)
+                .put(status.getCode())
+                .putLong(correlationId)
+                .putLong(transactionId);
+    }
+}
@@ -0,0 +1,30 @@
+package com.revolut.transfer.protocol;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Result codes of the binary protocol, mirroring the http statuses of the REST api
+ */
+@Getter
+@RequiredArgsConstructor
+public enum BinaryStatus {
+    OK((byte) 0),
+    BAD_REQUEST((byte) 1),
+    NOT_FOUND((byte) 2),
+    INTERNAL_ERROR((byte) 3),
+    UNSUPPORTED((byte) 4),
+    /**
+     * Worker queue of the server is full, the transfer was not attempted
+     */
+    OVERLOADED((byte) 5);
+
+    private static final BinaryStatus[] BY_CODE = values();
+
+    private final byte code;
+
+    static BinaryStatus byCode(byte code) {
+        if (code < 0 || code >= BY_CODE.length) return INTERNAL_ERROR;
+        return BY_CODE[code];
+    }
+}
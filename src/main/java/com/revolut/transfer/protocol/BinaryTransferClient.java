@@ -0,0 +1,114 @@
+package com.revolut.transfer.protocol;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client of {@link BinaryTransferServer}. Requests are pipelined over one connection: {@link #transfer} returns
+ * as soon as the frame is written and the result is delivered by the reader thread once the response arrives.
+ * Safe for use from multiple threads.
+ */
+public class BinaryTransferClient implements AutoCloseable {
+
+    private static final int BUFFER_FRAMES = 512;
+
+    private final SocketChannel channel;
+    private final ByteBuffer writeBuffer;
+    private final ByteBuffer readBuffer;
+    private final AtomicLong correlationIdCounter;
+    private final Map<Long, CompletableFuture<BinaryTransferResult>> pending;
+    private final Thread readerThread;
+    private volatile boolean closed;
+
+    private BinaryTransferClient(SocketChannel channel) {
+        this.channel = channel;
+        this.writeBuffer = ByteBuffer.allocateDirect(BinaryProtocol.REQUEST_FRAME_LENGTH);
+        this.readBuffer = ByteBuffer.allocateDirect(BinaryProtocol.RESPONSE_FRAME_LENGTH * BUFFER_FRAMES);
+        this.correlationIdCounter = new AtomicLong();
+        this.pending = new ConcurrentHashMap<>();
+        this.readerThread = new Thread(this::readResponses, "binary-transfer-client-reader");
+        this.readerThread.setDaemon(true);
+    }
+
+    public static BinaryTransferClient connect(String host, int port) {
+        try {
+            var channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.socket().setTcpNoDelay(true);
+            var client = new BinaryTransferClient(channel);
+            client.readerThread.start();
+            return client;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to connect to " + host + ":" + port, e);
+        }
+    }
+
+    public CompletableFuture<BinaryTransferResult> transfer(long fromId, long toId, BigDecimal amount) {
+        if (closed) throw new IllegalStateException("Client is closed");
+        var correlationId = correlationIdCounter.incrementAndGet();
+        var result = new CompletableFuture<BinaryTransferResult>();
+        pending.put(correlationId, result);
+        try {
+            synchronized (writeBuffer) {
+                writeBuffer.clear();
+                BinaryProtocol.writeTransferRequest(writeBuffer, correlationId, fromId, toId, amount);
+                writeBuffer.flip();
+                while (writeBuffer.hasRemaining()) {
+                    channel.write(writeBuffer);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            pending.remove(correlationId);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing to do, pending requests are failed by the reader thread
+        }
+    }
+
+    private void readResponses() {
+        try {
+            while (channel.read(readBuffer) >= 0) {
+                readBuffer.flip();
+                while (readBuffer.remaining() >= BinaryProtocol.RESPONSE_FRAME_LENGTH) {
+                    var length = readBuffer.getInt();
+                    if (length != BinaryProtocol.RESPONSE_PAYLOAD_LENGTH)
+                        throw new IOException("Unexpected frame length " + length);
+                    var status = BinaryStatus.byCode(readBuffer.get());
+                    var correlationId = readBuffer.getLong();
+                    var transactionId = readBuffer.getLong();
+                    var result = pending.remove(correlationId);
+                    if (result != null) result.complete(new BinaryTransferResult(status, transactionId));
+                }
+                readBuffer.compact();
+            }
+            failPending(new IOException("Connection closed by server"));
+        } catch (IOException e) {
+            failPending(e);
+        } finally {
+            closed = true;
+        }
+    }
+
+    private void failPending(IOException cause) {
+        for (Long correlationId : pending.keySet()) {
+            var result = pending.remove(correlationId);
+            if (result != null) result.completeExceptionally(cause);
+        }
+    }
+}
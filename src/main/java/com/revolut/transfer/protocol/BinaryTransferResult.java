@@ -0,0 +1,14 @@
+package com.revolut.transfer.protocol;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class BinaryTransferResult {
+    private final BinaryStatus status;
+    /**
+     * Id of the created {@link com.revolut.transfer.model.TransferTransaction}, 0 when status is not {@link BinaryStatus#OK}
+     */
+    private final long transactionId;
+}
@@ -0,0 +1,299 @@
+package com.revolut.transfer.protocol;
+
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * NIO listener of {@link BinaryProtocol}. A single io thread accepts connections, decodes request frames into
+ * reused direct buffers and encodes responses, transfers themselves are executed by a worker pool so requests
+ * pipelined on one connection are processed concurrently and answered as soon as each of them completes.
+ * <p>
+ * A connection has at most {@value #MAX_IN_FLIGHT} requests decoded but not answered yet; at the limit the io thread
+ * stops reading it, so a client pipelining faster than it is served is pushed back by TCP flow control. The worker
+ * queue is bounded as well, requests which do not fit it are answered with {@link BinaryStatus#OVERLOADED}.
+ */
+public class BinaryTransferServer implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(BinaryTransferServer.class.getName());
+    public static final int DEFAULT_WORKER_QUEUE_CAPACITY = 4096;
+    static final int MAX_IN_FLIGHT = 512;
+    private static final int BUFFER_FRAMES = 512;
+
+    private final TransferOperationService transferService;
+    private final ExecutorService workers;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Queue<Connection> connectionsToFlush;
+    private final Thread ioThread;
+    private volatile boolean running;
+
+    private BinaryTransferServer(TransferOperationService transferService,
+                                 InetSocketAddress address,
+                                 int workerThreads,
+                                 int workerQueueCapacity) throws IOException {
+        this.transferService = transferService;
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerQueueCapacity), runnable -> {
+            var thread = new Thread(runnable, "binary-transfer-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.connectionsToFlush = new ConcurrentLinkedQueue<>();
+        this.ioThread = new Thread(this::runIoLoop, "binary-transfer-io");
+    }
+
+    public static BinaryTransferServer start(String host,
+                                             int port,
+                                             TransferOperationService transferService,
+                                             int workerThreads) {
+        return start(host, port, transferService, workerThreads, DEFAULT_WORKER_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param workerQueueCapacity requests waiting for a worker, further ones are answered with
+     *                            {@link BinaryStatus#OVERLOADED}
+     */
+    public static BinaryTransferServer start(String host,
+                                             int port,
+                                             TransferOperationService transferService,
+                                             int workerThreads,
+                                             int workerQueueCapacity) {
+        if (workerQueueCapacity <= 0) throw new IllegalArgumentException("Worker queue capacity must be positive");
+        try {
+            var server = new BinaryTransferServer(transferService, new InetSocketAddress(host, port), workerThreads,
+                    workerQueueCapacity);
+            server.running = true;
+            server.ioThread.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to start binary listener on " + host + ":" + port, e);
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+    }
+
+    private void runIoLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = connectionsToFlush.poll()) != null) {
+                    connection.serve();
+                }
+                var selectedKeys = selector.selectedKeys();
+                for (SelectionKey key : selectedKeys) {
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    var keyConnection = (Connection) key.attachment();
+                    if (key.isReadable()) keyConnection.read();
+                    if (key.isValid() && key.isWritable()) keyConnection.serve();
+                }
+                selectedKeys.clear();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Binary listener failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to close binary listener", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        var channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        var key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Unable to close channel", e);
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BinaryProtocol.REQUEST_FRAME_LENGTH * BUFFER_FRAMES);
+        private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BinaryProtocol.RESPONSE_FRAME_LENGTH * BUFFER_FRAMES);
+        private final Queue<Response> responses = new ConcurrentLinkedQueue<>();
+        // requests decoded but not encoded into the write buffer yet, accessed by the io thread only
+        private int inFlight;
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            writeBuffer.flip();
+        }
+
+        private void read() {
+            try {
+                if (channel.read(readBuffer) < 0) {
+                    closeQuietly(key);
+                    return;
+                }
+            } catch (IOException e) {
+                closeQuietly(key);
+                return;
+            }
+            serve();
+        }
+
+        /**
+         * Decodes buffered requests up to the in-flight limit and writes completed responses, then reads again only
+         * while the connection is below the limit. Runs on the io thread only.
+         */
+        private void serve() {
+            if (!key.isValid()) return;
+            do {
+                if (!decode()) return;
+                if (!flush()) return;
+            } while (inFlight < MAX_IN_FLIGHT && readBuffer.position() >= BinaryProtocol.REQUEST_FRAME_LENGTH);
+            var interest = inFlight < MAX_IN_FLIGHT ? SelectionKey.OP_READ : 0;
+            if (writeBuffer.hasRemaining()) interest |= SelectionKey.OP_WRITE;
+            if (key.interestOps() != interest) key.interestOps(interest);
+        }
+
+        /**
+         * @return false if the connection was closed
+         */
+        private boolean decode() {
+            readBuffer.flip();
+            while (inFlight < MAX_IN_FLIGHT && readBuffer.remaining() >= BinaryProtocol.REQUEST_FRAME_LENGTH) {
+                var length = readBuffer.getInt();
+                if (length != BinaryProtocol.REQUEST_PAYLOAD_LENGTH) {
+                    LOGGER.warning("Unexpected frame length " + length + ", closing connection");
+                    closeQuietly(key);
+                    return false;
+                }
+                var type = readBuffer.get();
+                var correlationId = readBuffer.getLong();
+                var fromId = readBuffer.getLong();
+                var toId = readBuffer.getLong();
+                var unscaledAmount = readBuffer.getLong();
+                var scale = readBuffer.get();
+                inFlight++;
+                if (type != BinaryProtocol.TRANSFER) {
+                    responses.offer(new Response(correlationId, BinaryStatus.UNSUPPORTED, 0L));
+                    continue;
+                }
+                try {
+                    workers.execute(() -> complete(transfer(correlationId, fromId, toId, BigDecimal.valueOf(unscaledAmount, scale))));
+                } catch (RejectedExecutionException e) {
+                    responses.offer(new Response(correlationId, BinaryStatus.OVERLOADED, 0L));
+                }
+            }
+            readBuffer.compact();
+            return true;
+        }
+
+        private Response transfer(long correlationId, long fromId, long toId, BigDecimal amount) {
+            try {
+                var transaction = transferService.transfer(fromId, toId, amount);
+                return new Response(correlationId, BinaryStatus.OK, transaction.getId());
+            } catch (IllegalArgumentException e) {
+                return new Response(correlationId, BinaryStatus.BAD_REQUEST, 0L);
+            } catch (EntityNotExistsException e) {
+                return new Response(correlationId, BinaryStatus.NOT_FOUND, 0L);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Transfer failed", e);
+                return new Response(correlationId, BinaryStatus.INTERNAL_ERROR, 0L);
+            }
+        }
+
+        private void complete(Response response) {
+            responses.offer(response);
+            connectionsToFlush.offer(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Encodes as many pending responses as fit into the write buffer and writes it out
+         *
+         * @return false if the connection was closed
+         */
+        private boolean flush() {
+            if (!key.isValid()) return false;
+            try {
+                while (true) {
+                    if (writeBuffer.hasRemaining() && channel.write(writeBuffer) == 0) break;
+                    if (writeBuffer.hasRemaining()) continue;
+                    if (responses.isEmpty()) break;
+                    writeBuffer.clear();
+                    Response response;
+                    while (writeBuffer.remaining() >= BinaryProtocol.RESPONSE_FRAME_LENGTH
+                            && (response = responses.poll()) != null) {
+                        BinaryProtocol.writeResponse(writeBuffer, response.correlationId, response.status, response.transactionId);
+                        inFlight--;
+                    }
+                    writeBuffer.flip();
+                }
+                return true;
+            } catch (IOException e) {
+                closeQuietly(key);
+                return false;
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Response {
+        private final long correlationId;
+        private final BinaryStatus status;
+        private final long transactionId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.revolut.transfer.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non-blocking counterpart of {@link Repository} for storage which has to wait for disk or network: callers
+ * continue on the returned stages instead of holding a thread per pending lookup, and can issue several lookups
+ * before waiting for any of them. Failures complete the stage exceptionally instead of being thrown.
+ */
+public interface AsyncRepository<T> {
+
+    CompletionStage<Optional<T>> get(Long id);
+
+    /**
+     * @return stage completed with the entity or with null if it does not exist
+     */
+    CompletionStage<T> find(long id);
+
+    CompletionStage<List<T>> getAll();
+
+    CompletionStage<T> create(T entity);
+}
@@ -0,0 +1,57 @@
+package com.revolut.transfer.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Exposes a synchronous {@link Repository} as an {@link AsyncRepository}. Without an executor every call runs in
+ * the caller and returns a completed stage, which suits in-memory repositories; a blocking repository is given
+ * an executor, so its calls wait there instead of in the caller.
+ */
+public class AsyncRepositoryAdapter<T> implements AsyncRepository<T> {
+
+    private final Repository<T> delegate;
+    private final Executor executor;
+
+    public AsyncRepositoryAdapter(Repository<T> delegate) {
+        this(delegate, null);
+    }
+
+    public AsyncRepositoryAdapter(Repository<T> delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletionStage<Optional<T>> get(Long id) {
+        return call(() -> delegate.get(id));
+    }
+
+    @Override
+    public CompletionStage<T> find(long id) {
+        return call(() -> delegate.find(id));
+    }
+
+    @Override
+    public CompletionStage<List<T>> getAll() {
+        return call(delegate::getAll);
+    }
+
+    @Override
+    public CompletionStage<T> create(T entity) {
+        return call(() -> delegate.create(entity));
+    }
+
+    private <R> CompletionStage<R> call(Supplier<R> call) {
+        if (executor != null) return CompletableFuture.supplyAsync(call, executor);
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.revolut.transfer.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository passing every call to a delegate, decorators extend it and override only the calls they change
+ */
+public abstract class ForwardingRepository<T> implements Repository<T> {
+
+    protected final Repository<T> delegate;
+
+    protected ForwardingRepository(Repository<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<T> get(Long id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public T find(long id) {
+        return delegate.find(id);
+    }
+
+    @Override
+    public List<T> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<T> getAll(Collection<Long> ids) {
+        return delegate.getAll(ids);
+    }
+
+    @Override
+    public T create(T entity) {
+        return delegate.create(entity);
+    }
+
+    @Override
+    public T restore(T entity) {
+        return delegate.restore(entity);
+    }
+
+    @Override
+    public int getIdShards() {
+        return delegate.getIdShards();
+    }
+
+    @Override
+    public long getAllocatedIds(int shard) {
+        return delegate.getAllocatedIds(shard);
+    }
+
+    @Override
+    public long idOf(int shard, long position) {
+        return delegate.idOf(shard, position);
+    }
+}
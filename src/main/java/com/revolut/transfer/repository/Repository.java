@@ -1,12 +1,70 @@
 package com.revolut.transfer.repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Ids may be handed out by several independent sequences, so consumers must not expect them to be dense or
+ * globally ordered by creation time. Shard {@code s} of {@link #getIdShards()} produces ids
+ * {@code s + 1, s + 1 + shards, s + 1 + 2 * shards, ...}; within a shard ids increase in creation order, and
+ * entities of one thread are always created in the same shard.
+ */
 public interface Repository<T> {
     Optional<T> get(Long id);
 
+    /**
+     * Lookup for hot paths, implementations should neither box the id nor allocate the result wrapper
+     *
+     * @return entity or null if it does not exist
+     */
+    default T find(long id) {
+        return get(id).orElse(null);
+    }
+
     List<T> getAll();
 
+    /**
+     * Lookup of several entities at once, implementations backed by a remote storage should read them in one round trip
+     *
+     * @return entities in the order of the ids, ids of no entity are skipped and a repeated id yields its entity again
+     */
+    default List<T> getAll(Collection<Long> ids) {
+        var result = new ArrayList<T>(ids.size());
+        for (Long id : ids) {
+            var entity = id == null ? null : find(id);
+            if (entity != null) result.add(entity);
+        }
+        return result;
+    }
+
     T create(T account);
+
+    /**
+     * Stores an entity recovered with the id it had before, ids handed out later do not collide with it. Positions
+     * of ids which were not restored stay empty, so {@link #getAllocatedIds} may count ids of no entity.
+     */
+    default T restore(T entity) {
+        throw new UnsupportedOperationException("Restoring entities is not supported");
+    }
+
+    default int getIdShards() {
+        return 1;
+    }
+
+    /**
+     * Entities with the first {@code getAllocatedIds(shard)} ids of the shard are stored or are being stored
+     * by a concurrent {@link #create}
+     */
+    default long getAllocatedIds(int shard) {
+        throw new UnsupportedOperationException("Id allocation is not tracked");
+    }
+
+    /**
+     * @return id handed out by the shard at the given position
+     */
+    default long idOf(int shard, long position) {
+        return position * getIdShards() + shard + 1;
+    }
 }
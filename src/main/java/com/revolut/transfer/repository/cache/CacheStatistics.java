@@ -0,0 +1,22 @@
+package com.revolut.transfer.repository.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    /**
+     * Loads dropped because the entity was invalidated while it was being loaded
+     */
+    private final long discardedLoads;
+    private final int size;
+
+    public double getHitRate() {
+        var requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
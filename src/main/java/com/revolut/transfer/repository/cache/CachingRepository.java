@@ -0,0 +1,336 @@
+package com.revolut.transfer.repository.cache;
+
+import com.revolut.transfer.model.AbstractEntity;
+import com.revolut.transfer.repository.ForwardingRepository;
+import com.revolut.transfer.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-through cache of a slow repository bounded by the amount of entities, evicting with W-TinyLFU: new entities
+ * enter a small LRU window, an entity leaving the window is admitted to the main segmented LRU only if a
+ * {@link FrequencySketch} estimates it more popular than the main victim, so one-off lookups do not flush hot
+ * entities. Main entities accessed again move from the probation to the protected segment.
+ * <p>
+ * Hits read a concurrent map; the policy is guarded by a lock which hits only try, so under contention some
+ * accesses are not recorded. Created entities are written through to the delegate and cached.
+ * <p>
+ * Changes made behind the repository are announced by {@link #invalidate(long)} after they are committed. A load
+ * remembers the invalidation sequence before reading the delegate and is not cached if its entity was invalidated
+ * meanwhile, so once {@code invalidate} returns no lookup can see the entity as it was before the change.
+ */
+public class CachingRepository<T extends AbstractEntity> extends ForwardingRepository<T> {
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    private final Map<Long, Node<T>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessQueue<T> window = new AccessQueue<>();
+    private final AccessQueue<T> probation = new AccessQueue<>();
+    private final AccessQueue<T> protectedQueue = new AccessQueue<>();
+
+    // sequence of the last invalidation of any id falling into the stripe, changed under the policy lock
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private volatile long invalidationSequence;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+
+    public CachingRepository(Repository<T> delegate, int maximumSize) {
+        super(delegate);
+        if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size must be positive");
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize * WINDOW_PERCENT / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * PROTECTED_PERCENT / 100;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public Optional<T> get(Long id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(find(id));
+    }
+
+    @Override
+    public T find(long id) {
+        var node = data.get(id);
+        if (node != null) {
+            hits.increment();
+            if (policyLock.tryLock()) {
+                try {
+                    onAccess(node);
+                } finally {
+                    policyLock.unlock();
+                }
+            }
+            return node.value;
+        }
+
+        misses.increment();
+        var sequence = invalidationSequence;
+        var value = delegate.find(id);
+        if (value == null) return null;
+        policyLock.lock();
+        try {
+            if (invalidations.get(stripe(id)) > sequence) {
+                discardedLoads.increment();
+            } else {
+                put(id, value);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        return value;
+    }
+
+    /**
+     * Cached entities are served from the cache, the rest is read from the delegate by one batch lookup
+     */
+    @Override
+    public List<T> getAll(Collection<Long> ids) {
+        var found = new HashMap<Long, T>();
+        var missing = new ArrayList<Long>();
+        for (Long id : ids) {
+            if (id == null || found.containsKey(id)) continue;
+            var node = data.get(id);
+            if (node == null) {
+                missing.add(id);
+                // found marks requested ids, so repeated ones are loaded once
+                found.put(id, null);
+                continue;
+            }
+            hits.increment();
+            found.put(id, node.value);
+            if (policyLock.tryLock()) {
+                try {
+                    onAccess(node);
+                } finally {
+                    policyLock.unlock();
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            var sequence = invalidationSequence;
+            var loaded = delegate.getAll(missing);
+            policyLock.lock();
+            try {
+                for (T value : loaded) {
+                    found.put(value.getId(), value);
+                    if (invalidations.get(stripe(value.getId())) > sequence) {
+                        discardedLoads.increment();
+                    } else {
+                        put(value.getId(), value);
+                    }
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+
+        var result = new ArrayList<T>(ids.size());
+        for (Long id : ids) {
+            var value = id == null ? null : found.get(id);
+            if (value != null) result.add(value);
+        }
+        return result;
+    }
+
+    @Override
+    public T create(T entity) {
+        var created = delegate.create(entity);
+        policyLock.lock();
+        try {
+            put(created.getId(), created);
+        } finally {
+            policyLock.unlock();
+        }
+        return created;
+    }
+
+    /**
+     * Drops the cached entity, must be called after its change is committed to the delegate
+     */
+    public void invalidate(long id) {
+        policyLock.lock();
+        try {
+            var sequence = invalidationSequence + 1;
+            invalidations.set(stripe(id), sequence);
+            invalidationSequence = sequence;
+            var node = data.remove(id);
+            if (node != null) unlink(node);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), discardedLoads.sum(), data.size());
+    }
+
+    private void put(long id, T value) {
+        var existing = data.get(id);
+        if (existing != null) {
+            existing.value = value;
+            onAccess(existing);
+            return;
+        }
+        var node = new Node<>(id, value);
+        data.put(id, node);
+        sketch.increment(id);
+        window.add(node, Segment.WINDOW);
+        while (window.size > windowMaximum) {
+            admit(window.poll());
+        }
+    }
+
+    private void onAccess(Node<T> node) {
+        if (node.segment == null) return;
+        sketch.increment(node.id);
+        switch (node.segment) {
+            case WINDOW:
+                window.moveToTail(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                protectedQueue.add(node, Segment.PROTECTED);
+                while (protectedQueue.size > protectedMaximum) {
+                    probation.add(protectedQueue.poll(), Segment.PROBATION);
+                }
+                break;
+            case PROTECTED:
+                protectedQueue.moveToTail(node);
+                break;
+        }
+    }
+
+    /**
+     * Candidate left the window: it enters the main segments while they have room, otherwise it replaces the
+     * least recently used main entity only if it is estimated to be more frequent
+     */
+    private void admit(Node<T> candidate) {
+        if (probation.size + protectedQueue.size < maximumSize - windowMaximum) {
+            probation.add(candidate, Segment.PROBATION);
+            return;
+        }
+        var victimQueue = probation.size > 0 ? probation : protectedQueue;
+        var victim = victimQueue.peek();
+        if (victim != null && sketch.frequency(candidate.id) > sketch.frequency(victim.id)) {
+            victimQueue.poll();
+            evict(victim);
+            probation.add(candidate, Segment.PROBATION);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    private void evict(Node<T> node) {
+        node.segment = null;
+        data.remove(node.id, node);
+        evictions.increment();
+    }
+
+    private void unlink(Node<T> node) {
+        if (node.segment == null) return;
+        switch (node.segment) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                break;
+        }
+        node.segment = null;
+    }
+
+    private static int stripe(long id) {
+        var hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static class Node<T> {
+        private final long id;
+        private volatile T value;
+        // policy state, guarded by the policy lock
+        private Segment segment;
+        private Node<T> previous;
+        private Node<T> next;
+
+        private Node(long id, T value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list in access order, least recently used first
+     */
+    private static class AccessQueue<T> {
+        private Node<T> head;
+        private Node<T> tail;
+        private int size;
+
+        void add(Node<T> node, Segment segment) {
+            node.segment = segment;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) head = node;
+            else tail.next = node;
+            tail = node;
+            size++;
+        }
+
+        Node<T> peek() {
+            return head;
+        }
+
+        Node<T> poll() {
+            var node = head;
+            if (node != null) remove(node);
+            return node;
+        }
+
+        void remove(Node<T> node) {
+            if (node.previous == null) head = node.next;
+            else node.previous.next = node.next;
+            if (node.next == null) tail = node.previous;
+            else node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToTail(Node<T> node) {
+            if (tail == node) return;
+            var segment = node.segment;
+            remove(node);
+            add(node, segment);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.revolut.transfer.repository.cache;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often a key was seen recently. Every key maps to one counter in
+ * each of four rows, the estimate is the smallest of them. Once the amount of increments reaches ten times the
+ * capacity all counters are halved, so the history ages and former hot keys give way to new ones.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    // one long of 16 counters per cached entity keeps collisions rare
+    private final long[] table;
+    private final int counterMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        var words = Math.max(4, Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1);
+        this.table = new long[words];
+        this.counterMask = (words << 4) - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 1);
+    }
+
+    int frequency(long key) {
+        var frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            var index = index(key, row);
+            var count = (int) ((table[index >>> 4] >>> ((index & 15) << 2)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(long key) {
+        var added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            var index = index(key, row);
+            var shift = (index & 15) << 2;
+            var word = table[index >>> 4];
+            if (((word >>> shift) & 0xF) < MAX_COUNT) {
+                table[index >>> 4] = word + (1L << shift);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int index(long key, int row) {
+        var hash = (key + SEEDS[row]) * SEEDS[(row + 1) & 3];
+        hash ^= hash >>> 29;
+        return (int) hash & counterMask;
+    }
+}
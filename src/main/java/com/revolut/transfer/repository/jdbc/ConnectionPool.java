@@ -0,0 +1,159 @@
+package com.revolut.transfer.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded pool of connections opened lazily through {@link DriverManager}. At most {@code size} connections exist at
+ * once, a caller waits up to {@code acquireTimeoutMillis} for one and fails afterwards, so a slow database turns into
+ * errors instead of an unbounded queue of blocked threads. Idle connections are reused most recently released first.
+ * <p>
+ * Work runs in a database transaction: it is committed when the work returns and rolled back when it throws.
+ * Transactions the database aborted because of a conflict with a concurrent one - serialization failures, deadlocks
+ * and lock timeouts - are rolled back and the work is run again up to {@code maxAttempts} times, so the work must
+ * not have effects outside of the database transaction.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    public static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 5000L;
+    public static final int DEFAULT_MAX_ATTEMPTS = 20;
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // lock timeout and concurrent update of H2, the rest of the conflicts use the standard transaction rollback class
+    private static final String LOCK_TIMEOUT_STATE = "HYT00";
+    private static final String CONCURRENT_UPDATE_STATE = "90131";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final long acquireTimeoutMillis;
+    private final int maxAttempts;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int size) {
+        this(url, user, password, size, DEFAULT_ACQUIRE_TIMEOUT_MILLIS);
+    }
+
+    public ConnectionPool(String url, String user, String password, int size, long acquireTimeoutMillis) {
+        this(url, user, password, size, acquireTimeoutMillis, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public ConnectionPool(String url, String user, String password, int size, long acquireTimeoutMillis, int maxAttempts) {
+        if (size <= 0) throw new IllegalArgumentException("Pool size must be positive");
+        if (maxAttempts <= 0) throw new IllegalArgumentException("Amount of attempts must be positive");
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.permits = new Semaphore(size, true);
+    }
+
+    public <R> R inTransaction(SqlWork<R> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attempt(work);
+            } catch (SQLException e) {
+                if (attempt >= maxAttempts || !isConflict(e)) throw new DataAccessException(e.getMessage(), e);
+                // randomized, so the conflicting transactions do not meet again right away
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(MAX_BACKOFF_NANOS));
+            }
+        }
+    }
+
+    /**
+     * @return true if the transaction was aborted because of a concurrent one and may succeed when run again
+     */
+    public static boolean isConflict(SQLException e) {
+        var state = e.getSQLState();
+        return state != null && (state.startsWith("40")
+                || state.equals(LOCK_TIMEOUT_STATE)
+                || state.equals(CONCURRENT_UPDATE_STATE));
+    }
+
+    private <R> R attempt(SqlWork<R> work) throws SQLException {
+        var connection = acquire();
+        var reusable = true;
+        try {
+            var result = work.execute(connection);
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            reusable = rollback(connection);
+            throw e;
+        } finally {
+            release(connection, reusable);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private Connection acquire() {
+        if (closed) throw new DataAccessException("Connection pool is closed");
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new DataAccessException("Timed out waiting for a connection");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a connection", e);
+        }
+        var connection = idle.pollFirst();
+        if (connection != null) return connection;
+        try {
+            connection = DriverManager.getConnection(url, user, password);
+            connection.setAutoCommit(false);
+            return connection;
+        } catch (SQLException e) {
+            permits.release();
+            throw new DataAccessException("Unable to open a connection", e);
+        }
+    }
+
+    private void release(Connection connection, boolean reusable) {
+        if (reusable && !closed) {
+            idle.offerFirst(connection);
+        } else {
+            closeQuietly(connection);
+        }
+        permits.release();
+    }
+
+    /**
+     * @return true if the connection can be reused
+     */
+    private static boolean rollback(Connection connection) {
+        try {
+            connection.rollback();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // the connection is dropped anyway
+        }
+    }
+
+    @FunctionalInterface
+    public interface SqlWork<R> {
+        R execute(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,16 @@
+package com.revolut.transfer.repository.jdbc;
+
+/**
+ * Unchecked wrapper of JDBC failures, so repositories keep the {@link com.revolut.transfer.repository.Repository}
+ * signatures
+ */
+public class DataAccessException extends RuntimeException {
+
+    public DataAccessException(String message) {
+        super(message);
+    }
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
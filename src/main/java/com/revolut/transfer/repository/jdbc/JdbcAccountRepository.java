@@ -0,0 +1,141 @@
+package com.revolut.transfer.repository.jdbc;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.repository.Repository;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Accounts stored in the {@code account} table. Every lookup returns a new detached instance, balances are changed
+ * only by statements of {@link com.revolut.transfer.service.jdbc.JdbcTransferOperationServiceImpl}.
+ */
+@RequiredArgsConstructor
+public class JdbcAccountRepository implements Repository<Account> {
+
+    private static final String SELECT =
+            "SELECT id, name, balance, opening_balance, held_balance, created_at, version FROM account";
+    private static final String INSERT =
+            "INSERT INTO account (name, balance, opening_balance, held_balance, created_at, version) " +
+                    "VALUES (?, ?, ?, ?, ?, 0)";
+
+    // bind parameters of one lookup statement, some databases reject longer IN lists
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private final ConnectionPool pool;
+
+    @Override
+    public Optional<Account> get(Long id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(find(id));
+    }
+
+    @Override
+    public Account find(long id) {
+        return pool.inTransaction(connection -> {
+            try (var statement = connection.prepareStatement(SELECT + " WHERE id = ?")) {
+                statement.setLong(1, id);
+                try (var resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? map(resultSet) : null;
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<Account> getAll() {
+        return pool.inTransaction(connection -> {
+            try (var statement = connection.prepareStatement(SELECT + " ORDER BY id");
+                 var resultSet = statement.executeQuery()) {
+                var result = new ArrayList<Account>();
+                while (resultSet.next()) {
+                    result.add(map(resultSet));
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Reads the accounts by one {@code IN} query per 1000 distinct ids, all in one transaction
+     */
+    @Override
+    public List<Account> getAll(Collection<Long> ids) {
+        var distinct = new ArrayList<Long>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        if (distinct.isEmpty()) return new ArrayList<>();
+        var found = pool.inTransaction(connection -> {
+            var accounts = new HashMap<Long, Account>();
+            for (int from = 0; from < distinct.size(); from += MAX_IDS_PER_QUERY) {
+                var chunk = distinct.subList(from, Math.min(distinct.size(), from + MAX_IDS_PER_QUERY));
+                var placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                try (var statement = connection.prepareStatement(SELECT + " WHERE id IN (" + placeholders + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setLong(i + 1, chunk.get(i));
+                    }
+                    try (var resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            var account = map(resultSet);
+                            accounts.put(account.getId(), account);
+                        }
+                    }
+                }
+            }
+            return accounts;
+        });
+        var result = new ArrayList<Account>(ids.size());
+        for (Long id : ids) {
+            var account = id == null ? null : found.get(id);
+            if (account != null) result.add(account);
+        }
+        return result;
+    }
+
+    @Override
+    public Account create(Account account) {
+        if (account.getId() != null)
+            throw new IllegalArgumentException("Non created entity cannot have an id");
+        if (account.getOpeningBalance() == null) account.setOpeningBalance(account.getBalance());
+        if (account.getCreatedAt() == null) account.setCreatedAt(OffsetDateTime.now(ZoneOffset.UTC));
+        return pool.inTransaction(connection -> {
+            try (var statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, account.getName());
+                statement.setBigDecimal(2, account.getBalance());
+                statement.setBigDecimal(3, account.getOpeningBalance());
+                statement.setBigDecimal(4, account.getHeldBalance());
+                statement.setObject(5, account.getCreatedAt());
+                statement.executeUpdate();
+                try (var keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    account.setId(keys.getLong(1));
+                }
+                return account;
+            }
+        });
+    }
+
+    private static Account map(ResultSet resultSet) throws SQLException {
+        var account = new Account();
+        account.setId(resultSet.getLong(1));
+        account.setName(resultSet.getString(2));
+        account.setBalance(resultSet.getBigDecimal(3));
+        account.setOpeningBalance(resultSet.getBigDecimal(4));
+        var held = resultSet.getBigDecimal(5);
+        account.setHeldBalance(held == null ? BigDecimal.ZERO : held);
+        account.setCreatedAt(resultSet.getObject(6, OffsetDateTime.class));
+        account.setVersion(resultSet.getLong(7));
+        return account;
+    }
+}
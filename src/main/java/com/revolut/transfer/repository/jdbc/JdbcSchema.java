@@ -0,0 +1,46 @@
+package com.revolut.transfer.repository.jdbc;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tables of the JDBC repositories. Written in the subset of SQL shared by H2 and PostgreSQL.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class JdbcSchema {
+
+    /**
+     * Source of group ids of multi-leg transfers shared by every instance using the database
+     */
+    public static final String GROUP_ID_SEQUENCE = "transfer_group_id";
+
+    private static final String[] STATEMENTS = {
+            "CREATE TABLE IF NOT EXISTS account (" +
+                    "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "name VARCHAR(255), " +
+                    "balance DECIMAL(30, 10) NOT NULL, " +
+                    "opening_balance DECIMAL(30, 10), " +
+                    "held_balance DECIMAL(30, 10) NOT NULL, " +
+                    "created_at TIMESTAMP WITH TIME ZONE, " +
+                    "version BIGINT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS transfer_transaction (" +
+                    "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "from_id BIGINT, " +
+                    "to_id BIGINT, " +
+                    "amount DECIMAL(30, 10), " +
+                    "group_id BIGINT, " +
+                    "date_time TIMESTAMP WITH TIME ZONE)",
+            "CREATE SEQUENCE IF NOT EXISTS " + GROUP_ID_SEQUENCE
+    };
+
+    public static void create(ConnectionPool pool) {
+        pool.inTransaction(connection -> {
+            try (var statement = connection.createStatement()) {
+                for (String sql : STATEMENTS) {
+                    statement.execute(sql);
+                }
+            }
+            return null;
+        });
+    }
+}
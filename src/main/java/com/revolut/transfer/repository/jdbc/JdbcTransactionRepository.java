@@ -0,0 +1,125 @@
+package com.revolut.transfer.repository.jdbc;
+
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Transactions stored in the {@code transfer_transaction} table
+ */
+@RequiredArgsConstructor
+public class JdbcTransactionRepository implements Repository<TransferTransaction> {
+
+    private static final String SELECT = "SELECT id, from_id, to_id, amount, group_id, date_time FROM transfer_transaction";
+    private static final String INSERT =
+            "INSERT INTO transfer_transaction (from_id, to_id, amount, group_id, date_time) VALUES (?, ?, ?, ?, ?)";
+
+    private final ConnectionPool pool;
+
+    @Override
+    public Optional<TransferTransaction> get(Long id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(find(id));
+    }
+
+    @Override
+    public TransferTransaction find(long id) {
+        return pool.inTransaction(connection -> {
+            try (var statement = connection.prepareStatement(SELECT + " WHERE id = ?")) {
+                statement.setLong(1, id);
+                try (var resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? map(resultSet) : null;
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<TransferTransaction> getAll() {
+        return pool.inTransaction(connection -> {
+            try (var statement = connection.prepareStatement(SELECT + " ORDER BY id");
+                 var resultSet = statement.executeQuery()) {
+                var result = new ArrayList<TransferTransaction>();
+                while (resultSet.next()) {
+                    result.add(map(resultSet));
+                }
+                return result;
+            }
+        });
+    }
+
+    @Override
+    public TransferTransaction create(TransferTransaction transaction) {
+        pool.inTransaction(connection -> {
+            insert(connection, List.of(transaction));
+            return null;
+        });
+        return transaction;
+    }
+
+    public List<TransferTransaction> createAll(List<TransferTransaction> transactions) {
+        pool.inTransaction(connection -> {
+            insert(connection, transactions);
+            return null;
+        });
+        return transactions;
+    }
+
+    /**
+     * Inserts all transactions with one batched statement within the transaction of the given connection
+     * and sets their generated ids
+     */
+    public void insert(Connection connection, List<TransferTransaction> transactions) throws SQLException {
+        for (TransferTransaction transaction : transactions) {
+            if (transaction.getId() != null)
+                throw new IllegalArgumentException("Non created entity cannot have an id");
+        }
+        try (var statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (TransferTransaction transaction : transactions) {
+                setLong(statement, 1, transaction.getFrom());
+                setLong(statement, 2, transaction.getTo());
+                statement.setBigDecimal(3, transaction.getAmount());
+                setLong(statement, 4, transaction.getGroupId());
+                statement.setObject(5, transaction.getDateTime());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            try (var keys = statement.getGeneratedKeys()) {
+                for (TransferTransaction transaction : transactions) {
+                    if (!keys.next()) throw new SQLException("Generated id is missing");
+                    transaction.setId(keys.getLong(1));
+                }
+            }
+        }
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    private static TransferTransaction map(ResultSet resultSet) throws SQLException {
+        var transaction = new TransferTransaction();
+        transaction.setId(resultSet.getLong(1));
+        transaction.setFrom(resultSet.getObject(2, Long.class));
+        transaction.setTo(resultSet.getObject(3, Long.class));
+        transaction.setAmount(resultSet.getBigDecimal(4));
+        transaction.setGroupId(resultSet.getObject(5, Long.class));
+        transaction.setDateTime(resultSet.getObject(6, OffsetDateTime.class));
+        return transaction;
+    }
+}
@@ -0,0 +1,106 @@
+package com.revolut.transfer.repository.ledger;
+
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.stub.PageSealer;
+import com.revolut.transfer.repository.stub.SealedPage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seals pages of transactions by appending their {@link TransactionSegment} form to segment files instead of keeping
+ * it on the heap. A sealed page only remembers its file and position; the block index is stored in the file in
+ * front of the records, so a lookup costs two positional reads: the offsets of one block, then the block itself.
+ * Files are append-only and a new one is started once the current one would exceed the maximum file size.
+ * <p>
+ * Transaction ids do not survive a restart, so segment files left by a previous run are deleted on start.
+ */
+public class SegmentFileStore implements PageSealer<TransferTransaction>, Closeable {
+
+    public static final long DEFAULT_MAX_FILE_SIZE = 1L << 30;
+
+    private static final String FILE_PREFIX = "transactions-";
+    private static final String FILE_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long maxFileSize;
+    private final List<FileChannel> files = new ArrayList<>();
+    private FileChannel current;
+    private long currentSize;
+    private long spilledBytes;
+
+    public SegmentFileStore(Path directory) {
+        this(directory, DEFAULT_MAX_FILE_SIZE);
+    }
+
+    public SegmentFileStore(Path directory, long maxFileSize) {
+        if (maxFileSize <= 0) throw new IllegalArgumentException("Maximum file size must be positive");
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        try {
+            Files.createDirectories(directory);
+            try (var stale = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+                for (Path file : stale) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized SealedPage<TransferTransaction> seal(List<TransferTransaction> entities) {
+        var bytes = TransactionSegment.encode(entities).toBytes();
+        try {
+            if (current == null || currentSize > 0 && currentSize + bytes.length > maxFileSize) {
+                current = FileChannel.open(directory.resolve(String.format("%s%06d%s", FILE_PREFIX, files.size(), FILE_SUFFIX)),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                files.add(current);
+                currentSize = 0L;
+            }
+            var position = currentSize;
+            var buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                current.write(buffer, position + buffer.position());
+            }
+            currentSize += bytes.length;
+            spilledBytes += bytes.length;
+            return new SpilledSegment(current, position, entities.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized int getFileCount() {
+        return files.size();
+    }
+
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Closes the files, sealed pages cannot be read afterwards
+     */
+    @Override
+    public synchronized void close() {
+        for (FileChannel file : files) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // nothing is written after sealing, so there is nothing to lose
+            }
+        }
+        files.clear();
+        current = null;
+    }
+}
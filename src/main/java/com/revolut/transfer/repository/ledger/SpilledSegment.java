@@ -0,0 +1,62 @@
+package com.revolut.transfer.repository.ledger;
+
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.stub.SealedPage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+/**
+ * {@link TransactionSegment} stored by {@link SegmentFileStore}, read with positional reads which do not block each other
+ */
+class SpilledSegment implements SealedPage<TransferTransaction> {
+
+    private final FileChannel file;
+    private final long position;
+    private final int size;
+
+    SpilledSegment(FileChannel file, long position, int size) {
+        this.file = file;
+        this.position = position;
+        this.size = size;
+    }
+
+    @Override
+    public TransferTransaction get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        var block = index / TransactionSegment.BLOCK_SIZE;
+        var offsets = read(position + 2 * Integer.BYTES + (long) block * Integer.BYTES, 2 * Integer.BYTES);
+        var start = offsets.getInt();
+        var end = offsets.getInt();
+        var records = position + TransactionSegment.headerSize(TransactionSegment.blocks(size));
+        return TransactionSegment.decode(read(records + start, end - start).array(), index % TransactionSegment.BLOCK_SIZE);
+    }
+
+    @Override
+    public void forEach(Consumer<TransferTransaction> action) {
+        var blocks = TransactionSegment.blocks(size);
+        var header = read(position, TransactionSegment.headerSize(blocks));
+        var length = header.getInt(header.limit() - Integer.BYTES);
+        var bytes = ByteBuffer.allocate(header.limit() + length);
+        bytes.put(header);
+        bytes.put(read(position + header.limit(), length));
+        bytes.flip();
+        TransactionSegment.fromBytes(bytes).forEach(action);
+    }
+
+    private ByteBuffer read(long from, int length) {
+        var buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (file.read(buffer, from + buffer.position()) < 0) throw new EOFException("Segment is truncated");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.flip();
+    }
+}
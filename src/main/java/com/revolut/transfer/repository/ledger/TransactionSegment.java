@@ -0,0 +1,311 @@
+package com.revolut.transfer.repository.ledger;
+
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.stub.SealedPage;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Immutable compressed range of transactions. Records are cut into blocks of {@link #BLOCK_SIZE}, every block is
+ * encoded on its own, so a point lookup decodes at most one block. Within a block ids and timestamps are stored as
+ * deltas from the previous record, all numbers as zigzag varints and absent fields are not stored at all:
+ * <pre>
+ * flags:byte  id delta  [millis delta  [nano of milli]  [offset seconds]]  [from]  [to]
+ *             [amount scale  (unscaled value | length  big-endian bytes)]  [group id]
+ * </pre>
+ * The serialized form written by {@link #toBytes()} starts with the block index, so a reader can locate one block
+ * without reading the rest:
+ * <pre>
+ * size:int  blocks:int  block offsets:int[blocks + 1]  records
+ * </pre>
+ */
+public class TransactionSegment implements SealedPage<TransferTransaction> {
+
+    public static final int BLOCK_SIZE = 64;
+
+    private static final int HAS_TIME = 1;
+    private static final int HAS_NANOS = 1 << 1;
+    private static final int HAS_OFFSET = 1 << 2;
+    private static final int HAS_FROM = 1 << 3;
+    private static final int HAS_TO = 1 << 4;
+    private static final int HAS_AMOUNT = 1 << 5;
+    private static final int BIG_AMOUNT = 1 << 6;
+    private static final int HAS_GROUP = 1 << 7;
+
+    private final int size;
+    private final int[] blockOffsets;
+    private final byte[] data;
+
+    private TransactionSegment(int size, int[] blockOffsets, byte[] data) {
+        this.size = size;
+        this.blockOffsets = blockOffsets;
+        this.data = data;
+    }
+
+    /**
+     * @param transactions stored transactions, ids must not be null
+     */
+    public static TransactionSegment encode(List<TransferTransaction> transactions) {
+        var size = transactions.size();
+        var blockOffsets = new int[blocks(size)];
+        var encoder = new Encoder(size * 16);
+        var previousId = 0L;
+        var previousMillis = 0L;
+        for (int i = 0; i < size; i++) {
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = encoder.length;
+                previousId = 0L;
+                previousMillis = 0L;
+            }
+            var transaction = transactions.get(i);
+            var dateTime = transaction.getDateTime();
+            var amount = transaction.getAmount();
+            var unscaled = amount == null ? null : amount.unscaledValue();
+
+            var flags = 0;
+            if (dateTime != null) {
+                flags |= HAS_TIME;
+                if (dateTime.getNano() % 1_000_000 != 0) flags |= HAS_NANOS;
+                if (dateTime.getOffset().getTotalSeconds() != 0) flags |= HAS_OFFSET;
+            }
+            if (transaction.getFrom() != null) flags |= HAS_FROM;
+            if (transaction.getTo() != null) flags |= HAS_TO;
+            if (amount != null) {
+                flags |= HAS_AMOUNT;
+                if (unscaled.bitLength() >= Long.SIZE) flags |= BIG_AMOUNT;
+            }
+            if (transaction.getGroupId() != null) flags |= HAS_GROUP;
+            encoder.writeByte(flags);
+
+            var id = transaction.getId();
+            encoder.writeSigned(id - previousId);
+            previousId = id;
+            if (dateTime != null) {
+                var millis = dateTime.toEpochSecond() * 1000L + dateTime.getNano() / 1_000_000;
+                encoder.writeSigned(millis - previousMillis);
+                previousMillis = millis;
+                if ((flags & HAS_NANOS) != 0) encoder.writeUnsigned(dateTime.getNano() % 1_000_000);
+                if ((flags & HAS_OFFSET) != 0) encoder.writeSigned(dateTime.getOffset().getTotalSeconds());
+            }
+            if (transaction.getFrom() != null) encoder.writeSigned(transaction.getFrom());
+            if (transaction.getTo() != null) encoder.writeSigned(transaction.getTo());
+            if (amount != null) {
+                encoder.writeSigned(amount.scale());
+                if ((flags & BIG_AMOUNT) != 0) {
+                    var bytes = unscaled.toByteArray();
+                    encoder.writeUnsigned(bytes.length);
+                    encoder.writeBytes(bytes);
+                } else {
+                    encoder.writeSigned(unscaled.longValue());
+                }
+            }
+            if (transaction.getGroupId() != null) encoder.writeSigned(transaction.getGroupId());
+        }
+        return new TransactionSegment(size, blockOffsets, Arrays.copyOf(encoder.buffer, encoder.length));
+    }
+
+    @Override
+    public TransferTransaction get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        var decoder = new Decoder(data, blockOffsets[index / BLOCK_SIZE]);
+        for (int i = index % BLOCK_SIZE; i > 0; i--) {
+            decoder.next(false);
+        }
+        return decoder.next(true);
+    }
+
+    @Override
+    public void forEach(Consumer<TransferTransaction> action) {
+        var decoder = new Decoder(data, 0);
+        for (int i = 0; i < size; i++) {
+            if (i % BLOCK_SIZE == 0) decoder.startBlock(blockOffsets[i / BLOCK_SIZE]);
+            action.accept(decoder.next(true));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return serialized form, the last block offset is the length of the records
+     */
+    public byte[] toBytes() {
+        var buffer = ByteBuffer.allocate(headerSize(blockOffsets.length) + data.length);
+        buffer.putInt(size);
+        buffer.putInt(blockOffsets.length);
+        for (int blockOffset : blockOffsets) {
+            buffer.putInt(blockOffset);
+        }
+        buffer.putInt(data.length);
+        buffer.put(data);
+        return buffer.array();
+    }
+
+    /**
+     * @param buffer serialized form starting at the current position, which is moved past it
+     */
+    public static TransactionSegment fromBytes(ByteBuffer buffer) {
+        var size = buffer.getInt();
+        var blockOffsets = new int[buffer.getInt()];
+        for (int i = 0; i < blockOffsets.length; i++) {
+            blockOffsets[i] = buffer.getInt();
+        }
+        var data = new byte[buffer.getInt()];
+        buffer.get(data);
+        return new TransactionSegment(size, blockOffsets, data);
+    }
+
+    /**
+     * @return bytes preceding the records in the serialized form
+     */
+    static int headerSize(int blocks) {
+        return 2 * Integer.BYTES + (blocks + 1) * Integer.BYTES;
+    }
+
+    static int blocks(int size) {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * @param block records of one block
+     * @param index position of the record within the block
+     */
+    static TransferTransaction decode(byte[] block, int index) {
+        var decoder = new Decoder(block, 0);
+        for (int i = index; i > 0; i--) {
+            decoder.next(false);
+        }
+        return decoder.next(true);
+    }
+
+    /**
+     * @return bytes taken by the encoded records and the block index
+     */
+    public int getEncodedSize() {
+        return data.length + blockOffsets.length * Integer.BYTES;
+    }
+
+    private static class Encoder {
+        private byte[] buffer;
+        private int length;
+
+        private Encoder(int capacity) {
+            this.buffer = new byte[Math.max(capacity, 16)];
+        }
+
+        void writeByte(int value) {
+            if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            buffer[length++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            for (byte value : bytes) {
+                writeByte(value);
+            }
+        }
+
+        void writeSigned(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void writeUnsigned(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+    }
+
+    private static class Decoder {
+        private final byte[] data;
+        private int offset;
+        private long previousId;
+        private long previousMillis;
+
+        private Decoder(byte[] data, int offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        void startBlock(int offset) {
+            this.offset = offset;
+            previousId = 0L;
+            previousMillis = 0L;
+        }
+
+        /**
+         * @param materialize false to only move to the next record
+         */
+        TransferTransaction next(boolean materialize) {
+            var flags = data[offset++] & 0xFF;
+            var id = previousId + readSigned();
+            previousId = id;
+
+            OffsetDateTime dateTime = null;
+            if ((flags & HAS_TIME) != 0) {
+                var millis = previousMillis + readSigned();
+                previousMillis = millis;
+                var nanos = (flags & HAS_NANOS) != 0 ? (int) readUnsigned() : 0;
+                var offsetSeconds = (flags & HAS_OFFSET) != 0 ? (int) readSigned() : 0;
+                if (materialize) {
+                    var instant = Instant.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                            Math.floorMod(millis, 1000L) * 1_000_000L + nanos);
+                    dateTime = OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(offsetSeconds));
+                }
+            }
+            var from = (flags & HAS_FROM) != 0 ? readSigned() : 0L;
+            var to = (flags & HAS_TO) != 0 ? readSigned() : 0L;
+            BigDecimal amount = null;
+            if ((flags & HAS_AMOUNT) != 0) {
+                var scale = (int) readSigned();
+                if ((flags & BIG_AMOUNT) != 0) {
+                    var length = (int) readUnsigned();
+                    if (materialize) {
+                        amount = new BigDecimal(new BigInteger(Arrays.copyOfRange(data, offset, offset + length)), scale);
+                    }
+                    offset += length;
+                } else {
+                    var unscaled = readSigned();
+                    if (materialize) amount = BigDecimal.valueOf(unscaled, scale);
+                }
+            }
+            var groupId = (flags & HAS_GROUP) != 0 ? readSigned() : 0L;
+            if (!materialize) return null;
+
+            var transaction = new TransferTransaction();
+            transaction.setId(id);
+            transaction.setDateTime(dateTime);
+            if ((flags & HAS_FROM) != 0) transaction.setFrom(from);
+            if ((flags & HAS_TO) != 0) transaction.setTo(to);
+            transaction.setAmount(amount);
+            if ((flags & HAS_GROUP) != 0) transaction.setGroupId(groupId);
+            return transaction;
+        }
+
+        private long readSigned() {
+            var value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readUnsigned() {
+            var value = 0L;
+            var shift = 0;
+            while (true) {
+                var next = data[offset++];
+                value |= (long) (next & 0x7F) << shift;
+                if (next >= 0) return value;
+                shift += 7;
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.revolut.transfer.repository.stub;
+
+import java.util.List;
+
+/**
+ * Converts a completely filled page of entities, which are not changed after creation, into a compact read-only form
+ */
+public interface PageSealer<T> {
+
+    /**
+     * @param entities entities of the page in position order
+     */
+    SealedPage<T> seal(List<T> entities);
+}
@@ -2,43 +2,221 @@ package com.revolut.transfer.repository.stub;
 
 import com.revolut.transfer.model.AbstractEntity;
 import com.revolut.transfer.repository.Repository;
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+/**
+ * Ids come from striped sequences, a thread always allocates from the same shard, so concurrent creators do not
+ * contend on one counter. Every shard keeps its entities in pages of an array indexed by the position of the id
+ * in the shard: lookups neither box the id nor allocate, and an insert is a single compare-and-set of the slot.
+ * <p>
+ * With a {@link PageSealer} every completely filled page is handed to a background thread and replaced by its
+ * sealed form, so the entities themselves do not stay on the heap.
+ */
 public class RepositoryStub<T extends AbstractEntity> implements Repository<T> {
-    private final Map<Long, T> stateMap = new ConcurrentHashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(0L);
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    // counters of different shards are kept 128 bytes apart to avoid false sharing
+    private static final int COUNTER_STRIDE = 16;
+
+    private final int shardBits;
+    private final int shardMask;
+    private final AtomicLongArray counters;
+    private final Shard[] shards;
+    private final PageSealer<T> sealer;
+    private final Executor sealExecutor;
+
+    RepositoryStub(int idShards) {
+        this(idShards, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    RepositoryStub(int idShards, PageSealer<T> sealer) {
+        if (idShards <= 0 || Integer.bitCount(idShards) != 1)
+            throw new IllegalArgumentException("Amount of id shards must be a positive power of two");
+        this.shardBits = Integer.numberOfTrailingZeros(idShards);
+        this.shardMask = idShards - 1;
+        this.counters = new AtomicLongArray(idShards * COUNTER_STRIDE);
+        this.shards = new RepositoryStub.Shard[idShards];
+        for (int i = 0; i < idShards; i++) {
+            shards[i] = new Shard();
+        }
+        this.sealer = sealer;
+        // the only thread exits when there is nothing to seal, so the repository needs no closing
+        this.sealExecutor = sealer == null ? null : new ThreadPoolExecutor(0, 1,
+                1L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    var thread = new Thread(runnable, "repository-page-sealer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
 
     @Override
     public Optional<T> get(Long id) {
         if (id == null) return Optional.empty();
-        return Optional.ofNullable(stateMap.get(id));
+        return Optional.ofNullable(find(id));
     }
 
+    @Override
+    public T find(long id) {
+        if (id <= 0) return null;
+        return shards[(int) (id - 1) & shardMask].find((id - 1) >>> shardBits);
+    }
+
+    /**
+     * @return entities in ascending id order
+     */
     @Override
     public List<T> getAll() {
-        return new ArrayList<>(stateMap.values());
+        var result = new ArrayList<T>();
+        for (Shard shard : shards) {
+            shard.collect(result);
+        }
+        if (shards.length > 1) result.sort(Comparator.comparing(AbstractEntity::getId));
+        return result;
     }
 
     @Override
     public T create(T entity) {
         if (entity.getId() != null)
             throw new IllegalArgumentException("Non created entity cannot have an id");
-        var id = idCounter.incrementAndGet();
-        entity.setId(id);
-        var unexpected = stateMap.get(id);
-        if (unexpected != null) {
+        var shard = (int) Thread.currentThread().getId() & shardMask;
+        var position = counters.getAndIncrement(shard * COUNTER_STRIDE);
+        entity.setId(idOf(shard, position));
+        var page = shards[shard].page(position);
+        if (!page.insert((int) position & PAGE_MASK, entity)) {
             throw new IllegalStateException("Entity with id already exists");
         }
-        stateMap.put(id, entity);
+        if (sealer != null && page.filled.incrementAndGet() == PAGE_SIZE) {
+            sealExecutor.execute(page::seal);
+        }
         return entity;
     }
+
+    @Override
+    public T restore(T entity) {
+        var id = entity.getId();
+        if (id == null || id <= 0) throw new IllegalArgumentException("Restored entity must have an id");
+        var shard = (int) (id - 1) & shardMask;
+        var position = (id - 1) >>> shardBits;
+        counters.accumulateAndGet(shard * COUNTER_STRIDE, position + 1, Math::max);
+        var page = shards[shard].page(position);
+        if (!page.insert((int) position & PAGE_MASK, entity)) {
+            throw new IllegalStateException("Entity with id already exists");
+        }
+        if (sealer != null && page.filled.incrementAndGet() == PAGE_SIZE) {
+            sealExecutor.execute(page::seal);
+        }
+        return entity;
+    }
+
+    @Override
+    public int getIdShards() {
+        return shards.length;
+    }
+
+    @Override
+    public long getAllocatedIds(int shard) {
+        return counters.get(shard * COUNTER_STRIDE);
+    }
+
+    int getSealedPages(int shard) {
+        var sealed = 0;
+        for (Page page : shards[shard].pages) {
+            if (page != null && page.sealed != null) sealed++;
+        }
+        return sealed;
+    }
+
+    private class Shard {
+        private final Object pagesLock = new Object();
+        @SuppressWarnings("unchecked")
+        private volatile Page[] pages = new RepositoryStub.Page[0];
+
+        T find(long position) {
+            var pages = this.pages;
+            var pageIndex = position >>> PAGE_BITS;
+            if (pageIndex >= pages.length) return null;
+            var page = pages[(int) pageIndex];
+            return page == null ? null : page.find((int) position & PAGE_MASK);
+        }
+
+        void collect(List<T> result) {
+            for (Page page : pages) {
+                if (page != null) page.collect(result);
+            }
+        }
+
+        Page page(long position) {
+            var pageIndex = position >>> PAGE_BITS;
+            if (pageIndex > Integer.MAX_VALUE) throw new IllegalStateException("Repository is full");
+            var pages = this.pages;
+            if (pageIndex < pages.length && pages[(int) pageIndex] != null) return pages[(int) pageIndex];
+            synchronized (pagesLock) {
+                pages = this.pages;
+                if (pageIndex >= pages.length) {
+                    pages = Arrays.copyOf(pages, Math.max((int) pageIndex + 1, pages.length * 2));
+                }
+                if (pages[(int) pageIndex] == null) {
+                    pages[(int) pageIndex] = new Page();
+                }
+                this.pages = pages;
+                return pages[(int) pageIndex];
+            }
+        }
+    }
+
+    /**
+     * Entities stay readable while the page is sealed: the sealed form is published before the entities are dropped
+     */
+    private class Page {
+        private volatile AtomicReferenceArray<T> entities = new AtomicReferenceArray<>(PAGE_SIZE);
+        private volatile SealedPage<T> sealed;
+        private final AtomicInteger filled = new AtomicInteger();
+
+        T find(int index) {
+            var entities = this.entities;
+            return entities != null ? entities.get(index) : sealed.get(index);
+        }
+
+        boolean insert(int index, T entity) {
+            return entities.compareAndSet(index, null, entity);
+        }
+
+        void collect(List<T> result) {
+            var entities = this.entities;
+            if (entities == null) {
+                sealed.forEach(result::add);
+                return;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                var entity = entities.get(i);
+                if (entity != null) result.add(entity);
+            }
+        }
+
+        void seal() {
+            var entities = this.entities;
+            var list = new ArrayList<T>(PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                list.add(entities.get(i));
+            }
+            sealed = sealer.seal(list);
+            this.entities = null;
+        }
+    }
 }
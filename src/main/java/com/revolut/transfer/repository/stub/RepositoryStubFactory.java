@@ -7,7 +7,28 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class RepositoryStubFactory {
 
+    /**
+     * Enough id shards for every core to create entities without contention
+     */
+    public static final int DEFAULT_ID_SHARDS =
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
     public static <T extends AbstractEntity> RepositoryStub<T> initialize() {
-        return new RepositoryStub<>();
+        return initialize(DEFAULT_ID_SHARDS);
+    }
+
+    public static <T extends AbstractEntity> RepositoryStub<T> initialize(int idShards) {
+        return new RepositoryStub<>(idShards);
+    }
+
+    /**
+     * @param sealer applied to every completely filled page in background, entities must not change after creation
+     */
+    public static <T extends AbstractEntity> RepositoryStub<T> initialize(PageSealer<T> sealer) {
+        return initialize(DEFAULT_ID_SHARDS, sealer);
+    }
+
+    public static <T extends AbstractEntity> RepositoryStub<T> initialize(int idShards, PageSealer<T> sealer) {
+        return new RepositoryStub<>(idShards, sealer);
     }
 }
@@ -0,0 +1,16 @@
+package com.revolut.transfer.repository.stub;
+
+import java.util.function.Consumer;
+
+/**
+ * Read-only page replacing the entities sealed by a {@link PageSealer}, lookups materialize a new entity every time
+ */
+public interface SealedPage<T> {
+
+    /**
+     * @param index position of the entity within the page
+     */
+    T get(int index);
+
+    void forEach(Consumer<T> action);
+}
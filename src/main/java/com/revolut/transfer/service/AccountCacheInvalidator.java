@@ -0,0 +1,22 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.cache.CachingRepository;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Drops both accounts of a committed transfer from the cache, so reads started after the transfer returned load the
+ * new balances
+ */
+@RequiredArgsConstructor
+public class AccountCacheInvalidator implements TransferListener {
+
+    private final CachingRepository<Account> accountCache;
+
+    @Override
+    public void onTransfer(TransferTransaction transaction) {
+        accountCache.invalidate(transaction.getFrom());
+        accountCache.invalidate(transaction.getTo());
+    }
+}
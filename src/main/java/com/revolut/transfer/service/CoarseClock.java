@@ -0,0 +1,47 @@
+package com.revolut.transfer.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Millisecond precision UTC time that reuses the same {@link OffsetDateTime} instance for every call within one
+ * millisecond, so timestamping under load does not allocate
+ */
+public class CoarseClock {
+
+    private final Clock clock;
+    private volatile Tick tick;
+
+    public CoarseClock() {
+        this(Clock.systemUTC());
+    }
+
+    public CoarseClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public OffsetDateTime now() {
+        var millis = clock.millis();
+        var current = tick;
+        if (current != null && current.millis == millis) return current.dateTime;
+        var dateTime = OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+        tick = new Tick(millis, dateTime);
+        return dateTime;
+    }
+
+    public long millis() {
+        return clock.millis();
+    }
+
+    private static class Tick {
+        private final long millis;
+        private final OffsetDateTime dateTime;
+
+        private Tick(long millis, OffsetDateTime dateTime) {
+            this.millis = millis;
+            this.dateTime = dateTime;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.Hold;
+
+/**
+ * Notified about every placed hold and every hold leaving {@link Hold.Status#HELD} while the lock of the held
+ * account is still held. Implementations must not block.
+ */
+public interface HoldListener {
+
+    HoldListener NONE = new HoldListener() {
+        @Override
+        public void onHoldPlaced(Hold hold) {
+        }
+
+        @Override
+        public void onHoldFinished(Hold hold) {
+        }
+    };
+
+    void onHoldPlaced(Hold hold);
+
+    /**
+     * Called after the status of the hold is changed, a capture is notified after its transfer
+     */
+    void onHoldFinished(Hold hold);
+}
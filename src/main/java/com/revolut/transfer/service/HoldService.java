@@ -0,0 +1,26 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.model.TransferTransaction;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+public interface HoldService extends AutoCloseable {
+
+    Hold place(long accountId, BigDecimal amount, Duration ttl);
+
+    Hold get(long id);
+
+    /**
+     * Transfers the captured amount from the held account, the rest of the hold is released
+     *
+     * @param amount amount to capture, whole hold when null
+     */
+    TransferTransaction capture(long id, long toId, BigDecimal amount);
+
+    Hold release(long id);
+
+    @Override
+    void close();
+}
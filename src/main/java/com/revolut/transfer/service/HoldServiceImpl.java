@@ -0,0 +1,269 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.model.OutgoingLimits;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.exception.TransferRejectedException;
+import com.revolut.transfer.service.schedule.HierarchicalTimingWheel;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every state change of a hold and of the held balance happens under the lock of the held account.
+ * Expiry is driven by a {@link HierarchicalTimingWheel}, so the cost of expiring is proportional to the amount
+ * of expiring holds rather than to the amount of accounts. A capture is a transfer: it is checked against the
+ * outgoing limits of the held account and timestamped the same way as {@link TransferOperationServiceImpl} does.
+ */
+public class HoldServiceImpl implements HoldService {
+
+    public static final long DEFAULT_TICK_MILLIS = 100L;
+
+    private final Repository<Account> accountRepository;
+    private final Repository<TransferTransaction> transactionRepository;
+    private final Repository<Hold> holdRepository;
+    private final TransferListener transferListener;
+    private final HoldListener holdListener;
+    private final Clock clock;
+    private final CoarseClock transferClock;
+
+    private final HierarchicalTimingWheel<Hold> wheel;
+    private final Map<Long, HierarchicalTimingWheel.Timeout<Hold>> timeouts;
+    private final ScheduledExecutorService ticker;
+
+    public HoldServiceImpl(Repository<Account> accountRepository,
+                           Repository<TransferTransaction> transactionRepository,
+                           Repository<Hold> holdRepository,
+                           TransferListener transferListener) {
+        this(accountRepository, transactionRepository, holdRepository, transferListener, HoldListener.NONE);
+    }
+
+    public HoldServiceImpl(Repository<Account> accountRepository,
+                           Repository<TransferTransaction> transactionRepository,
+                           Repository<Hold> holdRepository,
+                           TransferListener transferListener,
+                           HoldListener holdListener) {
+        this(accountRepository, transactionRepository, holdRepository, transferListener, holdListener,
+                Clock.systemUTC(), DEFAULT_TICK_MILLIS);
+    }
+
+    public HoldServiceImpl(Repository<Account> accountRepository,
+                           Repository<TransferTransaction> transactionRepository,
+                           Repository<Hold> holdRepository,
+                           TransferListener transferListener,
+                           Clock clock,
+                           long tickMillis) {
+        this(accountRepository, transactionRepository, holdRepository, transferListener, HoldListener.NONE,
+                clock, tickMillis);
+    }
+
+    public HoldServiceImpl(Repository<Account> accountRepository,
+                           Repository<TransferTransaction> transactionRepository,
+                           Repository<Hold> holdRepository,
+                           TransferListener transferListener,
+                           HoldListener holdListener,
+                           Clock clock,
+                           long tickMillis) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.holdRepository = holdRepository;
+        this.transferListener = transferListener;
+        this.holdListener = holdListener;
+        this.clock = clock;
+        this.transferClock = new CoarseClock(clock);
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, clock.millis());
+        this.timeouts = new ConcurrentHashMap<>();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "hold-expiry-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Hold place(long accountId, BigDecimal amount, Duration ttl) {
+        if (amount == null)
+            throw new IllegalArgumentException("Amount cannot be null");
+        if (amount.compareTo(BigDecimal.ZERO) <= 0)
+            throw new IllegalArgumentException("Amount cannot be non-positive value");
+        if (ttl == null || ttl.isNegative() || ttl.isZero())
+            throw new IllegalArgumentException("Hold time to live must be positive");
+        if (ttl.toMillis() >= wheel.getHorizonMillis())
+            throw new IllegalArgumentException("Hold time to live is too long");
+
+        var account = accountRepository.get(accountId)
+                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(accountId));
+
+        var lock = account.getLock();
+        lock.lock();
+        try {
+            if (account.getAvailableBalance().compareTo(amount) < 0)
+                throw new IllegalArgumentException("Unable to hold, balance is too low");
+            account.beginUpdate();
+            account.setHeldBalance(account.getHeldBalance().add(amount));
+            account.endUpdate();
+
+            var expiresAt = clock.millis() + ttl.toMillis();
+            var hold = new Hold();
+            hold.setAccountId(accountId);
+            hold.setAmount(amount);
+            hold.setExpiresAt(OffsetDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneOffset.UTC));
+            hold.setStatus(Hold.Status.HELD);
+            holdRepository.create(hold);
+            timeouts.put(hold.getId(), wheel.schedule(hold, expiresAt));
+            holdListener.onHoldPlaced(hold);
+            return hold;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Hold get(long id) {
+        return holdRepository.get(id)
+                .orElseThrow(() -> EntityNotExistsException.holdNotFoundById(id));
+    }
+
+    @Override
+    public TransferTransaction capture(long id, long toId, BigDecimal amount) {
+        var hold = get(id);
+        if (amount != null && amount.compareTo(BigDecimal.ZERO) <= 0)
+            throw new IllegalArgumentException("Amount cannot be non-positive value");
+        if (amount != null && amount.compareTo(hold.getAmount()) > 0)
+            throw new IllegalArgumentException("Unable to capture more than held");
+        if (hold.getAccountId() == toId)
+            throw new IllegalArgumentException("Unable to transfer to the same account");
+
+        var fromAccount = accountRepository.get(hold.getAccountId())
+                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(hold.getAccountId()));
+        var toAccount = accountRepository.get(toId)
+                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(toId));
+
+        // global order, the same as multi-leg transfers use
+        var firstLock = hold.getAccountId() < toId ? fromAccount.getLock() : toAccount.getLock();
+        var secondLock = hold.getAccountId() < toId ? toAccount.getLock() : fromAccount.getLock();
+        firstLock.lock();
+        secondLock.lock();
+        try {
+            if (hold.getStatus() != Hold.Status.HELD)
+                throw new IllegalArgumentException("Hold is already " + hold.getStatus());
+            var captured = amount == null ? hold.getAmount() : amount;
+            var limits = fromAccount.getOutgoingLimits();
+            if (limits != null) {
+                var units = OutgoingLimits.units(captured);
+                var now = transferClock.millis();
+                if (!limits.allows(units, now)) throw TransferRejectedException.LIMIT_IS_EXCEEDED;
+                limits.record(units, now);
+            }
+            finish(hold, Hold.Status.CAPTURED);
+            fromAccount.beginUpdate();
+            toAccount.beginUpdate();
+            fromAccount.setHeldBalance(fromAccount.getHeldBalance().subtract(hold.getAmount()));
+            fromAccount.setBalance(fromAccount.getBalance().subtract(captured));
+            toAccount.setBalance(toAccount.getBalance().add(captured));
+            fromAccount.endUpdate();
+            toAccount.endUpdate();
+
+            var transaction = new TransferTransaction();
+            transaction.setFrom(hold.getAccountId());
+            transaction.setTo(toId);
+            transaction.setAmount(captured);
+            transaction.setDateTime(transferClock.now());
+            transactionRepository.create(transaction);
+            transferListener.onTransfer(transaction);
+            hold.setTransactionId(transaction.getId());
+            holdListener.onHoldFinished(hold);
+            return transaction;
+        } finally {
+            secondLock.unlock();
+            firstLock.unlock();
+        }
+    }
+
+    @Override
+    public Hold release(long id) {
+        var hold = get(id);
+        return releaseHeld(hold, Hold.Status.RELEASED);
+    }
+
+    /**
+     * Takes back a hold recovered after a restart with its id, its amount is held again and a hold past its expiry
+     * expires on the next tick
+     */
+    public Hold restore(Hold hold) {
+        var account = accountRepository.get(hold.getAccountId())
+                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(hold.getAccountId()));
+        var lock = account.getLock();
+        lock.lock();
+        try {
+            holdRepository.restore(hold);
+            account.beginUpdate();
+            account.setHeldBalance(account.getHeldBalance().add(hold.getAmount()));
+            account.endUpdate();
+            timeouts.put(hold.getId(), wheel.schedule(hold, hold.getExpiresAt().toInstant().toEpochMilli()));
+            return hold;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    private void expireDue() {
+        var expired = new ArrayList<Hold>();
+        wheel.advance(clock.millis(), expired::add);
+        for (Hold hold : expired) {
+            timeouts.remove(hold.getId());
+            try {
+                releaseHeld(hold, Hold.Status.EXPIRED);
+            } catch (IllegalArgumentException e) {
+                // captured or released concurrently
+            }
+        }
+    }
+
+    private Hold releaseHeld(Hold hold, Hold.Status status) {
+        var account = accountRepository.get(hold.getAccountId())
+                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(hold.getAccountId()));
+        var lock = account.getLock();
+        lock.lock();
+        try {
+            finish(hold, status);
+            account.beginUpdate();
+            account.setHeldBalance(account.getHeldBalance().subtract(hold.getAmount()));
+            account.endUpdate();
+            holdListener.onHoldFinished(hold);
+            return hold;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves hold out of {@link Hold.Status#HELD}, must be called under the held account lock
+     */
+    private void finish(Hold hold, Hold.Status status) {
+        if (hold.getStatus() != Hold.Status.HELD)
+            throw new IllegalArgumentException("Hold is already " + hold.getStatus());
+        hold.setStatus(status);
+        var timeout = timeouts.remove(hold.getId());
+        if (timeout != null) wheel.cancel(timeout);
+    }
+}
@@ -0,0 +1,18 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.ScheduledTransfer;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public interface ScheduledTransferService extends AutoCloseable {
+
+    ScheduledTransfer schedule(long fromId, long toId, BigDecimal amount, OffsetDateTime executeAt);
+
+    ScheduledTransfer get(long id);
+
+    ScheduledTransfer cancel(long id);
+
+    @Override
+    void close();
+}
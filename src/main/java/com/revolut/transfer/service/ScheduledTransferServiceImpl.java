@@ -0,0 +1,179 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.ScheduledTransfer;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.schedule.HierarchicalTimingWheel;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps pending transfers in a {@link HierarchicalTimingWheel} advanced by a single ticker thread. Expired entries
+ * are only moved to a queue under the wheel lock; dispatcher threads drain that queue in batches and yield between
+ * batches, so a large amount of transfers becoming due at once competes with live traffic only through the
+ * dispatcher threads themselves.
+ */
+public class ScheduledTransferServiceImpl implements ScheduledTransferService {
+
+    public static final long DEFAULT_TICK_MILLIS = 10L;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_DISPATCHER_THREADS = 1;
+
+    private final TransferOperationService transferService;
+    private final Repository<Account> accountRepository;
+    private final Repository<ScheduledTransfer> scheduledTransferRepository;
+    private final Clock clock;
+    private final int batchSize;
+
+    private final HierarchicalTimingWheel<ScheduledTransfer> wheel;
+    private final Map<Long, HierarchicalTimingWheel.Timeout<ScheduledTransfer>> timeouts;
+    private final BlockingQueue<ScheduledTransfer> dueTransfers;
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService dispatchers;
+
+    public ScheduledTransferServiceImpl(TransferOperationService transferService,
+                                        Repository<Account> accountRepository,
+                                        Repository<ScheduledTransfer> scheduledTransferRepository) {
+        this(transferService, accountRepository, scheduledTransferRepository, Clock.systemUTC(),
+                DEFAULT_TICK_MILLIS, DEFAULT_BATCH_SIZE, DEFAULT_DISPATCHER_THREADS);
+    }
+
+    public ScheduledTransferServiceImpl(TransferOperationService transferService,
+                                        Repository<Account> accountRepository,
+                                        Repository<ScheduledTransfer> scheduledTransferRepository,
+                                        Clock clock,
+                                        long tickMillis,
+                                        int batchSize,
+                                        int dispatcherThreads) {
+        this.transferService = transferService;
+        this.accountRepository = accountRepository;
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, clock.millis());
+        this.timeouts = new ConcurrentHashMap<>();
+        this.dueTransfers = new LinkedBlockingQueue<>();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "scheduled-transfer-ticker"));
+        this.dispatchers = Executors.newFixedThreadPool(dispatcherThreads, runnable -> daemon(runnable, "scheduled-transfer-dispatcher"));
+
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < dispatcherThreads; i++) {
+            dispatchers.execute(this::dispatch);
+        }
+    }
+
+    @Override
+    public ScheduledTransfer schedule(long fromId, long toId, BigDecimal amount, OffsetDateTime executeAt) {
+        if (amount == null)
+            throw new IllegalArgumentException("Amount cannot be null");
+        if (amount.compareTo(BigDecimal.ZERO) <= 0)
+            throw new IllegalArgumentException("Amount cannot be non-positive value");
+        if (fromId == toId)
+            throw new IllegalArgumentException("Unable to transfer to the same account");
+        if (executeAt == null)
+            throw new IllegalArgumentException("Execution time cannot be null");
+        var deadline = executeAt.toInstant().toEpochMilli();
+        if (deadline <= clock.millis())
+            throw new IllegalArgumentException("Execution time must be in the future");
+        if (deadline - clock.millis() >= wheel.getHorizonMillis())
+            throw new IllegalArgumentException("Execution time is too far in the future");
+
+        accountRepository.get(fromId).orElseThrow(() -> EntityNotExistsException.accountNotFoundById(fromId));
+        accountRepository.get(toId).orElseThrow(() -> EntityNotExistsException.accountNotFoundById(toId));
+
+        var scheduledTransfer = new ScheduledTransfer();
+        scheduledTransfer.setFromId(fromId);
+        scheduledTransfer.setToId(toId);
+        scheduledTransfer.setAmount(amount);
+        scheduledTransfer.setExecuteAt(executeAt);
+        scheduledTransfer.setStatus(ScheduledTransfer.Status.PENDING);
+        scheduledTransferRepository.create(scheduledTransfer);
+
+        var timeout = wheel.schedule(scheduledTransfer, deadline);
+        timeouts.put(scheduledTransfer.getId(), timeout);
+        // it might have expired before the timeout was registered
+        if (scheduledTransfer.getStatus() != ScheduledTransfer.Status.PENDING) {
+            timeouts.remove(scheduledTransfer.getId());
+        }
+        return scheduledTransfer;
+    }
+
+    @Override
+    public ScheduledTransfer get(long id) {
+        return scheduledTransferRepository.get(id)
+                .orElseThrow(() -> EntityNotExistsException.scheduledTransferNotFoundById(id));
+    }
+
+    @Override
+    public ScheduledTransfer cancel(long id) {
+        var scheduledTransfer = get(id);
+        var timeout = timeouts.get(id);
+        if (timeout == null || !wheel.cancel(timeout))
+            throw new IllegalArgumentException("Unable to cancel, scheduled transfer is " + scheduledTransfer.getStatus());
+        timeouts.remove(id);
+        scheduledTransfer.setStatus(ScheduledTransfer.Status.CANCELLED);
+        return scheduledTransfer;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        dispatchers.shutdownNow();
+    }
+
+    private void tick() {
+        wheel.advance(clock.millis(), scheduledTransfer -> {
+            scheduledTransfer.setStatus(ScheduledTransfer.Status.EXECUTING);
+            timeouts.remove(scheduledTransfer.getId());
+            dueTransfers.add(scheduledTransfer);
+        });
+    }
+
+    private void dispatch() {
+        var batch = new ArrayList<ScheduledTransfer>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(dueTransfers.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            dueTransfers.drainTo(batch, batchSize - 1);
+            for (ScheduledTransfer scheduledTransfer : batch) {
+                execute(scheduledTransfer);
+            }
+            batch.clear();
+            Thread.yield();
+        }
+    }
+
+    private void execute(ScheduledTransfer scheduledTransfer) {
+        try {
+            var transaction = transferService.transfer(scheduledTransfer.getFromId(),
+                    scheduledTransfer.getToId(),
+                    scheduledTransfer.getAmount());
+            scheduledTransfer.setTransactionId(transaction.getId());
+            scheduledTransfer.setStatus(ScheduledTransfer.Status.EXECUTED);
+        } catch (RuntimeException e) {
+            scheduledTransfer.setFailureReason(e.getLocalizedMessage());
+            scheduledTransfer.setStatus(ScheduledTransfer.Status.FAILED);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,86 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.TransferLeg;
+import com.revolut.transfer.model.TransferTransaction;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Storage independent part of multi-leg transfers
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransferLegs {
+
+    public static final int MAX_LEGS = 1000;
+
+    /**
+     * @return balance change of every account keyed by account id in ascending order, which is the locking order
+     */
+    public static TreeMap<Long, BigDecimal> validate(List<TransferLeg> debits, List<TransferLeg> credits) {
+        if (debits == null || debits.isEmpty())
+            throw new IllegalArgumentException("Debits cannot be empty");
+        if (credits == null || credits.isEmpty())
+            throw new IllegalArgumentException("Credits cannot be empty");
+        if (debits.size() + credits.size() > MAX_LEGS)
+            throw new IllegalArgumentException("Unable to transfer, more than " + MAX_LEGS + " legs");
+
+        var changes = new TreeMap<Long, BigDecimal>();
+        var debitSum = collect(debits, true, changes);
+        var creditSum = collect(credits, false, changes);
+        if (debitSum.compareTo(creditSum) != 0)
+            throw new IllegalArgumentException("Sum of debits must be equal to sum of credits");
+        return changes;
+    }
+
+    /**
+     * Matches debits against credits in order, every step exhausts at least one of the legs, so there are
+     * less transactions than legs
+     *
+     * @return transactions without id, group and time
+     */
+    public static List<TransferTransaction> match(List<TransferLeg> debits, List<TransferLeg> credits) {
+        var transactions = new ArrayList<TransferTransaction>(debits.size() + credits.size() - 1);
+        var creditIndex = 0;
+        var creditLeft = credits.get(0).getAmount();
+        for (TransferLeg debit : debits) {
+            var debitLeft = debit.getAmount();
+            while (debitLeft.signum() > 0) {
+                var credit = credits.get(creditIndex);
+                var amount = debitLeft.min(creditLeft);
+
+                var transaction = new TransferTransaction();
+                transaction.setFrom(debit.getAccountId());
+                transaction.setTo(credit.getAccountId());
+                transaction.setAmount(amount);
+                transactions.add(transaction);
+
+                debitLeft = debitLeft.subtract(amount);
+                creditLeft = creditLeft.subtract(amount);
+                if (creditLeft.signum() == 0 && ++creditIndex < credits.size()) {
+                    creditLeft = credits.get(creditIndex).getAmount();
+                }
+            }
+        }
+        return transactions;
+    }
+
+    private static BigDecimal collect(List<TransferLeg> legs, boolean debit, TreeMap<Long, BigDecimal> changes) {
+        var sum = BigDecimal.ZERO;
+        for (TransferLeg leg : legs) {
+            if (leg == null || leg.getAccountId() == null)
+                throw new IllegalArgumentException("Leg account id cannot be null");
+            if (leg.getAmount() == null || leg.getAmount().compareTo(BigDecimal.ZERO) <= 0)
+                throw new IllegalArgumentException("Leg amount must be positive");
+            var accountId = leg.getAccountId();
+            if (changes.put(accountId, debit ? leg.getAmount().negate() : leg.getAmount()) != null)
+                throw new IllegalArgumentException("Account id=" + accountId + " takes part in more than one leg");
+            sum = sum.add(leg.getAmount());
+        }
+        return sum;
+    }
+}
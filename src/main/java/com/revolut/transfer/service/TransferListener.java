@@ -0,0 +1,25 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.TransferTransaction;
+
+/**
+ * Notified about every stored transfer transaction while the locks of both accounts are still held, so
+ * notifications touching one account arrive in the order its balance changed. Implementations run on the
+ * transfer path and must neither block nor allocate needlessly.
+ */
+public interface TransferListener {
+
+    TransferListener NONE = transaction -> {
+    };
+
+    void onTransfer(TransferTransaction transaction);
+
+    static TransferListener of(TransferListener... listeners) {
+        var copy = listeners.clone();
+        return transaction -> {
+            for (TransferListener listener : copy) {
+                listener.onTransfer(transaction);
+            }
+        };
+    }
+}
@@ -1,10 +1,26 @@
 package com.revolut.transfer.service;
 
+import com.revolut.transfer.model.TransferGroup;
+import com.revolut.transfer.model.TransferLeg;
 import com.revolut.transfer.model.TransferTransaction;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 public interface TransferOperationService {
 
     TransferTransaction transfer(long fromId, long toId, BigDecimal amount);
+
+    /**
+     * Same as {@link #transfer(long, long, BigDecimal)}, both accounts are looked up concurrently and no thread
+     * waits for them. Rejections complete the stage exceptionally.
+     */
+    CompletionStage<TransferTransaction> transferAsync(long fromId, long toId, BigDecimal amount);
+
+    /**
+     * Applies all debits and credits atomically: either every balance is changed or none of them.
+     * Sum of debits must be equal to sum of credits and every account may take part only once.
+     */
+    TransferGroup transfer(List<TransferLeg> debits, List<TransferLeg> credits);
 }
@@ -1,50 +1,107 @@
 package com.revolut.transfer.service;
 
 import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.OutgoingLimits;
+import com.revolut.transfer.model.TransferGroup;
+import com.revolut.transfer.model.TransferLeg;
 import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.AsyncRepository;
+import com.revolut.transfer.repository.AsyncRepositoryAdapter;
 import com.revolut.transfer.repository.Repository;
 import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.exception.TransferRejectedException;
 
 import java.math.BigDecimal;
-import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 
 public class TransferOperationServiceImpl implements TransferOperationService {
 
+    public static final int MAX_LEGS = TransferLegs.MAX_LEGS;
+
     private final Repository<Account> accountRepository;
+    private final AsyncRepository<Account> asyncAccountRepository;
     private final Repository<TransferTransaction> transactionRepository;
-    private final Map<Long, Lock> lockMap;
-    private final ReentrantLock lockObtainingLock;
+    private final TransferListener transferListener;
+    private final CoarseClock clock;
+    private final AtomicLong groupIdCounter;
 
     public TransferOperationServiceImpl(Repository<Account> accountRepository,
                                         Repository<TransferTransaction> transactionRepository) {
+        this(accountRepository, transactionRepository, TransferListener.NONE);
+    }
+
+    public TransferOperationServiceImpl(Repository<Account> accountRepository,
+                                        Repository<TransferTransaction> transactionRepository,
+                                        TransferListener transferListener) {
+        this(accountRepository, new AsyncRepositoryAdapter<>(accountRepository), transactionRepository, transferListener);
+    }
+
+    public TransferOperationServiceImpl(Repository<Account> accountRepository,
+                                        AsyncRepository<Account> asyncAccountRepository,
+                                        Repository<TransferTransaction> transactionRepository,
+                                        TransferListener transferListener) {
         this.accountRepository = accountRepository;
+        this.asyncAccountRepository = asyncAccountRepository;
         this.transactionRepository = transactionRepository;
-        this.lockMap = new ConcurrentHashMap<>();
-        this.lockObtainingLock = new ReentrantLock();
+        this.transferListener = transferListener;
+        this.clock = new CoarseClock();
+        this.groupIdCounter = new AtomicLong(0L);
     }
 
+    /**
+     * Steady state path allocates only the resulting transaction and the new balance values: lookups are
+     * primitive-keyed, time comes from {@link CoarseClock} and rejections are preallocated.
+     */
     @Override
     public TransferTransaction transfer(long fromId, long toId, BigDecimal amount) {
+        var rejection = validate(fromId, toId, amount);
+        if (rejection != null) throw rejection;
+
+        var fromAccount = accountRepository.find(fromId);
+        if (fromAccount == null) throw EntityNotExistsException.accountNotFoundById(fromId);
+        var toAccount = accountRepository.find(toId);
+        if (toAccount == null) throw EntityNotExistsException.accountNotFoundById(toId);
+        return commit(fromId, fromAccount, toId, toAccount, amount);
+    }
+
+    /**
+     * Both lookups are issued before waiting for either, the transfer is committed by the thread completing the later one
+     */
+    @Override
+    public CompletionStage<TransferTransaction> transferAsync(long fromId, long toId, BigDecimal amount) {
+        var rejection = validate(fromId, toId, amount);
+        if (rejection != null) return CompletableFuture.failedFuture(rejection);
+
+        var fromLookup = asyncAccountRepository.find(fromId);
+        var toLookup = asyncAccountRepository.find(toId);
+        return fromLookup.thenCombine(toLookup, (fromAccount, toAccount) -> {
+            if (fromAccount == null) throw EntityNotExistsException.accountNotFoundById(fromId);
+            if (toAccount == null) throw EntityNotExistsException.accountNotFoundById(toId);
+            return commit(fromId, fromAccount, toId, toAccount, amount);
+        });
+    }
+
+    private static TransferRejectedException validate(long fromId, long toId, BigDecimal amount) {
         if (amount == null)
-            throw new IllegalArgumentException("Amount cannot be null");
-        if (amount.compareTo(BigDecimal.ZERO) <= 0)
-            throw new IllegalArgumentException("Amount cannot be non-positive value");
+            return TransferRejectedException.AMOUNT_IS_NULL;
+        if (amount.signum() <= 0)
+            return TransferRejectedException.AMOUNT_IS_NOT_POSITIVE;
         if (fromId == toId)
-            throw new IllegalArgumentException("Unable to transfer to the same account");
-
-        var fromAccount = accountRepository.get(fromId)
-                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(fromId));
-        var toAccount = accountRepository.get(toId)
-                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(toId));
+            return TransferRejectedException.SAME_ACCOUNT;
+        return null;
+    }
 
-        var fromLock = retrieveLock(fromId);
-        var toLock = retrieveLock(toId);
+    private TransferTransaction commit(long fromId, Account fromAccount, long toId, Account toAccount, BigDecimal amount) {
+        var fromLock = fromAccount.getLock();
+        var toLock = toAccount.getLock();
 
         try {
             var unlocked = true;
@@ -57,35 +114,104 @@ public class TransferOperationServiceImpl implements TransferOperationService {
                 }
             }
 
-            if (fromAccount.getBalance().compareTo(amount) < 0) {
-                throw new IllegalArgumentException("Unable to transfer, balance is too low");
+            if (!fromAccount.hasAvailable(amount)) {
+                throw TransferRejectedException.BALANCE_IS_TOO_LOW;
+            }
+            var limits = fromAccount.getOutgoingLimits();
+            if (limits != null) {
+                var units = OutgoingLimits.units(amount);
+                var now = clock.millis();
+                if (!limits.allows(units, now)) throw TransferRejectedException.LIMIT_IS_EXCEEDED;
+                limits.record(units, now);
             }
 
-
+            fromAccount.beginUpdate();
+            toAccount.beginUpdate();
             fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
             toAccount.setBalance(toAccount.getBalance().add(amount));
+            fromAccount.endUpdate();
+            toAccount.endUpdate();
 
             var transaction = new TransferTransaction();
-            transaction.setFrom(fromId);
-            transaction.setTo(toId);
+            // ids boxed by the accounts, boxing the primitive ones would allocate for ids outside of the Long cache
+            transaction.setFrom(fromAccount.getId());
+            transaction.setTo(toAccount.getId());
             transaction.setAmount(amount);
-            transaction.setDateTime(OffsetDateTime.now(ZoneOffset.UTC));
+            transaction.setDateTime(clock.now());
 
-            return transactionRepository.create(transaction);
+            transactionRepository.create(transaction);
+            transferListener.onTransfer(transaction);
+            return transaction;
         } finally {
             fromLock.unlock();
             toLock.unlock();
         }
     }
 
-    private Lock retrieveLock(long accountId) {
-        var lock = lockMap.get(accountId);
-        if (lock != null) return lock;
-        lockObtainingLock.lock();
+    /**
+     * Group ids are shared with other services recording grouped transactions, so groups never collide
+     */
+    public long nextGroupId() {
+        return groupIdCounter.incrementAndGet();
+    }
+
+    @Override
+    public TransferGroup transfer(List<TransferLeg> debits, List<TransferLeg> credits) {
+        var changes = TransferLegs.validate(debits, credits);
+        // sorted by id, which is the global locking order
+        var accounts = new TreeMap<Long, Account>();
+        for (Long accountId : changes.keySet()) {
+            var account = accountRepository.find(accountId);
+            if (account == null) throw EntityNotExistsException.accountNotFoundById(accountId);
+            accounts.put(accountId, account);
+        }
+
+        var locks = new ArrayList<Lock>(accounts.size());
         try {
-            return lockMap.computeIfAbsent(accountId, (id) -> new ReentrantLock());
+            for (Account account : accounts.values()) {
+                var lock = account.getLock();
+                lock.lock();
+                locks.add(lock);
+            }
+
+            for (TransferLeg debit : debits) {
+                if (!accounts.get(debit.getAccountId()).hasAvailable(debit.getAmount())) {
+                    throw TransferRejectedException.balanceIsTooLow(debit.getAccountId());
+                }
+            }
+            var now = clock.millis();
+            for (TransferLeg debit : debits) {
+                var limits = accounts.get(debit.getAccountId()).getOutgoingLimits();
+                if (limits != null && !limits.allows(OutgoingLimits.units(debit.getAmount()), now)) {
+                    throw TransferRejectedException.limitIsExceeded(debit.getAccountId());
+                }
+            }
+            for (TransferLeg debit : debits) {
+                var limits = accounts.get(debit.getAccountId()).getOutgoingLimits();
+                if (limits != null) limits.record(OutgoingLimits.units(debit.getAmount()), now);
+            }
+
+            accounts.values().forEach(Account::beginUpdate);
+            for (Map.Entry<Long, BigDecimal> change : changes.entrySet()) {
+                var account = accounts.get(change.getKey());
+                account.setBalance(account.getBalance().add(change.getValue()));
+            }
+            accounts.values().forEach(Account::endUpdate);
+
+            var groupId = nextGroupId();
+            var dateTime = clock.now();
+            var transactions = TransferLegs.match(debits, credits);
+            for (TransferTransaction transaction : transactions) {
+                transaction.setGroupId(groupId);
+                transaction.setDateTime(dateTime);
+                transactionRepository.create(transaction);
+                transferListener.onTransfer(transaction);
+            }
+            return new TransferGroup(groupId, transactions);
         } finally {
-            lockObtainingLock.unlock();
+            for (Lock lock : locks) {
+                lock.unlock();
+            }
         }
     }
 }
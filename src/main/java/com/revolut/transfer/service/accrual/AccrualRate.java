@@ -0,0 +1,40 @@
+package com.revolut.transfer.service.accrual;
+
+import com.revolut.transfer.model.Account;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount an accrual run applies to one account. Called under the account lock, so the balance is consistent, and
+ * must be cheap.
+ */
+@FunctionalInterface
+public interface AccrualRate {
+
+    /**
+     * @return amount credited to the account when positive, debited from it when negative, nothing is recorded
+     * when zero or null
+     */
+    BigDecimal amount(Account account);
+
+    /**
+     * Interest of the given rate per run, rounded half even to the scale of the balance
+     */
+    static AccrualRate interest(BigDecimal rate) {
+        if (rate == null) throw new IllegalArgumentException("Interest rate cannot be null");
+        return account -> {
+            var balance = account.getBalance();
+            return balance.multiply(rate).setScale(balance.scale(), RoundingMode.HALF_EVEN);
+        };
+    }
+
+    /**
+     * The same fee debited from every account
+     */
+    static AccrualRate fee(BigDecimal fee) {
+        if (fee == null || fee.signum() <= 0) throw new IllegalArgumentException("Fee must be positive");
+        var amount = fee.negate();
+        return account -> amount;
+    }
+}
@@ -0,0 +1,25 @@
+package com.revolut.transfer.service.accrual;
+
+import com.revolut.transfer.model.AccrualProgress;
+
+public interface AccrualService extends AutoCloseable {
+
+    /**
+     * Starts applying the rate to every account in the background. Credits are paid by the settlement account and
+     * debits are paid to it, all transactions of the run share one group id.
+     *
+     * @param parallelism        amount of threads applying the rate
+     * @param accountsPerSecond  limit of accounts processed per second, unlimited when zero
+     */
+    AccrualProgress start(long settlementAccountId, AccrualRate rate, int parallelism, int accountsPerSecond);
+
+    AccrualProgress get(long id);
+
+    /**
+     * Stops the run after the accounts being processed, accounts processed so far keep their changes
+     */
+    AccrualProgress cancel(long id);
+
+    @Override
+    void close();
+}
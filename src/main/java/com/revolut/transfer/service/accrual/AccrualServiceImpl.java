@@ -0,0 +1,346 @@
+package com.revolut.transfer.service.accrual;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccrualProgress;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.CoarseClock;
+import com.revolut.transfer.service.TransferListener;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
+
+/**
+ * Applies an {@link AccrualRate} to every account on a fork-join pool of its own. Id ranges of every shard are split
+ * into chunks of {@value #CHUNK_ACCOUNTS} accounts. Every chunk borrows a clearing account nothing else uses: the
+ * change of each account is recorded against it while only that account can be contended, and at the end of the chunk
+ * the net amount is moved between the settlement account and the clearing account by one transaction. The settlement
+ * account is therefore locked once per chunk, chunks run in parallel, and every change is still a transaction recorded
+ * under the locks of both of its accounts, so listeners and reconciliation stay exact. Clearing accounts are
+ * {@link Account#isInternal() internal}, which no account created through the api can be, so only they are skipped.
+ * <p>
+ * A throttled run reserves time slots for its chunks from one shared schedule, so the rate of processed accounts
+ * stays at the limit whatever the parallelism is.
+ */
+public class AccrualServiceImpl implements AccrualService {
+
+    static final int CHUNK_ACCOUNTS = 256;
+    static final String CLEARING_ACCOUNT_NAME = "accrual clearing";
+
+    private final Repository<Account> accountRepository;
+    private final Repository<TransferTransaction> transactionRepository;
+    private final TransferListener transferListener;
+    private final LongSupplier groupIds;
+    private final Map<Long, Run> runs = new ConcurrentHashMap<>();
+    private final AtomicLong runIds = new AtomicLong();
+    private final Queue<Account> clearingAccounts = new ConcurrentLinkedQueue<>();
+    private final CoarseClock clock = new CoarseClock();
+
+    /**
+     * @param groupIds source of group ids shared with other grouped transactions
+     */
+    public AccrualServiceImpl(Repository<Account> accountRepository,
+                              Repository<TransferTransaction> transactionRepository,
+                              TransferListener transferListener,
+                              LongSupplier groupIds) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transferListener = transferListener;
+        this.groupIds = groupIds;
+    }
+
+    @Override
+    public AccrualProgress start(long settlementAccountId, AccrualRate rate, int parallelism, int accountsPerSecond) {
+        if (rate == null) throw new IllegalArgumentException("Accrual rate cannot be null");
+        if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive");
+        if (accountsPerSecond < 0) throw new IllegalArgumentException("Accounts per second cannot be negative");
+        var settlement = accountRepository.get(settlementAccountId)
+                .orElseThrow(() -> EntityNotExistsException.accountNotFoundById(settlementAccountId));
+
+        var shards = accountRepository.getIdShards();
+        var allocated = new long[shards];
+        var total = 0L;
+        for (int shard = 0; shard < shards; shard++) {
+            allocated[shard] = accountRepository.getAllocatedIds(shard);
+            total += allocated[shard];
+        }
+        var pool = new ForkJoinPool(parallelism);
+        var run = new Run(runIds.incrementAndGet(), groupIds.getAsLong(), settlement, rate, total,
+                accountsPerSecond == 0 ? 0L : TimeUnit.SECONDS.toNanos(1) / accountsPerSecond, pool);
+        runs.put(run.id, run);
+        pool.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                try {
+                    var tasks = new ChunkTask[shards];
+                    for (int shard = 0; shard < shards; shard++) {
+                        tasks[shard] = new ChunkTask(run, shard, 0L, allocated[shard]);
+                    }
+                    invokeAll(tasks);
+                    run.finish(run.cancelled ? AccrualProgress.Status.CANCELLED : AccrualProgress.Status.COMPLETED);
+                } catch (RuntimeException e) {
+                    run.finish(AccrualProgress.Status.FAILED);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        });
+        return run.progress();
+    }
+
+    @Override
+    public AccrualProgress get(long id) {
+        return find(id).progress();
+    }
+
+    @Override
+    public AccrualProgress cancel(long id) {
+        var run = find(id);
+        run.cancelled = true;
+        return run.progress();
+    }
+
+    @Override
+    public void close() {
+        for (Run run : runs.values()) {
+            run.cancelled = true;
+            run.pool.shutdownNow();
+        }
+    }
+
+    private Run find(long id) {
+        var run = runs.get(id);
+        if (run == null) throw EntityNotExistsException.accrualNotFoundById(id);
+        return run;
+    }
+
+    /**
+     * Applies the rate to the account and records the change against the clearing account of the chunk. Only the
+     * account itself can be contended, the clearing account is used by one chunk at a time and never by transfers.
+     *
+     * @return amount credited to the account, null if a fee exceeds its available balance
+     */
+    private BigDecimal apply(Run run, Account account, Account clearing) {
+        var accountLock = account.getLock();
+        var clearingLock = clearing.getLock();
+        lock(accountLock, clearingLock);
+        try {
+            var amount = run.rate.amount(account);
+            if (amount == null || amount.signum() == 0) return BigDecimal.ZERO;
+            var credit = amount.signum() > 0;
+            var transferred = amount.abs();
+            // the clearing account may go negative until the chunk is settled
+            if (!credit && !account.hasAvailable(transferred)) return null;
+            record(run, credit ? clearing : account, credit ? account : clearing, transferred);
+            return amount;
+        } finally {
+            clearingLock.unlock();
+            accountLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the net amount of the chunk between the settlement account and the clearing account, so the clearing
+     * account is back at zero. The settlement account is locked once per chunk and may go negative.
+     */
+    private void settle(Run run, Account clearing, BigDecimal net) {
+        if (net.signum() == 0) return;
+        var settlementLock = run.settlement.getLock();
+        var clearingLock = clearing.getLock();
+        lock(settlementLock, clearingLock);
+        try {
+            var credit = net.signum() > 0;
+            record(run, credit ? run.settlement : clearing, credit ? clearing : run.settlement, net.abs());
+        } finally {
+            clearingLock.unlock();
+            settlementLock.unlock();
+        }
+    }
+
+    /**
+     * Same protocol as transfers: the second lock is only tried, so the run cannot deadlock with a transfer that
+     * happens to touch a clearing account
+     */
+    private static void lock(Lock first, Lock second) {
+        while (true) {
+            first.lock();
+            if (second.tryLock()) return;
+            first.unlock();
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Must be called under the locks of both accounts
+     */
+    private void record(Run run, Account payer, Account receiver, BigDecimal amount) {
+        payer.beginUpdate();
+        receiver.beginUpdate();
+        payer.setBalance(payer.getBalance().subtract(amount));
+        receiver.setBalance(receiver.getBalance().add(amount));
+        payer.endUpdate();
+        receiver.endUpdate();
+
+        var transaction = new TransferTransaction();
+        transaction.setFrom(payer.getId());
+        transaction.setTo(receiver.getId());
+        transaction.setAmount(amount);
+        transaction.setGroupId(run.groupId);
+        transaction.setDateTime(clock.now());
+        transactionRepository.create(transaction);
+        transferListener.onTransfer(transaction);
+    }
+
+    /**
+     * Clearing accounts are kept at zero between chunks, so they are reused by later chunks and runs
+     */
+    private Account borrowClearingAccount() {
+        var clearing = clearingAccounts.poll();
+        if (clearing != null) return clearing;
+        var account = new Account();
+        account.setName(CLEARING_ACCOUNT_NAME);
+        account.setBalance(BigDecimal.ZERO);
+        account.setInternal(true);
+        return accountRepository.create(account);
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private final Run run;
+        private final int shard;
+        private final long from;
+        private final long to;
+
+        private ChunkTask(Run run, int shard, long from, long to) {
+            this.run = run;
+            this.shard = shard;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_ACCOUNTS) {
+                var middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(run, shard, from, middle), new ChunkTask(run, shard, middle, to));
+                return;
+            }
+            if (run.cancelled) return;
+            run.throttle(to - from);
+            if (run.cancelled) return;
+
+            var applied = 0L;
+            var rejected = 0L;
+            var net = BigDecimal.ZERO;
+            var clearing = borrowClearingAccount();
+            try {
+                for (long position = from; position < to; position++) {
+                    var id = accountRepository.idOf(shard, position);
+                    // null while a concurrent create is still storing it
+                    var account = accountRepository.find(id);
+                    if (account == null || id == run.settlement.getId() || account.getBalance() == null
+                            || account.isInternal()) continue;
+                    var amount = apply(run, account, clearing);
+                    if (amount == null) {
+                        rejected++;
+                    } else if (amount.signum() != 0) {
+                        applied++;
+                        net = net.add(amount);
+                    }
+                }
+            } finally {
+                settle(run, clearing, net);
+                clearingAccounts.add(clearing);
+            }
+            run.record(to - from, applied, rejected, net);
+        }
+    }
+
+    private static class Run {
+        private final long id;
+        private final long groupId;
+        private final Account settlement;
+        private final AccrualRate rate;
+        private final long totalAccounts;
+        private final long nanosPerAccount;
+        private final OffsetDateTime startedAt = OffsetDateTime.now(ZoneOffset.UTC);
+        private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder applied = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private BigDecimal netAmount = BigDecimal.ZERO;
+        private volatile boolean cancelled;
+        private volatile AccrualProgress.Status status = AccrualProgress.Status.RUNNING;
+        private volatile OffsetDateTime finishedAt;
+        private final ForkJoinPool pool;
+
+        private Run(long id, long groupId, Account settlement, AccrualRate rate, long totalAccounts, long nanosPerAccount,
+                    ForkJoinPool pool) {
+            this.id = id;
+            this.groupId = groupId;
+            this.settlement = settlement;
+            this.rate = rate;
+            this.totalAccounts = totalAccounts;
+            this.nanosPerAccount = nanosPerAccount;
+            this.pool = pool;
+        }
+
+        /**
+         * Waits for the time slot of the given amount of accounts
+         */
+        private void throttle(long accounts) {
+            if (nanosPerAccount == 0L) return;
+            long start;
+            while (true) {
+                var next = nextSlotNanos.get();
+                start = Math.max(next, System.nanoTime());
+                if (nextSlotNanos.compareAndSet(next, start + accounts * nanosPerAccount)) break;
+            }
+            var delay = start - System.nanoTime();
+            if (delay <= 0L) return;
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+
+        private void record(long processedAccounts, long appliedAccounts, long rejectedAccounts, BigDecimal net) {
+            applied.add(appliedAccounts);
+            rejected.add(rejectedAccounts);
+            if (net.signum() != 0) {
+                synchronized (this) {
+                    netAmount = netAmount.add(net);
+                }
+            }
+            processed.add(processedAccounts);
+        }
+
+        private void finish(AccrualProgress.Status finalStatus) {
+            finishedAt = OffsetDateTime.now(ZoneOffset.UTC);
+            status = finalStatus;
+        }
+
+        private AccrualProgress progress() {
+            BigDecimal net;
+            synchronized (this) {
+                net = netAmount;
+            }
+            return new AccrualProgress(id, groupId, settlement.getId(), status, totalAccounts, processed.sum(),
+                    applied.sum(), rejected.sum(), net, startedAt, finishedAt);
+        }
+    }
+}
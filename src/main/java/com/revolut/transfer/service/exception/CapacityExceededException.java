@@ -0,0 +1,16 @@
+package com.revolut.transfer.service.exception;
+
+/**
+ * A bounded resource is used up, the request may succeed later. Expected under load, so the exception is created
+ * without a stack trace
+ */
+public class CapacityExceededException extends RuntimeException {
+
+    private CapacityExceededException(String message) {
+        super(message, null, false, false);
+    }
+
+    public static CapacityExceededException subscriberLimitReached(int limit) {
+        return new CapacityExceededException("Transfer stream already has " + limit + " subscribers");
+    }
+}
@@ -1,12 +1,27 @@
 package com.revolut.transfer.service.exception;
 
+/**
+ * Not found is an expected outcome of a request, so the exception is created without a stack trace
+ */
 public class EntityNotExistsException extends RuntimeException {
 
     private EntityNotExistsException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public static EntityNotExistsException accountNotFoundById(long id) {
         return new EntityNotExistsException("Account was not found by id=" + id);
     }
+
+    public static EntityNotExistsException holdNotFoundById(long id) {
+        return new EntityNotExistsException("Hold was not found by id=" + id);
+    }
+
+    public static EntityNotExistsException scheduledTransferNotFoundById(long id) {
+        return new EntityNotExistsException("Scheduled transfer was not found by id=" + id);
+    }
+
+    public static EntityNotExistsException accrualNotFoundById(long id) {
+        return new EntityNotExistsException("Accrual was not found by id=" + id);
+    }
 }
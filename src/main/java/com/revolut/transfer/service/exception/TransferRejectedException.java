@@ -0,0 +1,38 @@
+package com.revolut.transfer.service.exception;
+
+/**
+ * Rejection of a transfer. Rejections for a reason that does not depend on the request are preallocated, so
+ * rejecting a single transfer costs no allocation; they must not be mutated by callers. Multi-leg transfers name
+ * the rejected account. No instance carries a stack trace.
+ */
+public class TransferRejectedException extends IllegalArgumentException {
+
+    public static final TransferRejectedException AMOUNT_IS_NULL =
+            new TransferRejectedException("Amount cannot be null");
+    public static final TransferRejectedException AMOUNT_IS_NOT_POSITIVE =
+            new TransferRejectedException("Amount cannot be non-positive value");
+    public static final TransferRejectedException SAME_ACCOUNT =
+            new TransferRejectedException("Unable to transfer to the same account");
+    public static final TransferRejectedException BALANCE_IS_TOO_LOW =
+            new TransferRejectedException("Unable to transfer, balance is too low");
+    public static final TransferRejectedException LIMIT_IS_EXCEEDED =
+            new TransferRejectedException("Unable to transfer, outgoing limit is exceeded");
+
+    public static TransferRejectedException balanceIsTooLow(long accountId) {
+        return new TransferRejectedException("Unable to transfer, balance of account id=" + accountId + " is too low");
+    }
+
+    public static TransferRejectedException limitIsExceeded(long accountId) {
+        return new TransferRejectedException("Unable to transfer, outgoing limit of account id=" + accountId
+                + " is exceeded");
+    }
+
+    private TransferRejectedException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
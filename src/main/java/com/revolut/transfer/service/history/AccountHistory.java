@@ -0,0 +1,143 @@
+package com.revolut.transfer.service.history;
+
+import com.revolut.transfer.model.TransferTransaction;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+/**
+ * Amounts of the transactions of one account in commit order, cut into segments of a fixed amount of entries.
+ * Every segment starts with a checkpoint - the balance before its first transaction - so a balance as of some instant
+ * is a binary search over the segments plus at most one segment of amounts applied to its checkpoint.
+ * <p>
+ * Appended by one writer under the account lock, read without locks: a segment publishes its entries through
+ * the volatile {@code size}, the history publishes its segments through the volatile {@code segmentCount}.
+ */
+class AccountHistory {
+
+    private final long accountId;
+    private final BigDecimal openingBalance;
+    private final int checkpointInterval;
+    private final long startMillis;
+
+    private volatile Segment[] segments = new Segment[4];
+    private volatile int segmentCount;
+
+    // accessed by the writer only
+    private long lastMillis = Long.MIN_VALUE;
+
+    AccountHistory(long accountId, BigDecimal openingBalance, int checkpointInterval) {
+        this(accountId, openingBalance, checkpointInterval, Long.MIN_VALUE);
+    }
+
+    /**
+     * @param startMillis earlier balances are unknown, e.g. the account was recovered with the given balance then
+     */
+    AccountHistory(long accountId, BigDecimal openingBalance, int checkpointInterval, long startMillis) {
+        this.accountId = accountId;
+        this.openingBalance = openingBalance;
+        this.checkpointInterval = checkpointInterval;
+        this.startMillis = startMillis;
+        this.lastMillis = startMillis;
+    }
+
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Must be called under the account lock. Clocks may step back, so the time index is kept non-decreasing by
+     * indexing such a transaction at the time of the previous one.
+     * <p>
+     * A new segment starts at the balance the previous one ends with, folded once per segment instead of keeping
+     * a running balance that would allocate on every append. The balance is not read from the account: legs of
+     * a multi-leg transfer are appended after the whole group has been applied.
+     */
+    void append(TransferTransaction transaction) {
+        var millis = Math.max(lastMillis, epochMillis(transaction.getDateTime()));
+        var debit = transaction.getFrom() == accountId;
+        lastMillis = millis;
+
+        var count = segmentCount;
+        var segment = count == 0 ? null : segments[count - 1];
+        if (segment != null && segment.size < checkpointInterval) {
+            segment.append(millis, transaction.getAmount(), debit);
+        } else {
+            var checkpoint = segment == null ? openingBalance : segment.balanceAfter(Long.MAX_VALUE);
+            segment = new Segment(checkpoint, checkpointInterval);
+            segment.append(millis, transaction.getAmount(), debit);
+            var array = segments;
+            if (count == array.length) array = Arrays.copyOf(array, count * 2);
+            array[count] = segment;
+            segments = array;
+            segmentCount = count + 1;
+        }
+    }
+
+    /**
+     * @return balance after every transaction indexed not later than the given time
+     */
+    BigDecimal balanceAt(long millis) {
+        var count = segmentCount;
+        var array = segments;
+
+        // last segment starting not later than the given time
+        var low = 0;
+        var high = count - 1;
+        var found = -1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            if (array[middle].times[0] <= millis) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (found < 0) return openingBalance;
+
+        return array[found].balanceAfter(millis);
+    }
+
+
+    /**
+     * Same as {@code dateTime.toInstant().toEpochMilli()} without the intermediate instant
+     */
+    static long epochMillis(OffsetDateTime dateTime) {
+        return dateTime.toEpochSecond() * 1000L + dateTime.getNano() / 1_000_000;
+    }
+
+    private static class Segment {
+        private final BigDecimal checkpoint;
+        private final long[] times;
+        // only amounts are kept, so the history does not pin transactions sealed by the repository
+        private final BigDecimal[] amounts;
+        private final boolean[] debits;
+        private volatile int size;
+
+        private Segment(BigDecimal checkpoint, int capacity) {
+            this.checkpoint = checkpoint;
+            this.times = new long[capacity];
+            this.amounts = new BigDecimal[capacity];
+            this.debits = new boolean[capacity];
+        }
+
+        private BigDecimal balanceAfter(long millis) {
+            var count = size;
+            var result = checkpoint;
+            for (int i = 0; i < count && times[i] <= millis; i++) {
+                result = debits[i] ? result.subtract(amounts[i]) : result.add(amounts[i]);
+            }
+            return result;
+        }
+
+        private void append(long millis, BigDecimal amount, boolean debit) {
+            var index = size;
+            times[index] = millis;
+            amounts[index] = amount;
+            debits[index] = debit;
+            size = index + 1;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.revolut.transfer.service.history;
+
+import com.revolut.transfer.model.AccountBalance;
+
+import java.time.OffsetDateTime;
+
+public interface BalanceHistoryService {
+
+    /**
+     * @return balance of the account as of the given instant, resolved with millisecond precision
+     */
+    AccountBalance getBalanceAt(Long accountId, OffsetDateTime at);
+}
@@ -0,0 +1,83 @@
+package com.revolut.transfer.service.history;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountBalance;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.TransferListener;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps an {@link AccountHistory} for every account that took part in a transfer. Answering a query costs a binary
+ * search plus at most {@code checkpointInterval} transactions, whatever the length of the account history is.
+ */
+public class BalanceHistoryServiceImpl implements BalanceHistoryService, TransferListener {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 64;
+
+    private final Repository<Account> accountRepository;
+    private final int checkpointInterval;
+    private final Map<Long, AccountHistory> histories = new ConcurrentHashMap<>();
+
+    public BalanceHistoryServiceImpl(Repository<Account> accountRepository) {
+        this(accountRepository, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public BalanceHistoryServiceImpl(Repository<Account> accountRepository, int checkpointInterval) {
+        if (checkpointInterval <= 0) throw new IllegalArgumentException("Checkpoint interval must be positive");
+        this.accountRepository = accountRepository;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    @Override
+    public void onTransfer(TransferTransaction transaction) {
+        history(transaction.getFrom()).append(transaction);
+        history(transaction.getTo()).append(transaction);
+    }
+
+    /**
+     * Starts the history of an account recovered after a restart at its recovered balance, balances before the given
+     * instant are not known any more
+     */
+    public void restore(Account account, OffsetDateTime at) {
+        histories.put(account.getId(), new AccountHistory(account.getId(),
+                account.getBalance(),
+                checkpointInterval,
+                AccountHistory.epochMillis(at)));
+    }
+
+    @Override
+    public AccountBalance getBalanceAt(Long accountId, OffsetDateTime at) {
+        if (accountId == null) throw new IllegalArgumentException("Account id cannot be null");
+        if (at == null) throw new IllegalArgumentException("Point in time cannot be null");
+        var account = accountRepository.find(accountId);
+        if (account == null) throw EntityNotExistsException.accountNotFoundById(accountId);
+
+        var millis = AccountHistory.epochMillis(at);
+        var createdAt = account.getCreatedAt();
+        if (createdAt != null && millis < AccountHistory.epochMillis(createdAt))
+            throw new IllegalArgumentException("Account id=" + accountId + " did not exist at " + at);
+
+        var history = histories.get(accountId);
+        if (history != null && millis < history.getStartMillis())
+            throw new IllegalArgumentException("Balance history of account id=" + accountId
+                    + " before the restart is not kept");
+        var balance = history == null ? account.getOpeningBalance() : history.balanceAt(millis);
+        return new AccountBalance(accountId, at, balance);
+    }
+
+    /**
+     * Called under the account lock, so the history of an account is created once, starting at its opening balance.
+     * Takes the id boxed by the transaction, so looking the history up does not box it again.
+     */
+    private AccountHistory history(Long accountId) {
+        var history = histories.get(accountId);
+        return history != null ? history : histories.computeIfAbsent(accountId, id -> new AccountHistory(id,
+                accountRepository.find(id).getOpeningBalance(),
+                checkpointInterval));
+    }
+}
@@ -0,0 +1,170 @@
+package com.revolut.transfer.service.jdbc;
+
+import com.revolut.transfer.model.TransferGroup;
+import com.revolut.transfer.model.TransferLeg;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.jdbc.ConnectionPool;
+import com.revolut.transfer.repository.jdbc.JdbcSchema;
+import com.revolut.transfer.repository.jdbc.JdbcTransactionRepository;
+import com.revolut.transfer.service.CoarseClock;
+import com.revolut.transfer.service.TransferLegs;
+import com.revolut.transfer.service.TransferListener;
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.exception.TransferRejectedException;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Transfers executed by the database instead of Java locks. A transfer locks the rows of all its accounts with one
+ * {@code SELECT ... ORDER BY id FOR UPDATE}, so rows are always locked in ascending id order and opposite transfers
+ * cannot deadlock; every debit is checked against the locked balances, and only then are all balances changed by
+ * one batched {@code UPDATE}. A rejected transfer has written nothing. Transactions are inserted with one batched
+ * statement in the same database transaction. A database transaction aborted because of a concurrent one is run
+ * again by the {@link ConnectionPool}, and group ids come from a database sequence, so several instances can share
+ * the database.
+ */
+public class JdbcTransferOperationServiceImpl implements TransferOperationService {
+
+    private static final String LOCK =
+            "SELECT id, balance, held_balance FROM account WHERE id IN (%s) ORDER BY id FOR UPDATE";
+    private static final String CHANGE =
+            "UPDATE account SET balance = balance + ?, version = version + 2 WHERE id = ?";
+    private static final String NEXT_GROUP_ID = "SELECT NEXTVAL('" + JdbcSchema.GROUP_ID_SEQUENCE + "')";
+
+    private final ConnectionPool pool;
+    private final JdbcTransactionRepository transactionRepository;
+    private final Executor executor;
+    private final TransferListener transferListener;
+    private final CoarseClock clock;
+
+    /**
+     * @param executor runs {@link #transferAsync}, as many threads as pooled connections are enough
+     */
+    public JdbcTransferOperationServiceImpl(ConnectionPool pool,
+                                            JdbcTransactionRepository transactionRepository,
+                                            Executor executor) {
+        this(pool, transactionRepository, executor, TransferListener.NONE);
+    }
+
+    /**
+     * @param transferListener notified after the database transaction is committed, before the transfer returns;
+     *                         row locks are released by then, so notifications of one account may be reordered
+     */
+    public JdbcTransferOperationServiceImpl(ConnectionPool pool,
+                                            JdbcTransactionRepository transactionRepository,
+                                            Executor executor,
+                                            TransferListener transferListener) {
+        this.pool = pool;
+        this.transactionRepository = transactionRepository;
+        this.executor = executor;
+        this.transferListener = transferListener;
+        this.clock = new CoarseClock();
+    }
+
+    @Override
+    public TransferTransaction transfer(long fromId, long toId, BigDecimal amount) {
+        if (amount == null)
+            throw TransferRejectedException.AMOUNT_IS_NULL;
+        if (amount.signum() <= 0)
+            throw TransferRejectedException.AMOUNT_IS_NOT_POSITIVE;
+        if (fromId == toId)
+            throw TransferRejectedException.SAME_ACCOUNT;
+
+        var changes = new TreeMap<Long, BigDecimal>();
+        changes.put(fromId, amount.negate());
+        changes.put(toId, amount);
+        var committed = pool.inTransaction(connection -> {
+            if (apply(connection, changes) != null) throw TransferRejectedException.BALANCE_IS_TOO_LOW;
+            var transaction = new TransferTransaction();
+            transaction.setFrom(fromId);
+            transaction.setTo(toId);
+            transaction.setAmount(amount);
+            transaction.setDateTime(clock.now());
+            transactionRepository.insert(connection, List.of(transaction));
+            return transaction;
+        });
+        transferListener.onTransfer(committed);
+        return committed;
+    }
+
+    @Override
+    public CompletionStage<TransferTransaction> transferAsync(long fromId, long toId, BigDecimal amount) {
+        return CompletableFuture.supplyAsync(() -> transfer(fromId, toId, amount), executor);
+    }
+
+    @Override
+    public TransferGroup transfer(List<TransferLeg> debits, List<TransferLeg> credits) {
+        var changes = TransferLegs.validate(debits, credits);
+        var group = pool.inTransaction(connection -> {
+            var rejected = apply(connection, changes);
+            if (rejected != null) throw TransferRejectedException.balanceIsTooLow(rejected);
+            var groupId = nextGroupId(connection);
+            var dateTime = clock.now();
+            var transactions = TransferLegs.match(debits, credits);
+            for (TransferTransaction transaction : transactions) {
+                transaction.setGroupId(groupId);
+                transaction.setDateTime(dateTime);
+            }
+            transactionRepository.insert(connection, transactions);
+            return new TransferGroup(groupId, transactions);
+        });
+        for (TransferTransaction transaction : group.getTransactions()) {
+            transferListener.onTransfer(transaction);
+        }
+        return group;
+    }
+
+    /**
+     * Locks the rows of the accounts, checks every debit against the available balance and changes the balances
+     *
+     * @param changes balance change per account id, debits are negative
+     * @return id of the first account whose balance is too low, nothing is written then; null if applied
+     */
+    private static Long apply(Connection connection, SortedMap<Long, BigDecimal> changes) throws SQLException {
+        var placeholders = "?, ".repeat(changes.size() - 1) + "?";
+        try (var statement = connection.prepareStatement(String.format(LOCK, placeholders))) {
+            var index = 1;
+            for (Long accountId : changes.keySet()) {
+                statement.setLong(index++, accountId);
+            }
+            Long rejected = null;
+            try (var resultSet = statement.executeQuery()) {
+                for (Map.Entry<Long, BigDecimal> change : changes.entrySet()) {
+                    var accountId = change.getKey();
+                    if (!resultSet.next() || resultSet.getLong(1) != accountId)
+                        throw EntityNotExistsException.accountNotFoundById(accountId);
+                    var available = resultSet.getBigDecimal(2).subtract(resultSet.getBigDecimal(3));
+                    if (rejected == null && available.add(change.getValue()).signum() < 0) rejected = accountId;
+                }
+            }
+            if (rejected != null) return rejected;
+        }
+        try (var statement = connection.prepareStatement(CHANGE)) {
+            for (Map.Entry<Long, BigDecimal> change : changes.entrySet()) {
+                statement.setBigDecimal(1, change.getValue());
+                statement.setLong(2, change.getKey());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return null;
+    }
+
+    private static long nextGroupId(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement(NEXT_GROUP_ID);
+             var resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
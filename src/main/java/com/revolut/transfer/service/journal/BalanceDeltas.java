@@ -0,0 +1,155 @@
+package com.revolut.transfer.service.journal;
+
+import java.math.BigDecimal;
+
+/**
+ * Open addressing map of account id to net balance change. Changes are summed as unscaled longs at the largest
+ * scale seen for the account, an account whose sum does not fit a long continues as a {@link BigDecimal}, so usual
+ * amounts are accumulated without allocating.
+ */
+class BalanceDeltas {
+
+    private static final long EMPTY = 0L;
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    // ids are positive, so 0 marks a free slot
+    private long[] keys;
+    private long[] unscaled;
+    private int[] scales;
+    private BigDecimal[] big;
+    private int size;
+
+    BalanceDeltas() {
+        this(64);
+    }
+
+    BalanceDeltas(int capacity) {
+        var slots = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+        keys = new long[slots];
+        unscaled = new long[slots];
+        scales = new int[slots];
+    }
+
+    void add(long accountId, long amountUnscaled, int scale) {
+        var slot = slot(accountId);
+        if (big != null && big[slot] != null) {
+            big[slot] = big[slot].add(BigDecimal.valueOf(amountUnscaled, scale));
+            return;
+        }
+        var current = unscaled[slot];
+        var currentScale = scales[slot];
+        var amount = amountUnscaled;
+        try {
+            if (currentScale < scale) {
+                current = Math.multiplyExact(current, power(scale - currentScale));
+                currentScale = scale;
+            } else if (scale < currentScale) {
+                amount = Math.multiplyExact(amount, power(currentScale - scale));
+            }
+            unscaled[slot] = Math.addExact(current, amount);
+            scales[slot] = currentScale;
+        } catch (ArithmeticException e) {
+            add(accountId, BigDecimal.valueOf(amountUnscaled, scale));
+        }
+    }
+
+    void add(long accountId, BigDecimal amount) {
+        var slot = slot(accountId);
+        big(slot);
+        big[slot] = big[slot].add(amount);
+    }
+
+    /**
+     * @return net change of the account, zero for an unknown account
+     */
+    BigDecimal get(long accountId) {
+        var slot = find(accountId);
+        if (slot < 0) return BigDecimal.ZERO;
+        if (big != null && big[slot] != null) return big[slot];
+        return BigDecimal.valueOf(unscaled[slot], scales[slot]);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds all changes of the other map to this one
+     */
+    void merge(BalanceDeltas other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] == EMPTY) continue;
+            if (other.big != null && other.big[i] != null) {
+                add(other.keys[i], other.big[i]);
+            } else {
+                add(other.keys[i], other.unscaled[i], other.scales[i]);
+            }
+        }
+    }
+
+    private BigDecimal big(int slot) {
+        if (big == null) big = new BigDecimal[keys.length];
+        if (big[slot] == null) big[slot] = BigDecimal.valueOf(unscaled[slot], scales[slot]);
+        return big[slot];
+    }
+
+    private static long power(int exponent) {
+        if (exponent >= POWERS_OF_TEN.length) throw new ArithmeticException("Scale difference is too large");
+        return POWERS_OF_TEN[exponent];
+    }
+
+    private int find(long key) {
+        var mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return slot;
+            if (keys[slot] == EMPTY) return -1;
+        }
+    }
+
+    private int slot(long key) {
+        var mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return slot;
+            if (keys[slot] == EMPTY) {
+                if (++size * 2 > keys.length) {
+                    size--;
+                    grow();
+                    return slot(key);
+                }
+                keys[slot] = key;
+                return slot;
+            }
+        }
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldUnscaled = unscaled;
+        var oldScales = scales;
+        var oldBig = big;
+        keys = new long[oldKeys.length * 2];
+        unscaled = new long[keys.length];
+        scales = new int[keys.length];
+        big = oldBig == null ? null : new BigDecimal[keys.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            var slot = slot(oldKeys[i]);
+            unscaled[slot] = oldUnscaled[i];
+            scales[slot] = oldScales[i];
+            if (oldBig != null) big[slot] = oldBig[i];
+        }
+    }
+
+    private static int hash(long key) {
+        var hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,258 @@
+package com.revolut.transfer.service.journal;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.repository.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+import static com.revolut.transfer.service.journal.TransferJournal.BLOCK_SIZE;
+import static com.revolut.transfer.service.journal.TransferJournal.HEADER_SIZE;
+
+/**
+ * Recovers accounts and their balances from a {@link TransferJournal}. Blocks of the journal are parsed on their own,
+ * so the file is split into chunks of {@code chunkBlocks} blocks parsed in parallel on a fork-join pool. Every chunk
+ * sums balance changes per account into a primitive {@link BalanceDeltas} map, chunks are merged pairwise as the tasks
+ * join, and balances are set once at the end: replay costs one pass over the file whatever the order of records is.
+ */
+public class JournalReplay {
+
+    public static final int DEFAULT_CHUNK_BLOCKS = 16;
+
+    private static final Logger LOGGER = Logger.getLogger(JournalReplay.class.getName());
+
+    private final Path file;
+    private final ForkJoinPool pool;
+    private final int chunkBlocks;
+
+    public JournalReplay(Path file) {
+        this(file, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BLOCKS);
+    }
+
+    public JournalReplay(Path file, ForkJoinPool pool, int chunkBlocks) {
+        if (chunkBlocks <= 0) throw new IllegalArgumentException("Chunk must have at least one block");
+        this.file = file;
+        this.pool = pool;
+        this.chunkBlocks = chunkBlocks;
+    }
+
+    /**
+     * Restores every journaled account into the repository with its balance after the last journaled transfer.
+     * Holds which were placed and not ended are returned in the result, held balances are left to the hold service.
+     */
+    public JournalReplayResult replay(Repository<Account> accountRepository) {
+        var started = System.nanoTime();
+        if (!Files.exists(file)) return new JournalReplayResult(List.of(), List.of(), 0L, 0, System.nanoTime() - started);
+
+        Chunk total;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var blocks = (channel.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            total = pool.invoke(new ReplayTask(channel, 0L, blocks));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Account account : total.opened) {
+            account.setBalance(account.getOpeningBalance().add(total.deltas.get(account.getId())));
+            accountRepository.restore(account);
+        }
+
+        total.holds.keySet().removeAll(total.endedHolds);
+        var holds = new ArrayList<>(total.holds.values());
+        holds.sort(Comparator.comparing(Hold::getId));
+
+        var result = new JournalReplayResult(total.opened, holds, total.records, total.damagedBlocks,
+                System.nanoTime() - started);
+        LOGGER.info(String.format("Replayed %d journal records of %d accounts in %d ms, %.0f records/s%s",
+                result.getRecords(),
+                result.getAccounts().size(),
+                result.getElapsedNanos() / 1_000_000L,
+                result.getRecordsPerSecond(),
+                result.getDamagedBlocks() == 0 ? "" : ", damaged blocks: " + result.getDamagedBlocks()));
+        return result;
+    }
+
+    private static class Chunk {
+        private BalanceDeltas deltas = new BalanceDeltas();
+        private List<Account> opened = new ArrayList<>();
+        // a hold and its end may fall into different chunks, so ended ones are removed after the merge
+        private Map<Long, Hold> holds = new HashMap<>();
+        private Set<Long> endedHolds = new HashSet<>();
+        private long records;
+        private int damagedBlocks;
+
+        Chunk merge(Chunk other) {
+            if (other.deltas.size() > deltas.size()) {
+                other.deltas.merge(deltas);
+                deltas = other.deltas;
+            } else {
+                deltas.merge(other.deltas);
+            }
+            opened.addAll(other.opened);
+            holds.putAll(other.holds);
+            endedHolds.addAll(other.endedHolds);
+            records += other.records;
+            damagedBlocks += other.damagedBlocks;
+            return this;
+        }
+    }
+
+    private class ReplayTask extends RecursiveTask<Chunk> {
+        private final FileChannel channel;
+        private final long fromBlock;
+        private final long toBlock;
+
+        private ReplayTask(FileChannel channel, long fromBlock, long toBlock) {
+            this.channel = channel;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (toBlock - fromBlock <= chunkBlocks) return parse();
+            var middle = (fromBlock + toBlock) >>> 1;
+            var left = new ReplayTask(channel, fromBlock, middle);
+            left.fork();
+            var right = new ReplayTask(channel, middle, toBlock).compute();
+            return left.join().merge(right);
+        }
+
+        private Chunk parse() {
+            var chunk = new Chunk();
+            var buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            var crc = new CRC32C();
+            for (long block = fromBlock; block < toBlock; block++) {
+                buffer.clear();
+                try {
+                    while (buffer.hasRemaining() && channel.read(buffer, block * BLOCK_SIZE + buffer.position()) > 0) {
+                        // the last block may be shorter
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                buffer.flip();
+                if (!parseBlock(buffer, crc, chunk)) chunk.damagedBlocks++;
+            }
+            return chunk;
+        }
+
+        /**
+         * @return false if the block ends with a torn or corrupted record
+         */
+        private boolean parseBlock(ByteBuffer buffer, CRC32C crc, Chunk chunk) {
+            while (buffer.remaining() >= HEADER_SIZE) {
+                var type = buffer.get();
+                if (type == 0) return true;
+                var length = Short.toUnsignedInt(buffer.getShort());
+                var checksum = buffer.getInt();
+                if (length > buffer.remaining()) return false;
+                crc.reset();
+                crc.update(buffer.array(), buffer.position(), length);
+                if ((int) crc.getValue() != checksum) return false;
+
+                var end = buffer.position() + length;
+                if (type == TransferJournal.TRANSFER) {
+                    transfer(buffer, end, chunk.deltas);
+                } else if (type == TransferJournal.OPEN) {
+                    chunk.opened.add(open(buffer, end));
+                } else if (type == TransferJournal.HOLD) {
+                    var hold = hold(buffer, end);
+                    chunk.holds.put(hold.getId(), hold);
+                } else if (type == TransferJournal.HOLD_END) {
+                    chunk.endedHolds.add(buffer.getLong());
+                }
+                buffer.position(end);
+                chunk.records++;
+            }
+            return !buffer.hasRemaining() || isZero(buffer);
+        }
+
+        private void transfer(ByteBuffer buffer, int end, BalanceDeltas deltas) {
+            var from = buffer.getLong();
+            var to = buffer.getLong();
+            buffer.getLong();
+            var scale = buffer.getInt();
+            var length = end - buffer.position();
+            if (length <= Long.BYTES) {
+                // sign extended big-endian two's complement, as written by BigInteger.toByteArray
+                var unscaled = (long) buffer.get();
+                for (int i = 1; i < length; i++) {
+                    unscaled = (unscaled << 8) | (buffer.get() & 0xFF);
+                }
+                if (unscaled != Long.MIN_VALUE) {
+                    deltas.add(from, -unscaled, scale);
+                    deltas.add(to, unscaled, scale);
+                    return;
+                }
+                buffer.position(end - length);
+            }
+            var bytes = new byte[length];
+            buffer.get(bytes);
+            var amount = new BigDecimal(new BigInteger(bytes), scale);
+            deltas.add(from, amount.negate());
+            deltas.add(to, amount);
+        }
+
+        private Account open(ByteBuffer buffer, int end) {
+            var account = new Account();
+            account.setId(buffer.getLong());
+            var seconds = buffer.getLong();
+            var nano = buffer.getInt();
+            if (nano >= 0) account.setCreatedAt(OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds, nano), ZoneOffset.UTC));
+            var scale = buffer.getInt();
+            var unscaled = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(unscaled);
+            account.setOpeningBalance(new BigDecimal(new BigInteger(unscaled), scale));
+            var nameLength = buffer.getInt();
+            if (nameLength >= 0) {
+                account.setName(new String(buffer.array(), buffer.position(), nameLength, StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + nameLength);
+            }
+            if (buffer.position() < end) account.setInternal((buffer.get() & TransferJournal.INTERNAL) != 0);
+            return account;
+        }
+
+        private Hold hold(ByteBuffer buffer, int end) {
+            var hold = new Hold();
+            hold.setId(buffer.getLong());
+            hold.setAccountId(buffer.getLong());
+            hold.setExpiresAt(OffsetDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneOffset.UTC));
+            var scale = buffer.getInt();
+            var unscaled = new byte[end - buffer.position()];
+            buffer.get(unscaled);
+            hold.setAmount(new BigDecimal(new BigInteger(unscaled), scale));
+            hold.setStatus(Hold.Status.HELD);
+            return hold;
+        }
+
+        private boolean isZero(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                if (buffer.get() != 0) return false;
+            }
+            return true;
+        }
+    }
+}
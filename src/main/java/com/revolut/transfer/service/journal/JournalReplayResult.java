@@ -0,0 +1,46 @@
+package com.revolut.transfer.service.journal;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Hold;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@RequiredArgsConstructor
+public class JournalReplayResult {
+    /**
+     * Restored accounts with their recovered balances
+     */
+    private final List<Account> accounts;
+    /**
+     * Holds still held when the journal ended, in the order of their ids
+     */
+    private final List<Hold> holds;
+    private final long records;
+    /**
+     * Blocks cut short by a torn or corrupted record, the rest of such block is skipped
+     */
+    private final int damagedBlocks;
+    private final long elapsedNanos;
+
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0L ? 0.0 : records * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return balance change of every restored account since it was opened
+     */
+    public Map<Long, BigDecimal> getNetFlows() {
+        var netFlows = new HashMap<Long, BigDecimal>(accounts.size() * 2);
+        for (Account account : accounts) {
+            netFlows.put(account.getId(), account.getBalance().subtract(account.getOpeningBalance()));
+        }
+        return netFlows;
+    }
+}
@@ -0,0 +1,25 @@
+package com.revolut.transfer.service.journal;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.repository.ForwardingRepository;
+import com.revolut.transfer.repository.Repository;
+
+/**
+ * Records every created account in the {@link TransferJournal}, restored accounts are not journaled again
+ */
+public class JournaledAccountRepository extends ForwardingRepository<Account> {
+
+    private final TransferJournal journal;
+
+    public JournaledAccountRepository(Repository<Account> delegate, TransferJournal journal) {
+        super(delegate);
+        this.journal = journal;
+    }
+
+    @Override
+    public Account create(Account account) {
+        var created = delegate.create(account);
+        journal.accountOpened(created);
+        return created;
+    }
+}
@@ -0,0 +1,294 @@
+package com.revolut.transfer.service.journal;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.HoldListener;
+import com.revolut.transfer.service.TransferListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opened accounts, committed transfers and holds, replayed by {@link JournalReplay} after a restart.
+ * <p>
+ * The file is a sequence of blocks of {@link #BLOCK_SIZE} bytes, a record never crosses a block boundary and the
+ * rest of a block is zero filled, so every block can be parsed on its own. A record is
+ * <pre>
+ * type:byte  length:unsigned short  crc32c of payload:int  payload
+ * OPEN      account id:long  created at epoch second:long  nano:int  scale:int  unscaled length:short  unscaled
+ *           name length:int (-1 for null)  name utf-8  flags:byte (1 - internal, missing in older journals)
+ * TRANSFER  from:long  to:long  epoch millis:long  scale:int  unscaled
+ * HOLD      hold id:long  account id:long  expires at epoch millis:long  scale:int  unscaled
+ * HOLD_END  hold id:long
+ * </pre>
+ * A captured hold is journaled as its transfer followed by the end of the hold.
+ * Records are copied into the current block under the journal monitor, which is all a transfer pays for. A full
+ * block is handed over to the flusher and replaced by a spare one; every {@code flushIntervalMillis} the flusher
+ * takes the handed over blocks and a copy of the unwritten tail of the current block into its own buffer, releases
+ * the monitor, writes them in order and forces them to the device, so neither a write nor a sync ever runs under the
+ * monitor and a crash of the machine loses at most the last flush interval. A new run appends from the next block.
+ */
+public class TransferJournal implements TransferListener, HoldListener, Closeable {
+
+    public static final int BLOCK_SIZE = 64 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10L;
+
+    static final int HEADER_SIZE = 1 + Short.BYTES + Integer.BYTES;
+    static final byte OPEN = 1;
+    static final byte TRANSFER = 2;
+    static final byte HOLD = 3;
+    static final byte HOLD_END = 4;
+    static final byte INTERNAL = 1;
+    static final int MAX_PAYLOAD = 0xFFFF;
+    // every unscaled value of at most this many digits fits a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final Logger LOGGER = Logger.getLogger(TransferJournal.class.getName());
+
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    // guarded by this
+    private final ByteBuffer payload = ByteBuffer.allocate(MAX_PAYLOAD);
+    private final CRC32C crc = new CRC32C();
+    private final Deque<Block> full = new ArrayDeque<>();
+    private Block current;
+    // owned by the flushing thread
+    private final Object flushLock = new Object();
+    private final List<Block> pending = new ArrayList<>();
+    private final ByteBuffer tail = ByteBuffer.allocate(BLOCK_SIZE);
+    private final Queue<Block> spare = new ConcurrentLinkedQueue<>();
+    private volatile boolean failed;
+
+    public TransferJournal(Path file) throws IOException {
+        this(file, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public TransferJournal(Path file, long flushIntervalMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        var size = channel.size();
+        this.current = new Block();
+        this.current.position = (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "transfer-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Names longer than a record can hold are truncated
+     */
+    public synchronized void accountOpened(Account account) {
+        if (failed) return;
+        try {
+            payload.clear();
+            payload.putLong(account.getId());
+            var createdAt = account.getCreatedAt();
+            payload.putLong(createdAt == null ? 0L : createdAt.toEpochSecond());
+            payload.putInt(createdAt == null ? -1 : createdAt.getNano());
+            var balance = account.getOpeningBalance();
+            payload.putInt(balance.scale());
+            var lengthPosition = payload.position();
+            payload.putShort((short) 0);
+            payload.putShort(lengthPosition, (short) putUnscaled(balance));
+            if (account.getName() == null) {
+                payload.putInt(-1);
+            } else {
+                var name = account.getName().getBytes(StandardCharsets.UTF_8);
+                var length = Math.min(name.length, payload.remaining() - Integer.BYTES - 1);
+                payload.putInt(length);
+                payload.put(name, 0, length);
+            }
+            payload.put(account.isInternal() ? INTERNAL : 0);
+            append(OPEN);
+        } catch (BufferOverflowException e) {
+            fail(new IOException("Opening balance of account id=" + account.getId() + " does not fit a record", e));
+        }
+    }
+
+    /**
+     * Called under the account locks, only copies the record into the current block and never waits for the disk
+     */
+    @Override
+    public synchronized void onTransfer(TransferTransaction transaction) {
+        if (failed) return;
+        try {
+            payload.clear();
+            payload.putLong(transaction.getFrom());
+            payload.putLong(transaction.getTo());
+            var dateTime = transaction.getDateTime();
+            // same as toInstant().toEpochMilli() without the intermediate instant
+            payload.putLong(dateTime == null ? 0L : dateTime.toEpochSecond() * 1000L + dateTime.getNano() / 1_000_000);
+            payload.putInt(transaction.getAmount().scale());
+            putUnscaled(transaction.getAmount());
+            append(TRANSFER);
+        } catch (BufferOverflowException e) {
+            fail(new IOException("Amount of a transfer does not fit a record", e));
+        }
+    }
+
+    @Override
+    public synchronized void onHoldPlaced(Hold hold) {
+        if (failed) return;
+        try {
+            payload.clear();
+            payload.putLong(hold.getId());
+            payload.putLong(hold.getAccountId());
+            payload.putLong(hold.getExpiresAt().toInstant().toEpochMilli());
+            payload.putInt(hold.getAmount().scale());
+            putUnscaled(hold.getAmount());
+            append(HOLD);
+        } catch (BufferOverflowException e) {
+            fail(new IOException("Amount of hold id=" + hold.getId() + " does not fit a record", e));
+        }
+    }
+
+    @Override
+    public synchronized void onHoldFinished(Hold hold) {
+        if (failed) return;
+        payload.clear();
+        payload.putLong(hold.getId());
+        append(HOLD_END);
+    }
+
+    /**
+     * Writes and forces the records appended so far, called periodically by the flusher thread. The monitor taken
+     * by {@link #onTransfer} is only held while the records are taken over, not while they are written.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            if (failed) return;
+            long tailPosition;
+            synchronized (this) {
+                pending.addAll(full);
+                full.clear();
+                tail.clear();
+                tail.put(current.buffer.array(), current.written, current.buffer.position() - current.written);
+                tail.flip();
+                tailPosition = current.position + current.written;
+                current.written = current.buffer.position();
+            }
+            try {
+                for (Block block : pending) {
+                    write(ByteBuffer.wrap(block.buffer.array(), block.written, block.buffer.position() - block.written),
+                            block.position + block.written);
+                }
+                write(tail, tailPosition);
+                if (!pending.isEmpty() || tail.limit() > 0) channel.force(false);
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                for (Block block : pending) {
+                    Arrays.fill(block.buffer.array(), (byte) 0);
+                    block.buffer.clear();
+                    block.written = 0;
+                    spare.add(block);
+                }
+                pending.clear();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // an interrupted write would close the channel, so a running flush is let finish
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to close the journal", e);
+        }
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        var start = buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position() - start);
+        }
+    }
+
+    /**
+     * Puts the bytes of {@code unscaledValue().toByteArray()}, compact values are not inflated into a BigInteger and
+     * a byte array
+     *
+     * @return amount of bytes put
+     */
+    private int putUnscaled(BigDecimal value) {
+        if (value.precision() > MAX_LONG_DIGITS) {
+            var bytes = value.unscaledValue().toByteArray();
+            payload.put(bytes);
+            return bytes.length;
+        }
+        // same compact value at scale 0
+        var unscaled = value.scaleByPowerOfTen(value.scale()).longValue();
+        var bitLength = Long.SIZE - Long.numberOfLeadingZeros(unscaled < 0 ? ~unscaled : unscaled);
+        var length = bitLength / Byte.SIZE + 1;
+        for (int i = length - 1; i >= 0; i--) {
+            payload.put((byte) (unscaled >> (i * Byte.SIZE)));
+        }
+        return length;
+    }
+
+    private void append(byte type) {
+        payload.flip();
+        var block = current.buffer;
+        if (block.remaining() < HEADER_SIZE + payload.remaining()) {
+            full.add(current);
+            var next = spare.poll();
+            if (next == null) next = new Block();
+            next.position = current.position + BLOCK_SIZE;
+            current = next;
+            block = next.buffer;
+        }
+        crc.reset();
+        crc.update(payload.array(), 0, payload.limit());
+        block.put(type);
+        block.putShort((short) payload.limit());
+        block.putInt((int) crc.getValue());
+        block.put(payload);
+    }
+
+    /**
+     * Journaling stops for good: a gap in the middle of the log would recover wrong balances, a missing tail
+     * only loses the latest transfers
+     */
+    private void fail(Exception e) {
+        failed = true;
+        LOGGER.log(Level.SEVERE, "Unable to write the journal, journaling is stopped", e);
+    }
+
+    private static class Block {
+        private final ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        // file position of the block and the offset up to which it has been taken over by the flusher
+        private long position;
+        private int written;
+    }
+}
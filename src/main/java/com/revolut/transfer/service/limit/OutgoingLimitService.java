@@ -0,0 +1,21 @@
+package com.revolut.transfer.service.limit;
+
+import com.revolut.transfer.model.AccountLimits;
+
+import java.math.BigDecimal;
+
+/**
+ * Limits are enforced by transfers themselves, see {@link com.revolut.transfer.model.OutgoingLimits}
+ */
+public interface OutgoingLimitService {
+
+    AccountLimits getLimits(long accountId);
+
+    /**
+     * Amounts sent before the account got limits are not counted. Removing both limits drops the counted amounts.
+     *
+     * @param hourlyLimit null when not limited
+     * @param dailyLimit  null when not limited
+     */
+    AccountLimits setLimits(long accountId, BigDecimal hourlyLimit, BigDecimal dailyLimit);
+}
@@ -0,0 +1,73 @@
+package com.revolut.transfer.service.limit;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountLimits;
+import com.revolut.transfer.model.OutgoingLimits;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+public class OutgoingLimitServiceImpl implements OutgoingLimitService {
+
+    private final Repository<Account> accountRepository;
+    private final Clock clock;
+
+    public OutgoingLimitServiceImpl(Repository<Account> accountRepository) {
+        this(accountRepository, Clock.systemUTC());
+    }
+
+    public OutgoingLimitServiceImpl(Repository<Account> accountRepository, Clock clock) {
+        this.accountRepository = accountRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public AccountLimits getLimits(long accountId) {
+        var account = findAccount(accountId);
+        var lock = account.getLock();
+        lock.lock();
+        try {
+            return toLimits(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public AccountLimits setLimits(long accountId, BigDecimal hourlyLimit, BigDecimal dailyLimit) {
+        if (hourlyLimit != null && hourlyLimit.signum() < 0)
+            throw new IllegalArgumentException("Hourly limit cannot be negative");
+        if (dailyLimit != null && dailyLimit.signum() < 0)
+            throw new IllegalArgumentException("Daily limit cannot be negative");
+        var account = findAccount(accountId);
+        var lock = account.getLock();
+        lock.lock();
+        try {
+            if (hourlyLimit == null && dailyLimit == null) {
+                account.setOutgoingLimits(null);
+            } else {
+                if (account.getOutgoingLimits() == null) account.setOutgoingLimits(new OutgoingLimits());
+                account.getOutgoingLimits().setLimits(hourlyLimit, dailyLimit);
+            }
+            return toLimits(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Account findAccount(long accountId) {
+        var account = accountRepository.find(accountId);
+        if (account == null) throw EntityNotExistsException.accountNotFoundById(accountId);
+        return account;
+    }
+
+    private AccountLimits toLimits(Account account) {
+        var limits = account.getOutgoingLimits();
+        if (limits == null) return new AccountLimits(account.getId(), null, null, null, null);
+        var now = clock.millis();
+        return new AccountLimits(account.getId(), limits.getHourlyLimit(), limits.getDailyLimit(),
+                limits.getHourlySpent(now), limits.getDailySpent(now));
+    }
+}
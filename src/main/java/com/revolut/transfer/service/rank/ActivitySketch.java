@@ -0,0 +1,141 @@
+package com.revolut.transfer.service.rank;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountActivity;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.TransferListener;
+import com.revolut.transfer.service.search.AccountIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Most active accounts by amount of transfers they took part in, estimated by Space-Saving summaries of a fixed size.
+ * Every transfer counts for both of its accounts. Transfers are spread over independent stripes, each thread starts
+ * with its own stripe and moves on to the next one when it is busy, so threads do not wait for each other; a query
+ * merges the stripes. Memory does not depend on the amount of accounts, updates cost O(log capacity).
+ * <p>
+ * Internal accounts are not counted. There are a few of them, so their ids are a copy-on-write array scanned on every
+ * transfer instead of a set that would box the ids.
+ */
+public class ActivitySketch implements AccountIndex, TransferListener {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int MAX_LIMIT = 1000;
+    // stripes holding an account are tracked in one long when merging
+    private static final int MAX_STRIPES = Long.SIZE;
+
+    private final SpaceSaving[] stripes;
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private volatile long[] internalIds = new long[0];
+
+    public ActivitySketch() {
+        this(DEFAULT_CAPACITY, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param capacity counters kept by every stripe, accounts taking part in more than 1/capacity of transfers
+     *                 are never missed
+     * @param stripes   rounded up to a power of two, at most 64
+     */
+    public ActivitySketch(int capacity, int stripes) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        if (stripes <= 0) throw new IllegalArgumentException("Amount of stripes must be positive");
+        var size = Math.min(MAX_STRIPES, Integer.highestOneBit(stripes * 2 - 1));
+        this.stripes = new SpaceSaving[size];
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new SpaceSaving(capacity);
+            this.locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public synchronized void add(Account account) {
+        if (!account.isInternal()) return;
+        var ids = Arrays.copyOf(internalIds, internalIds.length + 1);
+        ids[ids.length - 1] = account.getId();
+        internalIds = ids;
+    }
+
+    @Override
+    public void onTransfer(TransferTransaction transaction) {
+        var home = (int) Thread.currentThread().getId() & mask;
+        for (int i = 0; i <= mask; i++) {
+            var stripe = (home + i) & mask;
+            if (locks[stripe].tryLock()) {
+                record(stripe, transaction);
+                return;
+            }
+        }
+        locks[home].lock();
+        record(home, transaction);
+    }
+
+    /**
+     * @return most active accounts first
+     */
+    public List<AccountActivity> top(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+
+        // accountId -> {transfers, overestimate}
+        var merged = new HashMap<Long, long[]>();
+        var missingTransfers = new long[stripes.length];
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            var summary = stripes[stripe];
+            locks[stripe].lock();
+            try {
+                // an account without a counter in a full stripe may have been counted up to its minimum there
+                missingTransfers[stripe] = summary.isFull() ? summary.minimum() : 0L;
+                for (int position = 0; position < summary.size(); position++) {
+                    var estimate = merged.computeIfAbsent(summary.key(position), key -> new long[3]);
+                    estimate[0] += summary.count(position);
+                    estimate[1] += summary.error(position);
+                    estimate[2] |= 1L << stripe;
+                }
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+
+        var result = new ArrayList<AccountActivity>(merged.size());
+        merged.forEach((accountId, estimate) -> {
+            var transfers = estimate[0];
+            var overestimate = estimate[1];
+            for (int stripe = 0; stripe < stripes.length; stripe++) {
+                if ((estimate[2] & 1L << stripe) == 0L) {
+                    transfers += missingTransfers[stripe];
+                    overestimate += missingTransfers[stripe];
+                }
+            }
+            result.add(new AccountActivity(accountId, transfers, overestimate));
+        });
+        result.sort(Comparator.comparingLong(AccountActivity::getTransfers).reversed()
+                .thenComparingLong(AccountActivity::getAccountId));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private void record(int stripe, TransferTransaction transaction) {
+        try {
+            var from = transaction.getFrom();
+            var to = transaction.getTo();
+            if (!isInternal(from)) stripes[stripe].increment(from);
+            if (!isInternal(to)) stripes[stripe].increment(to);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    private boolean isInternal(long accountId) {
+        for (long id : internalIds) {
+            if (id == accountId) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,112 @@
+package com.revolut.transfer.service.rank;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.RankedBalance;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.TransferListener;
+import com.revolut.transfer.service.search.AccountIndex;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Accounts ordered by balance in a concurrent skip list. A transfer moves both accounts to the keys of their new
+ * balances, which is O(log n) and lock-free; it is done under the account locks, so the key of one account is never
+ * moved by two threads at once. Queries walk the list from the largest balance.
+ */
+public class BalanceIndex implements AccountIndex, TransferListener {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Comparator<Key> ORDER = Comparator.comparing((Key key) -> key.balance).thenComparingLong(key -> key.id);
+
+    private final Repository<Account> accountRepository;
+    private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>(ORDER);
+    // key every account is indexed under now, changed under the account lock
+    private final Map<Long, Key> current = new ConcurrentHashMap<>();
+
+    public BalanceIndex(Repository<Account> accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * Internal accounts are not ranked, so transfers touching them only reindex the other account
+     */
+    @Override
+    public void add(Account account) {
+        if (account.isInternal()) return;
+        var lock = account.getLock();
+        lock.lock();
+        try {
+            var key = new Key(balanceOf(account), account.getId());
+            keys.add(key);
+            current.put(account.getId(), key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onTransfer(TransferTransaction transaction) {
+        reindex(transaction.getFrom());
+        reindex(transaction.getTo());
+    }
+
+    /**
+     * @param above only balances greater than this one, any when null
+     * @param below only balances less than this one, any when null
+     * @return largest balances first
+     */
+    public List<RankedBalance> find(BigDecimal above, BigDecimal below, int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        if (above != null && below != null && above.compareTo(below) >= 0)
+            throw new IllegalArgumentException("Lower bound must be less than the upper bound");
+
+        NavigableSet<Key> range = keys;
+        if (below != null) range = range.headSet(new Key(below, Long.MIN_VALUE), false);
+        if (above != null) range = range.tailSet(new Key(above, Long.MAX_VALUE), false);
+        var result = new ArrayList<RankedBalance>(Math.min(limit, 64));
+        for (var iterator = range.descendingIterator(); iterator.hasNext() && result.size() < limit; ) {
+            var key = iterator.next();
+            result.add(new RankedBalance(key.id, key.balance));
+        }
+        return result;
+    }
+
+    /**
+     * Takes the id boxed by the transaction, so the map lookups do not box it again
+     */
+    private void reindex(Long accountId) {
+        var previous = current.get(accountId);
+        if (previous == null) return;
+        var balance = balanceOf(accountRepository.find(accountId));
+        if (previous.balance.compareTo(balance) == 0) return;
+        var key = new Key(balance, accountId);
+        // added before the previous key is removed, so the account never disappears from queries
+        keys.add(key);
+        current.put(accountId, key);
+        keys.remove(previous);
+    }
+
+    private static BigDecimal balanceOf(Account account) {
+        var balance = account.getBalance();
+        return balance == null ? BigDecimal.ZERO : balance;
+    }
+
+    private static class Key {
+        private final BigDecimal balance;
+        private final long id;
+
+        private Key(BigDecimal balance, long id) {
+            this.balance = balance;
+            this.id = id;
+        }
+    }
+}
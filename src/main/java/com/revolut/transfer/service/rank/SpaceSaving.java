@@ -0,0 +1,161 @@
+package com.revolut.transfer.service.rank;
+
+import java.util.Arrays;
+
+/**
+ * Space-Saving summary of the most frequent keys: at most {@code capacity} counters are kept in a min-heap by count.
+ * A key without a counter takes over the smallest one, inheriting its count as the possible overestimate, so every
+ * key seen more than {@code total / capacity} times is guaranteed to have a counter. Not thread-safe.
+ */
+class SpaceSaving {
+
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    // open addressing map of key to heap position, 0 marks a free slot and positions are stored plus one
+    private final long[] slotKeys;
+    private final int[] slotPositions;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        var slots = Integer.highestOneBit(capacity * 4 - 1) << 1;
+        slotKeys = new long[slots];
+        slotPositions = new int[slots];
+    }
+
+    /**
+     * @param key positive key
+     */
+    void increment(long key) {
+        var slot = slot(key);
+        if (slotPositions[slot] != 0) {
+            var position = slotPositions[slot] - 1;
+            counts[position]++;
+            siftDown(position);
+            return;
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = 1L;
+            errors[size] = 0L;
+            put(slot, key, size);
+            siftUp(size++);
+            return;
+        }
+        // the smallest counter is taken over
+        remove(keys[0]);
+        var minimum = counts[0];
+        keys[0] = key;
+        counts[0] = minimum + 1;
+        errors[0] = minimum;
+        put(slot(key), key, 0);
+        siftDown(0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == keys.length;
+    }
+
+    /**
+     * @return smallest count, a key without a counter was seen at most that many times
+     */
+    long minimum() {
+        return size == 0 ? 0L : counts[0];
+    }
+
+    long key(int position) {
+        return keys[position];
+    }
+
+    long count(int position) {
+        return counts[position];
+    }
+
+    long error(int position) {
+        return errors[position];
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            var parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) return;
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            var left = 2 * position + 1;
+            if (left >= size) return;
+            var smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[position] <= counts[smallest]) return;
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        var key = keys[first];
+        var count = counts[first];
+        var error = errors[first];
+        keys[first] = keys[second];
+        counts[first] = counts[second];
+        errors[first] = errors[second];
+        keys[second] = key;
+        counts[second] = count;
+        errors[second] = error;
+        slotPositions[slot(keys[first])] = first + 1;
+        slotPositions[slot(keys[second])] = second + 1;
+    }
+
+    private int slot(long key) {
+        var mask = slotKeys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (slotKeys[slot] == key || slotKeys[slot] == 0L) return slot;
+        }
+    }
+
+    private void put(int slot, long key, int position) {
+        slotKeys[slot] = key;
+        slotPositions[slot] = position + 1;
+    }
+
+    /**
+     * Backward shift deletion keeps probe sequences intact without tombstones
+     */
+    private void remove(long key) {
+        var mask = slotKeys.length - 1;
+        var slot = slot(key);
+        slotKeys[slot] = 0L;
+        slotPositions[slot] = 0;
+        for (int next = (slot + 1) & mask; slotKeys[next] != 0L; next = (next + 1) & mask) {
+            var home = hash(slotKeys[next]) & mask;
+            // the entry may move into the freed slot if its home is not between the freed slot and its position
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                slotKeys[slot] = slotKeys[next];
+                slotPositions[slot] = slotPositions[next];
+                slotKeys[next] = 0L;
+                slotPositions[next] = 0;
+                slot = next;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        var hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(keys, size));
+    }
+}
@@ -0,0 +1,11 @@
+package com.revolut.transfer.service.reconcile;
+
+import com.revolut.transfer.model.ReconciliationReport;
+
+public interface ReconciliationService extends AutoCloseable {
+
+    ReconciliationReport getReport();
+
+    @Override
+    void close();
+}
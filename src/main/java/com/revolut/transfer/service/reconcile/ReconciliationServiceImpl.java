@@ -0,0 +1,245 @@
+package com.revolut.transfer.service.reconcile;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Divergence;
+import com.revolut.transfer.model.ReconciliationReport;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verifies in the background that every account balance equals its opening balance plus credits minus debits.
+ * <p>
+ * The transaction log is folded into per-account net flows by walking every id shard of the transaction
+ * repository in order, so every transaction is read once. Accounts are checked one by one: the log is folded up to
+ * the ids allocated so far without any lock, then the account lock is taken. Transactions are allocated an id and
+ * stored under the locks of both accounts, so under the lock the log only has to be caught up with the few
+ * transactions allocated meanwhile for the comparison to be exact. If more than {@code batchSize} of them are
+ * pending in a shard or one of them is not stored yet, the account is skipped until the next pass instead of making
+ * transfers wait.
+ * <p>
+ * An id which is still missing {@value #HOLE_TIMEOUT_MILLIS} ms after the walk first waited for it, e.g. of a
+ * failed create or of a transaction which was not restored, is a hole and is stepped over.
+ * <p>
+ * Work is done in steps of at most {@code batchSize} transactions and accounts; after every step the checker
+ * sleeps long enough to keep its share of a core at {@code dutyCycle}. A failed step is counted and retried from the
+ * same cursors; the first failure of a series is logged.
+ */
+public class ReconciliationServiceImpl implements ReconciliationService {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final double DEFAULT_DUTY_CYCLE = 0.02;
+    private static final long MIN_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    static final long HOLE_TIMEOUT_MILLIS = 1000L;
+
+    private static final Logger LOGGER = Logger.getLogger(ReconciliationServiceImpl.class.getName());
+
+    private final Repository<Account> accountRepository;
+    private final Repository<TransferTransaction> transactionRepository;
+    private final int batchSize;
+    private final double dutyCycle;
+    private final ScheduledExecutorService executor;
+
+    // confined to the checker thread
+    private final Map<Long, BigDecimal> netFlows = new HashMap<>();
+    private final long[] logCursors;
+    // ids allocated in the shard when the walk first found a missing transaction and since when, 0 if none
+    private final long[] missingLimits;
+    private final long[] missingSince;
+    private int accountShard;
+    private long accountPosition;
+    private boolean failing;
+
+    private final Map<Long, Divergence> divergences = new ConcurrentHashMap<>();
+    private volatile long passes;
+    private volatile long checkedAccounts;
+    private volatile long scannedTransactions;
+    private volatile long skippedAccounts;
+    private volatile long holes;
+    private volatile long failedSteps;
+
+    public ReconciliationServiceImpl(Repository<Account> accountRepository,
+                                     Repository<TransferTransaction> transactionRepository) {
+        this(accountRepository, transactionRepository, DEFAULT_BATCH_SIZE, DEFAULT_DUTY_CYCLE);
+    }
+
+    /**
+     * @param carriedNetFlows net flows of transactions which are not in the transaction repository, e.g. replayed
+     *                        from the journal after a restart
+     */
+    public ReconciliationServiceImpl(Repository<Account> accountRepository,
+                                     Repository<TransferTransaction> transactionRepository,
+                                     Map<Long, BigDecimal> carriedNetFlows) {
+        this(accountRepository, transactionRepository, DEFAULT_BATCH_SIZE, DEFAULT_DUTY_CYCLE, carriedNetFlows);
+    }
+
+    public ReconciliationServiceImpl(Repository<Account> accountRepository,
+                                     Repository<TransferTransaction> transactionRepository,
+                                     int batchSize,
+                                     double dutyCycle) {
+        this(accountRepository, transactionRepository, batchSize, dutyCycle, Map.of());
+    }
+
+    /**
+     * @throws IllegalArgumentException if a repository does not track allocated ids, which the walks are based on
+     */
+    public ReconciliationServiceImpl(Repository<Account> accountRepository,
+                                     Repository<TransferTransaction> transactionRepository,
+                                     int batchSize,
+                                     double dutyCycle,
+                                     Map<Long, BigDecimal> carriedNetFlows) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive");
+        if (dutyCycle <= 0 || dutyCycle > 1) throw new IllegalArgumentException("Duty cycle must be in (0, 1]");
+        requireAllocatedIds(accountRepository, "Account");
+        requireAllocatedIds(transactionRepository, "Transaction");
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.batchSize = batchSize;
+        this.dutyCycle = dutyCycle;
+        this.logCursors = new long[transactionRepository.getIdShards()];
+        this.missingLimits = new long[logCursors.length];
+        this.missingSince = new long[logCursors.length];
+        this.netFlows.putAll(carriedNetFlows);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "reconciliation-checker");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.schedule(this::run, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ReconciliationReport getReport() {
+        return new ReconciliationReport(passes, checkedAccounts, skippedAccounts, scannedTransactions, holes,
+                failedSteps, new ArrayList<>(divergences.values()));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        var started = System.nanoTime();
+        try {
+            step();
+            failing = false;
+        } catch (RuntimeException e) {
+            // keep checking, the next step starts from the same cursors
+            failedSteps++;
+            if (!failing) LOGGER.log(Level.WARNING, "Reconciliation step failed, retrying", e);
+            failing = true;
+        }
+        var elapsed = System.nanoTime() - started;
+        var pause = Math.max(MIN_PAUSE_NANOS, (long) (elapsed * (1 - dutyCycle) / dutyCycle));
+        if (!executor.isShutdown()) executor.schedule(this::run, pause, TimeUnit.NANOSECONDS);
+    }
+
+    void step() {
+        var checked = 0;
+        while (checked < batchSize) {
+            if (accountPosition >= accountRepository.getAllocatedIds(accountShard)) {
+                accountPosition = 0L;
+                if (++accountShard == accountRepository.getIdShards()) {
+                    accountShard = 0;
+                    passes++;
+                    return;
+                }
+                continue;
+            }
+            // null while the account is still being stored, it is checked on the next pass
+            var account = accountRepository.find(accountRepository.idOf(accountShard, accountPosition++));
+            if (account != null) check(account);
+            checked++;
+        }
+    }
+
+    private void check(Account account) {
+        if (account.getOpeningBalance() == null) return;
+        // the backlog is folded without the lock, so transfers of the account only wait for the last few transactions
+        for (int shard = 0; shard < logCursors.length; shard++) {
+            foldLog(shard, transactionRepository.getAllocatedIds(shard));
+        }
+        var lock = account.getLock();
+        lock.lock();
+        try {
+            for (int shard = 0; shard < logCursors.length; shard++) {
+                var allocated = transactionRepository.getAllocatedIds(shard);
+                if (allocated - logCursors[shard] > batchSize || !foldLog(shard, allocated)) {
+                    skippedAccounts++;
+                    return;
+                }
+            }
+            var expected = account.getOpeningBalance().add(netFlows.getOrDefault(account.getId(), BigDecimal.ZERO));
+            var actual = account.getBalance();
+            if (expected.compareTo(actual) != 0) {
+                divergences.putIfAbsent(account.getId(),
+                        new Divergence(account.getId(), expected, actual, OffsetDateTime.now(ZoneOffset.UTC)));
+            } else {
+                divergences.remove(account.getId());
+            }
+            checkedAccounts++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Folds transactions of the shard up to the given position without waiting for the ones that are allocated but
+     * not stored yet
+     *
+     * @return true if the shard is folded up to the position
+     */
+    private boolean foldLog(int shard, long position) {
+        while (logCursors[shard] < position) {
+            var transaction = transactionRepository.find(transactionRepository.idOf(shard, logCursors[shard]));
+            if (transaction == null) {
+                if (!isHole(shard)) return false;
+                logCursors[shard]++;
+                holes++;
+                continue;
+            }
+            var amount = transaction.getAmount();
+            netFlows.merge(transaction.getFrom(), amount.negate(), BigDecimal::add);
+            netFlows.merge(transaction.getTo(), amount, BigDecimal::add);
+            logCursors[shard]++;
+            scannedTransactions++;
+        }
+        return true;
+    }
+
+    private static void requireAllocatedIds(Repository<?> repository, String name) {
+        try {
+            repository.getAllocatedIds(0);
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalArgumentException(name + " repository does not track allocated ids", e);
+        }
+    }
+
+    /**
+     * A create stores its transaction right after allocating the id, so one which is still missing long after it
+     * was allocated never shows up. Ids allocated before the walk first waited are all that old together.
+     */
+    private boolean isHole(int shard) {
+        var now = System.nanoTime();
+        if (logCursors[shard] >= missingLimits[shard]) {
+            missingLimits[shard] = transactionRepository.getAllocatedIds(shard);
+            missingSince[shard] = now;
+            return false;
+        }
+        return now - missingSince[shard] >= TimeUnit.MILLISECONDS.toNanos(HOLE_TIMEOUT_MILLIS);
+    }
+}
@@ -0,0 +1,201 @@
+package com.revolut.transfer.service.schedule;
+
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed hierarchical timing wheel. Level {@code k} has {@value #WHEEL_SIZE} slots of {@code tickMillis * 64^k}
+ * each; an entry is put into the lowest level whose span covers its deadline and is moved one level down every time
+ * the wheel below completes a revolution, until it expires from level 0. Scheduling and cancelling are O(1),
+ * advancing costs one slot per tick plus the entries that are cascaded or expired.
+ *
+ * @param <T> payload type
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+
+    private final long tickMillis;
+    private final Slot<T>[][] levels;
+    private final ReentrantLock lock;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("Tick must be positive");
+        this.tickMillis = tickMillis;
+        this.levels = new Slot[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                levels[level][slot] = new Slot<>();
+            }
+        }
+        this.lock = new ReentrantLock();
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * @return the latest deadline that can be scheduled relative to the current position of the wheel
+     */
+    public long getHorizonMillis() {
+        return (1L << (WHEEL_BITS * LEVELS)) * tickMillis;
+    }
+
+    /**
+     * Schedules payload to expire at the first tick not earlier than deadline.
+     * Deadlines in the past expire on the next {@link #advance}.
+     */
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        var deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        var timeout = new Timeout<>(payload, deadlineTick);
+        lock.lock();
+        try {
+            if (deadlineTick - currentTick >= (1L << (WHEEL_BITS * LEVELS)))
+                throw new IllegalArgumentException("Deadline is beyond the horizon of the timing wheel");
+            insert(timeout);
+            size++;
+        } finally {
+            lock.unlock();
+        }
+        return timeout;
+    }
+
+    /**
+     * @return true if the timeout was removed before it expired
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        lock.lock();
+        try {
+            if (timeout.slot == null) return false;
+            timeout.slot.remove(timeout);
+            size--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the wheel forward to the given time, handing every expired payload to the consumer.
+     * The consumer is called under the wheel lock and must not block.
+     *
+     * @return amount of expired entries
+     */
+    public int advance(long nowMillis, Consumer<T> expired) {
+        var targetTick = Math.floorDiv(nowMillis, tickMillis);
+        var expiredCount = 0;
+        lock.lock();
+        try {
+            while (currentTick <= targetTick) {
+                cascade();
+                var slot = levels[0][(int) (currentTick & WHEEL_MASK)];
+                Timeout<T> timeout;
+                while ((timeout = slot.poll()) != null) {
+                    if (timeout.deadlineTick > currentTick) {
+                        insert(timeout);
+                        continue;
+                    }
+                    size--;
+                    expiredCount++;
+                    expired.accept(timeout.payload);
+                }
+                currentTick++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return expiredCount;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Redistributes the higher level slots that become current at this tick, starting from the highest one
+     * so entries can fall through several levels at once.
+     */
+    private void cascade() {
+        var wrappedLevels = 0;
+        while (wrappedLevels < LEVELS - 1
+                && (currentTick & ((1L << (WHEEL_BITS * (wrappedLevels + 1))) - 1)) == 0) {
+            wrappedLevels++;
+        }
+        for (int level = wrappedLevels; level >= 1; level--) {
+            var slot = levels[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+            Timeout<T> timeout;
+            while ((timeout = slot.poll()) != null) {
+                insert(timeout);
+            }
+        }
+    }
+
+    private void insert(Timeout<T> timeout) {
+        var delta = timeout.deadlineTick - currentTick;
+        var level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        var tick = delta <= 0 ? currentTick : timeout.deadlineTick;
+        levels[level][(int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timeout);
+    }
+
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Slot<T> slot;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list, so a timeout can be unlinked without searching for it
+     */
+    private static final class Slot<T> {
+        private Timeout<T> head;
+
+        private void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) head.prev = timeout;
+            head = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        private Timeout<T> poll() {
+            var timeout = head;
+            if (timeout != null) remove(timeout);
+            return timeout;
+        }
+    }
+}
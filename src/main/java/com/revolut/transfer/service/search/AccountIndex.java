@@ -0,0 +1,14 @@
+package com.revolut.transfer.service.search;
+
+import com.revolut.transfer.model.Account;
+
+/**
+ * Index maintained by {@link IndexedAccountRepository}
+ */
+public interface AccountIndex {
+
+    /**
+     * Called once for every created or restored account, before its id is handed out
+     */
+    void add(Account account);
+}
@@ -0,0 +1,85 @@
+package com.revolut.transfer.service.search;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountPage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Accounts sorted by lower-cased name and id in a concurrent skip list, so accounts whose names start with a prefix
+ * are a contiguous range: a page is one O(log n) seek plus one step per returned account, whatever the amount of
+ * accounts is. Names do not change after creation, so accounts are only ever added.
+ */
+public class AccountNameIndex implements AccountIndex {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Comparator<Key> ORDER = Comparator.comparing((Key key) -> key.name).thenComparingLong(key -> key.id);
+
+    private final ConcurrentNavigableMap<Key, Account> accounts = new ConcurrentSkipListMap<>(ORDER);
+
+    /**
+     * Internal accounts are not searchable
+     */
+    @Override
+    public void add(Account account) {
+        if (account.isInternal()) return;
+        accounts.put(new Key(normalize(account.getName()), account.getId()), account);
+    }
+
+    /**
+     * @param prefix case-insensitive name prefix, empty to page through all accounts
+     * @param after  last account of the previous page, null for the first page
+     * @param limit  page size, {@link #DEFAULT_LIMIT} when null
+     * @return page of {@link Account#snapshot() snapshots}, so balances are read consistently and the indexed
+     * accounts are never exposed to callers
+     */
+    public AccountPage find(String prefix, Account after, Integer limit) {
+        if (prefix == null) throw new IllegalArgumentException("Name prefix cannot be null");
+        var size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size <= 0 || size > MAX_LIMIT)
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+
+        var normalizedPrefix = normalize(prefix);
+        ConcurrentNavigableMap<Key, Account> range;
+        if (after == null) {
+            range = accounts.tailMap(new Key(normalizedPrefix, Long.MIN_VALUE), true);
+        } else {
+            var afterKey = new Key(normalize(after.getName()), after.getId());
+            if (!afterKey.name.startsWith(normalizedPrefix))
+                throw new IllegalArgumentException("Account id=" + after.getId() + " does not match the name prefix");
+            range = accounts.tailMap(afterKey, false);
+        }
+
+        var page = new ArrayList<Account>(Math.min(size, 64));
+        Long nextAfterId = null;
+        for (var entry : range.entrySet()) {
+            if (!entry.getKey().name.startsWith(normalizedPrefix)) break;
+            if (page.size() == size) {
+                nextAfterId = page.get(size - 1).getId();
+                break;
+            }
+            page.add(entry.getValue().snapshot());
+        }
+        return new AccountPage(page, nextAfterId);
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Key {
+        private final String name;
+        private final long id;
+
+        private Key(String name, long id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+}
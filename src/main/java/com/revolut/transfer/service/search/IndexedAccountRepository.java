@@ -0,0 +1,36 @@
+package com.revolut.transfer.service.search;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.repository.ForwardingRepository;
+import com.revolut.transfer.repository.Repository;
+
+/**
+ * Adds every created or restored account to the given {@link AccountIndex}es
+ */
+public class IndexedAccountRepository extends ForwardingRepository<Account> {
+
+    private final AccountIndex[] indexes;
+
+    public IndexedAccountRepository(Repository<Account> delegate, AccountIndex... indexes) {
+        super(delegate);
+        this.indexes = indexes.clone();
+    }
+
+    @Override
+    public Account create(Account account) {
+        var created = delegate.create(account);
+        for (AccountIndex index : indexes) {
+            index.add(created);
+        }
+        return created;
+    }
+
+    @Override
+    public Account restore(Account account) {
+        var restored = delegate.restore(account);
+        for (AccountIndex index : indexes) {
+            index.add(restored);
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,54 @@
+package com.revolut.transfer.service.stats;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link java.util.concurrent.atomic.LongAdder} counterpart for {@link BigDecimal}: updates are spread over cells
+ * chosen by the updating thread, so concurrent writers rarely contend on the same CAS, and {@link #sum()} costs
+ * the amount of cells.
+ */
+public class DecimalAdder {
+
+    private final AtomicReferenceArray<BigDecimal> cells;
+    private final int mask;
+
+    public DecimalAdder() {
+        this(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+    }
+
+    public DecimalAdder(int cells) {
+        if (cells <= 0 || Integer.bitCount(cells) != 1)
+            throw new IllegalArgumentException("Amount of cells must be a positive power of two");
+        this.cells = new AtomicReferenceArray<>(cells);
+        this.mask = cells - 1;
+        for (int i = 0; i < cells; i++) {
+            this.cells.set(i, BigDecimal.ZERO);
+        }
+    }
+
+    public void add(BigDecimal value) {
+        var index = (int) (Thread.currentThread().getId() * 0x9E3779B9L) & mask;
+        while (true) {
+            var current = cells.get(index);
+            if (cells.compareAndSet(index, current, current.add(value))) return;
+            // move to the next cell so contending threads spread out
+            index = (index + 1) & mask;
+        }
+    }
+
+    public void subtract(BigDecimal value) {
+        add(value.negate());
+    }
+
+    /**
+     * @return sum of all cells, concurrent updates may or may not be included
+     */
+    public BigDecimal sum() {
+        var sum = BigDecimal.ZERO;
+        for (int i = 0; i < cells.length(); i++) {
+            sum = sum.add(cells.get(i));
+        }
+        return sum;
+    }
+}
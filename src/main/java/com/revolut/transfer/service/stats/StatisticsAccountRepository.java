@@ -0,0 +1,41 @@
+package com.revolut.transfer.service.stats;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.repository.ForwardingRepository;
+import com.revolut.transfer.repository.Repository;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Records the opening balance and creation time of every created account on the account and the opening balance
+ * in {@link TransferStatistics}
+ */
+public class StatisticsAccountRepository extends ForwardingRepository<Account> {
+
+    private final TransferStatistics statistics;
+
+    public StatisticsAccountRepository(Repository<Account> delegate, TransferStatistics statistics) {
+        super(delegate);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Account create(Account account) {
+        account.setOpeningBalance(account.getBalance());
+        account.setCreatedAt(OffsetDateTime.now(ZoneOffset.UTC));
+        var created = delegate.create(account);
+        statistics.accountCreated(created.getBalance(), created.isInternal());
+        return created;
+    }
+
+    /**
+     * Keeps the opening balance and creation time of the account, its current balance is added to the money supply
+     */
+    @Override
+    public Account restore(Account account) {
+        var restored = delegate.restore(account);
+        statistics.accountCreated(restored.getBalance(), restored.isInternal());
+        return restored;
+    }
+}
@@ -0,0 +1,68 @@
+package com.revolut.transfer.service.stats;
+
+import com.revolut.transfer.model.AccountTurnover;
+import com.revolut.transfer.model.TransferStatisticsSummary;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.TransferListener;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates maintained incrementally by the services changing balances, so reading them does not depend on the
+ * amount of accounts. System-wide values are striped adders; per-account turnover is an immutable value replaced
+ * under the account lock, so a reader always sees a consistent one.
+ */
+public class TransferStatistics implements TransferListener {
+
+    private final LongAdder accounts = new LongAdder();
+    private final DecimalAdder totalBalance = new DecimalAdder();
+    private final LongAdder transfers = new LongAdder();
+    private final DecimalAdder transferredAmount = new DecimalAdder();
+    private final Map<Long, TurnoverCell> turnovers = new ConcurrentHashMap<>();
+
+    /**
+     * @param internal internal accounts are not counted, their balance is still a part of the money supply
+     */
+    public void accountCreated(BigDecimal balance, boolean internal) {
+        if (!internal) accounts.increment();
+        totalBalance.add(balance);
+    }
+
+    @Override
+    public void onTransfer(TransferTransaction transaction) {
+        var amount = transaction.getAmount();
+        transfers.increment();
+        transferredAmount.add(amount);
+        var from = cell(transaction.getFrom());
+        from.value = from.value.debit(amount);
+        var to = cell(transaction.getTo());
+        to.value = to.value.credit(amount);
+    }
+
+    public TransferStatisticsSummary getSummary() {
+        return new TransferStatisticsSummary(accounts.sum(),
+                totalBalance.sum(),
+                transfers.sum(),
+                transferredAmount.sum());
+    }
+
+    public AccountTurnover getTurnover(long accountId) {
+        var cell = turnovers.get(accountId);
+        return cell == null ? AccountTurnover.EMPTY : cell.value;
+    }
+
+    /**
+     * Takes the id boxed by the transaction, so looking the cell up does not box it again
+     */
+    private TurnoverCell cell(Long accountId) {
+        var cell = turnovers.get(accountId);
+        return cell != null ? cell : turnovers.computeIfAbsent(accountId, id -> new TurnoverCell());
+    }
+
+    private static class TurnoverCell {
+        private volatile AccountTurnover value = AccountTurnover.EMPTY;
+    }
+}
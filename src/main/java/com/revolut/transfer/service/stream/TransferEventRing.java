@@ -0,0 +1,116 @@
+package com.revolut.transfer.service.stream;
+
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.TransferListener;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free ring of the latest committed transactions. Producers claim a sequence with one atomic
+ * increment and publish the slot without waiting for readers; a slot is marked as being written before its
+ * transaction is replaced, so a reader can detect that it was overtaken instead of reading a newer entry.
+ * Readers keep their own cursors and never slow producers down, a reader that falls more than the capacity
+ * behind loses the overwritten entries.
+ * <p>
+ * A reader that caught up parks in {@link #await} and is unparked by the next publish. Without parked readers a
+ * publish only checks an empty queue.
+ */
+public class TransferEventRing implements TransferListener {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long WRITING = -1L;
+
+    private final int mask;
+    private final AtomicLong nextSequence;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<TransferTransaction> transactions;
+    private final Queue<Thread> parked = new ConcurrentLinkedQueue<>();
+
+    public TransferEventRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TransferEventRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a positive power of two");
+        this.mask = capacity - 1;
+        this.nextSequence = new AtomicLong();
+        this.sequences = new AtomicLongArray(capacity);
+        this.transactions = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, WRITING);
+        }
+    }
+
+    @Override
+    public void onTransfer(TransferTransaction transaction) {
+        publish(transaction);
+    }
+
+    /**
+     * @return sequence assigned to the transaction
+     */
+    public long publish(TransferTransaction transaction) {
+        var sequence = nextSequence.getAndIncrement();
+        var index = (int) sequence & mask;
+        sequences.set(index, WRITING);
+        transactions.set(index, transaction);
+        sequences.set(index, sequence);
+        if (!parked.isEmpty()) unparkReaders();
+        return sequence;
+    }
+
+    /**
+     * Parks the calling thread until the sequence is published or overwritten, the timeout elapses or the thread is
+     * interrupted. The thread is registered before the slot is checked and a publish writes the slot before it
+     * checks the registered threads, so one of them always sees the other.
+     */
+    public void await(long sequence, long timeoutNanos) {
+        var thread = Thread.currentThread();
+        parked.add(thread);
+        if (read(sequence) != null || sequence < getOldestSequence()) {
+            parked.remove(thread);
+            return;
+        }
+        LockSupport.parkNanos(this, timeoutNanos);
+        // still registered after a timeout or an interrupt
+        parked.remove(thread);
+    }
+
+    /**
+     * @return transaction published with the sequence, or null if it is not published yet or was overwritten,
+     * which can be told apart by {@link #getOldestSequence()}
+     */
+    public TransferTransaction read(long sequence) {
+        var index = (int) sequence & mask;
+        if (sequences.get(index) != sequence) return null;
+        var transaction = transactions.get(index);
+        return sequences.get(index) == sequence ? transaction : null;
+    }
+
+    /**
+     * @return sequence the next published transaction will get
+     */
+    public long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * @return the oldest sequence that may still be read
+     */
+    public long getOldestSequence() {
+        return Math.max(0L, nextSequence.get() - mask - 1);
+    }
+
+    private void unparkReaders() {
+        Thread thread;
+        while ((thread = parked.poll()) != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.revolut.transfer.service.stream;
+
+public interface TransferStreamService extends AutoCloseable {
+
+    /**
+     * Starts delivering committed transfers to the subscriber until it is closed or refuses an event
+     *
+     * @param accountId      deliver only transfers from or to the account, all transfers when null
+     * @param lastSequence   sequence of the last transfer the subscriber has seen, only new transfers when null
+     * @throws com.revolut.transfer.service.exception.CapacityExceededException if the subscriber limit is reached
+     */
+    void subscribe(Long accountId, Long lastSequence, TransferSubscriber subscriber);
+
+    @Override
+    void close();
+}
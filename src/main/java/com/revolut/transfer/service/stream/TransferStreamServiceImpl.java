@@ -0,0 +1,85 @@
+package com.revolut.transfer.service.stream;
+
+import com.revolut.transfer.service.exception.CapacityExceededException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every subscription reads {@link TransferEventRing} with its own cursor on its own thread, so a slow subscriber
+ * only delays itself; once it is overtaken by producers it gets a gap instead of the lost transfers. A subscription
+ * that caught up parks until the ring publishes the next transfer, at most {@code maxSubscribers} threads exist.
+ */
+public class TransferStreamServiceImpl implements TransferStreamService {
+
+    public static final int DEFAULT_MAX_SUBSCRIBERS = 64;
+    // a closed subscriber is noticed within this time even when nothing is published
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TransferEventRing ring;
+    private final int maxSubscribers;
+    private final Semaphore subscribers;
+    private final ExecutorService subscriptions;
+
+    public TransferStreamServiceImpl(TransferEventRing ring) {
+        this(ring, DEFAULT_MAX_SUBSCRIBERS);
+    }
+
+    public TransferStreamServiceImpl(TransferEventRing ring, int maxSubscribers) {
+        if (maxSubscribers <= 0) throw new IllegalArgumentException("Subscriber limit must be positive");
+        this.ring = ring;
+        this.maxSubscribers = maxSubscribers;
+        this.subscribers = new Semaphore(maxSubscribers);
+        this.subscriptions = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "transfer-stream-subscription");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void subscribe(Long accountId, Long lastSequence, TransferSubscriber subscriber) {
+        if (!subscribers.tryAcquire()) throw CapacityExceededException.subscriberLimitReached(maxSubscribers);
+        var next = ring.getNextSequence();
+        var cursor = lastSequence == null ? next : Math.min(lastSequence + 1, next);
+        try {
+            subscriptions.execute(() -> {
+                try {
+                    deliver(accountId, Math.max(cursor, 0L), subscriber);
+                } finally {
+                    subscribers.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            subscribers.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        subscriptions.shutdownNow();
+    }
+
+    private void deliver(Long accountId, long cursor, TransferSubscriber subscriber) {
+        while (!subscriber.isClosed() && !Thread.currentThread().isInterrupted()) {
+            var transaction = ring.read(cursor);
+            if (transaction == null) {
+                var oldest = ring.getOldestSequence();
+                if (cursor < oldest) {
+                    if (!subscriber.onGap(cursor, oldest)) return;
+                    cursor = oldest;
+                } else {
+                    ring.await(cursor, IDLE_TIMEOUT_NANOS);
+                }
+                continue;
+            }
+            if (accountId == null || accountId.equals(transaction.getFrom()) || accountId.equals(transaction.getTo())) {
+                if (!subscriber.onTransfer(cursor, transaction)) return;
+            }
+            cursor++;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.revolut.transfer.service.stream;
+
+import com.revolut.transfer.model.TransferTransaction;
+
+/**
+ * Receiver of a transfer stream, called from a thread dedicated to the subscription, so it may block
+ */
+public interface TransferSubscriber {
+
+    /**
+     * @return false to end the subscription
+     */
+    boolean onTransfer(long sequence, TransferTransaction transaction);
+
+    /**
+     * Called when the subscriber fell behind and transfers with sequences from {@code missedFrom} up to
+     * {@code resumeFrom} exclusive are no longer available; delivery continues from {@code resumeFrom}
+     *
+     * @return false to end the subscription
+     */
+    boolean onGap(long missedFrom, long resumeFrom);
+
+    boolean isClosed();
+}
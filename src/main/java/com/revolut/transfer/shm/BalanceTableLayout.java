@@ -0,0 +1,60 @@
+package com.revolut.transfer.shm;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the balance table file, all numbers are in the native byte order of the host.
+ * <pre>
+ * header: magic (long) | format version (int) | slot stride (int) | capacity (long) | reserved up to 64 bytes
+ * slot:   sequence (long) | balance unscaled value (long) | balance scale (int) | flags (int) | reserved (long)
+ * </pre>
+ * The slot of account {@code id} starts at {@code HEADER_LENGTH + (id - 1) * SLOT_STRIDE}. The sequence is odd while
+ * the slot is being written; a read is consistent if the sequence was even and did not change meanwhile.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BalanceTableLayout {
+
+    public static final long MAGIC = 0x454C42415442414CL;
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_LENGTH = 64;
+    public static final int SLOT_STRIDE = 32;
+    /**
+     * Largest capacity a file mapped by one buffer can hold
+     */
+    public static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_LENGTH) / SLOT_STRIDE;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int FORMAT_VERSION_OFFSET = 8;
+    static final int SLOT_STRIDE_OFFSET = 12;
+    static final int CAPACITY_OFFSET = 16;
+
+    static final int SEQUENCE_OFFSET = 0;
+    static final int UNSCALED_OFFSET = 8;
+    static final int SCALE_OFFSET = 16;
+    static final int FLAGS_OFFSET = 20;
+
+    /**
+     * The slot holds the balance of an existing account
+     */
+    static final int PRESENT = 1;
+    /**
+     * The balance does not fit the slot, readers have to ask the service
+     */
+    static final int OVERFLOW = 2;
+
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    static long fileLength(long capacity) {
+        return HEADER_LENGTH + capacity * SLOT_STRIDE;
+    }
+
+    static int slotOffset(long accountId) {
+        return HEADER_LENGTH + (int) (accountId - 1) * SLOT_STRIDE;
+    }
+}
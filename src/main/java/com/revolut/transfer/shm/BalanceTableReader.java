@@ -0,0 +1,137 @@
+package com.revolut.transfer.shm;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.revolut.transfer.shm.BalanceTableLayout.*;
+
+/**
+ * Reads balances published by a {@link BalanceTableWriter} of a process on the same host. Reads go straight to the
+ * mapped file without locks or copies: a slot is read again while its writer is changing it, so a read costs a few
+ * memory loads unless it races with a transfer of that account. Depends on nothing but this package, safe for use
+ * from multiple threads.
+ */
+public class BalanceTableReader implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long capacity;
+
+    private BalanceTableReader(FileChannel channel, ByteBuffer buffer, long capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    public static BalanceTableReader open(Path file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            var length = channel.size();
+            if (length < HEADER_LENGTH || length > Integer.MAX_VALUE)
+                throw new IllegalArgumentException(file + " is not a balance table");
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if ((long) LONGS.getAcquire(buffer, MAGIC_OFFSET) != MAGIC)
+                throw new IllegalArgumentException(file + " is not a balance table");
+            if ((int) INTS.get(buffer, FORMAT_VERSION_OFFSET) != FORMAT_VERSION
+                    || (int) INTS.get(buffer, SLOT_STRIDE_OFFSET) != SLOT_STRIDE)
+                throw new IllegalArgumentException("Unsupported format of balance table " + file);
+            var capacity = (long) LONGS.get(buffer, CAPACITY_OFFSET);
+            if (fileLength(capacity) > length)
+                throw new IllegalArgumentException("Balance table " + file + " is truncated");
+            return new BalanceTableReader(channel, buffer, capacity);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Unable to map balance table " + file, e);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Copies a consistent state of the slot into the given holder, allocates nothing
+     *
+     * @return false if the account is not published or its balance does not fit the table
+     */
+    public boolean read(long accountId, Balance target) {
+        if (accountId < 1 || accountId > capacity) return false;
+        var slot = slotOffset(accountId);
+        while (true) {
+            var sequence = (long) LONGS.getAcquire(buffer, slot + SEQUENCE_OFFSET);
+            if ((sequence & 1L) != 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+            var unscaled = (long) LONGS.get(buffer, slot + UNSCALED_OFFSET);
+            var scale = (int) INTS.get(buffer, slot + SCALE_OFFSET);
+            var flags = (int) INTS.get(buffer, slot + FLAGS_OFFSET);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getOpaque(buffer, slot + SEQUENCE_OFFSET) != sequence) continue;
+
+            if (flags != PRESENT) return false;
+            target.accountId = accountId;
+            target.unscaledValue = unscaled;
+            target.scale = scale;
+            target.sequence = sequence;
+            return true;
+        }
+    }
+
+    /**
+     * @return balance of the account or null if it is not published
+     */
+    public BigDecimal getBalance(long accountId) {
+        var balance = new Balance();
+        return read(accountId, balance) ? balance.toBigDecimal() : null;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the original failure is more relevant
+        }
+    }
+
+    /**
+     * Reusable holder of one read balance
+     */
+    @Getter
+    public static class Balance {
+        private long accountId;
+        private long unscaledValue;
+        private int scale;
+        /**
+         * Grows with every change of the balance, equal sequences of one account mean an unchanged balance
+         */
+        private long sequence;
+
+        public BigDecimal toBigDecimal() {
+            return BigDecimal.valueOf(unscaledValue, scale);
+        }
+    }
+}
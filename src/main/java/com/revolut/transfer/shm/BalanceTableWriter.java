@@ -0,0 +1,120 @@
+package com.revolut.transfer.shm;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.service.TransferListener;
+import com.revolut.transfer.service.search.AccountIndex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.revolut.transfer.shm.BalanceTableLayout.*;
+
+/**
+ * Publishes the balance of every account into a memory mapped file read by {@link BalanceTableReader}s of other
+ * processes. Created accounts are published before their id is handed out, transfers republish both accounts
+ * under the account locks, so every slot has one writer at a time and the per-slot sequence is a plain seqlock.
+ * Accounts with ids above the capacity are not published. The file is recreated on start.
+ */
+public class BalanceTableWriter implements AccountIndex, TransferListener, Closeable {
+
+    // every unscaled value of at most this many digits fits a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final Repository<Account> accountRepository;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final LongAdder unpublished = new LongAdder();
+
+    public BalanceTableWriter(Path file, int capacity, Repository<Account> accountRepository) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        this.accountRepository = accountRepository;
+        this.capacity = capacity;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileLength(capacity));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map balance table " + file, e);
+        }
+        INTS.set(buffer, FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+        INTS.set(buffer, SLOT_STRIDE_OFFSET, SLOT_STRIDE);
+        LONGS.set(buffer, CAPACITY_OFFSET, (long) capacity);
+        // readers check the magic first, so it is written after the rest of the header
+        LONGS.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+    }
+
+    @Override
+    public void add(Account account) {
+        publish(account.getId(), account.getBalance());
+    }
+
+    @Override
+    public void onTransfer(TransferTransaction transaction) {
+        publish(transaction.getFrom(), accountRepository.find(transaction.getFrom()).getBalance());
+        publish(transaction.getTo(), accountRepository.find(transaction.getTo()).getBalance());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return amount of balance changes of accounts with ids above the capacity
+     */
+    public long getUnpublished() {
+        return unpublished.sum();
+    }
+
+    /**
+     * Must not be called concurrently for one account
+     */
+    void publish(long accountId, BigDecimal balance) {
+        if (accountId < 1 || accountId > capacity || balance == null) {
+            unpublished.increment();
+            return;
+        }
+        long unscaled;
+        boolean fits;
+        if (balance.precision() <= MAX_LONG_DIGITS) {
+            // same compact value at scale 0, unscaledValue() would inflate it into a BigInteger
+            unscaled = balance.scaleByPowerOfTen(balance.scale()).longValue();
+            fits = true;
+        } else {
+            var value = balance.unscaledValue();
+            fits = value.bitLength() <= 63;
+            unscaled = fits ? value.longValue() : 0L;
+        }
+        var slot = slotOffset(accountId);
+        var sequence = (long) LONGS.get(buffer, slot + SEQUENCE_OFFSET);
+        LONGS.setOpaque(buffer, slot + SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+        LONGS.set(buffer, slot + UNSCALED_OFFSET, unscaled);
+        INTS.set(buffer, slot + SCALE_OFFSET, fits ? balance.scale() : 0);
+        INTS.set(buffer, slot + FLAGS_OFFSET, fits ? PRESENT : PRESENT | OVERFLOW);
+        LONGS.setRelease(buffer, slot + SEQUENCE_OFFSET, sequence + 2);
+    }
+
+    /**
+     * The mapping stays valid until it is garbage collected, so balances published while shutting down are harmless
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
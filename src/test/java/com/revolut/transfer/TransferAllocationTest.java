@@ -0,0 +1,199 @@
+package com.revolut.transfer;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.stats.StatisticsAccountRepository;
+import com.revolut.transfer.service.stats.TransferStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the allocation profile of the transfer path, measured with the per-thread allocation counter of the JVM.
+ * A successful transfer is expected to allocate the transaction record with its id and the new immutable
+ * balance and statistics values only; a rejected one nothing at all. The service wired by
+ * {@link TransferApplicationContext} with every transfer listener enabled is held to the same budgets, except that
+ * a successful transfer may also allocate the new balance index keys with their skip list nodes and the compact
+ * amount the journal encodes. Transfers run between accounts with ids outside of the {@link Long#valueOf} cache, so
+ * every boxed account id shows up in the measurement.
+ */
+@DisplayName("Transfer allocation regression tests")
+class TransferAllocationTest {
+
+    private static final int WARM_UP = 200_000;
+    private static final int MEASURED = 100_000;
+    private static final long SUCCESS_BUDGET_BYTES = 360L;
+    private static final long LISTENER_CHAIN_SUCCESS_BUDGET_BYTES = SUCCESS_BUDGET_BYTES + 280L;
+    private static final long REJECTION_BUDGET_BYTES = 8L;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    @BeforeEach
+    void prepareBean() {
+        var bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @DisplayName("Transfer service with statistics only")
+    @Nested
+    class ServiceTest {
+
+        private TransferOperationService transferOperationService;
+        private Account first;
+        private Account second;
+
+        @BeforeEach
+        void prepareService() {
+            var statistics = new TransferStatistics();
+            Repository<Account> accountRepository = new StatisticsAccountRepository(RepositoryStubFactory.initialize(), statistics);
+            Repository<TransferTransaction> transactionRepository = RepositoryStubFactory.initialize();
+            transferOperationService = new TransferOperationServiceImpl(accountRepository, transactionRepository, statistics);
+
+            first = createAccountAboveCache(accountRepository, 1_000_000L);
+            second = createAccountAboveCache(accountRepository, 1_000_000L);
+        }
+
+        @DisplayName("successful transfer allocates only the result and new values")
+        @Test
+        void successfulTransferTest() {
+            assertSuccessBudget(transferOperationService, first, second, SUCCESS_BUDGET_BYTES);
+        }
+
+        @DisplayName("rejected transfer allocates nothing")
+        @Test
+        void rejectedTransferTest() {
+            assertRejectionBudget(transferOperationService, first, second);
+        }
+    }
+
+    /**
+     * Journal, statistics, balance history, balance index, activity sketch, balance table and event ring
+     */
+    @DisplayName("Transfer service with the full listener chain of the application")
+    @Nested
+    class ApplicationContextTest {
+
+        @TempDir
+        Path directory;
+
+        private TransferApplicationContext context;
+        private Account first;
+        private Account second;
+
+        @BeforeEach
+        void prepareContext() {
+            context = TransferApplicationContext.init(RunnerOptions.builder()
+                    .journal(directory.resolve("transfers.journal"))
+                    .balanceTable(directory.resolve("balances"))
+                    .balanceTableCapacity(1024)
+                    .build());
+            first = createAccountAboveCache(context.getAccountRepository(), 1_000_000L);
+            second = createAccountAboveCache(context.getAccountRepository(), 1_000_000L);
+        }
+
+        @AfterEach
+        void closeContext() {
+            context.close();
+        }
+
+        @DisplayName("successful transfer allocates only the result and new values")
+        @Test
+        void successfulTransferTest() {
+            assertSuccessBudget(context.getTransferOperationService(), first, second,
+                    LISTENER_CHAIN_SUCCESS_BUDGET_BYTES);
+        }
+
+        @DisplayName("rejected transfer allocates nothing")
+        @Test
+        void rejectedTransferTest() {
+            assertRejectionBudget(context.getTransferOperationService(), first, second);
+        }
+    }
+
+    private void assertSuccessBudget(TransferOperationService transferOperationService,
+                                     Account first,
+                                     Account second,
+                                     long budget) {
+        var amount = BigDecimal.ONE;
+        Runnable transfers = () -> {
+            for (int i = 0; i < 1000; i++) {
+                transferOperationService.transfer(first.getId(), second.getId(), amount);
+                transferOperationService.transfer(second.getId(), first.getId(), amount);
+            }
+        };
+        var perTransfer = bytesPerOperation(transfers, 2000);
+        assertTrue(perTransfer <= budget, "Transfer allocates " + perTransfer + " bytes, budget is " + budget);
+    }
+
+    private void assertRejectionBudget(TransferOperationService transferOperationService, Account first, Account second) {
+        var tooMuch = BigDecimal.valueOf(10_000_000L);
+        var negative = BigDecimal.valueOf(-1L);
+        Runnable rejections = () -> {
+            for (int i = 0; i < 1000; i++) {
+                reject(transferOperationService, first.getId(), second.getId(), tooMuch);
+                reject(transferOperationService, first.getId(), second.getId(), negative);
+                reject(transferOperationService, first.getId(), first.getId(), BigDecimal.ONE);
+            }
+        };
+        var perRejection = bytesPerOperation(rejections, 3000);
+        assertTrue(perRejection <= REJECTION_BUDGET_BYTES,
+                "Rejection allocates " + perRejection + " bytes, budget is " + REJECTION_BUDGET_BYTES);
+    }
+
+    private static void reject(TransferOperationService transferOperationService, long fromId, long toId, BigDecimal amount) {
+        try {
+            transferOperationService.transfer(fromId, toId, amount);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private long bytesPerOperation(Runnable batch, int operationsPerBatch) {
+        for (int i = 0; i < WARM_UP / operationsPerBatch; i++) {
+            batch.run();
+        }
+        var threadId = Thread.currentThread().getId();
+        var batches = MEASURED / operationsPerBatch;
+        var before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < batches; i++) {
+            batch.run();
+        }
+        var after = threadMXBean.getThreadAllocatedBytes(threadId);
+        return (after - before) / ((long) batches * operationsPerBatch);
+    }
+
+    /**
+     * Creates accounts until one gets an id outside of the {@link Long#valueOf} cache, so boxing of account ids is
+     * measured instead of being served from the cache
+     */
+    private static Account createAccountAboveCache(Repository<Account> accountRepository, long balance) {
+        while (true) {
+            var account = createAccount(accountRepository, balance);
+            if (account.getId() > 127L) return account;
+        }
+    }
+
+    private static Account createAccount(Repository<Account> accountRepository, long balance) {
+        var account = new Account();
+        account.setName("allocation");
+        account.setBalance(BigDecimal.valueOf(balance));
+        return accountRepository.create(account);
+    }
+}
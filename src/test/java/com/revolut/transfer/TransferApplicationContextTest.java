@@ -0,0 +1,70 @@
+package com.revolut.transfer;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.shm.BalanceTableReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Application context tests")
+class TransferApplicationContextTest {
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("accounts and balances survive a restart with a journal")
+    @Test
+    void journalRestartTest() {
+        var options = RunnerOptions.builder().journal(directory.resolve("transfers.journal")).build();
+        long firstId;
+        long secondId;
+        try (var context = TransferApplicationContext.init(options)) {
+            firstId = context.getAccountRepository().create(account("first", 100L)).getId();
+            secondId = context.getAccountRepository().create(account("second", 0L)).getId();
+            context.getTransferOperationService().transfer(firstId, secondId, BigDecimal.valueOf(30L));
+        }
+
+        try (var context = TransferApplicationContext.init(options)) {
+            var first = context.getAccountRepository().find(firstId);
+            assertEquals("first", first.getName());
+            assertEquals(0, BigDecimal.valueOf(70L).compareTo(first.getBalance()));
+            assertEquals(0, BigDecimal.valueOf(100L).compareTo(first.getOpeningBalance()));
+            assertEquals(0, BigDecimal.valueOf(30L).compareTo(context.getAccountRepository().find(secondId).getBalance()));
+            assertEquals(0, BigDecimal.valueOf(100L).compareTo(context.getTransferStatistics().getSummary().getTotalBalance()));
+
+            var thirdId = context.getAccountRepository().create(account("third", 0L)).getId();
+            assertNotEquals(firstId, thirdId);
+            assertNotEquals(secondId, thirdId);
+        }
+    }
+
+    @DisplayName("balances are published to the balance table")
+    @Test
+    void balanceTableTest() {
+        var file = directory.resolve("balances");
+        var options = RunnerOptions.parse("--balance-table=" + file, "--balance-table-capacity=1024");
+        try (var context = TransferApplicationContext.init(options);
+             var reader = BalanceTableReader.open(file)) {
+            var firstId = context.getAccountRepository().create(account("first", 100L)).getId();
+            var secondId = context.getAccountRepository().create(account("second", 0L)).getId();
+            assertEquals(0, BigDecimal.valueOf(100L).compareTo(reader.getBalance(firstId)));
+
+            context.getTransferOperationService().transfer(firstId, secondId, BigDecimal.valueOf(30L));
+
+            assertEquals(0, BigDecimal.valueOf(70L).compareTo(reader.getBalance(firstId)));
+            assertEquals(0, BigDecimal.valueOf(30L).compareTo(reader.getBalance(secondId)));
+        }
+    }
+
+    private static Account account(String name, long balance) {
+        var account = new Account();
+        account.setName(name);
+        account.setBalance(BigDecimal.valueOf(balance));
+        return account;
+    }
+}
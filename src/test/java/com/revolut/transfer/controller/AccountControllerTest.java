@@ -3,6 +3,9 @@ package com.revolut.transfer.controller;
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
 import com.revolut.transfer.TransferApplication;
 import com.revolut.transfer.controller.request.CreateAccountRequest;
+import com.revolut.transfer.controller.request.LookupAccountsRequest;
+import com.revolut.transfer.controller.request.SetLimitsRequest;
+import com.revolut.transfer.controller.request.TransferRequest;
 import com.revolut.transfer.model.Account;
 import io.undertow.Undertow;
 import org.jboss.resteasy.plugins.server.undertow.UndertowJaxrsServer;
@@ -11,11 +14,20 @@ import org.junit.jupiter.api.*;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @DisplayName("Integration tests for account api")
 class AccountControllerTest {
@@ -33,6 +45,7 @@ class AccountControllerTest {
 
         target = ClientBuilder.newClient()
                 .register(JacksonJaxbJsonProvider.class)
+                .register(ObjectMapperProvider.class)
                 .target("http://localhost:8080");
     }
 
@@ -166,6 +179,54 @@ class AccountControllerTest {
             assertEquals(createdAccount.getId(), result.getId());
             assertEquals(createdAccount.getName(), result.getName());
             assertEquals(createdAccount.getBalance(), result.getBalance());
+            assertNotNull(response.getHeaderString(HttpHeaders.ETAG));
+        }
+
+        @DisplayName("when If-None-Match matches current version should return 304")
+        @Test
+        void notModifiedTest() {
+            var createdAccount = createAccount();
+            var etag = accountTarget(createdAccount).request().get().getHeaderString(HttpHeaders.ETAG);
+
+            var response = accountTarget(createdAccount)
+                    .request()
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag)
+                    .get();
+
+            assertEquals(304, response.getStatus());
+            assertEquals(etag, response.getHeaderString(HttpHeaders.ETAG));
+        }
+
+        @DisplayName("when balance changes should return new representation and etag")
+        @Test
+        void modifiedTest() {
+            var from = createAccount();
+            var to = createAccount();
+            var etag = accountTarget(from).request().get().getHeaderString(HttpHeaders.ETAG);
+
+            target.path("api")
+                    .path("v1")
+                    .path("transfer")
+                    .request()
+                    .post(Entity.entity(new TransferRequest(from.getId(), to.getId(), BigDecimal.ONE),
+                            MediaType.APPLICATION_JSON_TYPE))
+                    .close();
+            var response = accountTarget(from)
+                    .request()
+                    .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    .get();
+
+            assertEquals(200, response.getStatus());
+            assertNotEquals(etag, response.getHeaderString(HttpHeaders.ETAG));
+            assertEquals(from.getBalance().subtract(BigDecimal.ONE), response.readEntity(Account.class).getBalance());
+        }
+
+        private WebTarget accountTarget(Account account) {
+            return target
+                    .path("api")
+                    .path("v1")
+                    .path("account")
+                    .path(account.getId().toString());
         }
 
         private Account createAccount() {
@@ -198,4 +259,214 @@ class AccountControllerTest {
             assertNotNull(response.getEntity());
         }
     }
+
+    @DisplayName("/account?namePrefix= GET method test")
+    @Nested
+    class SearchTest {
+
+        @DisplayName("returns pages of accounts whose names start with the prefix")
+        @Test
+        void searchTest() {
+            var prefix = "Search" + System.nanoTime();
+            for (int i = 0; i < 3; i++) {
+                target.path("api")
+                        .path("v1")
+                        .path("account")
+                        .request()
+                        .post(Entity.entity(new CreateAccountRequest(prefix + i, BigDecimal.ONE), MediaType.APPLICATION_JSON_TYPE))
+                        .close();
+            }
+
+            var first = search(prefix.toLowerCase(), null);
+            assertEquals(200, first.getStatus());
+            var firstPage = first.readEntity(Map.class);
+            assertEquals(2, ((List<?>) firstPage.get("accounts")).size());
+            assertNotNull(firstPage.get("nextAfterId"));
+
+            var secondPage = search(prefix, Long.valueOf(firstPage.get("nextAfterId").toString())).readEntity(Map.class);
+            var accounts = (List<?>) secondPage.get("accounts");
+            assertEquals(1, accounts.size());
+            assertEquals(prefix + 2, ((Map<?, ?>) accounts.get(0)).get("name"));
+            assertNull(secondPage.get("nextAfterId"));
+        }
+
+        @DisplayName("rejects bad limits and unknown cursors")
+        @Test
+        void badRequestTest() {
+            assertEquals(400, searchTarget("a").queryParam("limit", 0).request().get().getStatus());
+            assertEquals(404, searchTarget("a").queryParam("afterId", -1).request().get().getStatus());
+        }
+
+        private Response search(String prefix, Long afterId) {
+            var request = searchTarget(prefix).queryParam("limit", 2);
+            if (afterId != null) request = request.queryParam("afterId", afterId);
+            return request.request().get();
+        }
+
+        private WebTarget searchTarget(String prefix) {
+            return target.path("api")
+                    .path("v1")
+                    .path("account")
+                    .queryParam("namePrefix", prefix);
+        }
+    }
+
+    @DisplayName("/account/lookup POST method test")
+    @Nested
+    class LookupTest {
+
+        @DisplayName("returns found accounts and missing ids in the order of the ids")
+        @Test
+        void lookupTest() {
+            var first = createAccount("First");
+            var second = createAccount("Second");
+
+            var response = lookup(new LookupAccountsRequest(List.of(second.getId(), -1L, first.getId(), -2L)));
+            assertEquals(200, response.getStatus());
+            var result = response.readEntity(Map.class);
+            var accounts = (List<?>) result.get("accounts");
+            assertEquals(2, accounts.size());
+            assertEquals("Second", ((Map<?, ?>) accounts.get(0)).get("name"));
+            assertEquals("First", ((Map<?, ?>) accounts.get(1)).get("name"));
+            assertEquals(List.of(-1, -2), result.get("missingIds"));
+        }
+
+        @DisplayName("rejects requests without ids and with too many ids")
+        @Test
+        void badRequestTest() {
+            assertEquals(400, lookup(new LookupAccountsRequest(null)).getStatus());
+            var ids = new ArrayList<Long>();
+            for (long id = 1; id <= AccountController.MAX_LOOKUP_IDS + 1; id++) {
+                ids.add(id);
+            }
+            assertEquals(400, lookup(new LookupAccountsRequest(ids)).getStatus());
+        }
+
+        private Response lookup(LookupAccountsRequest request) {
+            return target.path("api")
+                    .path("v1")
+                    .path("account")
+                    .path("lookup")
+                    .request()
+                    .post(Entity.entity(request, MediaType.APPLICATION_JSON_TYPE));
+        }
+
+        private Account createAccount(String name) {
+            return target.path("api")
+                    .path("v1")
+                    .path("account")
+                    .request()
+                    .post(Entity.entity(new CreateAccountRequest(name, BigDecimal.ONE), MediaType.APPLICATION_JSON_TYPE))
+                    .readEntity(Account.class);
+        }
+    }
+
+    @DisplayName("/account/{id}/limits methods test")
+    @Nested
+    class LimitsTest {
+
+        @DisplayName("set limits are reported and enforced on transfers")
+        @Test
+        void limitsTest() {
+            var payer = createAccount(BigDecimal.valueOf(100));
+            var receiver = createAccount(BigDecimal.ZERO);
+
+            var set = limitsTarget(payer)
+                    .request()
+                    .put(Entity.entity(new SetLimitsRequest(BigDecimal.TEN, null), MediaType.APPLICATION_JSON_TYPE));
+            assertEquals(200, set.getStatus());
+            set.close();
+
+            assertEquals(400, transfer(payer, receiver, BigDecimal.valueOf(11)).getStatus());
+            assertEquals(200, transfer(payer, receiver, BigDecimal.TEN).getStatus());
+
+            var limits = limitsTarget(payer).request().get().readEntity(Map.class);
+            assertEquals(0, BigDecimal.TEN.compareTo(new BigDecimal(limits.get("hourlyLimit").toString())));
+            assertEquals(0, BigDecimal.TEN.compareTo(new BigDecimal(limits.get("hourlySpent").toString())));
+            assertNull(limits.get("dailyLimit"));
+        }
+
+        private WebTarget limitsTarget(Account account) {
+            return target.path("api")
+                    .path("v1")
+                    .path("account")
+                    .path(account.getId().toString())
+                    .path("limits");
+        }
+
+        private Response transfer(Account from, Account to, BigDecimal amount) {
+            return target.path("api")
+                    .path("v1")
+                    .path("transfer")
+                    .request()
+                    .post(Entity.entity(new TransferRequest(from.getId(), to.getId(), amount),
+                            MediaType.APPLICATION_JSON_TYPE));
+        }
+
+        private Account createAccount(BigDecimal balance) {
+            return target.path("api")
+                    .path("v1")
+                    .path("account")
+                    .request()
+                    .post(Entity.entity(new CreateAccountRequest("Limited", balance), MediaType.APPLICATION_JSON_TYPE))
+                    .readEntity(Account.class);
+        }
+    }
+
+    @DisplayName("/account/{id}/balance GET method test")
+    @Nested
+    class BalanceAtTest {
+
+        @DisplayName("returns balance before and after a transfer")
+        @Test
+        void balanceAtTest() throws InterruptedException {
+            var payer = createAccount(BigDecimal.valueOf(100));
+            var receiver = createAccount(BigDecimal.ZERO);
+            Thread.sleep(5);
+            var beforeTransfer = OffsetDateTime.now(ZoneOffset.UTC);
+            Thread.sleep(5);
+            target.path("api")
+                    .path("v1")
+                    .path("transfer")
+                    .request()
+                    .post(Entity.entity(new TransferRequest(payer.getId(), receiver.getId(), BigDecimal.TEN),
+                            MediaType.APPLICATION_JSON_TYPE))
+                    .close();
+
+            var before = balanceAt(payer, beforeTransfer.toString()).readEntity(Map.class);
+            assertEquals(0, BigDecimal.valueOf(100).compareTo(new BigDecimal(before.get("balance").toString())));
+            var after = balanceAt(payer, OffsetDateTime.now(ZoneOffset.UTC).toString()).readEntity(Map.class);
+            assertEquals(0, BigDecimal.valueOf(90).compareTo(new BigDecimal(after.get("balance").toString())));
+            assertEquals(payer.getId().toString(), after.get("accountId").toString());
+        }
+
+        @DisplayName("rejects instants before the account was created and malformed ones")
+        @Test
+        void badRequestTest() {
+            var account = createAccount(BigDecimal.ONE);
+
+            assertEquals(400, balanceAt(account, "2000-01-01T00:00:00Z").getStatus());
+            assertEquals(400, balanceAt(account, "yesterday").getStatus());
+        }
+
+        private Response balanceAt(Account account, String at) {
+            return target.path("api")
+                    .path("v1")
+                    .path("account")
+                    .path(account.getId().toString())
+                    .path("balance")
+                    .queryParam("at", at)
+                    .request()
+                    .get();
+        }
+
+        private Account createAccount(BigDecimal balance) {
+            return target.path("api")
+                    .path("v1")
+                    .path("account")
+                    .request()
+                    .post(Entity.entity(new CreateAccountRequest("Qwerty", balance), MediaType.APPLICATION_JSON_TYPE))
+                    .readEntity(Account.class);
+        }
+    }
 }
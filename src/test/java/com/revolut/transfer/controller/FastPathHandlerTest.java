@@ -0,0 +1,212 @@
+package com.revolut.transfer.controller;
+
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.revolut.transfer.Runner;
+import com.revolut.transfer.RunnerOptions;
+import com.revolut.transfer.TransferApplication;
+import com.revolut.transfer.TransferServer;
+import com.revolut.transfer.controller.request.TransferRequest;
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import io.undertow.Undertow;
+import io.undertow.server.handlers.ResponseCodeHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DisplayName("Integration testing for fast path handlers")
+class FastPathHandlerTest {
+
+    private static WebTarget target;
+    private static TransferServer server;
+
+    private static volatile Account firstAccount;
+    private static volatile Account secondAccount;
+
+    @BeforeAll
+    static void init() {
+        var application = new TransferApplication();
+        server = Runner.start(RunnerOptions.builder().fastPath(true).build(), application);
+
+        target = ClientBuilder.newClient()
+                .register(JacksonJaxbJsonProvider.class)
+                .register(ObjectMapperProvider.class)
+                .target("http://localhost:8080")
+                .path("api")
+                .path("v1");
+
+        var accountRepository = application.getApplicationContext().getAccountRepository();
+        var accountA = new Account();
+        accountA.setName("first one");
+        accountA.setBalance(BigDecimal.valueOf(10000));
+        firstAccount = accountRepository.create(accountA);
+
+        var accountB = new Account();
+        accountB.setName("second one");
+        accountB.setBalance(BigDecimal.valueOf(1000));
+        secondAccount = accountRepository.create(accountB);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        server.stop();
+    }
+
+    @DisplayName("when transfer request is valid perform transaction")
+    @Test
+    void validTransactionTest() {
+        var fromInitialBalance = firstAccount.getBalance();
+        var toInitialBalance = secondAccount.getBalance();
+
+        var response = target.path("transfer")
+                .request()
+                .post(Entity.entity(new TransferRequest(firstAccount.getId(), secondAccount.getId(), BigDecimal.TEN),
+                        MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(200, response.getStatus());
+        var transaction = response.readEntity(TransferTransaction.class);
+        assertEquals(firstAccount.getId(), transaction.getFrom());
+        assertEquals(fromInitialBalance.subtract(transaction.getAmount()), firstAccount.getBalance());
+        assertEquals(toInitialBalance.add(transaction.getAmount()), secondAccount.getBalance());
+    }
+
+    @DisplayName("when transfer request without amount passed return 400 with message")
+    @Test
+    void amountAbsentTest() {
+        var response = target.path("transfer")
+                .request()
+                .post(Entity.entity(new TransferRequest(firstAccount.getId(), secondAccount.getId(), null),
+                        MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(400, response.getStatus());
+        assertEquals("Amount of transfer cannot be null", readMessage(response.readEntity(Map.class)));
+    }
+
+    @DisplayName("when transfer request with empty body passed return 400")
+    @Test
+    void emptyBodyTest() {
+        var response = target.path("transfer")
+                .request()
+                .post(Entity.entity("", MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @DisplayName("when transfer request with non-existing toId passed return 404 with message")
+    @Test
+    void nonExistToTest() {
+        var response = target.path("transfer")
+                .request()
+                .post(Entity.entity(new TransferRequest(firstAccount.getId(), -1L, BigDecimal.TEN),
+                        MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(404, response.getStatus());
+        assertEquals("Account was not found by id=-1", readMessage(response.readEntity(Map.class)));
+    }
+
+    @DisplayName("when existing account requested return it")
+    @Test
+    void getAccountTest() {
+        var response = target.path("account")
+                .path(secondAccount.getId().toString())
+                .request()
+                .get();
+
+        assertEquals(200, response.getStatus());
+        var result = response.readEntity(Account.class);
+        assertEquals(secondAccount.getId(), result.getId());
+        assertEquals(secondAccount.getName(), result.getName());
+    }
+
+    @DisplayName("when non-existing account requested return 404 with message")
+    @Test
+    void getMissingAccountTest() {
+        var response = target.path("account")
+                .path("-1")
+                .request()
+                .get();
+
+        assertEquals(404, response.getStatus());
+        assertEquals("Account was not found by id=-1", readMessage(response.readEntity(Map.class)));
+    }
+
+    @DisplayName("other endpoints are still served by JAX-RS")
+    @Test
+    void fallbackTest() {
+        var response = target.path("account")
+                .request()
+                .get();
+
+        assertEquals(200, response.getStatus());
+        assertFalse(response.readEntity(new GenericType<List<Account>>() {
+        }).isEmpty());
+    }
+
+    @DisplayName("when handlers fail unexpectedly return 500")
+    @Test
+    void unexpectedFailureTest() {
+        var failure = new IllegalStateException("broken");
+        Repository<Account> failingRepository = new Repository<>() {
+            @Override
+            public Optional<Account> get(Long id) {
+                throw failure;
+            }
+
+            @Override
+            public List<Account> getAll() {
+                throw failure;
+            }
+
+            @Override
+            public Account create(Account account) {
+                throw failure;
+            }
+        };
+        var failingService = new TransferOperationServiceImpl(failingRepository, RepositoryStubFactory.initialize());
+        var handler = new FastPathHandler(ResponseCodeHandler.HANDLE_404, "/api/v1", failingService,
+                failingRepository, new AccountResponseCache());
+        var undertow = Undertow.builder().addHttpListener(0, "localhost").setHandler(handler).build();
+        undertow.start();
+        try {
+            var address = (InetSocketAddress) undertow.getListenerInfo().get(0).getAddress();
+            var failingTarget = ClientBuilder.newClient()
+                    .register(JacksonJaxbJsonProvider.class)
+                    .register(ObjectMapperProvider.class)
+                    .target("http://localhost:" + address.getPort())
+                    .path("api")
+                    .path("v1");
+
+            var transfer = failingTarget.path("transfer")
+                    .request()
+                    .post(Entity.entity(new TransferRequest(1L, 2L, BigDecimal.TEN), MediaType.APPLICATION_JSON_TYPE));
+            assertEquals(500, transfer.getStatus());
+
+            var account = failingTarget.path("account").path("1").request().get();
+            assertEquals(500, account.getStatus());
+        } finally {
+            undertow.stop();
+        }
+    }
+
+    private static Object readMessage(Map<?, ?> body) {
+        return body.get("message");
+    }
+}
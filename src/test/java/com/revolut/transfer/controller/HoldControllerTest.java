@@ -0,0 +1,114 @@
+package com.revolut.transfer.controller;
+
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.revolut.transfer.TransferApplication;
+import com.revolut.transfer.controller.request.CaptureHoldRequest;
+import com.revolut.transfer.controller.request.PlaceHoldRequest;
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferTransaction;
+import io.undertow.Undertow;
+import org.jboss.resteasy.plugins.server.undertow.UndertowJaxrsServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Integration testing for hold api")
+class HoldControllerTest {
+
+    private static WebTarget target;
+    private static UndertowJaxrsServer server;
+
+    private static volatile Account payer;
+    private static volatile Account merchant;
+
+    @BeforeAll
+    static void init() {
+        var application = new TransferApplication();
+
+        server = new UndertowJaxrsServer();
+        server.start(Undertow.builder().addHttpListener(8080, "localhost"));
+        server.deploy(application);
+
+        target = ClientBuilder.newClient()
+                .register(JacksonJaxbJsonProvider.class)
+                .register(ObjectMapperProvider.class)
+                .target("http://localhost:8080")
+                .path("api")
+                .path("v1")
+                .path("hold");
+
+        var accountRepository = application.getApplicationContext().getAccountRepository();
+        var accountA = new Account();
+        accountA.setName("payer");
+        accountA.setBalance(BigDecimal.valueOf(1000));
+        payer = accountRepository.create(accountA);
+
+        var accountB = new Account();
+        accountB.setName("merchant");
+        accountB.setBalance(BigDecimal.ZERO);
+        merchant = accountRepository.create(accountB);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        server.stop();
+    }
+
+    @DisplayName("when hold is placed and captured money is transferred")
+    @Test
+    void placeAndCaptureTest() {
+        var payerInitialBalance = payer.getBalance();
+        var merchantInitialBalance = merchant.getBalance();
+
+        var placeResponse = target
+                .request()
+                .post(Entity.entity(new PlaceHoldRequest(payer.getId(), BigDecimal.TEN, 60L), MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(200, placeResponse.getStatus());
+        var hold = placeResponse.readEntity(Map.class);
+        assertEquals("HELD", hold.get("status"));
+
+        var captureResponse = target
+                .path(hold.get("id").toString())
+                .path("capture")
+                .request()
+                .post(Entity.entity(new CaptureHoldRequest(merchant.getId(), null), MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(200, captureResponse.getStatus());
+        var transaction = captureResponse.readEntity(TransferTransaction.class);
+
+        assertEquals(payerInitialBalance.subtract(transaction.getAmount()), payer.getBalance());
+        assertEquals(merchantInitialBalance.add(transaction.getAmount()), merchant.getBalance());
+    }
+
+    @DisplayName("when hold is higher than balance return 400")
+    @Test
+    void lowBalanceTest() {
+        var response = target
+                .request()
+                .post(Entity.entity(new PlaceHoldRequest(payer.getId(), payer.getBalance().add(BigDecimal.ONE), 60L),
+                        MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @DisplayName("when released hold does not exist return 404")
+    @Test
+    void notFoundTest() {
+        var response = target
+                .path("-1")
+                .path("release")
+                .request()
+                .post(Entity.entity("", MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(404, response.getStatus());
+    }
+}
@@ -2,8 +2,10 @@ package com.revolut.transfer.controller;
 
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
 import com.revolut.transfer.TransferApplication;
+import com.revolut.transfer.controller.request.MultiLegTransferRequest;
 import com.revolut.transfer.controller.request.TransferRequest;
 import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferLeg;
 import com.revolut.transfer.model.TransferTransaction;
 import io.undertow.Undertow;
 import org.jboss.resteasy.plugins.server.undertow.UndertowJaxrsServer;
@@ -16,9 +18,18 @@ import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.InboundSseEvent;
+import javax.ws.rs.sse.SseEventSource;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @DisplayName("Integration testing for transfer api")
 class TransferControllerTest {
@@ -40,6 +51,7 @@ class TransferControllerTest {
 
         target = ClientBuilder.newClient()
                 .register(JacksonJaxbJsonProvider.class)
+                .register(ObjectMapperProvider.class)
                 .target("http://localhost:8080");
 
         //prepare data
@@ -209,4 +221,182 @@ class TransferControllerTest {
         assertEquals(fromInitialBalance.subtract(transaction.getAmount()), firstAccount.getBalance());
         assertEquals(toInitialBalance.add(transaction.getAmount()), secondAccount.getBalance());
     }
+
+    @DisplayName("when scheduled transfer is due perform transaction")
+    @Test
+    void scheduledTransactionTest() throws InterruptedException {
+        var fromInitialBalance = firstAccount.getBalance();
+
+        var response = target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("scheduled")
+                .request()
+                .post(Entity.entity(scheduledRequest(firstAccount.getId(), OffsetDateTime.now(ZoneOffset.UTC).plusNanos(200_000_000L)),
+                        MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(200, response.getStatus());
+        var scheduled = response.readEntity(Map.class);
+        assertEquals("PENDING", scheduled.get("status"));
+        assertNotNull(scheduled.get("executeAt"));
+
+        var status = scheduled.get("status");
+        for (int i = 0; i < 100 && ("PENDING".equals(status) || "EXECUTING".equals(status)); i++) {
+            Thread.sleep(50);
+            status = getScheduled(scheduled.get("id")).get("status");
+        }
+
+        assertEquals("EXECUTED", status);
+        assertEquals(fromInitialBalance.subtract(BigDecimal.TEN), firstAccount.getBalance());
+    }
+
+    @DisplayName("when scheduled transfer is cancelled it is not performed")
+    @Test
+    void cancelScheduledTransactionTest() {
+        var scheduled = target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("scheduled")
+                .request()
+                .post(Entity.entity(scheduledRequest(firstAccount.getId(), OffsetDateTime.now(ZoneOffset.UTC).plusHours(1)),
+                        MediaType.APPLICATION_JSON_TYPE))
+                .readEntity(Map.class);
+
+        var response = target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("scheduled")
+                .path(scheduled.get("id").toString())
+                .request()
+                .delete();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("CANCELLED", getScheduled(scheduled.get("id")).get("status"));
+    }
+
+    @DisplayName("when scheduled transfer execution time is in the past return 400")
+    @Test
+    void pastScheduledTransactionTest() {
+        var response = target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("scheduled")
+                .request()
+                .post(Entity.entity(scheduledRequest(firstAccount.getId(), OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(1)),
+                        MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @DisplayName("when scheduled transfer with non-existing fromId passed return 404")
+    @Test
+    void nonExistScheduledTest() {
+        var response = target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("scheduled")
+                .request()
+                .post(Entity.entity(scheduledRequest(-1L, OffsetDateTime.now(ZoneOffset.UTC).plusHours(1)),
+                        MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(404, response.getStatus());
+    }
+
+    @DisplayName("when multi-leg request is valid perform all legs")
+    @Test
+    void multiLegTransactionTest() {
+        var fromInitialBalance = firstAccount.getBalance();
+        var toInitialBalance = secondAccount.getBalance();
+
+        var request = new MultiLegTransferRequest(
+                List.of(new TransferLeg(firstAccount.getId(), BigDecimal.valueOf(30))),
+                List.of(new TransferLeg(secondAccount.getId(), BigDecimal.valueOf(30))));
+        var response = target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("multi-leg")
+                .request()
+                .post(Entity.entity(request, MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(fromInitialBalance.subtract(BigDecimal.valueOf(30)), firstAccount.getBalance());
+        assertEquals(toInitialBalance.add(BigDecimal.valueOf(30)), secondAccount.getBalance());
+    }
+
+    @DisplayName("when multi-leg request is unbalanced return 400")
+    @Test
+    void unbalancedMultiLegTest() {
+        var request = new MultiLegTransferRequest(
+                List.of(new TransferLeg(firstAccount.getId(), BigDecimal.valueOf(30))),
+                List.of(new TransferLeg(secondAccount.getId(), BigDecimal.valueOf(20))));
+        var response = target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("multi-leg")
+                .request()
+                .post(Entity.entity(request, MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(400, response.getStatus());
+    }
+
+    private static Map<String, Object> scheduledRequest(Long fromId, OffsetDateTime executeAt) {
+        return Map.of(
+                "fromId", fromId,
+                "toId", secondAccount.getId(),
+                "amount", BigDecimal.TEN,
+                "executeAt", executeAt.toString());
+    }
+
+    private static Map<?, ?> getScheduled(Object id) {
+        return target
+                .path("api")
+                .path("v1")
+                .path("transfer")
+                .path("scheduled")
+                .path(id.toString())
+                .request()
+                .get()
+                .readEntity(Map.class);
+    }
+
+    @DisplayName("when transfer is committed it is pushed to stream subscribers of the account")
+    @Test
+    void streamTest() throws InterruptedException {
+        var events = new LinkedBlockingQueue<InboundSseEvent>();
+        var streamTarget = target.path("api")
+                .path("v1")
+                .path("transfer")
+                .path("stream")
+                .queryParam("accountId", secondAccount.getId());
+        try (var source = SseEventSource.target(streamTarget).build()) {
+            source.register(events::add);
+            source.open();
+            // subscription starts asynchronously, keep transferring until the first event arrives
+            InboundSseEvent event = null;
+            for (int i = 0; i < 50 && event == null; i++) {
+                target.path("api")
+                        .path("v1")
+                        .path("transfer")
+                        .request()
+                        .post(Entity.entity(new TransferRequest(firstAccount.getId(), secondAccount.getId(), BigDecimal.ONE),
+                                MediaType.APPLICATION_JSON_TYPE))
+                        .close();
+                event = events.poll(100, TimeUnit.MILLISECONDS);
+            }
+
+            assertNotNull(event);
+            assertEquals("transfer", event.getName());
+            assertNotNull(event.getId());
+            var transaction = event.readData(TransferTransaction.class, MediaType.APPLICATION_JSON_TYPE);
+            assertEquals(secondAccount.getId(), transaction.getTo());
+            assertEquals(0, BigDecimal.ONE.compareTo(transaction.getAmount()));
+        }
+    }
 }
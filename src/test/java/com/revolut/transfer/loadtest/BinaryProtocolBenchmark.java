@@ -0,0 +1,149 @@
+package com.revolut.transfer.loadtest;
+
+import com.revolut.transfer.Runner;
+import com.revolut.transfer.RunnerOptions;
+import com.revolut.transfer.TransferApplication;
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.protocol.BinaryStatus;
+import com.revolut.transfer.protocol.BinaryTransferClient;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Compares the same stream of transfers sent through {@code POST /api/v1/transfer} and through the binary protocol.
+ * Both clients keep {@code window} requests in flight, so the numbers show throughput at saturation and the latency
+ * that comes with it.
+ * <p>
+ * Example: {@code mvn -P load-test -Dload-test.main=com.revolut.transfer.loadtest.BinaryProtocolBenchmark
+ * -Dload-test.args="--requests=200000 --window=128" test-compile exec:java}
+ */
+public class BinaryProtocolBenchmark {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        var requests = 100_000;
+        var window = 64;
+        var accounts = 1000;
+        var runnerOptions = RunnerOptions.builder().binaryPort(9090);
+        for (String arg : args) {
+            var name = arg.substring(2, arg.indexOf('='));
+            var value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "requests":
+                    requests = Integer.parseInt(value);
+                    break;
+                case "window":
+                    window = Integer.parseInt(value);
+                    break;
+                case "accounts":
+                    accounts = Integer.parseInt(value);
+                    break;
+                case "port":
+                    runnerOptions.port(Integer.parseInt(value));
+                    break;
+                case "binary-port":
+                    runnerOptions.binaryPort(Integer.parseInt(value));
+                    break;
+                case "fast-path":
+                    runnerOptions.fastPath(Boolean.parseBoolean(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+
+        var options = runnerOptions.build();
+        var application = new TransferApplication();
+        try (var server = Runner.start(options, application)) {
+            var accountIds = seedAccounts(application, accounts);
+
+            var http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            var transferUri = URI.create("http://" + options.getHost() + ":" + options.getPort()
+                    + TransferApplication.PATH + "/transfer");
+            LongFunction<CompletableFuture<Boolean>> rest = ignored -> {
+                var pair = randomPair(accountIds);
+                var body = String.format("{\"fromId\":%d,\"toId\":%d,\"amount\":1}", pair[0], pair[1]);
+                var request = HttpRequest.newBuilder(transferUri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .thenApply(response -> response.statusCode() == 200);
+            };
+
+            try (var client = BinaryTransferClient.connect(options.getHost(), server.getBinaryServer().getPort())) {
+                LongFunction<CompletableFuture<Boolean>> binary = ignored -> {
+                    var pair = randomPair(accountIds);
+                    return client.transfer(pair[0], pair[1], BigDecimal.ONE)
+                            .thenApply(result -> result.getStatus() == BinaryStatus.OK);
+                };
+
+                run("rest warmup", rest, requests / 4, window);
+                run("rest", rest, requests, window);
+                run("binary warmup", binary, requests / 4, window);
+                run("binary", binary, requests, window);
+            }
+        }
+    }
+
+    private static long[] seedAccounts(TransferApplication application, int accounts) {
+        var repository = application.getApplicationContext().getAccountRepository();
+        var ids = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            var account = new Account();
+            account.setName("benchmark");
+            account.setBalance(BigDecimal.valueOf(1_000_000_000L));
+            ids[i] = repository.create(account).getId();
+        }
+        return ids;
+    }
+
+    private static long[] randomPair(long[] accountIds) {
+        var random = ThreadLocalRandom.current();
+        var from = random.nextInt(accountIds.length);
+        var to = (from + 1 + random.nextInt(accountIds.length - 1)) % accountIds.length;
+        return new long[]{accountIds[from], accountIds[to]};
+    }
+
+    private static void run(String name,
+                            LongFunction<CompletableFuture<Boolean>> operation,
+                            int requests,
+                            int window) throws InterruptedException {
+        var histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        var failures = new AtomicLong();
+        var permits = new Semaphore(window);
+        var started = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            permits.acquire();
+            var sent = System.nanoTime();
+            operation.apply(i).whenComplete((ok, failure) -> {
+                synchronized (histogram) {
+                    histogram.recordValue(Math.min(System.nanoTime() - sent, HIGHEST_TRACKABLE_NANOS));
+                }
+                if (failure != null || !ok) failures.incrementAndGet();
+                permits.release();
+            });
+        }
+        permits.acquire(window);
+        var elapsed = System.nanoTime() - started;
+        System.out.printf("%-14s %8d requests %10.1f req/s  p50 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  max %8.3f ms  failures %d%n",
+                name, requests, requests * 1e9 / elapsed,
+                histogram.getValueAtPercentile(50.0) / 1e6,
+                histogram.getValueAtPercentile(99.0) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6,
+                failures.get());
+    }
+}
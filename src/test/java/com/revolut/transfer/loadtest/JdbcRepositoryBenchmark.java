@@ -0,0 +1,149 @@
+package com.revolut.transfer.loadtest;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.jdbc.ConnectionPool;
+import com.revolut.transfer.repository.jdbc.JdbcAccountRepository;
+import com.revolut.transfer.repository.jdbc.JdbcSchema;
+import com.revolut.transfer.repository.jdbc.JdbcTransactionRepository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.jdbc.JdbcTransferOperationServiceImpl;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the same closed-loop stream of transfers against {@link TransferOperationServiceImpl} over
+ * {@link com.revolut.transfer.repository.stub.RepositoryStub} and against {@link JdbcTransferOperationServiceImpl}.
+ * The in-process H2 database is used by default, pass {@code --url} of a real database (with its driver on the
+ * test classpath) to include the network round trips.
+ * <p>
+ * Example: {@code mvn -P load-test -Dload-test.main=com.revolut.transfer.loadtest.JdbcRepositoryBenchmark
+ * -Dload-test.args="--transfers=100000 --threads=8" test-compile exec:java}
+ */
+public class JdbcRepositoryBenchmark {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        var transfers = 100_000;
+        var threads = 4;
+        var accounts = 1000;
+        var poolSize = 8;
+        var url = "jdbc:h2:mem:benchmark;MV_STORE=FALSE;LOCK_TIMEOUT=10000";
+        var user = "sa";
+        var password = "";
+        for (String arg : args) {
+            var name = arg.substring(2, arg.indexOf('='));
+            var value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "transfers":
+                    transfers = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "accounts":
+                    accounts = Integer.parseInt(value);
+                    break;
+                case "pool-size":
+                    poolSize = Integer.parseInt(value);
+                    break;
+                case "url":
+                    url = value;
+                    break;
+                case "user":
+                    user = value;
+                    break;
+                case "password":
+                    password = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+
+        Repository<Account> stubAccounts = RepositoryStubFactory.initialize();
+        var stubService = new TransferOperationServiceImpl(stubAccounts,
+                RepositoryStubFactory.<TransferTransaction>initialize());
+        var stubIds = seedAccounts(stubAccounts, accounts);
+        run("stub warmup", stubService, stubIds, transfers / 4, threads);
+        run("stub", stubService, stubIds, transfers, threads);
+
+        var executor = Executors.newFixedThreadPool(poolSize);
+        try (var pool = new ConnectionPool(url, user, password, poolSize)) {
+            JdbcSchema.create(pool);
+            var jdbcAccounts = new JdbcAccountRepository(pool);
+            var jdbcService = new JdbcTransferOperationServiceImpl(pool, new JdbcTransactionRepository(pool), executor);
+            var jdbcIds = seedAccounts(jdbcAccounts, accounts);
+            run("jdbc warmup", jdbcService, jdbcIds, transfers / 4, threads);
+            run("jdbc", jdbcService, jdbcIds, transfers, threads);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long[] seedAccounts(Repository<Account> repository, int accounts) {
+        var ids = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            var account = new Account();
+            account.setName("benchmark");
+            account.setBalance(BigDecimal.valueOf(1_000_000_000L));
+            ids[i] = repository.create(account).getId();
+        }
+        return ids;
+    }
+
+    private static void run(String name,
+                            TransferOperationService service,
+                            long[] accountIds,
+                            int transfers,
+                            int threads) throws Exception {
+        var histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        var failures = new AtomicLong();
+        var executor = Executors.newFixedThreadPool(threads);
+        var perThread = transfers / threads;
+        var futures = new ArrayList<Future<Histogram>>();
+        var started = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                var local = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+                var random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    var from = random.nextInt(accountIds.length);
+                    var to = (from + 1 + random.nextInt(accountIds.length - 1)) % accountIds.length;
+                    var sent = System.nanoTime();
+                    try {
+                        service.transfer(accountIds[from], accountIds[to], BigDecimal.ONE);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                    local.recordValue(Math.min(System.nanoTime() - sent, HIGHEST_TRACKABLE_NANOS));
+                }
+                return local;
+            }));
+        }
+        for (Future<Histogram> future : futures) {
+            histogram.add(future.get());
+        }
+        var elapsed = System.nanoTime() - started;
+        executor.shutdown();
+        var total = perThread * threads;
+        System.out.printf("%-12s %8d transfers %10.1f tx/s  p50 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  max %8.3f ms  failures %d%n",
+                name, total, total * 1e9 / elapsed,
+                histogram.getValueAtPercentile(50.0) / 1e6,
+                histogram.getValueAtPercentile(99.0) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6,
+                failures.get());
+    }
+}
@@ -0,0 +1,230 @@
+package com.revolut.transfer.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revolut.transfer.controller.ObjectMapperProvider;
+import com.revolut.transfer.model.Account;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: requests are issued on a fixed schedule regardless of how fast
+ * responses come back, and each latency is measured from the moment the request was supposed
+ * to be sent. A stalled server therefore shows up in the percentiles instead of silently
+ * lowering the offered load (coordinated omission).
+ * <p>
+ * Example: {@code mvn -P load-test -Dload-test.args="--rate=2000 --duration=60" test-compile exec:java}
+ */
+public class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private final LoadGeneratorOptions options;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+    private final URI accountUri;
+    private final URI transferUri;
+
+    private final Map<Operation, Recorder> responseTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, Recorder> serviceTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private long[] accountIds;
+
+    LoadGenerator(LoadGeneratorOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.objectMapper = ObjectMapperProvider.createObjectMapper();
+        var baseUri = "http://" + options.getHost() + ":" + options.getPort() + "/api/v1";
+        this.accountUri = URI.create(baseUri + "/account");
+        this.transferUri = URI.create(baseUri + "/transfer");
+        for (Operation operation : Operation.values()) {
+            responseTimes.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+            serviceTimes.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = LoadGeneratorOptions.parse(args);
+        try (var server = ServerLauncher.launch(options)) {
+            new LoadGenerator(options).run();
+        }
+    }
+
+    void run() throws IOException, InterruptedException {
+        seedAccounts();
+
+        System.out.printf("Warming up for %ds at %d req/s%n", options.getWarmup().toSeconds(), options.getRate());
+        drive(options.getWarmup().toNanos());
+        resetStatistics();
+
+        System.out.printf("Measuring for %ds at %d req/s%n", options.getDuration().toSeconds(), options.getRate());
+        var started = System.nanoTime();
+        var sent = drive(options.getDuration().toNanos());
+        awaitInFlight();
+        var elapsed = System.nanoTime() - started;
+
+        report(sent, elapsed);
+    }
+
+    /**
+     * @return failed requests and unexpected statuses of the measured period
+     */
+    long getErrors() {
+        return errors.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    private void seedAccounts() throws IOException, InterruptedException {
+        accountIds = new long[options.getAccounts()];
+        for (int i = 0; i < accountIds.length; i++) {
+            var response = client.send(createAccountRequest(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200)
+                throw new IllegalStateException("Unable to seed account, status " + response.statusCode());
+            accountIds[i] = objectMapper.readValue(response.body(), Account.class).getId();
+        }
+    }
+
+    /**
+     * Issues requests at the configured rate for the given period and returns the amount of issued requests.
+     * Sending is never delayed by outstanding responses.
+     */
+    private long drive(long periodNanos) {
+        var intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        var start = System.nanoTime();
+        var count = periodNanos / intervalNanos;
+        for (long i = 0; i < count; i++) {
+            var intendedStart = start + i * intervalNanos;
+            long now;
+            while ((now = System.nanoTime()) < intendedStart) {
+                LockSupport.parkNanos(intendedStart - now);
+            }
+            send(options.getMix().next(), intendedStart, now);
+        }
+        return count;
+    }
+
+    private void send(Operation operation, long intendedStart, long actualStart) {
+        inFlight.incrementAndGet();
+        client.sendAsync(buildRequest(operation), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    var completed = System.nanoTime();
+                    responseTimes.get(operation).recordValue(Math.min(completed - intendedStart, HIGHEST_TRACKABLE_NANOS));
+                    serviceTimes.get(operation).recordValue(Math.min(completed - actualStart, HIGHEST_TRACKABLE_NANOS));
+                    if (failure != null || !isExpectedStatus(operation, response.statusCode())) {
+                        errors.get(operation).incrementAndGet();
+                    }
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private static boolean isExpectedStatus(Operation operation, int status) {
+        // a transfer rejected for insufficient balance is a valid business outcome
+        return status == 200 || (operation == Operation.TRANSFER && status == 400);
+    }
+
+    private HttpRequest buildRequest(Operation operation) {
+        var random = ThreadLocalRandom.current();
+        switch (operation) {
+            case TRANSFER:
+                var from = random.nextInt(accountIds.length);
+                var to = (from + 1 + random.nextInt(accountIds.length - 1)) % accountIds.length;
+                var body = String.format("{\"fromId\":%d,\"toId\":%d,\"amount\":%d}",
+                        accountIds[from], accountIds[to], 1 + random.nextInt(100));
+                return jsonPost(transferUri, body);
+            case GET_ACCOUNT:
+                return HttpRequest.newBuilder(URI.create(accountUri + "/" + accountIds[random.nextInt(accountIds.length)]))
+                        .GET()
+                        .build();
+            case CREATE_ACCOUNT:
+                return createAccountRequest();
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+    }
+
+    private HttpRequest createAccountRequest() {
+        return jsonPost(accountUri, "{\"name\":\"load-test\",\"balance\":1000000}");
+    }
+
+    private static HttpRequest jsonPost(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        var deadline = System.nanoTime() + HIGHEST_TRACKABLE_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void resetStatistics() throws InterruptedException {
+        awaitInFlight();
+        responseTimes.values().forEach(Recorder::reset);
+        serviceTimes.values().forEach(Recorder::reset);
+        errors.values().forEach(counter -> counter.set(0));
+    }
+
+    private void report(long sent, long elapsedNanos) throws IOException {
+        var total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        var totalService = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        var out = System.out;
+        out.printf("%nOffered %d requests, achieved %.1f req/s, %d still in flight%n",
+                sent, sent * 1e9 / elapsedNanos, inFlight.get());
+        out.println("Response time is measured from the intended send time, service time from the actual one (ms)");
+        printHeader(out);
+        for (Operation operation : Operation.values()) {
+            var histogram = responseTimes.get(operation).getIntervalHistogram();
+            var serviceHistogram = serviceTimes.get(operation).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) continue;
+            total.add(histogram);
+            totalService.add(serviceHistogram);
+            printRow(out, operation.getOptionName() + " response", histogram, errors.get(operation).get());
+            printRow(out, operation.getOptionName() + " service", serviceHistogram, errors.get(operation).get());
+        }
+        var totalErrors = getErrors();
+        printRow(out, "all response", total, totalErrors);
+        printRow(out, "all service", totalService, totalErrors);
+
+        if (options.getHistogramOutput() != null) {
+            try (var file = new PrintStream(new FileOutputStream(options.getHistogramOutput()))) {
+                total.outputPercentileDistribution(file, 1_000_000.0);
+            }
+            out.println("Full response time distribution written to " + options.getHistogramOutput());
+        }
+    }
+
+    private static void printHeader(PrintStream out) {
+        out.printf("%-18s %10s %8s", "operation", "count", "errors");
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9s", "p" + percentile);
+        }
+        out.printf(" %9s%n", "max");
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long errors) {
+        out.printf("%-18s %10d %8d", name, histogram.getTotalCount(), errors);
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9.3f", histogram.getValueAtPercentile(percentile) / 1e6);
+        }
+        out.printf(" %9.3f%n", histogram.getMaxValue() / 1e6);
+    }
+}
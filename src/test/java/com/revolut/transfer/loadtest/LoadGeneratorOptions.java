@@ -0,0 +1,93 @@
+package com.revolut.transfer.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Builder
+@Getter
+class LoadGeneratorOptions {
+
+    /**
+     * Requests are issued at whole nanosecond intervals, so at most one per nanosecond
+     */
+    static final long MAX_RATE = TimeUnit.SECONDS.toNanos(1);
+
+    enum ServerMode {
+        IN_PROCESS, CHILD_PROCESS, EXTERNAL
+    }
+
+    @Builder.Default
+    private final ServerMode serverMode = ServerMode.IN_PROCESS;
+    @Builder.Default
+    private final String host = "localhost";
+    @Builder.Default
+    private final int port = 8080;
+    private final String serverJar;
+    private final boolean fastPath;
+    @Builder.Default
+    private final int rate = 1000;
+    @Builder.Default
+    private final Duration warmup = Duration.ofSeconds(5);
+    @Builder.Default
+    private final Duration duration = Duration.ofSeconds(30);
+    @Builder.Default
+    private final int accounts = 1000;
+    @Builder.Default
+    private final RequestMix mix = RequestMix.parse("transfer:80,get:15,create:5");
+    private final String histogramOutput;
+
+    static LoadGeneratorOptions parse(String... args) {
+        var builder = LoadGeneratorOptions.builder();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Unexpected argument " + arg + ", expected --name=value");
+            var name = arg.substring(2, arg.indexOf('='));
+            var value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "server":
+                    builder.serverMode(ServerMode.valueOf(value.toUpperCase().replace('-', '_')));
+                    break;
+                case "host":
+                    builder.host(value);
+                    break;
+                case "port":
+                    builder.port(Integer.parseInt(value));
+                    break;
+                case "server-jar":
+                    builder.serverJar(value);
+                    break;
+                case "fast-path":
+                    builder.fastPath(Boolean.parseBoolean(value));
+                    break;
+                case "rate":
+                    builder.rate(Integer.parseInt(value));
+                    break;
+                case "warmup":
+                    builder.warmup(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "duration":
+                    builder.duration(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "accounts":
+                    builder.accounts(Integer.parseInt(value));
+                    break;
+                case "mix":
+                    builder.mix(RequestMix.parse(value));
+                    break;
+                case "histogram-output":
+                    builder.histogramOutput(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        var options = builder.build();
+        if (options.rate <= 0 || options.rate > MAX_RATE)
+            throw new IllegalArgumentException("Rate must be between 1 and " + MAX_RATE + " requests per second");
+        if (options.accounts < 2) throw new IllegalArgumentException("At least two accounts are required");
+        return options;
+    }
+}
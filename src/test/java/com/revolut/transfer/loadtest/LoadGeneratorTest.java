@@ -0,0 +1,28 @@
+package com.revolut.transfer.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Load generator smoke test")
+class LoadGeneratorTest {
+
+    @DisplayName("generator seeds accounts and drives an in-process server without errors")
+    @Test
+    void runTest() throws Exception {
+        var options = LoadGeneratorOptions.builder()
+                .rate(200)
+                .warmup(Duration.ofMillis(200))
+                .duration(Duration.ofSeconds(1))
+                .accounts(10)
+                .build();
+        var generator = new LoadGenerator(options);
+        try (var server = ServerLauncher.launch(options)) {
+            generator.run();
+        }
+        assertEquals(0, generator.getErrors());
+    }
+}
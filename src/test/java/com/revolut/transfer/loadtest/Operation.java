@@ -0,0 +1,21 @@
+package com.revolut.transfer.loadtest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+enum Operation {
+    TRANSFER("transfer"),
+    GET_ACCOUNT("get"),
+    CREATE_ACCOUNT("create");
+
+    private final String optionName;
+
+    static Operation byOptionName(String optionName) {
+        for (Operation operation : values()) {
+            if (operation.optionName.equals(optionName)) return operation;
+        }
+        throw new IllegalArgumentException("Unknown operation " + optionName);
+    }
+}
@@ -0,0 +1,47 @@
+package com.revolut.transfer.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted choice of the next operation, parsed from {@code transfer:80,get:15,create:5}.
+ */
+class RequestMix {
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private RequestMix(Map<Operation, Integer> weights) {
+        this.operations = new Operation[weights.size()];
+        this.cumulativeWeights = new int[weights.size()];
+        var i = 0;
+        var total = 0;
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            total += entry.getValue();
+            operations[i] = entry.getKey();
+            cumulativeWeights[i] = total;
+            i++;
+        }
+    }
+
+    static RequestMix parse(String value) {
+        var weights = new EnumMap<Operation, Integer>(Operation.class);
+        for (String part : value.split(",")) {
+            var pair = part.split(":");
+            if (pair.length != 2) throw new IllegalArgumentException("Unexpected mix entry " + part);
+            var weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) throw new IllegalArgumentException("Mix weight cannot be negative");
+            if (weight > 0) weights.put(Operation.byOptionName(pair[0].trim()), weight);
+        }
+        if (weights.isEmpty()) throw new IllegalArgumentException("Mix cannot be empty");
+        return new RequestMix(weights);
+    }
+
+    Operation next() {
+        var point = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+}
@@ -0,0 +1,76 @@
+package com.revolut.transfer.loadtest;
+
+import com.revolut.transfer.Runner;
+import com.revolut.transfer.RunnerOptions;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the server under test according to {@link LoadGeneratorOptions.ServerMode}.
+ */
+class ServerLauncher {
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 30_000L;
+
+    static AutoCloseable launch(LoadGeneratorOptions options) throws IOException, InterruptedException {
+        switch (options.getServerMode()) {
+            case IN_PROCESS:
+                var server = Runner.start(RunnerOptions.builder()
+                        .host(options.getHost())
+                        .port(options.getPort())
+                        .fastPath(options.isFastPath())
+                        .build());
+                return server::stop;
+            case CHILD_PROCESS:
+                var process = startChildProcess(options);
+                awaitPort(options.getHost(), options.getPort(), process);
+                return () -> {
+                    process.destroy();
+                    if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+                };
+            case EXTERNAL:
+                awaitPort(options.getHost(), options.getPort(), null);
+                return () -> {
+                };
+            default:
+                throw new IllegalArgumentException("Unsupported server mode " + options.getServerMode());
+        }
+    }
+
+    private static Process startChildProcess(LoadGeneratorOptions options) throws IOException {
+        var command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (options.getServerJar() != null) {
+            command.add("-jar");
+            command.add(options.getServerJar());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Runner.class.getName());
+        }
+        command.add("--host=" + options.getHost());
+        command.add("--port=" + options.getPort());
+        command.add("--fast-path=" + options.isFastPath());
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private static void awaitPort(String host, int port, Process process) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (process != null && !process.isAlive())
+                throw new IllegalStateException("Server process exited with code " + process.exitValue());
+            try (var socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), 500);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Server did not start listening on " + host + ":" + port);
+    }
+}
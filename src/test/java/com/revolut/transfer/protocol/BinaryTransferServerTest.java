@@ -0,0 +1,158 @@
+package com.revolut.transfer.protocol;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Binary transfer protocol tests")
+class BinaryTransferServerTest {
+
+    private Repository<Account> accountRepository;
+    private Repository<TransferTransaction> transactionRepository;
+    private BinaryTransferServer server;
+    private BinaryTransferClient client;
+
+    private Account firstAccount;
+    private Account secondAccount;
+
+    @BeforeEach
+    void init() {
+        accountRepository = RepositoryStubFactory.initialize();
+        transactionRepository = RepositoryStubFactory.initialize();
+        var service = new TransferOperationServiceImpl(accountRepository, transactionRepository);
+        server = BinaryTransferServer.start("localhost", 0, service, 4);
+        client = BinaryTransferClient.connect("localhost", server.getPort());
+
+        firstAccount = createAccount(BigDecimal.valueOf(10000));
+        secondAccount = createAccount(BigDecimal.valueOf(1000));
+    }
+
+    @AfterEach
+    void shutdown() {
+        client.close();
+        server.close();
+    }
+
+    @DisplayName("when transfer is valid return transaction id and mutate state")
+    @Test
+    @SneakyThrows
+    void validTransferTest() {
+        var result = client.transfer(firstAccount.getId(), secondAccount.getId(), new BigDecimal("10.25"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(BinaryStatus.OK, result.getStatus());
+        var transaction = transactionRepository.get(result.getTransactionId());
+        assertTrue(transaction.isPresent());
+        assertEquals(new BigDecimal("10.25"), transaction.get().getAmount());
+        assertEquals(new BigDecimal("9989.75"), firstAccount.getBalance());
+        assertEquals(new BigDecimal("1010.25"), secondAccount.getBalance());
+    }
+
+    @DisplayName("when balance is too low return bad request")
+    @Test
+    @SneakyThrows
+    void lowBalanceTest() {
+        var result = client.transfer(secondAccount.getId(), firstAccount.getId(), BigDecimal.valueOf(1001))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(BinaryStatus.BAD_REQUEST, result.getStatus());
+        assertEquals(BigDecimal.valueOf(1000), secondAccount.getBalance());
+    }
+
+    @DisplayName("when account does not exist return not found")
+    @Test
+    @SneakyThrows
+    void notFoundTest() {
+        var result = client.transfer(firstAccount.getId(), -1L, BigDecimal.TEN)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(BinaryStatus.NOT_FOUND, result.getStatus());
+    }
+
+    @DisplayName("when amount does not fit into frame throw exception")
+    @Test
+    void amountOverflowTest() {
+        var amount = BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE);
+        var result = client.transfer(firstAccount.getId(), secondAccount.getId(), amount);
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @DisplayName("when requests are pipelined every one of them is answered")
+    @Test
+    @SneakyThrows
+    void pipelinedTransfersTest() {
+        var requests = 10000;
+        var futures = new ArrayList<CompletableFuture<BinaryTransferResult>>(requests);
+        for (int i = 0; i < requests; i++) {
+            if (i % 2 == 0) {
+                futures.add(client.transfer(firstAccount.getId(), secondAccount.getId(), BigDecimal.ONE));
+            } else {
+                futures.add(client.transfer(secondAccount.getId(), firstAccount.getId(), BigDecimal.ONE));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        for (CompletableFuture<BinaryTransferResult> future : futures) {
+            assertEquals(BinaryStatus.OK, future.get().getStatus());
+        }
+        assertEquals(requests, transactionRepository.getAll().size());
+        assertEquals(BigDecimal.valueOf(11000), firstAccount.getBalance().add(secondAccount.getBalance()));
+    }
+
+    @DisplayName("when the worker queue is full return overloaded without attempting the transfer")
+    @Test
+    @SneakyThrows
+    void overloadedTest() {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var transfers = new AtomicInteger();
+        TransferOperationService blockingService = new TransferOperationServiceImpl(accountRepository, transactionRepository) {
+            @Override
+            @SneakyThrows
+            public TransferTransaction transfer(long fromId, long toId, BigDecimal amount) {
+                transfers.incrementAndGet();
+                started.countDown();
+                release.await();
+                return super.transfer(fromId, toId, amount);
+            }
+        };
+        try (var overloadedServer = BinaryTransferServer.start("localhost", 0, blockingService, 1, 1);
+             var overloadedClient = BinaryTransferClient.connect("localhost", overloadedServer.getPort())) {
+            var first = overloadedClient.transfer(firstAccount.getId(), secondAccount.getId(), BigDecimal.ONE);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            var queued = overloadedClient.transfer(firstAccount.getId(), secondAccount.getId(), BigDecimal.ONE);
+            var rejected = overloadedClient.transfer(firstAccount.getId(), secondAccount.getId(), BigDecimal.ONE);
+
+            assertEquals(BinaryStatus.OVERLOADED, rejected.get(5, TimeUnit.SECONDS).getStatus());
+            release.countDown();
+            assertEquals(BinaryStatus.OK, first.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(BinaryStatus.OK, queued.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(2, transfers.get());
+            assertEquals(new BigDecimal("9998"), firstAccount.getBalance());
+        }
+    }
+
+    private Account createAccount(BigDecimal balance) {
+        var account = new Account();
+        account.setName("binary");
+        account.setBalance(balance);
+        return accountRepository.create(account);
+    }
+}
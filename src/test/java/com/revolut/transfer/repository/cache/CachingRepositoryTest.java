@@ -0,0 +1,271 @@
+package com.revolut.transfer.repository.cache;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.repository.ForwardingRepository;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.jdbc.ConnectionPool;
+import com.revolut.transfer.repository.jdbc.JdbcAccountRepository;
+import com.revolut.transfer.repository.jdbc.JdbcSchema;
+import com.revolut.transfer.repository.jdbc.JdbcTransactionRepository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.AccountCacheInvalidator;
+import com.revolut.transfer.service.jdbc.JdbcTransferOperationServiceImpl;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Caching repository")
+class CachingRepositoryTest {
+
+    private Repository<Account> delegate;
+    private AtomicInteger loads;
+    private List<Long> ids;
+
+    @BeforeEach
+    void init() {
+        var stub = RepositoryStubFactory.<Account>initialize();
+        loads = new AtomicInteger();
+        delegate = new CountingRepository(stub, loads);
+        ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(stub.create(new Account()).getId());
+        }
+    }
+
+    @DisplayName("counts hits and misses and reads the delegate once per cached entity")
+    @Test
+    void hitMissTest() {
+        var cache = new CachingRepository<>(delegate, 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ids.get(0), cache.find(ids.get(0)).getId());
+        }
+        assertNull(cache.find(-1L));
+        assertTrue(cache.get(null).isEmpty());
+
+        var statistics = cache.getStatistics();
+        assertEquals(4, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(1, statistics.getSize());
+        assertEquals(2, loads.get());
+    }
+
+    @DisplayName("batch lookup serves cached entities and loads the rest by one delegate call")
+    @Test
+    void batchLookupTest() {
+        var cache = new CachingRepository<>(delegate, 100);
+        cache.find(ids.get(1));
+        loads.set(0);
+
+        var requested = List.of(ids.get(2), -1L, ids.get(1), ids.get(3), ids.get(2));
+        var found = cache.getAll(requested);
+
+        assertEquals(List.of(ids.get(2), ids.get(1), ids.get(3), ids.get(2)),
+                found.stream().map(Account::getId).collect(Collectors.toList()));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStatistics().getHits());
+        assertEquals(3, cache.getStatistics().getSize());
+        assertEquals(ids.get(3), cache.find(ids.get(3)).getId());
+        assertEquals(1, loads.get());
+    }
+
+    @DisplayName("keeps at most the maximum size of entities")
+    @Test
+    void boundTest() {
+        var cache = new CachingRepository<>(delegate, 100);
+
+        for (Long id : ids) {
+            assertEquals(id, cache.find(id).getId());
+        }
+
+        var statistics = cache.getStatistics();
+        assertEquals(100, statistics.getSize());
+        assertEquals(900, statistics.getEvictions());
+    }
+
+    @DisplayName("frequently read entities survive a scan of entities read once")
+    @Test
+    void scanResistanceTest() {
+        var cache = new CachingRepository<>(delegate, 100);
+        var hot = ids.subList(0, 50);
+        for (int round = 0; round < 5; round++) {
+            hot.forEach(cache::find);
+        }
+
+        ids.subList(50, 1000).forEach(cache::find);
+        var loadsBefore = loads.get();
+        hot.forEach(cache::find);
+
+        assertEquals(loadsBefore, loads.get());
+    }
+
+    @DisplayName("created entities are written through and cached")
+    @Test
+    void createTest() {
+        var cache = new CachingRepository<>(delegate, 100);
+
+        var created = cache.create(new Account());
+
+        assertSame(created, delegate.find(created.getId()));
+        var loadsBefore = loads.get();
+        assertSame(created, cache.find(created.getId()));
+        assertEquals(loadsBefore, loads.get());
+    }
+
+    @DisplayName("invalidated entity is loaded again")
+    @Test
+    void invalidateTest() {
+        var cache = new CachingRepository<>(delegate, 100);
+        cache.find(ids.get(0));
+
+        cache.invalidate(ids.get(0));
+        cache.find(ids.get(0));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStatistics().getSize());
+    }
+
+    @DisplayName("load overlapping an invalidation of its entity is not cached")
+    @SneakyThrows
+    @Test
+    void invalidatedLoadTest() {
+        var loading = new CountDownLatch(1);
+        var invalidated = new CountDownLatch(1);
+        var cache = new CachingRepository<>(new Repository<Account>() {
+            @Override
+            public Optional<Account> get(Long id) {
+                loading.countDown();
+                await(invalidated);
+                return delegate.get(id);
+            }
+
+            @Override
+            public List<Account> getAll() {
+                return delegate.getAll();
+            }
+
+            @Override
+            public Account create(Account account) {
+                return delegate.create(account);
+            }
+        }, 100);
+
+        var executor = Executors.newSingleThreadExecutor();
+        var load = CompletableFuture.supplyAsync(() -> cache.find(ids.get(0)), executor);
+        loading.await();
+        cache.invalidate(ids.get(0));
+        invalidated.countDown();
+
+        assertEquals(ids.get(0), load.get().getId());
+        executor.shutdown();
+        var statistics = cache.getStatistics();
+        assertEquals(1, statistics.getDiscardedLoads());
+        assertEquals(0, statistics.getSize());
+    }
+
+    @DisplayName("over JDBC storage")
+    @Nested
+    class OverJdbc {
+
+        @DisplayName("cached account shows the balance of a committed transfer")
+        @Test
+        void transferTest() {
+            var pool = new ConnectionPool("jdbc:h2:mem:" + UUID.randomUUID(), "sa", "", 2);
+            JdbcSchema.create(pool);
+            var executor = Executors.newSingleThreadExecutor();
+            try {
+                var cache = new CachingRepository<>(new JdbcAccountRepository(pool), 100);
+                var transferService = new JdbcTransferOperationServiceImpl(pool, new JdbcTransactionRepository(pool),
+                        executor, new AccountCacheInvalidator(cache));
+                var from = cache.create(account(100L));
+                var to = cache.create(account(0L));
+                cache.find(from.getId());
+                cache.find(to.getId());
+
+                transferService.transfer(from.getId(), to.getId(), BigDecimal.TEN);
+
+                assertEquals(0, BigDecimal.valueOf(90L).compareTo(cache.find(from.getId()).getBalance()));
+                assertEquals(0, BigDecimal.TEN.compareTo(cache.find(to.getId()).getBalance()));
+            } finally {
+                executor.shutdown();
+                pool.close();
+            }
+        }
+
+        @DisplayName("batch lookup reads accounts in the order of the ids")
+        @Test
+        void batchLookupTest() {
+            var pool = new ConnectionPool("jdbc:h2:mem:" + UUID.randomUUID(), "sa", "", 2);
+            JdbcSchema.create(pool);
+            try {
+                var repository = new JdbcAccountRepository(pool);
+                var first = repository.create(account(1L));
+                var second = repository.create(account(2L));
+
+                var found = repository.getAll(List.of(second.getId(), -1L, first.getId(), second.getId()));
+
+                assertEquals(List.of(second.getId(), first.getId(), second.getId()),
+                        found.stream().map(Account::getId).collect(Collectors.toList()));
+                assertEquals(0, BigDecimal.valueOf(2L).compareTo(found.get(0).getBalance()));
+                assertTrue(repository.getAll(List.of()).isEmpty());
+            } finally {
+                pool.close();
+            }
+        }
+
+        private Account account(long balance) {
+            var account = new Account();
+            account.setName("account");
+            account.setBalance(BigDecimal.valueOf(balance));
+            return account;
+        }
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        latch.await();
+    }
+
+    private static class CountingRepository extends ForwardingRepository<Account> {
+        private final AtomicInteger loads;
+
+        private CountingRepository(Repository<Account> delegate, AtomicInteger loads) {
+            super(delegate);
+            this.loads = loads;
+        }
+
+        @Override
+        public Optional<Account> get(Long id) {
+            loads.incrementAndGet();
+            return delegate.get(id);
+        }
+
+        @Override
+        public Account find(long id) {
+            loads.incrementAndGet();
+            return delegate.find(id);
+        }
+
+        @Override
+        public List<Account> getAll(Collection<Long> ids) {
+            loads.incrementAndGet();
+            return delegate.getAll(ids);
+        }
+    }
+}
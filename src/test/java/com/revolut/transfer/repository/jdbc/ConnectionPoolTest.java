@@ -0,0 +1,94 @@
+package com.revolut.transfer.repository.jdbc;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Connection pool tests")
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void init() {
+        pool = new ConnectionPool("jdbc:h2:mem:" + UUID.randomUUID() + "", "sa", "", 1, 50L);
+        JdbcSchema.create(pool);
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.close();
+    }
+
+    @DisplayName("caller fails after the timeout when every connection is taken")
+    @Test
+    void boundedTest() throws InterruptedException {
+        var taken = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var holder = CompletableFuture.runAsync(() -> pool.inTransaction(connection -> {
+            taken.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+
+        assertThrows(DataAccessException.class, () -> pool.inTransaction(connection -> null));
+
+        release.countDown();
+        holder.join();
+        assertEquals(1, (int) pool.inTransaction(connection -> 1));
+    }
+
+    @SneakyThrows
+    private static void awaitQuietly(CountDownLatch latch) {
+        latch.await(5, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("work is rolled back when it fails")
+    @Test
+    void rollbackTest() {
+        assertThrows(DataAccessException.class, () -> pool.inTransaction(connection -> {
+            connection.createStatement().executeUpdate("INSERT INTO transfer_transaction (from_id) VALUES (1)");
+            throw new SQLException("failure");
+        }));
+
+        assertTrue(new JdbcTransactionRepository(pool).getAll().isEmpty());
+    }
+
+    @DisplayName("work aborted by a conflicting transaction is run again, other failures are not")
+    @Test
+    void retryTest() {
+        var attempts = new AtomicInteger();
+        var result = pool.inTransaction(connection -> {
+            if (attempts.incrementAndGet() < 3) throw new SQLTransactionRollbackException("conflict", "40001");
+            return attempts.get();
+        });
+        assertEquals(3, result);
+
+        attempts.set(0);
+        assertThrows(DataAccessException.class, () -> pool.inTransaction(connection -> {
+            attempts.incrementAndGet();
+            throw new SQLException("failure", "42000");
+        }));
+        assertEquals(1, attempts.get());
+
+        attempts.set(0);
+        assertThrows(DataAccessException.class, () -> pool.inTransaction(connection -> {
+            attempts.incrementAndGet();
+            throw new SQLTransactionRollbackException("deadlock", "40P01");
+        }));
+        assertEquals(ConnectionPool.DEFAULT_MAX_ATTEMPTS, attempts.get());
+    }
+}
@@ -0,0 +1,121 @@
+package com.revolut.transfer.repository.ledger;
+
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.revolut.transfer.repository.ledger.TransactionSegmentTest.assertSameTransaction;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Segment file store tests")
+class SegmentFileStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private SegmentFileStore store;
+
+    @AfterEach
+    void close() {
+        if (store != null) store.close();
+    }
+
+    @DisplayName("sealed pages are read back from files")
+    @Test
+    void sealTest() {
+        store = new SegmentFileStore(directory, 4096L);
+        var pages = new ArrayList<List<TransferTransaction>>();
+        var sealed = new ArrayList<SpilledSegment>();
+        for (int page = 0; page < 5; page++) {
+            var transactions = transactions(page * 300L, 300);
+            pages.add(transactions);
+            sealed.add((SpilledSegment) store.seal(transactions));
+        }
+
+        assertTrue(store.getFileCount() > 1, "Files " + store.getFileCount());
+        for (int page = 0; page < pages.size(); page++) {
+            for (int i = 0; i < 300; i++) {
+                assertSameTransaction(pages.get(page).get(i), sealed.get(page).get(i));
+            }
+            var decoded = new ArrayList<TransferTransaction>();
+            sealed.get(page).forEach(decoded::add);
+            assertEquals(300, decoded.size());
+            assertSameTransaction(pages.get(page).get(299), decoded.get(299));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> sealed.get(0).get(300));
+    }
+
+    @DisplayName("files of a previous run are deleted")
+    @SneakyThrows
+    @Test
+    void staleFilesTest() {
+        store = new SegmentFileStore(directory);
+        store.seal(transactions(0L, 10));
+        store.close();
+        var unrelated = Files.createFile(directory.resolve("unrelated.txt"));
+
+        store = new SegmentFileStore(directory);
+
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(unrelated), files.collect(Collectors.toList()));
+        }
+    }
+
+    @DisplayName("repository keeps filled pages in files and the recent page in memory")
+    @SneakyThrows
+    @Test
+    void repositoryTest() {
+        store = new SegmentFileStore(directory);
+        var repository = RepositoryStubFactory.initialize(1, store);
+        var created = new ArrayList<TransferTransaction>();
+        for (int i = 0; i < 2 * 4096 + 10; i++) {
+            var transaction = new TransferTransaction();
+            transaction.setFrom(1L);
+            transaction.setTo(2L);
+            transaction.setAmount(BigDecimal.valueOf(i, 2));
+            transaction.setDateTime(OffsetDateTime.parse("2030-01-01T10:00:00Z").plusSeconds(i));
+            created.add(repository.create(transaction));
+        }
+
+        for (int i = 0; i < 1000 && store.getSpilledBytes() == 0L; i++) {
+            Thread.sleep(5);
+        }
+        for (int i = 0; i < 1000 && repository.find(created.get(4096).getId()) == created.get(4096); i++) {
+            Thread.sleep(5);
+        }
+
+        assertNotSame(created.get(0), repository.find(created.get(0).getId()));
+        assertNotSame(created.get(4096), repository.find(created.get(4096).getId()));
+        assertSame(created.get(8192), repository.find(created.get(8192).getId()));
+        for (TransferTransaction transaction : created) {
+            assertSameTransaction(transaction, repository.find(transaction.getId()));
+        }
+        assertEquals(created.size(), repository.getAll().size());
+    }
+
+    private static List<TransferTransaction> transactions(long firstId, int size) {
+        var transactions = new ArrayList<TransferTransaction>();
+        for (int i = 0; i < size; i++) {
+            var transaction = new TransferTransaction();
+            transaction.setId(firstId + i + 1);
+            transaction.setFrom(firstId + i);
+            transaction.setTo(firstId + i + 2);
+            transaction.setAmount(BigDecimal.valueOf(i, 2));
+            transaction.setDateTime(OffsetDateTime.parse("2030-01-01T10:00:00Z").plusNanos(i * 1_000_000L));
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,108 @@
+package com.revolut.transfer.repository.ledger;
+
+import com.revolut.transfer.model.TransferTransaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Transaction segment tests")
+class TransactionSegmentTest {
+
+    @DisplayName("every transaction is decoded as it was encoded")
+    @Test
+    void roundTripTest() {
+        var transactions = new ArrayList<TransferTransaction>();
+        var time = OffsetDateTime.parse("2030-01-01T10:00:00.123Z");
+        for (int i = 0; i < 300; i++) {
+            var transaction = new TransferTransaction();
+            transaction.setId(1L + i * 4L);
+            transaction.setFrom((long) i);
+            transaction.setTo(i % 7 == 0 ? null : Long.MAX_VALUE - i);
+            transaction.setAmount(i % 5 == 0
+                    ? new BigDecimal("123456789012345678901234567890.55")
+                    : BigDecimal.valueOf(i * 31L, 2));
+            transaction.setGroupId(i % 3 == 0 ? (long) i : null);
+            transaction.setDateTime(i % 11 == 0 ? null : time.plusNanos(i * 1_500_001L));
+            transactions.add(transaction);
+        }
+        transactions.get(42).setDateTime(OffsetDateTime.of(1969, 12, 31, 23, 59, 59, 1, ZoneOffset.ofHours(-5)));
+        transactions.get(43).setAmount(null);
+
+        var segment = TransactionSegment.encode(transactions);
+
+        assertEquals(300, segment.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertSameTransaction(transactions.get(i), segment.get(i));
+        }
+        var decoded = new ArrayList<TransferTransaction>();
+        segment.forEach(decoded::add);
+        for (int i = 0; i < transactions.size(); i++) {
+            assertSameTransaction(transactions.get(i), decoded.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> segment.get(300));
+    }
+
+    @DisplayName("ledger shaped transactions take less than 16 bytes each")
+    @Test
+    void compressionTest() {
+        var random = new Random(1);
+        var transactions = new ArrayList<TransferTransaction>();
+        var time = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < 4096; i++) {
+            time = time.plusNanos(random.nextInt(5) * 1_000_000L);
+            var transaction = new TransferTransaction();
+            transaction.setId(3L + i * 8L);
+            transaction.setFrom(1L + random.nextInt(100_000));
+            transaction.setTo(1L + random.nextInt(100_000));
+            transaction.setAmount(BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2));
+            transaction.setDateTime(time);
+            transactions.add(transaction);
+        }
+
+        var segment = TransactionSegment.encode(transactions);
+
+        // the same transaction on the heap is an object graph of more than 130 bytes
+        assertTrue(segment.getEncodedSize() < 16 * transactions.size(), "Encoded size " + segment.getEncodedSize());
+        assertSameTransaction(transactions.get(4095), segment.get(4095));
+    }
+
+    @DisplayName("serialized segment is read back with the same transactions")
+    @Test
+    void serializationTest() {
+        var transactions = new ArrayList<TransferTransaction>();
+        for (int i = 0; i < 130; i++) {
+            var transaction = new TransferTransaction();
+            transaction.setId(1L + i);
+            transaction.setFrom(1L);
+            transaction.setTo(2L);
+            transaction.setAmount(BigDecimal.valueOf(i, 1));
+            transactions.add(transaction);
+        }
+        var bytes = TransactionSegment.encode(transactions).toBytes();
+
+        var segment = TransactionSegment.fromBytes(ByteBuffer.wrap(bytes));
+
+        assertEquals(130, segment.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertSameTransaction(transactions.get(i), segment.get(i));
+        }
+    }
+
+    static void assertSameTransaction(TransferTransaction expected, TransferTransaction actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getFrom(), actual.getFrom());
+        assertEquals(expected.getTo(), actual.getTo());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getGroupId(), actual.getGroupId());
+        assertEquals(expected.getDateTime(), actual.getDateTime());
+    }
+}
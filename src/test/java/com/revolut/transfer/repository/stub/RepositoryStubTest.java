@@ -2,6 +2,7 @@ package com.revolut.transfer.repository.stub;
 
 import com.revolut.transfer.model.Account;
 import com.revolut.transfer.repository.Repository;
+import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,6 +14,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -102,6 +104,100 @@ class RepositoryStubTest {
             assertEquals(uniqueIds.size(), threads * tasksPerThread);
         }
 
+        @DisplayName("with several id shards")
+        @Nested
+        class WhenSharded {
+
+            @BeforeEach
+            void initRepository() {
+                accountRepository = RepositoryStubFactory.initialize(4);
+            }
+
+            @DisplayName("ids created by one thread increase within one shard")
+            @Test
+            void perThreadOrderTest() {
+                var previous = 0L;
+                for (int i = 0; i < 100; i++) {
+                    var id = accountRepository.create(new Account()).getId();
+                    assertTrue(id > previous);
+                    if (previous != 0L) assertEquals(4L, id - previous);
+                    previous = id;
+                }
+            }
+
+            @DisplayName("allocated ids of every shard are found after concurrent creation")
+            @SneakyThrows
+            @Test
+            void allocatedIdsTest() {
+                var executionService = Executors.newFixedThreadPool(8);
+                var futures = new ArrayList<Future<Account>>();
+                for (int i = 0; i < 8000; i++) {
+                    futures.add(executionService.submit(() -> accountRepository.create(new Account())));
+                }
+                for (Future<Account> future : futures) {
+                    future.get();
+                }
+                executionService.shutdown();
+
+                var total = 0L;
+                for (int shard = 0; shard < accountRepository.getIdShards(); shard++) {
+                    var allocated = accountRepository.getAllocatedIds(shard);
+                    for (long position = 0; position < allocated; position++) {
+                        var id = accountRepository.idOf(shard, position);
+                        assertEquals(id, accountRepository.find(id).getId());
+                    }
+                    total += allocated;
+                }
+                assertEquals(8000L, total);
+                assertNull(accountRepository.find(0L));
+            }
+        }
+
+        @DisplayName("with a page sealer")
+        @Nested
+        class WhenSealed {
+
+            private RepositoryStub<Account> sealedRepository;
+
+            @BeforeEach
+            void initRepository() {
+                sealedRepository = RepositoryStubFactory.<Account>initialize(1, entities -> new SealedPage<Account>() {
+                    @Override
+                    public Account get(int index) {
+                        var copy = new Account();
+                        copy.setId(entities.get(index).getId());
+                        return copy;
+                    }
+
+                    @Override
+                    public void forEach(Consumer<Account> action) {
+                        for (int i = 0; i < entities.size(); i++) {
+                            action.accept(get(i));
+                        }
+                    }
+                });
+            }
+
+            @DisplayName("filled pages are sealed and stay readable")
+            @SneakyThrows
+            @Test
+            void sealTest() {
+                var ids = new ArrayList<Long>();
+                for (int i = 0; i < 2 * 4096 + 10; i++) {
+                    ids.add(sealedRepository.create(new Account()).getId());
+                }
+
+                for (int i = 0; i < 1000 && sealedRepository.getSealedPages(0) < 2; i++) {
+                    Thread.sleep(5);
+                }
+                assertEquals(2, sealedRepository.getSealedPages(0));
+                for (Long id : ids) {
+                    assertEquals(id, sealedRepository.find(id).getId());
+                }
+                assertEquals(ids, sealedRepository.getAll().stream().map(Account::getId).collect(Collectors.toList()));
+            }
+        }
+
         @DisplayName("can get empty optional with null id")
         @Test
         void nullTest() {
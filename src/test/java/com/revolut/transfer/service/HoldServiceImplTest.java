@@ -0,0 +1,175 @@
+package com.revolut.transfer.service;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.model.OutgoingLimits;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.exception.TransferRejectedException;
+import com.revolut.transfer.service.stats.TransferStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Hold service tests")
+class HoldServiceImplTest {
+
+    private Repository<Account> accountRepository;
+    private Repository<TransferTransaction> transactionRepository;
+    private TransferOperationService transferOperationService;
+    private HoldServiceImpl holdService;
+
+    private Account payer;
+    private Account merchant;
+
+    @BeforeEach
+    void prepareService() {
+        accountRepository = RepositoryStubFactory.initialize();
+        transactionRepository = RepositoryStubFactory.initialize();
+        var statistics = new TransferStatistics();
+        transferOperationService = new TransferOperationServiceImpl(accountRepository, transactionRepository, statistics);
+        holdService = new HoldServiceImpl(accountRepository,
+                transactionRepository,
+                RepositoryStubFactory.initialize(),
+                statistics,
+                Clock.systemUTC(),
+                10L);
+
+        payer = createAccount(1000L);
+        merchant = createAccount(0L);
+    }
+
+    @AfterEach
+    void shutdown() {
+        holdService.close();
+    }
+
+    @DisplayName("when amount is higher than available balance throw exception")
+    @Test
+    void lowBalanceTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> holdService.place(payer.getId(), BigDecimal.valueOf(1001L), Duration.ofMinutes(1)));
+    }
+
+    @DisplayName("when account does not exist throw exception")
+    @Test
+    void notFoundTest() {
+        assertThrows(EntityNotExistsException.class,
+                () -> holdService.place(-1L, BigDecimal.TEN, Duration.ofMinutes(1)));
+    }
+
+    @DisplayName("when time to live is not positive throw exception")
+    @Test
+    void ttlTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> holdService.place(payer.getId(), BigDecimal.TEN, Duration.ZERO));
+    }
+
+    @DisplayName("when hold is placed")
+    @Nested
+    class WhenPlaced {
+        private Hold hold;
+
+        @BeforeEach
+        void placeHold() {
+            hold = holdService.place(payer.getId(), BigDecimal.valueOf(600L), Duration.ofMinutes(1));
+        }
+
+        @DisplayName("available balance is reduced and balance is kept")
+        @Test
+        void availableBalanceTest() {
+            assertEquals(Hold.Status.HELD, hold.getStatus());
+            assertEquals(BigDecimal.valueOf(1000L), payer.getBalance());
+            assertEquals(BigDecimal.valueOf(400L), payer.getAvailableBalance());
+        }
+
+        @DisplayName("transfer of held funds is rejected")
+        @Test
+        void transferRespectsHoldTest() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> transferOperationService.transfer(payer.getId(), merchant.getId(), BigDecimal.valueOf(401L)));
+            transferOperationService.transfer(payer.getId(), merchant.getId(), BigDecimal.valueOf(400L));
+            assertEquals(BigDecimal.ZERO, payer.getAvailableBalance());
+        }
+
+        @DisplayName("partial capture transfers captured amount and releases the rest")
+        @Test
+        void captureTest() {
+            var transaction = holdService.capture(hold.getId(), merchant.getId(), BigDecimal.valueOf(500L));
+
+            assertEquals(BigDecimal.valueOf(500L), transaction.getAmount());
+            assertEquals(Hold.Status.CAPTURED, hold.getStatus());
+            assertEquals(transaction.getId(), hold.getTransactionId());
+            assertEquals(BigDecimal.valueOf(500L), payer.getBalance());
+            assertEquals(BigDecimal.ZERO, payer.getHeldBalance());
+            assertEquals(BigDecimal.valueOf(500L), merchant.getBalance());
+        }
+
+        @DisplayName("capture of more than held is rejected")
+        @Test
+        void captureTooMuchTest() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> holdService.capture(hold.getId(), merchant.getId(), BigDecimal.valueOf(601L)));
+        }
+
+        @DisplayName("capture over the outgoing limit is rejected and keeps the hold")
+        @Test
+        void captureLimitTest() {
+            var limits = new OutgoingLimits();
+            limits.setLimits(BigDecimal.valueOf(500L), null);
+            payer.setOutgoingLimits(limits);
+
+            assertThrows(TransferRejectedException.class,
+                    () -> holdService.capture(hold.getId(), merchant.getId(), null));
+            assertEquals(Hold.Status.HELD, hold.getStatus());
+            assertEquals(BigDecimal.valueOf(1000L), payer.getBalance());
+
+            holdService.capture(hold.getId(), merchant.getId(), BigDecimal.valueOf(500L));
+            assertEquals(0, BigDecimal.valueOf(500L).compareTo(limits.getHourlySpent(System.currentTimeMillis())));
+        }
+
+        @DisplayName("release gives funds back and forbids capture")
+        @Test
+        void releaseTest() {
+            holdService.release(hold.getId());
+
+            assertEquals(Hold.Status.RELEASED, hold.getStatus());
+            assertEquals(BigDecimal.valueOf(1000L), payer.getAvailableBalance());
+            assertThrows(IllegalArgumentException.class,
+                    () -> holdService.capture(hold.getId(), merchant.getId(), null));
+            assertThrows(IllegalArgumentException.class, () -> holdService.release(hold.getId()));
+        }
+    }
+
+    @DisplayName("when hold is not captured in time it expires")
+    @Test
+    void expiryTest() throws InterruptedException {
+        var hold = holdService.place(payer.getId(), BigDecimal.valueOf(600L), Duration.ofMillis(100));
+
+        for (int i = 0; i < 100 && hold.getStatus() == Hold.Status.HELD; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(Hold.Status.EXPIRED, hold.getStatus());
+        assertEquals(BigDecimal.valueOf(1000L), payer.getAvailableBalance());
+        assertThrows(IllegalArgumentException.class,
+                () -> holdService.capture(hold.getId(), merchant.getId(), null));
+    }
+
+    private Account createAccount(long balance) {
+        var account = new Account();
+        account.setName("hold");
+        account.setBalance(BigDecimal.valueOf(balance));
+        return accountRepository.create(account);
+    }
+}
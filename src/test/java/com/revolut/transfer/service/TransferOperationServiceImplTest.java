@@ -2,9 +2,12 @@ package com.revolut.transfer.service;
 
 
 import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferLeg;
 import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.AsyncRepository;
 import com.revolut.transfer.repository.Repository;
 import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.exception.TransferRejectedException;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,13 +19,19 @@ import org.mockito.stubbing.Answer;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Transfer operation service tests")
@@ -91,7 +100,7 @@ class TransferOperationServiceImplTest {
             @DisplayName("when from account not found throw exception")
             @Test
             void fromNotFoundTest() {
-                given(accountRepository.get(fromId)).willReturn(Optional.empty());
+                given(accountRepository.find(fromId)).willReturn(null);
                 assertThrows(EntityNotExistsException.class,
                         () -> transferOperationService.transfer(fromId, toId, amount));
             }
@@ -111,13 +120,13 @@ class TransferOperationServiceImplTest {
                     fromAccount = new Account();
                     fromAccount.setId(fromId);
                     fromAccount.setBalance(fromAccountInitialBalance);
-                    given(accountRepository.get(fromId)).willReturn(Optional.of(fromAccount));
+                    given(accountRepository.find(fromId)).willReturn(fromAccount);
                 }
 
                 @DisplayName("when to account not found throw exception")
                 @Test
                 void toNotFoundTest() {
-                    given(accountRepository.get(toId)).willReturn(Optional.empty());
+                    given(accountRepository.find(toId)).willReturn(null);
                     assertThrows(EntityNotExistsException.class,
                             () -> transferOperationService.transfer(fromId, toId, amount));
                 }
@@ -135,7 +144,7 @@ class TransferOperationServiceImplTest {
                         toAccount = new Account();
                         toAccount.setId(toId);
                         toAccount.setBalance(toAccountInitialBalance);
-                        given(accountRepository.get(toId)).willReturn(Optional.of(toAccount));
+                        given(accountRepository.find(toId)).willReturn(toAccount);
                     }
 
                     @DisplayName("when transfer amount is higher than from account balance throw exception")
@@ -180,12 +189,12 @@ class TransferOperationServiceImplTest {
             fromAccount = new Account();
             fromAccount.setId(1L);
             fromAccount.setBalance(BigDecimal.valueOf(1000000L));
-            given(accountRepository.get(fromAccount.getId())).willReturn(Optional.of(fromAccount));
+            given(accountRepository.find(fromAccount.getId())).willReturn(fromAccount);
 
             toAccount = new Account();
             toAccount.setId(2L);
             toAccount.setBalance(BigDecimal.valueOf(1000000L));
-            given(accountRepository.get(toAccount.getId())).willReturn(Optional.of(toAccount));
+            given(accountRepository.find(toAccount.getId())).willReturn(toAccount);
 
             initialSummaryBalance = fromAccount.getBalance().add(toAccount.getBalance());
 
@@ -234,4 +243,201 @@ class TransferOperationServiceImplTest {
         }
     }
 
-}
\ No newline at end of file
+    @DisplayName("Asynchronous transfer method test")
+    @Nested
+    class AsyncTransferTest {
+        private Map<Long, CompletableFuture<Account>> lookups;
+
+        @BeforeEach
+        @SuppressWarnings("unchecked")
+        void prepareService() {
+            lookups = new ConcurrentHashMap<>();
+            AsyncRepository<Account> asyncAccountRepository = mock(AsyncRepository.class);
+            lenient().when(asyncAccountRepository.find(anyLong())).thenAnswer(invocation ->
+                    lookups.computeIfAbsent(invocation.getArgument(0), id -> new CompletableFuture<>()));
+            transferOperationService = new TransferOperationServiceImpl(accountRepository,
+                    asyncAccountRepository,
+                    transactionRepository,
+                    TransferListener.NONE);
+        }
+
+        @DisplayName("both accounts are looked up before either lookup completes")
+        @Test
+        void pipelinedLookupTest() {
+            var result = transferOperationService.transferAsync(1L, 2L, BigDecimal.TEN).toCompletableFuture();
+
+            assertEquals(2, lookups.size());
+            assertFalse(result.isDone());
+
+            var from = account(1L, 100L);
+            var to = account(2L, 0L);
+            lookups.get(2L).complete(to);
+            assertFalse(result.isDone());
+            lookups.get(1L).complete(from);
+
+            var transaction = result.join();
+            assertEquals(1L, transaction.getFrom());
+            assertEquals(BigDecimal.valueOf(90L), from.getBalance());
+            assertEquals(BigDecimal.valueOf(10L), to.getBalance());
+            verify(transactionRepository).create(transaction);
+        }
+
+        @DisplayName("when account is not found stage completes exceptionally")
+        @Test
+        void notFoundTest() {
+            var result = transferOperationService.transferAsync(1L, 2L, BigDecimal.TEN).toCompletableFuture();
+            lookups.get(1L).complete(account(1L, 100L));
+            lookups.get(2L).complete(null);
+
+            var exception = assertThrows(CompletionException.class, result::join);
+            assertTrue(exception.getCause() instanceof EntityNotExistsException);
+        }
+
+        @DisplayName("when request is invalid nothing is looked up")
+        @Test
+        void rejectedTest() {
+            var result = transferOperationService.transferAsync(1L, 1L, BigDecimal.TEN).toCompletableFuture();
+
+            assertTrue(result.isCompletedExceptionally());
+            assertTrue(lookups.isEmpty());
+        }
+
+        private Account account(long id, long balance) {
+            var account = new Account();
+            account.setId(id);
+            account.setBalance(BigDecimal.valueOf(balance));
+            return account;
+        }
+    }
+
+    @DisplayName("Multi-leg transfer method test")
+    @Nested
+    class MultiLegTransferTest {
+        private Account firstAccount;
+        private Account secondAccount;
+        private Account thirdAccount;
+
+        @BeforeEach
+        void prepareData() {
+            firstAccount = account(1L, 1000L);
+            secondAccount = account(2L, 500L);
+            thirdAccount = account(3L, 0L);
+        }
+
+        @DisplayName("when debits and credits are empty throw exception")
+        @Test
+        void emptyLegsTest() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> transferOperationService.transfer(List.of(), List.of(leg(1L, 10L))));
+            assertThrows(IllegalArgumentException.class,
+                    () -> transferOperationService.transfer(List.of(leg(1L, 10L)), null));
+        }
+
+        @DisplayName("when sum of debits differs from sum of credits throw exception")
+        @Test
+        void unbalancedLegsTest() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> transferOperationService.transfer(List.of(leg(1L, 100L)), List.of(leg(2L, 60L), leg(3L, 30L))));
+            verify(transactionRepository, never()).create(any(TransferTransaction.class));
+        }
+
+        @DisplayName("when account takes part in more than one leg throw exception")
+        @Test
+        void duplicateAccountTest() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> transferOperationService.transfer(List.of(leg(1L, 100L)), List.of(leg(1L, 100L))));
+        }
+
+        @DisplayName("when one of the accounts is not found throw exception")
+        @Test
+        void notFoundTest() {
+            assertThrows(EntityNotExistsException.class,
+                    () -> transferOperationService.transfer(List.of(leg(1L, 100L)), List.of(leg(4L, 100L))));
+            verify(transactionRepository, never()).create(any(TransferTransaction.class));
+        }
+
+        @DisplayName("when one of the debits exceeds balance throw exception and keep all balances")
+        @Test
+        void lowBalanceTest() {
+            var exception = assertThrows(TransferRejectedException.class,
+                    () -> transferOperationService.transfer(List.of(leg(1L, 100L), leg(2L, 600L)), List.of(leg(3L, 700L))));
+
+            assertEquals("Unable to transfer, balance of account id=2 is too low", exception.getMessage());
+
+            assertEquals(BigDecimal.valueOf(1000L), firstAccount.getBalance());
+            assertEquals(BigDecimal.valueOf(500L), secondAccount.getBalance());
+            assertEquals(BigDecimal.valueOf(0L), thirdAccount.getBalance());
+            verify(transactionRepository, never()).create(any(TransferTransaction.class));
+        }
+
+        @DisplayName("when legs are valid apply all of them as one group")
+        @Test
+        void successTransferTest() {
+            given(transactionRepository.create(any(TransferTransaction.class)))
+                    .willAnswer((Answer<TransferTransaction>) invocation -> invocation.getArgument(0));
+            var fourthAccount = account(4L, 0L);
+
+            var result = transferOperationService.transfer(
+                    List.of(leg(1L, 300L), leg(2L, 200L)),
+                    List.of(leg(3L, 250L), leg(4L, 250L)));
+
+            assertNotNull(result.getGroupId());
+            assertEquals(3, result.getTransactions().size());
+            for (TransferTransaction transaction : result.getTransactions()) {
+                assertEquals(result.getGroupId(), transaction.getGroupId());
+            }
+            assertEquals(BigDecimal.valueOf(700L), firstAccount.getBalance());
+            assertEquals(BigDecimal.valueOf(300L), secondAccount.getBalance());
+            assertEquals(BigDecimal.valueOf(250L), thirdAccount.getBalance());
+            assertEquals(BigDecimal.valueOf(250L), fourthAccount.getBalance());
+        }
+
+        @DisplayName("when performed concurrently with plain transfers total balance is kept")
+        @SneakyThrows
+        @Test
+        void concurrentTransferTest() {
+            given(transactionRepository.create(any(TransferTransaction.class)))
+                    .willAnswer((Answer<TransferTransaction>) invocation -> invocation.getArgument(0));
+            thirdAccount.setBalance(BigDecimal.valueOf(1000L));
+
+            var executionService = Executors.newFixedThreadPool(8);
+            var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 20000; i++) {
+                var variant = i % 3;
+                futures.add(executionService.submit(() -> {
+                    try {
+                        if (variant == 0) {
+                            transferOperationService.transfer(List.of(leg(1L, 2L)), List.of(leg(2L, 1L), leg(3L, 1L)));
+                        } else if (variant == 1) {
+                            transferOperationService.transfer(List.of(leg(3L, 1L), leg(2L, 1L)), List.of(leg(1L, 2L)));
+                        } else {
+                            transferOperationService.transfer(3L, 2L, BigDecimal.ONE);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // balance may run out, which is a valid outcome
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executionService.shutdown();
+
+            assertEquals(BigDecimal.valueOf(2500L),
+                    firstAccount.getBalance().add(secondAccount.getBalance()).add(thirdAccount.getBalance()));
+        }
+
+        private Account account(long id, long balance) {
+            var account = new Account();
+            account.setId(id);
+            account.setBalance(BigDecimal.valueOf(balance));
+            lenient().when(accountRepository.get(id)).thenReturn(Optional.of(account));
+            lenient().when(accountRepository.find(id)).thenReturn(account);
+            return account;
+        }
+
+        private TransferLeg leg(long accountId, long amount) {
+            return new TransferLeg(accountId, BigDecimal.valueOf(amount));
+        }
+    }
+}
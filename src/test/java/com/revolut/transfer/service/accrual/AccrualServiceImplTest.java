@@ -0,0 +1,206 @@
+package com.revolut.transfer.service.accrual;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccrualProgress;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.stats.TransferStatistics;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Accrual service tests")
+class AccrualServiceImplTest {
+
+    private Repository<Account> accountRepository;
+    private Repository<TransferTransaction> transactionRepository;
+    private TransferStatistics statistics;
+    private TransferOperationServiceImpl transferOperationService;
+    private AccrualServiceImpl accrualService;
+    private Account settlement;
+
+    @BeforeEach
+    void prepareService() {
+        accountRepository = RepositoryStubFactory.initialize(4);
+        transactionRepository = RepositoryStubFactory.initialize();
+        statistics = new TransferStatistics();
+        transferOperationService = new TransferOperationServiceImpl(accountRepository, transactionRepository, statistics);
+        accrualService = new AccrualServiceImpl(accountRepository, transactionRepository, statistics,
+                transferOperationService::nextGroupId);
+        settlement = createAccount("1000000.00");
+    }
+
+    @AfterEach
+    void shutdown() {
+        accrualService.close();
+    }
+
+    @DisplayName("credits interest to every account and settles it with the settlement account per chunk as one group")
+    @Test
+    void interestTest() {
+        var accounts = new ArrayList<Account>();
+        for (int i = 0; i < 1000; i++) {
+            accounts.add(createAccount("100.00"));
+        }
+
+        var progress = await(accrualService.start(settlement.getId(), AccrualRate.interest(new BigDecimal("0.015")), 4, 0));
+
+        assertEquals(AccrualProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals(1001L, progress.getTotalAccounts());
+        assertEquals(1001L, progress.getProcessedAccounts());
+        assertEquals(1000L, progress.getAppliedAccounts());
+        assertEquals(0, new BigDecimal("1500.00").compareTo(progress.getNetAmount()));
+        assertNotNull(progress.getFinishedAt());
+        for (Account account : accounts) {
+            assertEquals(new BigDecimal("101.50"), account.getBalance());
+        }
+        assertEquals(new BigDecimal("998500.00"), settlement.getBalance());
+
+        var transactions = transactionRepository.getAll();
+        assertTrue(transactions.stream().allMatch(transaction -> transaction.getGroupId() == progress.getGroupId()));
+        var fromSettlement = transactions.stream()
+                .filter(transaction -> transaction.getFrom() == settlement.getId())
+                .map(TransferTransaction::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, new BigDecimal("1500.00").compareTo(fromSettlement));
+        var settlementTransfers = transactions.size() - 1000;
+        assertTrue(settlementTransfers > 0 && settlementTransfers <= 1001 / AccrualServiceImpl.CHUNK_ACCOUNTS + 4);
+        assertEquals(transactions.size(), statistics.getSummary().getTransfers());
+        assertClearingAccountsSettled();
+    }
+
+    @DisplayName("rejects fees higher than the available balance")
+    @Test
+    void feeTest() {
+        var rich = createAccount("10.00");
+        var poor = createAccount("1.00");
+
+        var progress = await(accrualService.start(settlement.getId(), AccrualRate.fee(new BigDecimal("2.50")), 2, 0));
+
+        assertEquals(1L, progress.getAppliedAccounts());
+        assertEquals(1L, progress.getRejectedAccounts());
+        assertEquals(0, new BigDecimal("-2.50").compareTo(progress.getNetAmount()));
+        assertEquals(new BigDecimal("7.50"), rich.getBalance());
+        assertEquals(new BigDecimal("1.00"), poor.getBalance());
+        assertEquals(new BigDecimal("1000002.50"), settlement.getBalance());
+        assertClearingAccountsSettled();
+    }
+
+    @DisplayName("accrues an account named like a clearing account")
+    @Test
+    void clearingNameTest() {
+        var impostor = new Account();
+        impostor.setName(AccrualServiceImpl.CLEARING_ACCOUNT_NAME);
+        impostor.setBalance(new BigDecimal("10.00"));
+        accountRepository.create(impostor);
+
+        var progress = await(accrualService.start(settlement.getId(), AccrualRate.fee(new BigDecimal("2.50")), 1, 0));
+
+        assertEquals(1L, progress.getAppliedAccounts());
+        assertEquals(new BigDecimal("7.50"), impostor.getBalance());
+        assertFalse(impostor.isInternal());
+        assertClearingAccountsSettled();
+    }
+
+    @DisplayName("keeps money supply while transfers run concurrently")
+    @SneakyThrows
+    @Test
+    void concurrentTransfersTest() {
+        var accounts = new ArrayList<Account>();
+        for (int i = 0; i < 2000; i++) {
+            accounts.add(createAccount("100.00"));
+        }
+        var executorService = Executors.newFixedThreadPool(4);
+        var transfers = executorService.submit(() -> {
+            var random = ThreadLocalRandom.current();
+            for (int i = 0; i < 50_000; i++) {
+                var from = accounts.get(random.nextInt(accounts.size()));
+                var to = accounts.get(random.nextInt(accounts.size()));
+                if (from == to) continue;
+                try {
+                    transferOperationService.transfer(from.getId(), to.getId(), BigDecimal.ONE);
+                } catch (IllegalArgumentException e) {
+                    // balance is too low
+                }
+            }
+        });
+
+        var progress = await(accrualService.start(settlement.getId(), AccrualRate.fee(BigDecimal.ONE), 4, 0));
+        transfers.get();
+        executorService.shutdown();
+
+        assertEquals(2000L, progress.getAppliedAccounts() + progress.getRejectedAccounts());
+        var total = accounts.stream().map(Account::getBalance).reduce(settlement.getBalance(), BigDecimal::add);
+        assertEquals(0, new BigDecimal("1200000.00").compareTo(total));
+        assertEquals(0, new BigDecimal("1000000.00").add(BigDecimal.valueOf(progress.getAppliedAccounts()))
+                .compareTo(settlement.getBalance()));
+    }
+
+    @DisplayName("throttled run processes accounts at the given rate and can be cancelled")
+    @SneakyThrows
+    @Test
+    void throttleTest() {
+        for (int i = 0; i < 3000; i++) {
+            createAccount("1.00");
+        }
+
+        var progress = accrualService.start(settlement.getId(), AccrualRate.interest(BigDecimal.ONE), 2, 2000);
+        Thread.sleep(300);
+        var running = accrualService.get(progress.getId());
+        assertEquals(AccrualProgress.Status.RUNNING, running.getStatus());
+        assertTrue(running.getProcessedAccounts() < 3001L);
+
+        accrualService.cancel(progress.getId());
+        var cancelled = await(progress);
+        assertEquals(AccrualProgress.Status.CANCELLED, cancelled.getStatus());
+        assertTrue(cancelled.getProcessedAccounts() < 3001L);
+    }
+
+    @DisplayName("rejects unknown settlement account and unknown runs")
+    @Test
+    void notFoundTest() {
+        assertThrows(EntityNotExistsException.class,
+                () -> accrualService.start(-1L, AccrualRate.fee(BigDecimal.ONE), 1, 0));
+        assertThrows(EntityNotExistsException.class, () -> accrualService.get(-1L));
+        assertThrows(IllegalArgumentException.class,
+                () -> accrualService.start(settlement.getId(), AccrualRate.fee(BigDecimal.ONE), 0, 0));
+    }
+
+    private void assertClearingAccountsSettled() {
+        var clearing = accountRepository.getAll().stream()
+                .filter(Account::isInternal)
+                .collect(Collectors.toList());
+        assertFalse(clearing.isEmpty());
+        assertTrue(clearing.stream().allMatch(account -> account.getBalance().signum() == 0));
+    }
+
+    @SneakyThrows
+    private AccrualProgress await(AccrualProgress started) {
+        for (int i = 0; i < 1000; i++) {
+            var progress = accrualService.get(started.getId());
+            if (progress.getStatus() != AccrualProgress.Status.RUNNING) return progress;
+            Thread.sleep(10);
+        }
+        return fail("Accrual did not finish in time");
+    }
+
+    private Account createAccount(String balance) {
+        var account = new Account();
+        account.setName("account");
+        account.setBalance(new BigDecimal(balance));
+        return accountRepository.create(account);
+    }
+}
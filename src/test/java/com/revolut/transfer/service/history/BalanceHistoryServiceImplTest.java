@@ -0,0 +1,148 @@
+package com.revolut.transfer.service.history;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferLeg;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.stats.StatisticsAccountRepository;
+import com.revolut.transfer.service.stats.TransferStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Balance history tests")
+class BalanceHistoryServiceImplTest {
+
+    private Repository<Account> accountRepository;
+    private BalanceHistoryServiceImpl historyService;
+    private Account first;
+    private Account second;
+
+    @BeforeEach
+    void init() {
+        accountRepository = new StatisticsAccountRepository(RepositoryStubFactory.initialize(), new TransferStatistics());
+        historyService = new BalanceHistoryServiceImpl(accountRepository, 4);
+        first = createAccount(BigDecimal.valueOf(1000));
+        second = createAccount(BigDecimal.ZERO);
+    }
+
+    @DisplayName("balance at every instant equals the opening balance plus preceding transactions")
+    @Test
+    void balanceAtTest() {
+        var start = first.getCreatedAt().truncatedTo(ChronoUnit.SECONDS).plusSeconds(2);
+        var expected = new BigDecimal[101];
+        expected[0] = BigDecimal.valueOf(1000);
+        for (int i = 1; i <= 100; i++) {
+            var amount = BigDecimal.valueOf(i);
+            var toSecond = i % 3 != 0;
+            transfer(toSecond ? first : second, toSecond ? second : first,
+                    amount, start.plusSeconds(i));
+            expected[i] = toSecond ? expected[i - 1].subtract(amount) : expected[i - 1].add(amount);
+        }
+
+        assertEquals(0, expected[0].compareTo(balanceAt(first, start)));
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(0, expected[i].compareTo(balanceAt(first, start.plusSeconds(i))));
+            assertEquals(0, expected[i].compareTo(balanceAt(first, start.plusSeconds(i).plusNanos(999_999_999))));
+        }
+        var sum = balanceAt(first, start.plusSeconds(100)).add(balanceAt(second, start.plusSeconds(100)));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(sum));
+    }
+
+    @DisplayName("transaction committed with a clock stepped back is indexed at the time of the previous one")
+    @Test
+    void clockStepBackTest() {
+        var start = first.getCreatedAt().plusSeconds(10);
+        transfer(first, second, BigDecimal.ONE, start);
+        transfer(first, second, BigDecimal.ONE, start.minusSeconds(5));
+
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(balanceAt(first, start.minusSeconds(1))));
+        assertEquals(0, BigDecimal.valueOf(998).compareTo(balanceAt(first, start)));
+    }
+
+    @DisplayName("transactions of a multi-leg transfer touching an account repeatedly move its history one by one")
+    @Test
+    void multiLegTest() {
+        Repository<TransferTransaction> transactionRepository = RepositoryStubFactory.initialize();
+        var service = new TransferOperationServiceImpl(accountRepository, transactionRepository, historyService);
+        var third = createAccount(BigDecimal.ZERO);
+        var fourth = createAccount(BigDecimal.ZERO);
+        // the debit is matched against three credits, so checkpoints every 4 transactions fall inside groups
+        for (int i = 0; i < 6; i++) {
+            service.transfer(List.of(new TransferLeg(first.getId(), BigDecimal.valueOf(6))),
+                    List.of(new TransferLeg(second.getId(), BigDecimal.ONE),
+                            new TransferLeg(third.getId(), BigDecimal.valueOf(2)),
+                            new TransferLeg(fourth.getId(), BigDecimal.valueOf(3))));
+        }
+
+        var at = OffsetDateTime.now().plusSeconds(1);
+        assertEquals(0, BigDecimal.valueOf(964).compareTo(balanceAt(first, at)));
+        assertEquals(0, BigDecimal.valueOf(6).compareTo(balanceAt(second, at)));
+        assertEquals(0, BigDecimal.valueOf(12).compareTo(balanceAt(third, at)));
+        assertEquals(0, BigDecimal.valueOf(18).compareTo(balanceAt(fourth, at)));
+    }
+
+    @DisplayName("account without transfers has its opening balance")
+    @Test
+    void noTransfersTest() {
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(balanceAt(first, first.getCreatedAt())));
+    }
+
+    @DisplayName("instants before creation and unknown accounts are rejected")
+    @Test
+    void rejectTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> historyService.getBalanceAt(first.getId(), first.getCreatedAt().minusSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> historyService.getBalanceAt(first.getId(), null));
+        assertThrows(EntityNotExistsException.class,
+                () -> historyService.getBalanceAt(0L, first.getCreatedAt()));
+    }
+
+    @DisplayName("restored account history starts at its recovered balance")
+    @Test
+    void restoreTest() {
+        var restartedAt = first.getCreatedAt().plusSeconds(10);
+        first.setBalance(BigDecimal.valueOf(700));
+        historyService.restore(first, restartedAt);
+        transfer(first, second, BigDecimal.ONE, restartedAt.plusSeconds(1));
+
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(balanceAt(first, restartedAt)));
+        assertEquals(0, BigDecimal.valueOf(699).compareTo(balanceAt(first, restartedAt.plusSeconds(1))));
+        assertThrows(IllegalArgumentException.class,
+                () -> historyService.getBalanceAt(first.getId(), restartedAt.minusSeconds(1)));
+    }
+
+    private BigDecimal balanceAt(Account account, OffsetDateTime at) {
+        return historyService.getBalanceAt(account.getId(), at).getBalance();
+    }
+
+    private Account createAccount(BigDecimal balance) {
+        var account = new Account();
+        account.setBalance(balance);
+        return accountRepository.create(account);
+    }
+
+    /**
+     * Moves the balances before notifying the history, as transfers do
+     */
+    private void transfer(Account from, Account to, BigDecimal amount, OffsetDateTime at) {
+        from.setBalance(from.getBalance().subtract(amount));
+        to.setBalance(to.getBalance().add(amount));
+        var transaction = new TransferTransaction();
+        transaction.setFrom(from.getId());
+        transaction.setTo(to.getId());
+        transaction.setAmount(amount);
+        transaction.setDateTime(at);
+        historyService.onTransfer(transaction);
+    }
+}
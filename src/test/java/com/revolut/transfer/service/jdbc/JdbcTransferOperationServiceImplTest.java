@@ -0,0 +1,210 @@
+package com.revolut.transfer.service.jdbc;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferLeg;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.jdbc.ConnectionPool;
+import com.revolut.transfer.repository.jdbc.JdbcAccountRepository;
+import com.revolut.transfer.repository.jdbc.JdbcSchema;
+import com.revolut.transfer.repository.jdbc.JdbcTransactionRepository;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.exception.TransferRejectedException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JDBC transfer operation service tests")
+class JdbcTransferOperationServiceImplTest {
+
+    private ConnectionPool pool;
+    private ExecutorService executor;
+    private JdbcAccountRepository accountRepository;
+    private JdbcTransactionRepository transactionRepository;
+    private JdbcTransferOperationServiceImpl transferService;
+    private Account first;
+    private Account second;
+
+    @BeforeEach
+    void init() {
+        // H2 1.4.200's MVStore does not roll back soundly while other transactions wait for the rows
+        pool = new ConnectionPool("jdbc:h2:mem:" + UUID.randomUUID() + ";MV_STORE=FALSE;LOCK_TIMEOUT=10000",
+                "sa", "", 4);
+        JdbcSchema.create(pool);
+        executor = Executors.newFixedThreadPool(4);
+        accountRepository = new JdbcAccountRepository(pool);
+        transactionRepository = new JdbcTransactionRepository(pool);
+        transferService = new JdbcTransferOperationServiceImpl(pool, transactionRepository, executor);
+        first = createAccount(1000L);
+        second = createAccount(0L);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+        pool.close();
+    }
+
+    @DisplayName("created account is found with its balances")
+    @Test
+    void createTest() {
+        var found = accountRepository.find(first.getId());
+
+        assertEquals("account", found.getName());
+        assertEquals(0, BigDecimal.valueOf(1000L).compareTo(found.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(1000L).compareTo(found.getOpeningBalance()));
+        assertNotNull(found.getCreatedAt());
+        assertNull(accountRepository.find(-1L));
+        assertEquals(2, accountRepository.getAll().size());
+    }
+
+    @DisplayName("transfer changes both balances and stores the transaction")
+    @Test
+    void transferTest() {
+        var transaction = transferService.transfer(first.getId(), second.getId(), BigDecimal.TEN);
+
+        assertNotNull(transaction.getId());
+        assertEquals(0, BigDecimal.valueOf(990L).compareTo(balance(first)));
+        assertEquals(0, BigDecimal.TEN.compareTo(balance(second)));
+        var stored = transactionRepository.find(transaction.getId());
+        assertEquals(first.getId(), stored.getFrom());
+        assertEquals(0, BigDecimal.TEN.compareTo(stored.getAmount()));
+        assertNotNull(stored.getDateTime());
+    }
+
+    @DisplayName("transfer exceeding the balance is rejected by the conditional update")
+    @Test
+    void balanceTooLowTest() {
+        assertSame(TransferRejectedException.BALANCE_IS_TOO_LOW,
+                assertThrows(TransferRejectedException.class,
+                        () -> transferService.transfer(second.getId(), first.getId(), BigDecimal.ONE)));
+        assertThrows(EntityNotExistsException.class,
+                () -> transferService.transfer(-1L, first.getId(), BigDecimal.ONE));
+        assertThrows(EntityNotExistsException.class,
+                () -> transferService.transfer(first.getId(), -1L, BigDecimal.ONE));
+
+        assertEquals(0, BigDecimal.valueOf(1000L).compareTo(balance(first)));
+        assertTrue(transactionRepository.getAll().isEmpty());
+    }
+
+    @DisplayName("multi-leg transfer inserts all legs in one batch or nothing")
+    @Test
+    void multiLegTest() {
+        var third = createAccount(0L);
+        var group = transferService.transfer(
+                List.of(new TransferLeg(first.getId(), BigDecimal.valueOf(100L))),
+                List.of(new TransferLeg(second.getId(), BigDecimal.valueOf(60L)),
+                        new TransferLeg(third.getId(), BigDecimal.valueOf(40L))));
+
+        assertEquals(2, group.getTransactions().size());
+        group.getTransactions().forEach(transaction -> assertNotNull(transaction.getId()));
+        assertEquals(0, BigDecimal.valueOf(40L).compareTo(balance(third)));
+
+        assertThrows(IllegalArgumentException.class, () -> transferService.transfer(
+                List.of(new TransferLeg(second.getId(), BigDecimal.valueOf(10L)),
+                        new TransferLeg(third.getId(), BigDecimal.valueOf(50L))),
+                List.of(new TransferLeg(first.getId(), BigDecimal.valueOf(60L)))));
+        assertEquals(0, BigDecimal.valueOf(60L).compareTo(balance(second)));
+        assertEquals(2, transactionRepository.getAll().size());
+    }
+
+    @DisplayName("instances sharing the database draw group ids from one sequence")
+    @Test
+    void groupIdTest() {
+        var otherInstance = new JdbcTransferOperationServiceImpl(pool, transactionRepository, executor);
+        var debits = List.of(new TransferLeg(first.getId(), BigDecimal.ONE));
+        var credits = List.of(new TransferLeg(second.getId(), BigDecimal.ONE));
+
+        var firstGroup = transferService.transfer(debits, credits);
+        var secondGroup = otherInstance.transfer(debits, credits);
+        var thirdGroup = transferService.transfer(debits, credits);
+
+        assertNotEquals(firstGroup.getGroupId(), secondGroup.getGroupId());
+        assertNotEquals(secondGroup.getGroupId(), thirdGroup.getGroupId());
+        assertNotEquals(firstGroup.getGroupId(), thirdGroup.getGroupId());
+    }
+
+    @DisplayName("concurrent single and multi-leg transfers, many of them rejected, neither deadlock nor change the money supply")
+    @SneakyThrows
+    @RepeatedTest(20)
+    void conservationTest() {
+        var third = createAccount(0L);
+        var ids = List.of(first.getId(), second.getId(), third.getId());
+        var futures = new ArrayList<Future<?>>();
+        var threads = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            var seed = i;
+            futures.add(threads.submit(() -> {
+                var random = new Random(seed);
+                for (int j = 0; j < 150; j++) {
+                    var payer = ids.get(random.nextInt(3));
+                    var payee = ids.get((ids.indexOf(payer) + 1 + random.nextInt(2)) % 3);
+                    var amount = BigDecimal.valueOf(1 + random.nextInt(20));
+                    try {
+                        if (random.nextBoolean()) {
+                            transferService.transfer(payer, payee, amount);
+                        } else {
+                            var other = ids.get(3 - ids.indexOf(payer) - ids.indexOf(payee));
+                            transferService.transfer(
+                                    List.of(new TransferLeg(payer, amount), new TransferLeg(other, amount)),
+                                    List.of(new TransferLeg(payee, amount.add(amount))));
+                        }
+                    } catch (TransferRejectedException e) {
+                        // balance may run out, which is a valid outcome
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        threads.shutdown();
+
+        var expected = new HashMap<Long, BigDecimal>();
+        expected.put(first.getId(), BigDecimal.valueOf(1000L));
+        for (TransferTransaction transaction : transactionRepository.getAll()) {
+            expected.merge(transaction.getFrom(), transaction.getAmount().negate(), BigDecimal::add);
+            expected.merge(transaction.getTo(), transaction.getAmount(), BigDecimal::add);
+        }
+        for (Long id : ids) {
+            var found = accountRepository.find(id);
+            assertEquals(0, expected.getOrDefault(id, BigDecimal.ZERO).compareTo(found.getBalance()),
+                    "Balance of account " + id);
+        }
+    }
+
+    @DisplayName("asynchronous transfer completes on the executor")
+    @Test
+    void asyncTest() {
+        var transaction = transferService.transferAsync(first.getId(), second.getId(), BigDecimal.ONE)
+                .toCompletableFuture()
+                .join();
+
+        assertNotNull(transaction.getId());
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.find(account.getId()).getBalance();
+    }
+
+    private Account createAccount(long balance) {
+        var account = new Account();
+        account.setName("account");
+        account.setBalance(BigDecimal.valueOf(balance));
+        return accountRepository.create(account);
+    }
+}
@@ -0,0 +1,277 @@
+package com.revolut.transfer.service.journal;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.Hold;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.HoldServiceImpl;
+import com.revolut.transfer.service.TransferListener;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Journal replay tests")
+class JournalReplayTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void init() {
+        file = directory.resolve("transfers.journal");
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @DisplayName("accounts are restored with the balances of journaled transfers")
+    @SneakyThrows
+    @Test
+    void replayTest() {
+        var random = new Random(7);
+        var expected = new HashMap<Long, BigDecimal>();
+        var opened = new ArrayList<Account>();
+        try (var journal = new TransferJournal(file)) {
+            for (long id = 1; id <= 100; id++) {
+                var account = account(id, "account " + id, BigDecimal.valueOf(1_000_000L));
+                account.setInternal(id % 10 == 0);
+                journal.accountOpened(account);
+                opened.add(account);
+                expected.put(id, account.getOpeningBalance());
+            }
+            for (int i = 0; i < 30_000; i++) {
+                var from = 1L + random.nextInt(100);
+                var to = 1L + (from + random.nextInt(99)) % 100;
+                var amount = BigDecimal.valueOf(1 + random.nextInt(10_000), random.nextInt(4));
+                journal.onTransfer(transaction(from, to, amount));
+                expected.merge(from, amount.negate(), BigDecimal::add);
+                expected.merge(to, amount, BigDecimal::add);
+            }
+        }
+
+        var repository = RepositoryStubFactory.<Account>initialize(2);
+        var result = new JournalReplay(file, pool, 1).replay(repository);
+
+        assertEquals(30_100L, result.getRecords());
+        assertEquals(0, result.getDamagedBlocks());
+        assertEquals(100, result.getAccounts().size());
+        for (Account account : opened) {
+            var restored = repository.find(account.getId());
+            assertEquals(account.getName(), restored.getName());
+            assertEquals(account.getCreatedAt(), restored.getCreatedAt());
+            assertEquals(account.isInternal(), restored.isInternal());
+            assertEquals(0, account.getOpeningBalance().compareTo(restored.getOpeningBalance()));
+            assertEquals(0, expected.get(account.getId()).compareTo(restored.getBalance()),
+                    "Balance of account " + account.getId());
+            assertEquals(0, expected.get(account.getId()).subtract(account.getOpeningBalance())
+                    .compareTo(result.getNetFlows().get(account.getId())));
+        }
+    }
+
+    @DisplayName("records appended from several threads while the flusher writes are all replayed")
+    @SneakyThrows
+    @Test
+    void concurrentFlushTest() {
+        try (var journal = new TransferJournal(file, 1L)) {
+            journal.accountOpened(account(1L, "from", BigDecimal.valueOf(1_000_000L)));
+            journal.accountOpened(account(2L, "to", BigDecimal.ZERO));
+            var writers = new ArrayList<Thread>();
+            for (int i = 0; i < 4; i++) {
+                var writer = new Thread(() -> {
+                    for (int j = 0; j < 20_000; j++) {
+                        journal.onTransfer(transaction(1L, 2L, BigDecimal.ONE));
+                        if (j % 1000 == 0) Thread.yield();
+                    }
+                });
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        var repository = RepositoryStubFactory.<Account>initialize(2);
+        var result = new JournalReplay(file, pool, 1).replay(repository);
+
+        assertEquals(80_002L, result.getRecords());
+        assertEquals(0, result.getDamagedBlocks());
+        assertEquals(0, BigDecimal.valueOf(920_000L).compareTo(repository.find(1L).getBalance()));
+        assertEquals(0, BigDecimal.valueOf(80_000L).compareTo(repository.find(2L).getBalance()));
+    }
+
+    @DisplayName("amounts of any scale and size are summed exactly")
+    @SneakyThrows
+    @Test
+    void amountTest() {
+        var amounts = List.of(
+                new BigDecimal("0.001"),
+                new BigDecimal("1E+3"),
+                new BigDecimal("9223372036854775807"),
+                new BigDecimal("9223372036854775807"),
+                new BigDecimal("123456789012345678901234567890.123456789"),
+                new BigDecimal("-9223372036854775808"));
+        try (var journal = new TransferJournal(file)) {
+            journal.accountOpened(account(1L, null, BigDecimal.ZERO));
+            journal.accountOpened(account(2L, "", new BigDecimal("1E+40")));
+            for (BigDecimal amount : amounts) {
+                journal.onTransfer(transaction(1L, 2L, amount));
+            }
+        }
+
+        var repository = RepositoryStubFactory.<Account>initialize(1);
+        new JournalReplay(file, pool, 1).replay(repository);
+
+        var sum = amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, sum.negate().compareTo(repository.find(1L).getBalance()));
+        assertEquals(0, sum.add(new BigDecimal("1E+40")).compareTo(repository.find(2L).getBalance()));
+        assertNull(repository.find(1L).getName());
+        assertEquals("", repository.find(2L).getName());
+    }
+
+    @DisplayName("records after a torn one are skipped to the next block")
+    @SneakyThrows
+    @Test
+    void tornRecordTest() {
+        try (var journal = new TransferJournal(file)) {
+            journal.accountOpened(account(1L, "first", BigDecimal.TEN));
+            journal.accountOpened(account(2L, "second", BigDecimal.ZERO));
+            journal.onTransfer(transaction(1L, 2L, BigDecimal.ONE));
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            var torn = ByteBuffer.allocate(TransferJournal.HEADER_SIZE + 4);
+            torn.put(TransferJournal.TRANSFER).putShort((short) 28).putInt(42).putInt(7).flip();
+            channel.write(torn, channel.size());
+        }
+
+        var repository = RepositoryStubFactory.<Account>initialize(1);
+        var result = new JournalReplay(file, pool, 1).replay(repository);
+
+        assertEquals(1, result.getDamagedBlocks());
+        assertEquals(3L, result.getRecords());
+        assertEquals(0, BigDecimal.valueOf(9L).compareTo(repository.find(1L).getBalance()));
+    }
+
+    @DisplayName("a restarted journal appends to the records of the previous run")
+    @SneakyThrows
+    @Test
+    void restartTest() {
+        try (var journal = new TransferJournal(file)) {
+            journal.accountOpened(account(1L, "first", BigDecimal.TEN));
+            journal.accountOpened(account(2L, "second", BigDecimal.ZERO));
+            journal.onTransfer(transaction(1L, 2L, BigDecimal.ONE));
+        }
+        var repository = RepositoryStubFactory.<Account>initialize(1);
+        new JournalReplay(file, pool, 1).replay(repository);
+        try (var journal = new TransferJournal(file)) {
+            var created = new JournaledAccountRepository(repository, journal).create(account(null, "third", BigDecimal.ONE));
+            assertEquals(3L, created.getId());
+            journal.onTransfer(transaction(2L, 3L, BigDecimal.ONE));
+        }
+
+        var restarted = RepositoryStubFactory.<Account>initialize(1);
+        var result = new JournalReplay(file, pool, 1).replay(restarted);
+
+        assertEquals(3, result.getAccounts().size());
+        assertEquals(0, BigDecimal.valueOf(9L).compareTo(restarted.find(1L).getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(restarted.find(2L).getBalance()));
+        assertEquals(0, BigDecimal.valueOf(2L).compareTo(restarted.find(3L).getBalance()));
+        assertEquals(4L, restarted.create(new Account()).getId());
+    }
+
+    @DisplayName("holds still held when the journal ended are held again after the replay")
+    @SneakyThrows
+    @Test
+    void holdTest() {
+        var accounts = RepositoryStubFactory.<Account>initialize(1);
+        try (var journal = new TransferJournal(file)) {
+            var journaled = new JournaledAccountRepository(accounts, journal);
+            var payer = journaled.create(account(null, "payer", BigDecimal.valueOf(1000L)));
+            var merchant = journaled.create(account(null, "merchant", BigDecimal.ZERO));
+            try (var holdService = new HoldServiceImpl(journaled, RepositoryStubFactory.initialize(),
+                    RepositoryStubFactory.initialize(), journal, journal)) {
+                var captured = holdService.place(payer.getId(), BigDecimal.valueOf(100L), Duration.ofMinutes(1));
+                var released = holdService.place(payer.getId(), BigDecimal.valueOf(200L), Duration.ofMinutes(1));
+                holdService.place(payer.getId(), BigDecimal.valueOf(300L), Duration.ofMinutes(1));
+                holdService.capture(captured.getId(), merchant.getId(), BigDecimal.valueOf(60L));
+                holdService.release(released.getId());
+            }
+        }
+
+        var restarted = RepositoryStubFactory.<Account>initialize(1);
+        var result = new JournalReplay(file, pool, 1).replay(restarted);
+        assertEquals(1, result.getHolds().size());
+        try (var holdService = new HoldServiceImpl(restarted, RepositoryStubFactory.initialize(),
+                RepositoryStubFactory.initialize(), TransferListener.NONE)) {
+            for (Hold hold : result.getHolds()) {
+                holdService.restore(hold);
+            }
+            var hold = result.getHolds().get(0);
+            assertEquals(3L, hold.getId());
+            assertEquals(0, BigDecimal.valueOf(300L).compareTo(hold.getAmount()));
+            assertEquals(0, BigDecimal.valueOf(940L).compareTo(restarted.find(1L).getBalance()));
+            assertEquals(0, BigDecimal.valueOf(640L).compareTo(restarted.find(1L).getAvailableBalance()));
+
+            holdService.release(hold.getId());
+            assertEquals(0, BigDecimal.valueOf(940L).compareTo(restarted.find(1L).getAvailableBalance()));
+        }
+    }
+
+    @DisplayName("missing journal restores nothing")
+    @Test
+    void missingJournalTest() {
+        Repository<Account> repository = RepositoryStubFactory.initialize(1);
+
+        var result = new JournalReplay(file, pool, 1).replay(repository);
+
+        assertTrue(result.getAccounts().isEmpty());
+        assertEquals(Map.of(), result.getNetFlows());
+        assertTrue(repository.getAll().isEmpty());
+    }
+
+    private static Account account(Long id, String name, BigDecimal balance) {
+        var account = new Account();
+        account.setId(id);
+        account.setName(name);
+        account.setBalance(balance);
+        account.setOpeningBalance(balance);
+        account.setCreatedAt(OffsetDateTime.of(2030, 1, 1, 10, 0, 0, 123_456_789, ZoneOffset.UTC));
+        return account;
+    }
+
+    private static TransferTransaction transaction(long from, long to, BigDecimal amount) {
+        var transaction = new TransferTransaction();
+        transaction.setFrom(from);
+        transaction.setTo(to);
+        transaction.setAmount(amount);
+        transaction.setDateTime(OffsetDateTime.now(ZoneOffset.UTC));
+        return transaction;
+    }
+}
@@ -0,0 +1,165 @@
+package com.revolut.transfer.service.limit;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.OutgoingLimits;
+import com.revolut.transfer.model.TransferLeg;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.exception.EntityNotExistsException;
+import com.revolut.transfer.service.exception.TransferRejectedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Outgoing limit tests")
+class OutgoingLimitServiceImplTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    @DisplayName("Sliding windows")
+    @Nested
+    class WindowTest {
+
+        private OutgoingLimits limits;
+
+        @BeforeEach
+        void init() {
+            limits = new OutgoingLimits();
+            limits.setLimits(new BigDecimal("100"), new BigDecimal("250"));
+        }
+
+        @DisplayName("allow amounts up to the hourly limit and free them an hour later")
+        @Test
+        void hourlyTest() {
+            var start = 1000 * HOUR;
+            assertTrue(limits.allows(units("60"), start));
+            limits.record(units("60"), start);
+            limits.record(units("40"), start + 30 * MINUTE);
+
+            assertFalse(limits.allows(units("0.0001"), start + 59 * MINUTE));
+            assertTrue(limits.allows(units("60"), start + HOUR));
+            assertFalse(limits.allows(units("60.0001"), start + HOUR));
+            assertTrue(limits.allows(units("100"), start + 30 * MINUTE + HOUR));
+            assertEquals(0, BigDecimal.ZERO.compareTo(limits.getHourlySpent(start + 2 * HOUR)));
+        }
+
+        @DisplayName("count the day across hours")
+        @Test
+        void dailyTest() {
+            var start = 1000 * HOUR;
+            for (int hour = 0; hour < 3; hour++) {
+                limits.record(units("80"), start + hour * HOUR);
+            }
+
+            assertEquals(0, new BigDecimal("240").compareTo(limits.getDailySpent(start + 3 * HOUR)));
+            assertFalse(limits.allows(units("20"), start + 3 * HOUR));
+            assertTrue(limits.allows(units("10"), start + 3 * HOUR));
+            assertTrue(limits.allows(units("90"), start + 24 * HOUR));
+            assertEquals(0, BigDecimal.ZERO.compareTo(limits.getDailySpent(start + 30 * HOUR)));
+        }
+
+        @DisplayName("round amounts up and reject amounts too large to count")
+        @Test
+        void unitsTest() {
+            assertEquals(1L, OutgoingLimits.units(new BigDecimal("0.00001")));
+            assertEquals(12_345L, OutgoingLimits.units(new BigDecimal("1.2345")));
+            assertFalse(limits.allows(OutgoingLimits.units(new BigDecimal("1e30")), 0L));
+        }
+
+        private long units(String amount) {
+            return OutgoingLimits.units(new BigDecimal(amount));
+        }
+    }
+
+    @DisplayName("Enforcement by transfers")
+    @Nested
+    class TransferTest {
+
+        private Repository<Account> accountRepository;
+        private TransferOperationServiceImpl transferOperationService;
+        private OutgoingLimitServiceImpl outgoingLimitService;
+        private Account payer;
+        private Account receiver;
+
+        @BeforeEach
+        void init() {
+            accountRepository = RepositoryStubFactory.initialize();
+            transferOperationService = new TransferOperationServiceImpl(accountRepository,
+                    RepositoryStubFactory.initialize());
+            outgoingLimitService = new OutgoingLimitServiceImpl(accountRepository);
+            payer = createAccount(1000L);
+            receiver = createAccount(0L);
+        }
+
+        @DisplayName("reject transfers above the limit without changing balances")
+        @Test
+        void limitTest() {
+            outgoingLimitService.setLimits(payer.getId(), BigDecimal.valueOf(100L), null);
+
+            transferOperationService.transfer(payer.getId(), receiver.getId(), BigDecimal.valueOf(70L));
+            assertThrows(TransferRejectedException.class,
+                    () -> transferOperationService.transfer(payer.getId(), receiver.getId(), BigDecimal.valueOf(31L)));
+            transferOperationService.transfer(payer.getId(), receiver.getId(), BigDecimal.valueOf(30L));
+
+            assertEquals(BigDecimal.valueOf(900L), payer.getBalance());
+            var limits = outgoingLimitService.getLimits(payer.getId());
+            assertEquals(0, BigDecimal.valueOf(100L).compareTo(limits.getHourlyLimit()));
+            assertNull(limits.getDailyLimit());
+            assertEquals(0, BigDecimal.valueOf(100L).compareTo(limits.getHourlySpent()));
+            // incoming transfers are not limited
+            transferOperationService.transfer(receiver.getId(), payer.getId(), BigDecimal.valueOf(100L));
+        }
+
+        @DisplayName("reject multi-leg transfers with a debit above the limit")
+        @Test
+        void multiLegTest() {
+            outgoingLimitService.setLimits(payer.getId(), null, BigDecimal.valueOf(50L));
+
+            assertThrows(IllegalArgumentException.class, () -> transferOperationService.transfer(
+                    List.of(new TransferLeg(payer.getId(), BigDecimal.valueOf(60L))),
+                    List.of(new TransferLeg(receiver.getId(), BigDecimal.valueOf(60L)))));
+            transferOperationService.transfer(
+                    List.of(new TransferLeg(payer.getId(), BigDecimal.valueOf(50L))),
+                    List.of(new TransferLeg(receiver.getId(), BigDecimal.valueOf(50L))));
+
+            assertEquals(BigDecimal.valueOf(950L), payer.getBalance());
+            assertEquals(0, BigDecimal.valueOf(50L).compareTo(outgoingLimitService.getLimits(payer.getId()).getDailySpent()));
+        }
+
+        @DisplayName("removing both limits lifts enforcement")
+        @Test
+        void removeTest() {
+            outgoingLimitService.setLimits(payer.getId(), BigDecimal.ZERO, null);
+            assertThrows(TransferRejectedException.class,
+                    () -> transferOperationService.transfer(payer.getId(), receiver.getId(), BigDecimal.ONE));
+
+            var limits = outgoingLimitService.setLimits(payer.getId(), null, null);
+            assertNull(limits.getHourlyLimit());
+            assertNull(payer.getOutgoingLimits());
+            transferOperationService.transfer(payer.getId(), receiver.getId(), BigDecimal.ONE);
+        }
+
+        @DisplayName("reject negative limits and unknown accounts")
+        @Test
+        void validationTest() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> outgoingLimitService.setLimits(payer.getId(), BigDecimal.valueOf(-1L), null));
+            assertThrows(EntityNotExistsException.class, () -> outgoingLimitService.getLimits(-1L));
+        }
+
+        private Account createAccount(long balance) {
+            var account = new Account();
+            account.setName("account");
+            account.setBalance(BigDecimal.valueOf(balance));
+            return accountRepository.create(account);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.revolut.transfer.service.rank;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountActivity;
+import com.revolut.transfer.model.TransferTransaction;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Activity sketch tests")
+class ActivitySketchTest {
+
+    @DisplayName("counts transfers exactly while every account has a counter")
+    @Test
+    void exactTest() {
+        var sketch = new ActivitySketch(16, 1);
+        transfer(sketch, 1L, 2L, 5);
+        transfer(sketch, 3L, 1L, 2);
+        transfer(sketch, 4L, 5L, 1);
+
+        var top = sketch.top(3);
+        assertEquals(List.of(1L, 2L, 3L), ids(top));
+        assertEquals(7L, top.get(0).getTransfers());
+        assertEquals(5L, top.get(1).getTransfers());
+        assertEquals(2L, top.get(2).getTransfers());
+        assertTrue(top.stream().allMatch(activity -> activity.getMaxOverestimate() == 0L));
+    }
+
+    @DisplayName("does not count internal accounts")
+    @Test
+    void internalTest() {
+        var sketch = new ActivitySketch(16, 1);
+        var internal = new Account();
+        internal.setId(1L);
+        internal.setInternal(true);
+        sketch.add(internal);
+        var regular = new Account();
+        regular.setId(2L);
+        sketch.add(regular);
+        transfer(sketch, 1L, 2L, 5);
+        transfer(sketch, 3L, 1L, 2);
+
+        assertEquals(List.of(2L, 3L), ids(sketch.top(3)));
+    }
+
+    @DisplayName("finds heavy hitters among many more accounts than counters")
+    @Test
+    void heavyHittersTest() {
+        var sketch = new ActivitySketch(256, 1);
+        var random = new Random(7L);
+        var actual = new HashMap<Long, Long>();
+        for (int i = 0; i < 100_000; i++) {
+            // every tenth transfer involves one of five busy accounts, the rest are spread over 100 000 accounts
+            var from = i % 10 == 0 ? 1L + random.nextInt(5) : 100L + random.nextInt(100_000);
+            var to = 200_000L + random.nextInt(100_000);
+            transfer(sketch, from, to, 1);
+            actual.merge(from, 1L, Long::sum);
+            actual.merge(to, 1L, Long::sum);
+        }
+
+        var top = sketch.top(5);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(top).stream().sorted().collect(Collectors.toList()));
+        for (AccountActivity activity : top) {
+            var transfers = actual.get(activity.getAccountId());
+            assertTrue(activity.getTransfers() >= transfers);
+            assertTrue(activity.getTransfers() - activity.getMaxOverestimate() <= transfers);
+        }
+    }
+
+    @DisplayName("merges stripes updated concurrently")
+    @SneakyThrows
+    @Test
+    void concurrentTest() {
+        var sketch = new ActivitySketch(32, 4);
+        var executorService = Executors.newFixedThreadPool(8);
+        var futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executorService.submit(() -> {
+                for (long j = 0; j < 10_000; j++) {
+                    transfer(sketch, 1L + j % 10, 11L + j % 10, 1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        var top = sketch.top(ActivitySketch.MAX_LIMIT);
+        assertEquals(20, top.size());
+        assertTrue(top.stream().allMatch(activity -> activity.getTransfers() == 8_000L));
+    }
+
+    @DisplayName("rejects invalid limits")
+    @Test
+    void validationTest() {
+        var sketch = new ActivitySketch();
+        assertThrows(IllegalArgumentException.class, () -> sketch.top(0));
+        assertThrows(IllegalArgumentException.class, () -> sketch.top(ActivitySketch.MAX_LIMIT + 1));
+    }
+
+    private static void transfer(ActivitySketch sketch, long from, long to, int times) {
+        for (int i = 0; i < times; i++) {
+            var transaction = new TransferTransaction();
+            transaction.setFrom(from);
+            transaction.setTo(to);
+            sketch.onTransfer(transaction);
+        }
+    }
+
+    private static List<Long> ids(List<AccountActivity> activities) {
+        return activities.stream().map(AccountActivity::getAccountId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,141 @@
+package com.revolut.transfer.service.rank;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.RankedBalance;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.search.IndexedAccountRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Balance index tests")
+class BalanceIndexTest {
+
+    private BalanceIndex index;
+    private Repository<Account> accountRepository;
+    private TransferOperationServiceImpl transferOperationService;
+
+    @BeforeEach
+    void init() {
+        var stub = RepositoryStubFactory.<Account>initialize();
+        index = new BalanceIndex(stub);
+        accountRepository = new IndexedAccountRepository(stub, index);
+        transferOperationService = new TransferOperationServiceImpl(accountRepository,
+                RepositoryStubFactory.initialize(),
+                index);
+    }
+
+    @DisplayName("returns largest balances first, equal balances by descending id")
+    @Test
+    void orderTest() {
+        var small = create("10");
+        var large = create("300");
+        var first = create("50");
+        var second = create("50");
+
+        assertEquals(List.of(large.getId(), second.getId(), first.getId(), small.getId()), ids(index.find(null, null, 10)));
+        assertEquals(List.of(large.getId(), second.getId()), ids(index.find(null, null, 2)));
+    }
+
+    @DisplayName("keeps balances in the range excluding its bounds")
+    @Test
+    void rangeTest() {
+        var small = create("10");
+        var middle = create("50");
+        var large = create("300");
+
+        assertEquals(List.of(large.getId(), middle.getId()), ids(index.find(new BigDecimal("10"), null, 10)));
+        assertEquals(List.of(middle.getId(), small.getId()), ids(index.find(null, new BigDecimal("300.00"), 10)));
+        assertEquals(List.of(middle.getId()), ids(index.find(new BigDecimal("10"), new BigDecimal("300"), 10)));
+        assertTrue(index.find(new BigDecimal("300"), null, 10).isEmpty());
+    }
+
+    @DisplayName("moves accounts to their balances after transfers")
+    @Test
+    void transferTest() {
+        var payer = create("100");
+        var receiver = create("20");
+
+        transferOperationService.transfer(payer.getId(), receiver.getId(), new BigDecimal("70"));
+
+        var top = index.find(null, null, 10);
+        assertEquals(List.of(receiver.getId(), payer.getId()), ids(top));
+        assertEquals(0, new BigDecimal("90").compareTo(top.get(0).getBalance()));
+        assertEquals(0, new BigDecimal("30").compareTo(top.get(1).getBalance()));
+    }
+
+    @DisplayName("rejects invalid limits and empty ranges")
+    @Test
+    void validationTest() {
+        assertThrows(IllegalArgumentException.class, () -> index.find(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> index.find(null, null, BalanceIndex.MAX_LIMIT + 1));
+        assertThrows(IllegalArgumentException.class, () -> index.find(BigDecimal.TEN, BigDecimal.ONE, 10));
+    }
+
+    @DisplayName("matches balances of all accounts after concurrent transfers")
+    @SneakyThrows
+    @Test
+    void concurrentTransfersTest() {
+        var accounts = new ArrayList<Account>();
+        for (int i = 0; i < 50; i++) {
+            accounts.add(create("1000"));
+        }
+
+        var executorService = Executors.newFixedThreadPool(8);
+        var futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executorService.submit(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int j = 0; j < 5000; j++) {
+                    var from = accounts.get(random.nextInt(accounts.size())).getId();
+                    var to = accounts.get(random.nextInt(accounts.size())).getId();
+                    if (from == to) continue;
+                    try {
+                        transferOperationService.transfer(from, to, BigDecimal.valueOf(random.nextInt(1, 50)));
+                    } catch (IllegalArgumentException e) {
+                        // balance is too low
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        var expected = accounts.stream()
+                .sorted(Comparator.comparing(Account::getBalance).thenComparing(Account::getId).reversed())
+                .map(Account::getId)
+                .collect(Collectors.toList());
+        var top = index.find(null, null, BalanceIndex.MAX_LIMIT);
+        assertEquals(expected, ids(top));
+        for (RankedBalance rankedBalance : top) {
+            assertEquals(accountRepository.find(rankedBalance.getAccountId()).getBalance(), rankedBalance.getBalance());
+        }
+    }
+
+    private Account create(String balance) {
+        var account = new Account();
+        account.setName("name");
+        account.setBalance(new BigDecimal(balance));
+        return accountRepository.create(account);
+    }
+
+    private static List<Long> ids(List<RankedBalance> balances) {
+        return balances.stream().map(RankedBalance::getAccountId).collect(Collectors.toList());
+    }
+}
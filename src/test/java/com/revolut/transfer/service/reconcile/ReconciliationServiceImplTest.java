@@ -0,0 +1,177 @@
+package com.revolut.transfer.service.reconcile;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.ReconciliationReport;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.ForwardingRepository;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import com.revolut.transfer.service.stats.StatisticsAccountRepository;
+import com.revolut.transfer.service.stats.TransferStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Reconciliation checker tests")
+class ReconciliationServiceImplTest {
+
+    private static final int ACCOUNTS = 50;
+
+    private Repository<Account> accountRepository;
+    private Repository<TransferTransaction> transactionRepository;
+    private List<Long> accountIds;
+    private TransferOperationService transferOperationService;
+    private ReconciliationServiceImpl reconciliationService;
+
+    @BeforeEach
+    void prepareService() {
+        var statistics = new TransferStatistics();
+        accountRepository = new StatisticsAccountRepository(RepositoryStubFactory.initialize(4), statistics);
+        // several shards, so the log is walked the way it is on a multi-core machine
+        transactionRepository = RepositoryStubFactory.initialize(4);
+        transferOperationService = new TransferOperationServiceImpl(accountRepository,
+                transactionRepository,
+                statistics);
+        reconciliationService = new ReconciliationServiceImpl(accountRepository,
+                transactionRepository,
+                16,
+                0.5);
+
+        accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            var account = new Account();
+            account.setName("reconciled");
+            account.setBalance(BigDecimal.valueOf(1000L));
+            accountIds.add(accountRepository.create(account).getId());
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        reconciliationService.close();
+    }
+
+    @DisplayName("no divergence is reported while transfers run concurrently")
+    @Test
+    void concurrentTransfersTest() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 20_000; i++) {
+            executor.execute(() -> {
+                var random = ThreadLocalRandom.current();
+                var index = random.nextInt(ACCOUNTS);
+                var from = accountIds.get(index);
+                var to = accountIds.get((index + 1) % ACCOUNTS);
+                try {
+                    transferOperationService.transfer(from, to, BigDecimal.valueOf(random.nextInt(1, 100)));
+                } catch (IllegalArgumentException e) {
+                    // balance is too low
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        var report = awaitPasses(reconciliationService.getReport().getPasses() + 2);
+        assertTrue(report.getDivergences().isEmpty());
+        assertTrue(report.getCheckedAccounts() >= ACCOUNTS);
+    }
+
+    @DisplayName("balance changed outside of transfers is reported")
+    @Test
+    void divergenceTest() throws InterruptedException {
+        transferOperationService.transfer(accountIds.get(0), accountIds.get(1), BigDecimal.TEN);
+        var account = accountRepository.get(accountIds.get(1)).orElseThrow();
+        account.setBalance(account.getBalance().add(BigDecimal.ONE));
+
+        var report = awaitPasses(reconciliationService.getReport().getPasses() + 2);
+        assertEquals(1, report.getDivergences().size());
+        var divergence = report.getDivergences().get(0);
+        assertEquals(accountIds.get(1), divergence.getAccountId());
+        assertEquals(BigDecimal.valueOf(1010L), divergence.getExpectedBalance());
+        assertEquals(BigDecimal.valueOf(1011L), divergence.getActualBalance());
+    }
+
+    @DisplayName("transaction ids that are never stored are stepped over as holes")
+    @Test
+    void holeTest() throws InterruptedException {
+        var from = accountRepository.get(accountIds.get(0)).orElseThrow();
+        var to = accountRepository.get(accountIds.get(1)).orElseThrow();
+        from.setBalance(from.getBalance().subtract(BigDecimal.TEN));
+        to.setBalance(to.getBalance().add(BigDecimal.TEN));
+        var restored = new TransferTransaction();
+        restored.setId(transactionRepository.idOf(0, 10L));
+        restored.setFrom(from.getId());
+        restored.setTo(to.getId());
+        restored.setAmount(BigDecimal.TEN);
+        transactionRepository.restore(restored);
+        transferOperationService.transfer(from.getId(), to.getId(), BigDecimal.ONE);
+
+        for (int i = 0; i < 500 && reconciliationService.getReport().getHoles() < 10L; i++) {
+            Thread.sleep(10);
+        }
+        var report = awaitPasses(reconciliationService.getReport().getPasses() + 2);
+        assertEquals(10L, report.getHoles());
+        assertTrue(report.getDivergences().isEmpty());
+        assertEquals(BigDecimal.valueOf(1011L), to.getBalance());
+    }
+
+    @DisplayName("failed steps are counted and the walk carries on once the repository recovers")
+    @Test
+    void failedStepTest() throws InterruptedException {
+        reconciliationService.close();
+        var failing = new AtomicBoolean(true);
+        var failingRepository = new ForwardingRepository<>(transactionRepository) {
+            @Override
+            public TransferTransaction find(long id) {
+                if (failing.get()) throw new IllegalStateException("Storage is unavailable");
+                return delegate.find(id);
+            }
+        };
+        reconciliationService = new ReconciliationServiceImpl(accountRepository, failingRepository, 16, 0.5);
+        transferOperationService.transfer(accountIds.get(0), accountIds.get(1), BigDecimal.TEN);
+
+        for (int i = 0; i < 500 && reconciliationService.getReport().getFailedSteps() < 3L; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(reconciliationService.getReport().getFailedSteps() >= 3L);
+        failing.set(false);
+        var report = awaitPasses(reconciliationService.getReport().getPasses() + 2);
+        assertTrue(report.getDivergences().isEmpty());
+        assertTrue(report.getCheckedAccounts() >= ACCOUNTS);
+    }
+
+    @DisplayName("repositories which do not track allocated ids are rejected")
+    @Test
+    void unsupportedRepositoryTest() {
+        var untracked = new ForwardingRepository<>(transactionRepository) {
+            @Override
+            public long getAllocatedIds(int shard) {
+                throw new UnsupportedOperationException("Id allocation is not tracked");
+            }
+        };
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReconciliationServiceImpl(accountRepository, untracked, 16, 0.5));
+    }
+
+    private ReconciliationReport awaitPasses(long passes) throws InterruptedException {
+        for (int i = 0; i < 1000 && reconciliationService.getReport().getPasses() < passes; i++) {
+            Thread.sleep(10);
+        }
+        var report = reconciliationService.getReport();
+        assertTrue(report.getPasses() >= passes);
+        return report;
+    }
+}
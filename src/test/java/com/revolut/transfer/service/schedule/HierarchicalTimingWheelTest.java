@@ -0,0 +1,102 @@
+package com.revolut.transfer.service.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Hierarchical timing wheel tests")
+class HierarchicalTimingWheelTest {
+
+    private HierarchicalTimingWheel<Long> wheel;
+
+    @BeforeEach
+    void initWheel() {
+        wheel = new HierarchicalTimingWheel<>(1L, 0L);
+    }
+
+    @DisplayName("every entry expires exactly at its deadline, including cascaded ones")
+    @Test
+    void expiresAtDeadlineTest() {
+        var entries = 5000;
+        for (int i = 0; i < entries; i++) {
+            var deadline = ThreadLocalRandom.current().nextLong(1L, 300_000L);
+            wheel.schedule(deadline, deadline);
+        }
+
+        var expired = 0;
+        for (long now = 0; now <= 300_000L; now++) {
+            var currentTime = now;
+            expired += wheel.advance(now, deadline -> assertEquals(currentTime, (long) deadline));
+        }
+
+        assertEquals(entries, expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @DisplayName("advancing over many ticks at once expires everything due")
+    @Test
+    void catchUpTest() {
+        var expired = new ArrayList<Long>();
+        wheel.schedule(10L, 10L);
+        wheel.schedule(5_000L, 5_000L);
+        wheel.schedule(1_000_000L, 1_000_000L);
+
+        assertEquals(2, wheel.advance(5_000L, expired::add));
+        assertEquals(List.of(10L, 5_000L), expired);
+        assertEquals(1, wheel.size());
+    }
+
+    @DisplayName("cancelled entry never expires")
+    @Test
+    void cancelTest() {
+        var kept = wheel.schedule(100L, 100L);
+        var cancelled = wheel.schedule(200L, 100L);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        var expired = new ArrayList<Long>();
+        wheel.advance(1_000L, expired::add);
+        assertEquals(List.of(kept.getPayload()), expired);
+        assertFalse(wheel.cancel(kept));
+    }
+
+    @DisplayName("entry with deadline in the past expires on next advance")
+    @Test
+    void pastDeadlineTest() {
+        wheel.advance(1_000L, ignored -> fail("nothing is scheduled"));
+        wheel.schedule(1L, 500L);
+
+        var expired = new ArrayList<Long>();
+        wheel.advance(1_001L, expired::add);
+        assertEquals(List.of(1L), expired);
+    }
+
+    @DisplayName("entry beyond horizon is rejected")
+    @Test
+    void horizonTest() {
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedule(1L, wheel.getHorizonMillis()));
+    }
+
+    @DisplayName("many entries due at the same time expire together")
+    @Test
+    void sameDeadlineTest() {
+        var entries = 200_000;
+        for (long i = 0; i < entries; i++) {
+            wheel.schedule(i, 60_000L);
+        }
+
+        Map<Long, Boolean> expired = new HashMap<>();
+        assertEquals(0, wheel.advance(59_999L, id -> expired.put(id, true)));
+        assertEquals(entries, wheel.advance(60_000L, id -> expired.put(id, true)));
+        assertEquals(entries, expired.size());
+    }
+}
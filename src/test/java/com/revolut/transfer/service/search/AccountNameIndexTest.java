@@ -0,0 +1,143 @@
+package com.revolut.transfer.service.search;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.AccountPage;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Account name index tests")
+class AccountNameIndexTest {
+
+    private AccountNameIndex index;
+    private long nextId;
+
+    @BeforeEach
+    void init() {
+        index = new AccountNameIndex();
+        nextId = 1L;
+    }
+
+    @DisplayName("finds accounts whose names start with the prefix ignoring case, ordered by name and id")
+    @Test
+    void prefixTest() {
+        var alice = add("Alice");
+        var alan = add("alan");
+        var bob = add("Bob");
+        var secondAlice = add("ALICE");
+        add("Al");
+
+        assertEquals(List.of(alice.getId(), secondAlice.getId()), ids(index.find("ali", null, null)));
+        assertEquals(List.of(5L, alan.getId(), alice.getId(), secondAlice.getId()), ids(index.find("AL", null, null)));
+        assertEquals(List.of(bob.getId()), ids(index.find("b", null, null)));
+        assertTrue(index.find("c", null, null).getAccounts().isEmpty());
+        assertEquals(5, index.find("", null, null).getAccounts().size());
+    }
+
+    @DisplayName("internal accounts are not searchable")
+    @Test
+    void internalTest() {
+        var clearing = account(nextId++, "accrual clearing");
+        clearing.setInternal(true);
+        index.add(clearing);
+        var named = add("accrual clearing");
+
+        assertEquals(List.of(named.getId()), ids(index.find("accrual", null, null)));
+    }
+
+    @DisplayName("returns snapshots instead of the indexed accounts")
+    @Test
+    void snapshotTest() {
+        var alice = add("Alice");
+        alice.setBalance(BigDecimal.TEN);
+
+        var found = index.find("alice", null, null).getAccounts().get(0);
+
+        assertNotSame(alice, found);
+        assertEquals(alice.getId(), found.getId());
+        assertEquals(BigDecimal.TEN, found.getBalance());
+    }
+
+    @DisplayName("pages through matching accounts with the last returned one as cursor")
+    @Test
+    void paginationTest() {
+        var expected = new ArrayList<Long>();
+        for (int i = 0; i < 25; i++) {
+            expected.add(add("customer").getId());
+            add("other");
+        }
+
+        var found = new ArrayList<Long>();
+        Account after = null;
+        var pages = 0;
+        do {
+            var page = index.find("cust", after, 10);
+            found.addAll(ids(page));
+            pages++;
+            after = page.getNextAfterId() == null ? null : page.getAccounts().get(page.getAccounts().size() - 1);
+        } while (after != null);
+
+        assertEquals(expected, found);
+        assertEquals(3, pages);
+    }
+
+    @DisplayName("rejects bad limits and a cursor outside of the prefix")
+    @Test
+    void rejectTest() {
+        var other = add("other");
+
+        assertThrows(IllegalArgumentException.class, () -> index.find("a", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> index.find("a", null, AccountNameIndex.MAX_LIMIT + 1));
+        assertThrows(IllegalArgumentException.class, () -> index.find(null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> index.find("a", other, null));
+    }
+
+    @DisplayName("accounts added concurrently are all found")
+    @SneakyThrows
+    @Test
+    void concurrentTest() {
+        var executor = Executors.newFixedThreadPool(4);
+        var futures = new ArrayList<Future<?>>();
+        for (int thread = 0; thread < 4; thread++) {
+            var first = thread * 1000L + 1;
+            futures.add(executor.submit(() -> {
+                for (long id = first; id < first + 1000; id++) {
+                    index.add(account(id, "name" + id % 10));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(400, index.find("name7", null, AccountNameIndex.MAX_LIMIT).getAccounts().size());
+    }
+
+    private Account add(String name) {
+        var account = account(nextId++, name);
+        index.add(account);
+        return account;
+    }
+
+    private static Account account(long id, String name) {
+        var account = new Account();
+        account.setId(id);
+        account.setName(name);
+        return account;
+    }
+
+    private static List<Long> ids(AccountPage page) {
+        return page.getAccounts().stream().map(Account::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,120 @@
+package com.revolut.transfer.service.stats;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.model.TransferLeg;
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.repository.Repository;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import com.revolut.transfer.service.TransferOperationService;
+import com.revolut.transfer.service.TransferOperationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Transfer statistics tests")
+class TransferStatisticsTest {
+
+    private TransferStatistics statistics;
+    private Repository<Account> accountRepository;
+    private TransferOperationService transferOperationService;
+
+    @BeforeEach
+    void prepareService() {
+        statistics = new TransferStatistics();
+        accountRepository = new StatisticsAccountRepository(RepositoryStubFactory.initialize(), statistics);
+        Repository<TransferTransaction> transactionRepository = RepositoryStubFactory.initialize();
+        transferOperationService = new TransferOperationServiceImpl(accountRepository,
+                transactionRepository,
+                statistics);
+    }
+
+    @DisplayName("created accounts are added to the money supply")
+    @Test
+    void accountCreatedTest() {
+        createAccount("10.50");
+        createAccount("0.25");
+
+        var summary = statistics.getSummary();
+        assertEquals(2L, summary.getAccounts());
+        assertEquals(new BigDecimal("10.75"), summary.getTotalBalance());
+        assertEquals(0L, summary.getTransfers());
+    }
+
+    @DisplayName("transfers update turnover of both accounts")
+    @Test
+    void turnoverTest() {
+        var first = createAccount("100");
+        var second = createAccount("100");
+        var third = createAccount("0");
+
+        transferOperationService.transfer(first.getId(), second.getId(), BigDecimal.TEN);
+        transferOperationService.transfer(List.of(new TransferLeg(second.getId(), BigDecimal.valueOf(15L))),
+                List.of(new TransferLeg(first.getId(), BigDecimal.ONE), new TransferLeg(third.getId(), BigDecimal.valueOf(14L))));
+
+        var firstTurnover = statistics.getTurnover(first.getId());
+        assertEquals(BigDecimal.TEN, firstTurnover.getDebitTurnover());
+        assertEquals(BigDecimal.ONE, firstTurnover.getCreditTurnover());
+        assertEquals(1L, firstTurnover.getDebitCount());
+        assertEquals(1L, firstTurnover.getCreditCount());
+
+        var secondTurnover = statistics.getTurnover(second.getId());
+        assertEquals(BigDecimal.valueOf(15L), secondTurnover.getDebitTurnover());
+        assertEquals(2L, secondTurnover.getDebitCount());
+
+        var summary = statistics.getSummary();
+        assertEquals(3L, summary.getTransfers());
+        assertEquals(BigDecimal.valueOf(25L), summary.getTransferredAmount());
+    }
+
+    @DisplayName("money supply matches sum of balances after concurrent transfers")
+    @Test
+    void conservationTest() throws InterruptedException {
+        var accounts = new ArrayList<Long>();
+        for (int i = 0; i < 20; i++) {
+            accounts.add(createAccount("1000.00").getId());
+        }
+
+        var executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) {
+            executor.execute(() -> {
+                var random = ThreadLocalRandom.current();
+                var index = random.nextInt(accounts.size());
+                var from = accounts.get(index);
+                var to = accounts.get((index + 1) % accounts.size());
+                try {
+                    transferOperationService.transfer(from, to, BigDecimal.valueOf(random.nextInt(1, 10_000), 2));
+                } catch (IllegalArgumentException e) {
+                    // balance is too low
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        var sum = accountRepository.getAll().stream()
+                .map(Account::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, sum.compareTo(statistics.getSummary().getTotalBalance()));
+        var debits = accountRepository.getAll().stream()
+                .map(account -> statistics.getTurnover(account.getId()).getDebitTurnover())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, debits.compareTo(statistics.getSummary().getTransferredAmount()));
+    }
+
+    private Account createAccount(String balance) {
+        var account = new Account();
+        account.setName("stats");
+        account.setBalance(new BigDecimal(balance));
+        return accountRepository.create(account);
+    }
+}
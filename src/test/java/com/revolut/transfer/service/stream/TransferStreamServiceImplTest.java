@@ -0,0 +1,200 @@
+package com.revolut.transfer.service.stream;
+
+import com.revolut.transfer.model.TransferTransaction;
+import com.revolut.transfer.service.exception.CapacityExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Transfer stream tests")
+class TransferStreamServiceImplTest {
+
+    private TransferStreamServiceImpl streamService;
+
+    @AfterEach
+    void shutdown() {
+        if (streamService != null) streamService.close();
+    }
+
+    @DisplayName("every sequence published concurrently is readable exactly once")
+    @Test
+    void concurrentPublishTest() throws InterruptedException {
+        var ring = new TransferEventRing(1 << 16);
+        var executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ring.publish(transaction(1L, 2L));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000L, ring.getNextSequence());
+        var seen = new HashSet<TransferTransaction>();
+        for (long sequence = 0; sequence < ring.getNextSequence(); sequence++) {
+            assertTrue(seen.add(ring.read(sequence)));
+        }
+        assertNull(ring.read(ring.getNextSequence()));
+    }
+
+    @DisplayName("overwritten sequences are not readable")
+    @Test
+    void overwriteTest() {
+        var ring = new TransferEventRing(4);
+        for (int i = 0; i < 6; i++) {
+            ring.publish(transaction(1L, 2L));
+        }
+
+        assertEquals(2L, ring.getOldestSequence());
+        assertNull(ring.read(1L));
+        assertNotNull(ring.read(2L));
+        assertNotNull(ring.read(5L));
+    }
+
+    @DisplayName("subscriber gets only transfers of its account")
+    @Test
+    void accountFilterTest() throws InterruptedException {
+        var ring = new TransferEventRing(16);
+        streamService = new TransferStreamServiceImpl(ring);
+        var received = new LinkedBlockingQueue<TransferTransaction>();
+        streamService.subscribe(3L, -1L, new CollectingSubscriber(received, new CountDownLatch(0)));
+
+        ring.publish(transaction(1L, 2L));
+        var expected = transaction(3L, 1L);
+        ring.publish(expected);
+
+        assertSame(expected, received.poll(5, TimeUnit.SECONDS));
+        assertNull(received.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @DisplayName("slow subscriber gets a gap and resumes from the oldest buffered transfer")
+    @Test
+    void gapTest() throws InterruptedException {
+        var ring = new TransferEventRing(8);
+        streamService = new TransferStreamServiceImpl(ring);
+        var received = new LinkedBlockingQueue<TransferTransaction>();
+        var release = new CountDownLatch(1);
+        var subscriber = new CollectingSubscriber(received, release);
+        streamService.subscribe(null, -1L, subscriber);
+
+        ring.publish(transaction(1L, 2L));
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        // the subscriber is stuck in delivery while producers run far ahead
+        for (int i = 0; i < 100; i++) {
+            ring.publish(transaction(1L, 2L));
+        }
+        release.countDown();
+
+        var gap = subscriber.gaps.poll(5, TimeUnit.SECONDS);
+        assertNotNull(gap);
+        assertEquals(1L, gap[0]);
+        assertEquals(ring.getOldestSequence(), gap[1]);
+        for (int i = 0; i < 8; i++) {
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @DisplayName("subscribers over the limit are rejected until a subscription ends")
+    @Test
+    void subscriberLimitTest() throws InterruptedException {
+        var ring = new TransferEventRing(16);
+        streamService = new TransferStreamServiceImpl(ring, 2);
+        var received = new LinkedBlockingQueue<TransferTransaction>();
+        var refusing = new CollectingSubscriber(received, new CountDownLatch(0)) {
+            @Override
+            public boolean onTransfer(long sequence, TransferTransaction transaction) {
+                super.onTransfer(sequence, transaction);
+                return false;
+            }
+        };
+        streamService.subscribe(null, null, refusing);
+        streamService.subscribe(null, null, new CollectingSubscriber(received, new CountDownLatch(0)));
+
+        assertThrows(CapacityExceededException.class, () -> streamService.subscribe(null, null,
+                new CollectingSubscriber(received, new CountDownLatch(0))));
+        ring.publish(transaction(1L, 2L));
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        // the refusing subscription ends, so its place is taken by the next subscriber
+        for (int i = 0; i < 500; i++) {
+            try {
+                streamService.subscribe(null, null, new CollectingSubscriber(received, new CountDownLatch(0)));
+                return;
+            } catch (CapacityExceededException e) {
+                Thread.sleep(10);
+            }
+        }
+        fail("Place of the ended subscription was not released");
+    }
+
+    @DisplayName("idle subscriber is woken by the next publish")
+    @Test
+    void wakeUpTest() throws InterruptedException {
+        var ring = new TransferEventRing(16);
+        streamService = new TransferStreamServiceImpl(ring);
+        var received = new LinkedBlockingQueue<TransferTransaction>();
+        streamService.subscribe(null, null, new CollectingSubscriber(received, new CountDownLatch(0)));
+
+        for (int i = 0; i < 20; i++) {
+            // long enough for the subscriber to park
+            Thread.sleep(20);
+            var published = System.nanoTime();
+            ring.publish(transaction(1L, 2L));
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+            // far below the idle timeout, so the subscriber did not wait for it to elapse
+            assertTrue(System.nanoTime() - published < TimeUnit.MILLISECONDS.toNanos(500));
+        }
+    }
+
+    private static TransferTransaction transaction(long from, long to) {
+        var transaction = new TransferTransaction();
+        transaction.setFrom(from);
+        transaction.setTo(to);
+        transaction.setAmount(BigDecimal.ONE);
+        return transaction;
+    }
+
+    private static class CollectingSubscriber implements TransferSubscriber {
+        private final BlockingQueue<TransferTransaction> received;
+        private final BlockingQueue<long[]> gaps = new LinkedBlockingQueue<>();
+        private final CountDownLatch release;
+
+        private CollectingSubscriber(BlockingQueue<TransferTransaction> received, CountDownLatch release) {
+            this.received = received;
+            this.release = release;
+        }
+
+        @Override
+        public boolean onTransfer(long sequence, TransferTransaction transaction) {
+            received.add(transaction);
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean onGap(long missedFrom, long resumeFrom) {
+            gaps.add(new long[]{missedFrom, resumeFrom});
+            return true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+    }
+}
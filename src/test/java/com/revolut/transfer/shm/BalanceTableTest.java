@@ -0,0 +1,115 @@
+package com.revolut.transfer.shm;
+
+import com.revolut.transfer.model.Account;
+import com.revolut.transfer.repository.stub.RepositoryStubFactory;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Balance table tests")
+class BalanceTableTest {
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("reader sees published balances and nothing for other accounts")
+    @Test
+    void publishTest() {
+        var file = directory.resolve("balances");
+        try (var writer = new BalanceTableWriter(file, 16, RepositoryStubFactory.initialize());
+             var reader = BalanceTableReader.open(file)) {
+            writer.publish(3L, new BigDecimal("12.50"));
+            writer.publish(16L, BigDecimal.TEN);
+            writer.publish(17L, BigDecimal.ONE);
+
+            assertEquals(16L, reader.getCapacity());
+            assertEquals(new BigDecimal("12.50"), reader.getBalance(3L));
+            assertEquals(BigDecimal.TEN, reader.getBalance(16L));
+            assertNull(reader.getBalance(1L));
+            assertNull(reader.getBalance(17L));
+            assertNull(reader.getBalance(0L));
+            assertEquals(1L, writer.getUnpublished());
+
+            var balance = new BalanceTableReader.Balance();
+            writer.publish(3L, new BigDecimal("13.75"));
+            assertTrue(reader.read(3L, balance));
+            assertEquals(1375L, balance.getUnscaledValue());
+            assertEquals(2, balance.getScale());
+            assertEquals(4L, balance.getSequence());
+        }
+    }
+
+    @DisplayName("balances not fitting a slot are not readable")
+    @Test
+    void overflowTest() {
+        var file = directory.resolve("balances");
+        try (var writer = new BalanceTableWriter(file, 4, RepositoryStubFactory.initialize());
+             var reader = BalanceTableReader.open(file)) {
+            writer.publish(1L, new BigDecimal(BigInteger.TWO.pow(70)));
+            assertNull(reader.getBalance(1L));
+        }
+    }
+
+    @DisplayName("created accounts are published by the writer as an account index")
+    @Test
+    void accountIndexTest() {
+        var file = directory.resolve("balances");
+        var repository = RepositoryStubFactory.<Account>initialize();
+        try (var writer = new BalanceTableWriter(file, 4, repository);
+             var reader = BalanceTableReader.open(file)) {
+            var account = new Account();
+            account.setBalance(BigDecimal.valueOf(42L));
+            writer.add(repository.create(account));
+            assertEquals(BigDecimal.valueOf(42L), reader.getBalance(account.getId()));
+        }
+    }
+
+    @DisplayName("rejects files which are not balance tables")
+    @SneakyThrows
+    @Test
+    void invalidFileTest() {
+        var file = Files.write(directory.resolve("other"), new byte[128]);
+        assertThrows(IllegalArgumentException.class, () -> BalanceTableReader.open(file));
+    }
+
+    @DisplayName("reads are never torn by a concurrent writer")
+    @SneakyThrows
+    @Test
+    void consistencyTest() {
+        var file = directory.resolve("balances");
+        try (var writer = new BalanceTableWriter(file, 4, RepositoryStubFactory.initialize());
+             var reader = BalanceTableReader.open(file)) {
+            writer.publish(1L, BigDecimal.ZERO);
+            var running = new AtomicBoolean(true);
+            var executorService = Executors.newSingleThreadExecutor();
+            // unscaled value and scale always match each other, a torn read mixes two balances
+            var writes = executorService.submit(() -> {
+                for (long i = 1; running.get(); i++) {
+                    writer.publish(1L, BigDecimal.valueOf(i * 10 + i % 7, (int) (i % 7)));
+                }
+            });
+
+            var balance = new BalanceTableReader.Balance();
+            var previous = 0L;
+            for (int i = 0; i < 1_000_000; i++) {
+                assertTrue(reader.read(1L, balance));
+                assertEquals(balance.getUnscaledValue() % 10, balance.getScale());
+                assertTrue(balance.getSequence() >= previous);
+                previous = balance.getSequence();
+            }
+            running.set(false);
+            writes.get();
+            executorService.shutdown();
+        }
+    }
+}